@@ -1,7 +1,5 @@
 package com.wd.api.config;
 
-import org.springframework.boot.web.servlet.FilterRegistrationBean;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
@@ -11,15 +9,6 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class AppConfig {
 
-    @Bean
-    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter() {
-        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>();
-        registration.setFilter(new IdempotencyFilter());
-        registration.addUrlPatterns("/api/boq/*");
-        registration.setOrder(10);
-        return registration;
-    }
-    
     // Application-specific constants
     public static final String CONTEXT_PATH = "/api";
     public static final String DATABASE_SCHEMA = "public";
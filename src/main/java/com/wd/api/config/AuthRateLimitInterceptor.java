@@ -1,6 +1,5 @@
 package com.wd.api.config;
 
-import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -44,8 +43,7 @@ public class AuthRateLimitInterceptor implements HandlerInterceptor {
 
         String ip = resolveClientIp(request);
         String bucketKey = "auth:" + uri + ":" + ip;
-        Bucket bucket = rateLimiterConfig.resolveBucket(bucketKey, capacity, WINDOW);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        ConsumptionProbe probe = rateLimiterConfig.tryConsume("auth", bucketKey, capacity, WINDOW);
 
         if (probe.isConsumed()) {
             response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
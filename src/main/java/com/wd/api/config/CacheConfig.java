@@ -1,56 +1,159 @@
 package com.wd.api.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Cache configuration for the portal API.
- * Uses in-memory caching for frequently accessed data.
+ *
+ * <p>Every cache is a bounded Caffeine cache with its own maximum size and
+ * time-to-live ({@code cache.specs.<name>}, falling back to
+ * {@code cache.defaults}). Caches with a {@code refresh-after-write} are
+ * refreshed in the background (see {@link RefreshAheadCaffeineCache}), so
+ * entries age out one by one instead of all caches missing at once.
+ *
+ * <p>Stats are recorded on every cache; Spring Boot's cache metrics binder
+ * publishes them as {@code cache.gets}, {@code cache.puts},
+ * {@code cache.evictions} and {@code cache.load.duration}, tagged by cache name.
  */
 @Configuration
 @EnableCaching
+@ConfigurationProperties(prefix = "cache")
 public class CacheConfig {
 
-    /**
-     * Configure cache manager with specific caches.
-     * Note: TTL is handled by the scheduled task below (5 minutes).
-     */
+    /** Names used by {@code @Cacheable} in this codebase; always created, with defaults if unconfigured. */
+    static final List<String> CACHE_NAMES = List.of(
+            "userProjects", "userPermissions", "projectMetadata", "commonData",
+            "dashboardOverview", "dashboardProjects", "dashboardLeads",
+            "dashboardFinance", "dashboardOperations");
+
+    /** Applied to any field a named spec leaves unset. */
+    private Spec defaults = new Spec(500L, Duration.ofMinutes(5), null);
+
+    /** Per cache name; names beyond {@link #CACHE_NAMES} are created too. */
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(PlatformTransactionManager transactionManager) {
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        ThreadPoolExecutor refreshPool = refreshExecutor();
+
+        Map<String, Spec> all = new LinkedHashMap<>();
+        CACHE_NAMES.forEach(name -> all.put(name, new Spec()));
+        all.putAll(specs);
+
+        List<Cache> caches = new ArrayList<>();
+        all.forEach((name, spec) -> {
+            long maxSize = spec.getMaximumSize() != null ? spec.getMaximumSize() : defaults.getMaximumSize();
+            Duration ttl = spec.getTtl() != null ? spec.getTtl() : defaults.getTtl();
+            Duration refresh = spec.getRefreshAfterWrite() != null
+                    ? spec.getRefreshAfterWrite() : defaults.getRefreshAfterWrite();
+
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(ttl)
+                    .executor(refreshPool)
+                    .recordStats();
+            if (refresh != null && refresh.compareTo(ttl) < 0) {
+                builder.refreshAfterWrite(refresh);
+                caches.add(RefreshAheadCaffeineCache.create(name, builder, readOnlyTx));
+            } else {
+                caches.add(new CaffeineCache(name, builder.build(), true));
+            }
+        });
+
         SimpleCacheManager cacheManager = new SimpleCacheManager();
-        cacheManager.setCaches(Arrays.asList(
-            new ConcurrentMapCache("userProjects"),
-            new ConcurrentMapCache("userPermissions"),
-            new ConcurrentMapCache("projectMetadata"),
-            new ConcurrentMapCache("commonData"),
-            // Dashboard caches — evicted every 5 min by clearCaches()
-            new ConcurrentMapCache("dashboardOverview"),
-            new ConcurrentMapCache("dashboardProjects"),
-            new ConcurrentMapCache("dashboardLeads"),
-            new ConcurrentMapCache("dashboardFinance"),
-            new ConcurrentMapCache("dashboardOperations")
-        ));
+        cacheManager.setCaches(caches);
         return cacheManager;
     }
 
     /**
-     * Evict all caches every 5 minutes to prevent out-of-memory errors.
-     * This acts as a global TTL for the SimpleCacheManager.
+     * Background reloads and removal listeners. Small and bounded: if it is
+     * saturated Caffeine drops the refresh and the entry simply lives out its TTL.
      */
-    @org.springframework.scheduling.annotation.Scheduled(fixedRate = 300000)
-    public void clearCaches() {
-        CacheManager manager = cacheManager();
-        manager.getCacheNames().forEach(cacheName -> {
-            org.springframework.cache.Cache cache = manager.getCache(cacheName);
-            if (cache != null) {
-                cache.clear();
-            }
+    private static ThreadPoolExecutor refreshExecutor() {
+        AtomicInteger seq = new AtomicInteger();
+        return new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64), r -> {
+            Thread t = new Thread(r, "cache-refresh-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
         });
     }
+
+    public Spec getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Spec defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Spec> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, Spec> specs) {
+        this.specs = specs;
+    }
+
+    /** Size and expiry for one cache. {@code refreshAfterWrite} must be shorter than {@code ttl} to take effect. */
+    public static class Spec {
+
+        private Long maximumSize;
+        private Duration ttl;
+        private Duration refreshAfterWrite;
+
+        public Spec() {
+        }
+
+        public Spec(Long maximumSize, Duration ttl, Duration refreshAfterWrite) {
+            this.maximumSize = maximumSize;
+            this.ttl = ttl;
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getRefreshAfterWrite() {
+            return refreshAfterWrite;
+        }
+
+        public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
 }
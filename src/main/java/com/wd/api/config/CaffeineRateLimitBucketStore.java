@@ -0,0 +1,69 @@
+package com.wd.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Per-node bucket store. Buckets idle for {@code app.rate-limiting.idle-expiry}
+ * are dropped — keep that at least as long as the longest refill window, so a
+ * dropped bucket would have been full again anyway — and the store never holds
+ * more than {@code app.rate-limiting.maximum-buckets} (bots rotating IPs on the
+ * public endpoints used to grow the old map for the life of the JVM).
+ *
+ * <p>Current size is published as {@code ratelimit.buckets}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limiting.store", havingValue = "memory", matchIfMissing = true)
+public class CaffeineRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final Cache<String, Bucket> buckets;
+
+    @Autowired
+    public CaffeineRateLimitBucketStore(@Value("${app.rate-limiting.idle-expiry:10m}") Duration idleExpiry,
+                                        @Value("${app.rate-limiting.maximum-buckets:100000}") long maximumBuckets,
+                                        MeterRegistry meterRegistry) {
+        this(idleExpiry, maximumBuckets, meterRegistry, Ticker.systemTicker());
+    }
+
+    CaffeineRateLimitBucketStore(Duration idleExpiry, long maximumBuckets,
+                                 MeterRegistry meterRegistry, Ticker ticker) {
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleExpiry)
+                .maximumSize(maximumBuckets)
+                .ticker(ticker)
+                .build();
+        Gauge.builder("ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Rate-limit buckets currently held on this node")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Bucket getBucket(String key, Supplier<BucketConfiguration> configuration) {
+        return buckets.get(key, k -> {
+            LocalBucketBuilder builder = Bucket.builder();
+            for (Bandwidth limit : configuration.get().getBandwidths()) {
+                builder.addLimit(limit);
+            }
+            return builder.build();
+        });
+    }
+
+    long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
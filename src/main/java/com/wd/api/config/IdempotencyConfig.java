@@ -0,0 +1,285 @@
+package com.wd.api.config;
+
+import com.wd.api.filter.IdempotencyFilter;
+import com.wd.api.filter.IdempotencyKeyLocks;
+import com.wd.api.filter.IdempotencyScope;
+import com.wd.api.filter.IdempotencyStore;
+import com.wd.api.filter.InMemoryIdempotencyStore;
+import com.wd.api.filter.JdbcIdempotencyStore;
+import com.wd.api.filter.TieredIdempotencyStore;
+import com.wd.api.repository.IdempotencyResponseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Idempotency for mutation endpoints: one {@link IdempotencyFilter} per call
+ * site, all sharing one {@link IdempotencyStore} ({@code wd.idempotency.store}:
+ * {@code memory}, {@code jdbc} or {@code tiered}, the default).
+ *
+ * <ul>
+ *   <li>{@code offline} — offline mobile queue (site reports, delays, task
+ *       completion). Mounted just before the dispatcher servlet, after auth
+ *       (Spring Security sits at {@code -100}).</li>
+ *   <li>{@code boq} — BOQ {@code /execute} and {@code /bill}, keys scoped to
+ *       the authenticated user.</li>
+ * </ul>
+ *
+ * <p>Each scope's paths, methods, headers and TTL are configurable under
+ * {@code wd.idempotency.<scope>.*}. The older {@code wd.idempotency.scoped-paths}
+ * still overrides the offline paths.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "wd.idempotency")
+public class IdempotencyConfig {
+
+    static final String DEFAULT_OFFLINE_PATHS =
+            "^/api/site-reports(/.*)?$"
+                    + "|^/api/projects/[^/]+/delays(/.*)?$"
+                    + "|^/api/tasks/[^/]+/mark-complete$";
+
+    static final String DEFAULT_BOQ_PATHS = "^/api/boq/[^/]+/(execute|bill)$";
+
+    /** memory | jdbc | tiered */
+    private String store = "tiered";
+
+    /** Upper bound on response bytes held by the in-memory store or tier. */
+    private DataSize memoryMaxBytes = DataSize.ofMegabytes(32);
+
+    /** JDBC store gzips bodies larger than this. */
+    private DataSize compressThreshold = DataSize.ofKilobytes(8);
+
+    /** How long a duplicate waits for the in-flight original before getting 409. */
+    private Duration inFlightWait = Duration.ofSeconds(30);
+
+    /** Request bodies larger than this are spooled to a temp file while hashed. */
+    private DataSize bodySpillThreshold = DataSize.ofKilobytes(256);
+
+    /** G-58 property name for the offline paths; wins over {@code offline.paths} when set. */
+    private String scopedPaths;
+
+    private Scope offline = new Scope(DEFAULT_OFFLINE_PATHS, List.of(), "Idempotency-Key",
+            "Idempotency-Replayed", Duration.ofHours(24), false, 255, Ordered.LOWEST_PRECEDENCE - 10);
+
+    private Scope boq = new Scope(DEFAULT_BOQ_PATHS, List.of("PATCH"), "X-Idempotency-Key",
+            "X-Idempotency-Replayed", Duration.ofMinutes(5), true, 128, 10);
+
+    @Bean
+    public IdempotencyStore idempotencyStore(IdempotencyResponseRepository repo, MeterRegistry meterRegistry) {
+        return switch (store) {
+            case "memory" -> new InMemoryIdempotencyStore(memoryMaxBytes.toBytes(), meterRegistry);
+            case "jdbc" -> new JdbcIdempotencyStore(repo, compressThreshold.toBytes());
+            case "tiered" -> new TieredIdempotencyStore(
+                    new InMemoryIdempotencyStore(memoryMaxBytes.toBytes(), meterRegistry),
+                    new JdbcIdempotencyStore(repo, compressThreshold.toBytes()));
+            default -> throw new IllegalArgumentException(
+                    "wd.idempotency.store must be memory, jdbc or tiered, got: " + store);
+        };
+    }
+
+    @Bean
+    public IdempotencyKeyLocks idempotencyKeyLocks() {
+        return new IdempotencyKeyLocks(inFlightWait);
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> offlineIdempotencyFilter(
+            IdempotencyStore idempotencyStore, IdempotencyKeyLocks locks, MeterRegistry meterRegistry) {
+        String paths = scopedPaths != null ? scopedPaths : offline.getPaths();
+        return registration(offline.toScope("offline", paths), idempotencyStore, locks, meterRegistry,
+                offline.getOrder(), "/*");
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> boqIdempotencyFilter(
+            IdempotencyStore idempotencyStore, IdempotencyKeyLocks locks, MeterRegistry meterRegistry) {
+        return registration(boq.toScope("boq", boq.getPaths()), idempotencyStore, locks, meterRegistry,
+                boq.getOrder(), "/api/boq/*");
+    }
+
+    private FilterRegistrationBean<IdempotencyFilter> registration(IdempotencyScope scope,
+                                                                   IdempotencyStore idempotencyStore,
+                                                                   IdempotencyKeyLocks locks,
+                                                                   MeterRegistry meterRegistry,
+                                                                   int order, String urlPattern) {
+        IdempotencyFilter filter = new IdempotencyFilter(scope, idempotencyStore, locks,
+                (int) bodySpillThreshold.toBytes(), meterRegistry);
+        // Distinct names keep OncePerRequestFilter's "already filtered" markers apart.
+        filter.setBeanName(scope.name() + "IdempotencyFilter");
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setName(scope.name() + "IdempotencyFilter");
+        registration.addUrlPatterns(urlPattern);
+        registration.setOrder(order);
+        return registration;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public DataSize getMemoryMaxBytes() {
+        return memoryMaxBytes;
+    }
+
+    public void setMemoryMaxBytes(DataSize memoryMaxBytes) {
+        this.memoryMaxBytes = memoryMaxBytes;
+    }
+
+    public DataSize getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    public void setCompressThreshold(DataSize compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    public Duration getInFlightWait() {
+        return inFlightWait;
+    }
+
+    public void setInFlightWait(Duration inFlightWait) {
+        this.inFlightWait = inFlightWait;
+    }
+
+    public DataSize getBodySpillThreshold() {
+        return bodySpillThreshold;
+    }
+
+    public void setBodySpillThreshold(DataSize bodySpillThreshold) {
+        this.bodySpillThreshold = bodySpillThreshold;
+    }
+
+    public String getScopedPaths() {
+        return scopedPaths;
+    }
+
+    public void setScopedPaths(String scopedPaths) {
+        this.scopedPaths = scopedPaths;
+    }
+
+    public Scope getOffline() {
+        return offline;
+    }
+
+    public void setOffline(Scope offline) {
+        this.offline = offline;
+    }
+
+    public Scope getBoq() {
+        return boq;
+    }
+
+    public void setBoq(Scope boq) {
+        this.boq = boq;
+    }
+
+    /** One call site's coverage and key rules; see {@link IdempotencyScope}. */
+    public static class Scope {
+
+        private String paths;
+        private List<String> methods;
+        private String header;
+        private String replayedHeader;
+        private Duration ttl;
+        private boolean perUser;
+        private int maxKeyLength;
+        private int order;
+
+        public Scope() {
+        }
+
+        public Scope(String paths, List<String> methods, String header, String replayedHeader,
+                     Duration ttl, boolean perUser, int maxKeyLength, int order) {
+            this.paths = paths;
+            this.methods = methods;
+            this.header = header;
+            this.replayedHeader = replayedHeader;
+            this.ttl = ttl;
+            this.perUser = perUser;
+            this.maxKeyLength = maxKeyLength;
+            this.order = order;
+        }
+
+        IdempotencyScope toScope(String name, String pathRegex) {
+            return new IdempotencyScope(name, Pattern.compile(pathRegex), Set.copyOf(methods), header,
+                    replayedHeader, ttl, perUser, maxKeyLength);
+        }
+
+        public String getPaths() {
+            return paths;
+        }
+
+        public void setPaths(String paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public String getHeader() {
+            return header;
+        }
+
+        public void setHeader(String header) {
+            this.header = header;
+        }
+
+        public String getReplayedHeader() {
+            return replayedHeader;
+        }
+
+        public void setReplayedHeader(String replayedHeader) {
+            this.replayedHeader = replayedHeader;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public boolean isPerUser() {
+            return perUser;
+        }
+
+        public void setPerUser(boolean perUser) {
+            this.perUser = perUser;
+        }
+
+        public int getMaxKeyLength() {
+            return maxKeyLength;
+        }
+
+        public void setMaxKeyLength(int maxKeyLength) {
+            this.maxKeyLength = maxKeyLength;
+        }
+
+        public int getOrder() {
+            return order;
+        }
+
+        public void setOrder(int order) {
+            this.order = order;
+        }
+    }
+}
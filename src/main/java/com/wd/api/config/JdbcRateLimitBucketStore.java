@@ -0,0 +1,179 @@
+package com.wd.api.config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Bucket store shared by every instance through the {@code rate_limit_bucket}
+ * table (V167). Each consume locks the bucket row with {@code SELECT ... FOR
+ * UPDATE}, applies the Bucket4j command and writes the new state back, on its
+ * own connection outside any Spring transaction.
+ *
+ * <p>Rows idle longer than {@code app.rate-limiting.idle-expiry} are purged
+ * every few minutes, mirroring the in-memory store's idle expiry.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limiting.store", havingValue = "jdbc")
+public class JdbcRateLimitBucketStore implements RateLimitBucketStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcRateLimitBucketStore.class);
+
+    private final ProxyManager<String> proxyManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration idleExpiry;
+
+    public JdbcRateLimitBucketStore(DataSource dataSource,
+                                    JdbcTemplate jdbcTemplate,
+                                    @Value("${app.rate-limiting.idle-expiry:10m}") Duration idleExpiry) {
+        this.proxyManager = new PostgresProxyManager(dataSource);
+        this.jdbcTemplate = jdbcTemplate;
+        this.idleExpiry = idleExpiry;
+    }
+
+    @Override
+    public Bucket getBucket(String key, Supplier<BucketConfiguration> configuration) {
+        return proxyManager.builder().build(key, configuration);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limiting.purge-interval-ms:300000}")
+    public void purgeIdleBuckets() {
+        int purged = jdbcTemplate.update(
+                "DELETE FROM rate_limit_bucket WHERE updated_at < NOW() - make_interval(secs => ?)",
+                idleExpiry.toSeconds());
+        if (purged > 0) {
+            log.debug("Purged {} idle rate-limit buckets", purged);
+        }
+    }
+
+    /** Bucket4j's select-for-update protocol over plain JDBC (Postgres). */
+    private static final class PostgresProxyManager extends AbstractSelectForUpdateBasedProxyManager<String> {
+
+        private final DataSource dataSource;
+
+        PostgresProxyManager(DataSource dataSource) {
+            super(ClientSideConfig.getDefault());
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        protected SelectForUpdateBasedTransaction allocateTransaction(String key, Optional<Long> requestTimeoutNanos) {
+            Connection connection;
+            try {
+                connection = dataSource.getConnection();
+            } catch (SQLException e) {
+                throw BucketExceptions.from(e);
+            }
+            return new SelectForUpdateBasedTransaction() {
+                @Override
+                public void begin(Optional<Long> timeout) {
+                    try {
+                        connection.setAutoCommit(false);
+                    } catch (SQLException e) {
+                        throw BucketExceptions.from(e);
+                    }
+                }
+
+                @Override
+                public LockAndGetResult tryLockAndGet(Optional<Long> timeout) {
+                    try (PreparedStatement ps = connection.prepareStatement(
+                            "SELECT state FROM rate_limit_bucket WHERE id = ? FOR UPDATE")) {
+                        applyTimeout(ps, timeout);
+                        ps.setString(1, key);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            return rs.next() ? LockAndGetResult.locked(rs.getBytes(1)) : LockAndGetResult.notLocked();
+                        }
+                    } catch (SQLException e) {
+                        throw BucketExceptions.from(e);
+                    }
+                }
+
+                @Override
+                public boolean tryInsertEmptyData(Optional<Long> timeout) {
+                    try (PreparedStatement ps = connection.prepareStatement(
+                            "INSERT INTO rate_limit_bucket (id, state) VALUES (?, NULL) ON CONFLICT (id) DO NOTHING")) {
+                        applyTimeout(ps, timeout);
+                        ps.setString(1, key);
+                        ps.executeUpdate();
+                        return true;
+                    } catch (SQLException e) {
+                        throw BucketExceptions.from(e);
+                    }
+                }
+
+                @Override
+                public void update(byte[] data, RemoteBucketState newState, Optional<Long> timeout) {
+                    try (PreparedStatement ps = connection.prepareStatement(
+                            "UPDATE rate_limit_bucket SET state = ?, updated_at = NOW() WHERE id = ?")) {
+                        applyTimeout(ps, timeout);
+                        ps.setBytes(1, data);
+                        ps.setString(2, key);
+                        ps.executeUpdate();
+                    } catch (SQLException e) {
+                        throw BucketExceptions.from(e);
+                    }
+                }
+
+                @Override
+                public void commit(Optional<Long> timeout) {
+                    try {
+                        connection.commit();
+                    } catch (SQLException e) {
+                        throw BucketExceptions.from(e);
+                    }
+                }
+
+                @Override
+                public void rollback() {
+                    try {
+                        connection.rollback();
+                    } catch (SQLException e) {
+                        throw BucketExceptions.from(e);
+                    }
+                }
+
+                @Override
+                public void release() {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        throw BucketExceptions.from(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void removeProxy(String key) {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("DELETE FROM rate_limit_bucket WHERE id = ?")) {
+                ps.setString(1, key);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                throw BucketExceptions.from(e);
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.wd.api.config;
 
-import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -32,8 +31,7 @@ public class PublicLeadRateLimitInterceptor implements HandlerInterceptor {
 
         String ip = resolveClientIp(request);
         String bucketKey = "public-lead:" + request.getRequestURI() + ":" + ip;
-        Bucket bucket = rateLimiterConfig.resolveBucket(bucketKey, CAPACITY, WINDOW);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        ConsumptionProbe probe = rateLimiterConfig.tryConsume("public-lead", bucketKey, CAPACITY, WINDOW);
 
         if (probe.isConsumed()) {
             response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
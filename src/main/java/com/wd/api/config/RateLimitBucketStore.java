@@ -0,0 +1,23 @@
+package com.wd.api.config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+import java.util.function.Supplier;
+
+/**
+ * Where {@link RateLimiterConfig} keeps its Bucket4j buckets — the same shape
+ * as Bucket4j's {@code ProxyManager}: look a bucket up by key, creating it
+ * from the supplied configuration on first use.
+ *
+ * <p>Selected by {@code app.rate-limiting.store}:
+ * <ul>
+ *   <li>{@code memory} (default) — {@link CaffeineRateLimitBucketStore}, per node;</li>
+ *   <li>{@code jdbc} — {@link JdbcRateLimitBucketStore}, shared through Postgres
+ *       so limits hold across instances.</li>
+ * </ul>
+ */
+public interface RateLimitBucketStore {
+
+    Bucket getBucket(String key, Supplier<BucketConfiguration> configuration);
+}
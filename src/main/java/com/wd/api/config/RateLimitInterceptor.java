@@ -1,6 +1,5 @@
 package com.wd.api.config;
 
-import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -37,8 +36,7 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         }
 
         String key = resolveUserKey(request) + ":" + uri;
-        Bucket bucket = rateLimiterConfig.resolveBucket(key, CAPACITY, REFILL_DURATION);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        ConsumptionProbe probe = rateLimiterConfig.tryConsume("boq-financial", key, CAPACITY, REFILL_DURATION);
 
         if (probe.isConsumed()) {
             response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
@@ -2,6 +2,10 @@ package com.wd.api.config;
 
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
@@ -9,30 +13,58 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * In-memory rate limiter using Bucket4j.
- * Protects financial write operations (execute, bill, approve) from abuse.
+ * Rate limiter using Bucket4j.
+ * Protects financial write operations (execute, bill, approve), auth and
+ * public lead endpoints from abuse.
  *
- * Limit: 10 requests per minute per user/IP on financial endpoints.
- * For distributed deployments, replace the ConcurrentHashMap cache with
- * a Redis-backed Bucket4j ProxyManager.
+ * Buckets live in a {@link RateLimitBucketStore}: bounded and idle-expiring
+ * in memory by default, or in Postgres ({@code app.rate-limiting.store=jdbc})
+ * when several instances must share limits.
+ *
+ * Every rejection is counted as {@code ratelimit.rejections}, tagged with the
+ * limiter name passed by the interceptor.
  */
 @Configuration
 public class RateLimiterConfig {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final RateLimitBucketStore bucketStore;
+
+    private final MeterRegistry meterRegistry;
+
+    /** One counter per limiter name — a handful of constants, not per key. */
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    public RateLimiterConfig(RateLimitBucketStore bucketStore, MeterRegistry meterRegistry) {
+        this.bucketStore = bucketStore;
+        this.meterRegistry = meterRegistry;
+    }
 
     /**
      * Return (or create) a rate-limit bucket for the given key.
      * Each unique key gets its own independent bucket.
      */
     public Bucket resolveBucket(String key, int capacity, Duration refillDuration) {
-        return buckets.computeIfAbsent(key, k ->
-            Bucket.builder()
+        return bucketStore.getBucket(key, () -> BucketConfiguration.builder()
                 .addLimit(Bandwidth.builder()
-                    .capacity(capacity)
-                    .refillIntervally(capacity, refillDuration)
-                    .build())
-                .build()
-        );
+                        .capacity(capacity)
+                        .refillIntervally(capacity, refillDuration)
+                        .build())
+                .build());
+    }
+
+    /**
+     * Take one token from the key's bucket, counting a rejection against
+     * {@code limiter} when none is left.
+     */
+    public ConsumptionProbe tryConsume(String limiter, String key, int capacity, Duration refillDuration) {
+        ConsumptionProbe probe = resolveBucket(key, capacity, refillDuration).tryConsumeAndReturnRemaining(1);
+        if (!probe.isConsumed()) {
+            rejections.computeIfAbsent(limiter, l -> Counter.builder("ratelimit.rejections")
+                            .description("Requests rejected with 429")
+                            .tag("limiter", l)
+                            .register(meterRegistry))
+                    .increment();
+        }
+        return probe;
     }
 }
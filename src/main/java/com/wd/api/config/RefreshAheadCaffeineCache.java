@@ -0,0 +1,88 @@
+package com.wd.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caffeine-backed cache whose entries are refreshed in the background once
+ * they are older than {@code refreshAfterWrite}: the first read after that
+ * point still returns the cached value and schedules a reload, so callers only
+ * ever block on a genuinely cold key.
+ *
+ * <p>Spring's {@code @Cacheable} carries no reusable loader, so the reload
+ * replays the value loader of the last successful {@code get(key, loader)} for
+ * that key. That only happens for {@code @Cacheable(sync = true)} methods; on
+ * a plain {@code @Cacheable} this behaves as a TTL cache. The replay
+ * re-invokes the target method directly (the interceptor chain has already
+ * been walked), so it runs inside a read-only transaction supplied here.
+ */
+class RefreshAheadCaffeineCache extends CaffeineCache {
+
+    private final Map<Object, Callable<?>> loaders;
+
+    private RefreshAheadCaffeineCache(String name, Cache<Object, Object> cache,
+                                      Map<Object, Callable<?>> loaders) {
+        super(name, cache, true);
+        this.loaders = loaders;
+    }
+
+    /**
+     * @param builder size, expiry, executor and stats already applied; this adds
+     *                the loader and a removal listener
+     */
+    static RefreshAheadCaffeineCache create(String name, Caffeine<Object, Object> builder,
+                                            TransactionTemplate readOnlyTx) {
+        Map<Object, Callable<?>> loaders = new ConcurrentHashMap<>();
+        CacheLoader<Object, Object> loader = new CacheLoader<>() {
+            @Override
+            public Object load(Object key) {
+                // Cold lookups from a non-sync @Cacheable land here; report a miss
+                // so the caller invokes the method and puts the result.
+                return null;
+            }
+
+            @Override
+            public Object reload(Object key, Object oldValue) throws Exception {
+                Callable<?> replay = loaders.get(key);
+                if (replay == null) return oldValue;
+                return readOnlyTx.execute(status -> {
+                    try {
+                        Object v = replay.call();
+                        return v != null ? v : NullValue.INSTANCE;
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+        };
+        Cache<Object, Object> cache = builder
+                // Only size/TTL evictions drop the loader. An explicit evict (domain-event
+                // invalidation) is usually followed by a read that re-registers it, and the
+                // listener runs asynchronously, so removing here could race that read.
+                .removalListener((Object key, Object value, RemovalCause cause) -> {
+                    if (key != null && cause.wasEvicted()) loaders.remove(key);
+                })
+                .build(loader);
+        return new RefreshAheadCaffeineCache(name, cache, loaders);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return super.get(key, () -> {
+            T value = valueLoader.call();
+            loaders.put(key, valueLoader);
+            return value;
+        });
+    }
+}
@@ -1,7 +1,10 @@
 package com.wd.api.config;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -12,14 +15,29 @@ public class WebMvcConfig implements WebMvcConfigurer {
 
     private final boolean rateLimitingEnabled;
 
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
     public WebMvcConfig(RateLimiterConfig rateLimiterConfig,
-                        @Value("${app.rate-limiting.enabled:true}") boolean rateLimitingEnabled) {
+                        @Value("${app.rate-limiting.enabled:true}") boolean rateLimitingEnabled,
+                        ObjectProvider<EntityManagerFactory> entityManagerFactory) {
         this.rateLimiterConfig = rateLimiterConfig;
         this.rateLimitingEnabled = rateLimitingEnabled;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // Open Session In View, registered here instead of by spring.jpa.open-in-view
+        // (disabled) so SSE streams can be left out: an open EntityManager would pin a
+        // pooled JDBC connection for the stream's whole lifetime.
+        EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+        if (emf != null) {
+            OpenEntityManagerInViewInterceptor openInView = new OpenEntityManagerInViewInterceptor();
+            openInView.setEntityManagerFactory(emf);
+            registry.addWebRequestInterceptor(openInView)
+                    .excludePathPatterns("/api/portal/notifications/stream");
+        }
+
         if (!rateLimitingEnabled) {
             return;
         }
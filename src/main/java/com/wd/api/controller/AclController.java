@@ -6,6 +6,7 @@ import com.wd.api.model.PortalRole;
 import com.wd.api.model.enums.PortalRoleCode;
 import com.wd.api.repository.PermissionRepository;
 import com.wd.api.repository.PortalRoleRepository;
+import com.wd.api.security.PortalPrincipalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -64,10 +65,14 @@ public class AclController {
 
     private final PermissionRepository permissionRepository;
 
+    private final PortalPrincipalCache principalCache;
+
     public AclController(PortalRoleRepository portalRoleRepository,
-            PermissionRepository permissionRepository) {
+            PermissionRepository permissionRepository,
+            PortalPrincipalCache principalCache) {
         this.portalRoleRepository = portalRoleRepository;
         this.permissionRepository = permissionRepository;
+        this.principalCache = principalCache;
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -179,6 +184,8 @@ public class AclController {
             List<Permission> permissions = permissionRepository.findAllById(ids);
             role.setPermissions(new HashSet<>(permissions));
             portalRoleRepository.save(role);
+            // Cached principals carry the old authorities
+            principalCache.evictAll();
 
             List<String> permNames = permissions.stream()
                 .map(Permission::getName)
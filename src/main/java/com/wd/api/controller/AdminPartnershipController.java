@@ -3,6 +3,7 @@ package com.wd.api.controller;
 import com.wd.api.model.Lead;
 import com.wd.api.model.PartnershipUser;
 import com.wd.api.repository.LeadRepository;
+import com.wd.api.security.VerifiedToken;
 import com.wd.api.service.JwtService;
 import com.wd.api.service.PartnershipService;
 import org.slf4j.Logger;
@@ -257,11 +258,8 @@ public class AdminPartnershipController {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return "system";
         }
-        try {
-            String token = authHeader.substring(7);
-            return jwtService.extractActualSubject(token);
-        } catch (Exception e) {
-            return "system";
-        }
+        return jwtService.verify(authHeader.substring(7))
+                .map(VerifiedToken::actualSubject)
+                .orElse("system");
     }
 }
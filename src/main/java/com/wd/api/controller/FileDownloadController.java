@@ -1,23 +1,37 @@
 package com.wd.api.controller;
 
+import com.wd.api.service.PhotoRenditionService;
+import com.wd.api.service.StoredFileResolver;
+import com.wd.api.service.StoredFileResolver.StoredFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Controller for serving files from storage
@@ -28,8 +42,27 @@ public class FileDownloadController {
 
     private static final Logger logger = LoggerFactory.getLogger(FileDownloadController.class);
 
-    @Value("${storageBasePath}")
-    private String storageBasePath;
+    /**
+     * Names written by FileStorageService / PhotoRenditionService: a random
+     * UUID, an optional rendition suffix, an extension. Such a file never
+     * changes, so the browser may keep it without revalidating.
+     */
+    private static final Pattern IMMUTABLE_NAME = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}(\\.(thumb|preview))?\\.[A-Za-z0-9]+");
+    static final String CACHE_IMMUTABLE = "private, max-age=31536000, immutable";
+    static final String CACHE_REVALIDATE = "private, no-cache";
+
+    // Tomcat's sendfile contract (see its DefaultServlet): set these and write no body.
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final StoredFileResolver storedFileResolver;
+
+    public FileDownloadController(StoredFileResolver storedFileResolver) {
+        this.storedFileResolver = storedFileResolver;
+    }
 
     /**
      * Serve files from storage path
@@ -43,12 +76,24 @@ public class FileDownloadController {
      * create + view site reports (with embedded photos) but don't have the
      * documents permission. Auth is still required; the URLs themselves
      * carry unguessable identifiers.
+     *
+     * <p>{@code ?variant=thumb|preview} serves the photo's rendition (see
+     * {@link PhotoRenditionService}) and falls back to the original until
+     * the rendition has been generated.
+     *
+     * <p>Caching: a strong ETag from size and mtime plus Last-Modified, so
+     * If-None-Match / If-Modified-Since get a 304. UUID-named files are
+     * immutable and cacheable by the browser for a year; anything else must
+     * revalidate. Both are {@code private}. Range requests (360° panoramas,
+     * long PDFs) get a 206 with one part or {@code multipart/byteranges}.
+     * Bodies go out through {@code FileChannel.transferTo}, or through
+     * Tomcat's sendfile when the connector offers it.
      */
     @GetMapping({"/api/storage/**", "/api/files/download/**"})
     @PreAuthorize("hasAnyAuthority('DOCUMENT_VIEW', 'SITE_REPORT_VIEW', 'SITE_REPORT_CREATE', 'GALLERY_VIEW')")
-    public ResponseEntity<Resource> serveFile(HttpServletRequest request,
+    public void serveFile(HttpServletRequest request, HttpServletResponse response,
             @RequestParam(required = false) String download,
-            @RequestHeader(value = "Range", required = false) String rangeHeader) {
+            @RequestParam(required = false) String variant) throws IOException {
         try {
             // Get the full request path (everything after the prefix)
             String requestURI = request.getRequestURI();
@@ -72,7 +117,8 @@ public class FileDownloadController {
 
             if (requestPath == null || requestPath.isEmpty()) {
                 logger.warn("Empty request path for URI: {}", requestURI);
-                return ResponseEntity.badRequest().build();
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+                return;
             }
 
             // URL decode the path
@@ -87,80 +133,238 @@ public class FileDownloadController {
 
             // G-63: defence-in-depth against path traversal. Reject obvious
             // attacks (raw `..` segments, NUL bytes, absolute paths) BEFORE
-            // resolving — even though normalize+startsWith below would also
-            // catch them, an early reject keeps suspicious paths out of the
-            // filesystem syscall layer.
+            // resolving — even though the resolver's normalize+startsWith
+            // would also catch them, an early reject keeps suspicious paths
+            // out of the filesystem syscall layer.
             if (requestPath.contains("\0")
                     || hasParentSegment(requestPath)
                     || isAbsolutePathInput(requestPath)) {
                 logger.warn("Suspicious file-download path rejected: {}", requestPath);
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+                response.setStatus(HttpStatus.FORBIDDEN.value());
+                return;
             }
 
-            // Build full file path
-            Path filePath = Paths.get(storageBasePath).resolve(requestPath).normalize();
+            PhotoRenditionService.Variant renditionVariant = null;
+            if (variant != null) {
+                renditionVariant = PhotoRenditionService.Variant.parse(variant);
+                if (renditionVariant == null) {
+                    response.setStatus(HttpStatus.BAD_REQUEST.value());
+                    return;
+                }
+            }
 
-            // Security check - ensure file is within storage directory
-            Path basePath = Paths.get(storageBasePath).toAbsolutePath().normalize();
-            Path normalizedFilePath = filePath.toAbsolutePath().normalize();
-            if (!normalizedFilePath.startsWith(basePath)) {
-                logger.warn("Path traversal attempt blocked: {} (resolved to {})", requestPath, normalizedFilePath);
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            // G-63: containment and the symlink-safe toRealPath() re-check
+            // happen in the resolver, once per path rather than per hit.
+            String servedPath = requestPath;
+            StoredFile file = null;
+            if (renditionVariant != null) {
+                String renditionPath = PhotoRenditionService.pathFor(requestPath, renditionVariant);
+                try {
+                    file = storedFileResolver.resolve(renditionPath);
+                    servedPath = renditionPath;
+                } catch (NoSuchFileException notYetRendered) {
+                    // Fall through to the original.
+                }
+            }
+            BasicFileAttributes attributes;
+            try {
+                if (file == null) {
+                    file = storedFileResolver.resolve(requestPath);
+                }
+                attributes = Files.readAttributes(file.path(), BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                storedFileResolver.evict(servedPath);
+                logger.debug("File not found: {}", servedPath);
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            } catch (AccessDeniedException e) {
+                logger.warn("Path escape blocked: {} ({})", requestPath, e.getMessage());
+                response.setStatus(HttpStatus.FORBIDDEN.value());
+                return;
             }
 
-            // Check if file exists
-            java.net.URI uri = filePath.toUri();
-            if (uri == null) {
-                logger.error("Failed to create URI for file path: {}", filePath);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            long length = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String etag = etag(length, lastModified);
+            String fileName = file.path().getFileName().toString();
+
+            // A variant answered with the original is only a stand-in until the rendition exists:
+            // caching it as immutable would pin the full-size file under the variant URL.
+            boolean renditionPending = renditionVariant != null && servedPath.equals(requestPath);
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    !renditionPending && IMMUTABLE_NAME.matcher(fileName).matches() ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+            // Sets ETag + Last-Modified, and a 304 (or 412) when the preconditions say so.
+            if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+                return;
             }
-            Resource resource = new UrlResource(uri);
-            if (!resource.exists() || !resource.isReadable()) {
-                logger.debug("File not found or not readable: {}", filePath);
-                return ResponseEntity.notFound().build();
+
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            ContentDisposition disposition = ("true".equals(download)
+                    ? ContentDisposition.attachment() : ContentDisposition.inline())
+                    .filename(fileName, StandardCharsets.UTF_8)
+                    .build();
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+
+            List<HttpRange> ranges = rangesToServe(request, etag, lastModified);
+            boolean head = HttpMethod.HEAD.matches(request.getMethod());
+            if (ranges.isEmpty()) {
+                response.setContentType(file.contentType());
+                response.setContentLengthLong(length);
+                if (!head) send(request, response, file, 0, length);
+                return;
             }
 
-            // G-63: symlink-safe re-check. .normalize() does NOT follow
-            // symlinks — a malicious symlink under storageBasePath could
-            // point at /etc/passwd. toRealPath() resolves the symlink chain;
-            // we then re-verify containment under the real base.
+            long[][] spans;
             try {
-                Path realFile = filePath.toRealPath();
-                Path realBase = basePath.toRealPath();
-                if (!realFile.startsWith(realBase)) {
-                    logger.warn("Symlink escape blocked: {} -> {}", filePath, realFile);
-                    return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-                }
-            } catch (java.nio.file.NoSuchFileException nsfe) {
-                return ResponseEntity.notFound().build();
+                spans = spans(ranges, length);
+            } catch (IllegalArgumentException unsatisfiable) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
             }
 
-            // Determine content type
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            if (spans.length == 1) {
+                long start = spans[0][0];
+                long end = spans[0][1];
+                response.setContentType(file.contentType());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, length));
+                response.setContentLengthLong(end - start + 1);
+                if (!head) send(request, response, file, start, end - start + 1);
+            } else {
+                sendMultipart(response, file, spans, length, head);
+            }
+        } catch (Exception e) {
+            logger.error("Error serving file: {}", e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
             }
+        }
+    }
 
-            // Build response headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
+    /** Strong validator: a stored file is only ever replaced, never edited, so size + mtime identify its bytes. */
+    static String etag(long length, long lastModified) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
 
-            if ("true".equals(download)) {
-                headers.setContentDispositionFormData("attachment", resource.getFilename());
+    /**
+     * Ranges to honour: none when there is no Range header, it does not
+     * parse (RFC 9110 says to ignore it then), or an If-Range validator no
+     * longer matches the file.
+     */
+    private static List<HttpRange> rangesToServe(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return List.of();
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            boolean current;
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                current = ifRange.equals(etag); // strong comparison; a weak tag never matches
             } else {
-                headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"");
+                try {
+                    current = request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+                } catch (IllegalArgumentException notADate) {
+                    current = false;
+                }
+            }
+            if (!current) {
+                return List.of();
+            }
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException malformed) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Inclusive [start, end] byte spans for {@code ranges}.
+     *
+     * @throws IllegalArgumentException when a range starts past the end of
+     *         the file, or several ranges add up to more than the file itself
+     *         (the overlapping-ranges amplification Spring's own
+     *         {@code HttpRange.toResourceRegions} also refuses)
+     */
+    static long[][] spans(List<HttpRange> ranges, long length) {
+        long[][] spans = new long[ranges.size()][];
+        long total = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            HttpRange range = ranges.get(i);
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            if (start >= length || end < start) {
+                throw new IllegalArgumentException("Range " + range + " not satisfiable for " + length + " bytes");
             }
+            spans[i] = new long[] {start, end};
+            total += end - start + 1;
+        }
+        if (ranges.size() > 1 && total > length) {
+            throw new IllegalArgumentException("Ranges exceed content length");
+        }
+        return spans;
+    }
 
-            headers.setCacheControl("private, no-store, max-age=0");
+    private static String contentRange(long start, long end, long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentLength(resource.contentLength())
-                    .body(resource);
+    /** One contiguous span: Tomcat sendfile when available, else transferTo into the response. */
+    private static void send(HttpServletRequest request, HttpServletResponse response, StoredFile file,
+            long start, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(response.getOutputStream()));
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("Error serving file: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    private static void sendMultipart(HttpServletResponse response, StoredFile file, long[][] spans,
+            long length, boolean head) throws IOException {
+        String boundary = new String(MimeTypeUtils.generateMultipartBoundary(), StandardCharsets.US_ASCII);
+        byte[][] partHeaders = new byte[spans.length][];
+        long contentLength = 0;
+        for (int i = 0; i < spans.length; i++) {
+            partHeaders[i] = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + file.contentType() + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(spans[i][0], spans[i][1], length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            contentLength += partHeaders[i].length + spans[i][1] - spans[i][0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) return;
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            for (int i = 0; i < spans.length; i++) {
+                out.write(partHeaders[i]);
+                transfer(channel, spans[i][0], spans[i][1] - spans[i][0] + 1, target);
+            }
+        }
+        out.write(closing);
+    }
+
+    static void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        while (count > 0) {
+            long sent = channel.transferTo(position, count, target);
+            if (sent <= 0) {
+                throw new EOFException("File shrank while being served");
+            }
+            position += sent;
+            count -= sent;
         }
     }
 
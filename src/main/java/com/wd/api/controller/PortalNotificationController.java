@@ -2,14 +2,18 @@ package com.wd.api.controller;
 
 import com.wd.api.model.PortalUser;
 import com.wd.api.repository.PortalUserRepository;
+import com.wd.api.service.NotificationStreamRegistry;
 import com.wd.api.service.PortalNotificationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -17,7 +21,8 @@ import java.util.Map;
  * REST API for portal staff in-app notifications.
  *
  * GET  /api/portal/notifications?page=0&size=20   — paginated notification list + unread count
- * GET  /api/portal/notifications/unread-count      — badge count only
+ * GET  /api/portal/notifications/unread-count      — badge count only (polling fallback)
+ * GET  /api/portal/notifications/stream            — SSE: unread-count + notification events
  * PUT  /api/portal/notifications/{id}/read         — mark one as read
  * PUT  /api/portal/notifications/read-all          — mark all as read
  */
@@ -34,10 +39,14 @@ public class PortalNotificationController {
 
     private final PortalUserRepository portalUserRepository;
 
+    private final NotificationStreamRegistry streamRegistry;
+
     public PortalNotificationController(PortalNotificationService notificationService,
-            PortalUserRepository portalUserRepository) {
+            PortalUserRepository portalUserRepository,
+            NotificationStreamRegistry streamRegistry) {
         this.notificationService = notificationService;
         this.portalUserRepository = portalUserRepository;
+        this.streamRegistry = streamRegistry;
     }
 
     @GetMapping
@@ -69,6 +78,40 @@ public class PortalNotificationController {
         }
     }
 
+    /**
+     * Live badge updates: the current unread count on connect, then events as
+     * notifications arrive or are read. When this node is at its stream cap the
+     * answer is 503 with {@code fallback=poll}, and the UI keeps polling
+     * {@code /unread-count} until a later reconnect succeeds.
+     *
+     * <p>Excluded from Open Session In View ({@code WebMvcConfig}): the two
+     * lookups below each release their connection, so an open stream holds none.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> stream(Authentication authentication) {
+        try {
+            Long userId = getUserId(authentication);
+            if (userId == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            SseEmitter emitter = streamRegistry.open(userId, notificationService.getUnreadCount(userId));
+            if (emitter == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "60")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Map.of(KEY_ERROR, "Notification stream unavailable", "fallback", "poll"));
+            }
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    // Disable proxy buffering (nginx) so events are not held back.
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (Exception e) {
+            logger.error("Failed to open notification stream for {}: {}", authentication.getName(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of(KEY_ERROR, "Failed to open notification stream", "fallback", "poll"));
+        }
+    }
+
     @PutMapping("/{id}/read")
     public ResponseEntity<?> markRead(@PathVariable Long id, Authentication authentication) {
         try {
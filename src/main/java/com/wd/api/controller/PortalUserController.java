@@ -8,6 +8,7 @@ import com.wd.api.dto.PortalRoleDTO;
 import com.wd.api.model.PortalUser;
 import com.wd.api.repository.PortalUserRepository;
 import com.wd.api.repository.PortalRoleRepository;
+import com.wd.api.security.PortalPrincipalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -40,12 +41,16 @@ public class PortalUserController {
 
     private final PasswordEncoder passwordEncoder;
 
+    private final PortalPrincipalCache principalCache;
+
     public PortalUserController(PortalUserRepository portalUserRepository,
             PortalRoleRepository portalRoleRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            PortalPrincipalCache principalCache) {
         this.portalUserRepository = portalUserRepository;
         this.portalRoleRepository = portalRoleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -211,6 +216,7 @@ public class PortalUserController {
             }
 
             PortalUser user = userOpt.get();
+            String previousEmail = user.getEmail();
 
             // Validate request
             if (request == null) {
@@ -270,6 +276,8 @@ public class PortalUserController {
             }
 
             PortalUser updatedUser = portalUserRepository.save(user);
+            // Role, enabled flag or email may have changed — drop the cached principal
+            principalCache.evictUser(previousEmail);
             return ResponseEntity
                     .ok(ApiResponse.success("User updated successfully", new PortalUserResponse(updatedUser)));
 
@@ -291,11 +299,13 @@ public class PortalUserController {
                 return ResponseEntity.badRequest().body(ApiResponse.error(MSG_USER_ID_REQUIRED));
             }
 
-            if (!portalUserRepository.existsById(id)) {
+            Optional<PortalUser> userOpt = portalUserRepository.findById(id);
+            if (userOpt.isEmpty()) {
                 return ResponseEntity.status(404).body(ApiResponse.error(MSG_USER_NOT_FOUND));
             }
 
             portalUserRepository.deleteById(id);
+            principalCache.evictUser(userOpt.get().getEmail());
             return ResponseEntity.ok(ApiResponse.success("User deleted successfully"));
 
         } catch (Exception e) {
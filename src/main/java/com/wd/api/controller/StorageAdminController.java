@@ -0,0 +1,40 @@
+package com.wd.api.controller;
+
+import com.wd.api.dto.ApiResponse;
+import com.wd.api.scheduler.StorageDedupeJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+public class StorageAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageAdminController.class);
+
+    private final StorageDedupeJob storageDedupeJob;
+
+    public StorageAdminController(StorageDedupeJob storageDedupeJob) {
+        this.storageDedupeJob = storageDedupeJob;
+    }
+
+    /**
+     * Move existing storage onto content-addressed blobs and report the bytes
+     * reclaimed from duplicates. Idempotent; runs synchronously, so expect it
+     * to take a while on the first pass over a large storage tree.
+     */
+    @PostMapping("/dedupe")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<StorageDedupeJob.Report>> dedupe() {
+        try {
+            StorageDedupeJob.Report report = storageDedupeJob.run();
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Dedupe complete: " + report.bytesReclaimed() + " bytes reclaimed", report));
+        } catch (Exception e) {
+            logger.error("Storage dedupe failed", e);
+            return ResponseEntity.status(500).body(ApiResponse.error("Dedupe failed: " + e.getMessage()));
+        }
+    }
+}
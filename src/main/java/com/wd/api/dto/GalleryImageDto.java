@@ -17,6 +17,9 @@ public class GalleryImageDto {
     private String imageUrl;
     private String imagePath;
     private String thumbnailPath;
+    private String previewPath;
+    private String thumbnailUrl;
+    private String previewUrl;
     private String caption;
     private String locationTag;
     private String[] tags;
@@ -36,6 +39,10 @@ public class GalleryImageDto {
         dto.setImageUrl(entity.getImageUrl());
         dto.setImagePath(entity.getImagePath());
         dto.setThumbnailPath(entity.getThumbnailPath());
+        dto.setPreviewPath(entity.getPreviewPath());
+        // Until the renditions are written, ?variant= on the original serves the nearest available file.
+        dto.setThumbnailUrl(renditionUrl(entity.getImageUrl(), entity.getThumbnailPath(), "thumb"));
+        dto.setPreviewUrl(renditionUrl(entity.getImageUrl(), entity.getPreviewPath(), "preview"));
         dto.setCaption(entity.getCaption());
         dto.setLocationTag(entity.getLocationTag());
         dto.setTags(entity.getTags());
@@ -60,6 +67,12 @@ public class GalleryImageDto {
         return dto;
     }
 
+    static String renditionUrl(String imageUrl, String renditionPath, String variant) {
+        if (renditionPath != null) return "/api/storage/" + renditionPath;
+        if (imageUrl == null) return null;
+        return imageUrl + (imageUrl.contains("?") ? "&" : "?") + "variant=" + variant;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -117,6 +130,30 @@ public class GalleryImageDto {
         this.thumbnailPath = thumbnailPath;
     }
 
+    public String getPreviewPath() {
+        return previewPath;
+    }
+
+    public void setPreviewPath(String previewPath) {
+        this.previewPath = previewPath;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getPreviewUrl() {
+        return previewUrl;
+    }
+
+    public void setPreviewUrl(String previewUrl) {
+        this.previewUrl = previewUrl;
+    }
+
     public String getCaption() {
         return caption;
     }
@@ -7,6 +7,10 @@ public class SiteReportPhotoDto {
     private Long id;
     private String photoUrl;
     private String storagePath;
+    private String thumbnailPath;
+    private String previewPath;
+    private String thumbnailUrl;
+    private String previewUrl;
     private LocalDateTime createdAt;
     private String caption;
     private Double latitude;
@@ -17,6 +21,10 @@ public class SiteReportPhotoDto {
         this.id = photo.getId();
         this.photoUrl = photo.getPhotoUrl();
         this.storagePath = photo.getStoragePath();
+        this.thumbnailPath = photo.getThumbnailPath();
+        this.previewPath = photo.getPreviewPath();
+        this.thumbnailUrl = GalleryImageDto.renditionUrl(photo.getPhotoUrl(), thumbnailPath, "thumb");
+        this.previewUrl = GalleryImageDto.renditionUrl(photo.getPhotoUrl(), previewPath, "preview");
         this.createdAt = photo.getCreatedAt();
         this.caption = photo.getCaption();
         this.latitude = photo.getLatitude();
@@ -48,6 +56,38 @@ public class SiteReportPhotoDto {
         this.storagePath = storagePath;
     }
 
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+
+    public void setThumbnailPath(String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+    }
+
+    public String getPreviewPath() {
+        return previewPath;
+    }
+
+    public void setPreviewPath(String previewPath) {
+        this.previewPath = previewPath;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getPreviewUrl() {
+        return previewUrl;
+    }
+
+    public void setPreviewUrl(String previewUrl) {
+        this.previewUrl = previewUrl;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,17 @@
+package com.wd.api.event;
+
+/**
+ * Published when a delay is logged, closed or deleted — i.e. whenever a
+ * project's count of open delays can change.
+ */
+public class DelayChangedEvent extends DomainEvent {
+
+    private final Long delayId;
+
+    public DelayChangedEvent(Object source, Long delayId, Long projectId, Change change) {
+        super(source, projectId, change);
+        this.delayId = delayId;
+    }
+
+    public Long getDelayId() { return delayId; }
+}
@@ -0,0 +1,30 @@
+package com.wd.api.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Base type for the coarse "something about aggregate X changed" events
+ * published by write services. Subscribers that only care about a kind of
+ * aggregate listen on the concrete subtype; ones that care about every
+ * mutation (cache invalidation, audit) listen on this type.
+ *
+ * <p>Published inside the writer's transaction; listeners that must observe
+ * committed state use {@code @TransactionalEventListener}.
+ */
+public abstract class DomainEvent extends ApplicationEvent {
+
+    public enum Change { CREATED, UPDATED, DELETED }
+
+    private final Long projectId;
+    private final Change change;
+
+    protected DomainEvent(Object source, Long projectId, Change change) {
+        super(source);
+        this.projectId = projectId;
+        this.change    = change;
+    }
+
+    /** Owning project, or {@code null} for aggregates not yet tied to one (e.g. open leads). */
+    public Long getProjectId() { return projectId; }
+    public Change getChange()  { return change; }
+}
@@ -0,0 +1,17 @@
+package com.wd.api.event;
+
+/**
+ * Published when a lead is created, edited (status, score, value), deleted or
+ * converted. Conversion additionally publishes a {@link ProjectChangedEvent}.
+ */
+public class LeadChangedEvent extends DomainEvent {
+
+    private final Long leadId;
+
+    public LeadChangedEvent(Object source, Long leadId, Change change) {
+        super(source, null, change);
+        this.leadId = leadId;
+    }
+
+    public Long getLeadId() { return leadId; }
+}
@@ -0,0 +1,24 @@
+package com.wd.api.event;
+
+/**
+ * Published when money moves or is billed: a customer payment is scheduled or
+ * recorded, an invoice is raised, or a cost (labour, procurement,
+ * subcontract) is paid.
+ */
+public class PaymentChangedEvent extends DomainEvent {
+
+    /** Which side of the ledger changed; revenue feeds more dashboards than cost. */
+    public enum Kind { CUSTOMER_PAYMENT, INVOICE, COST }
+
+    private final Kind kind;
+    private final Long paymentId;
+
+    public PaymentChangedEvent(Object source, Kind kind, Long paymentId, Long projectId, Change change) {
+        super(source, projectId, change);
+        this.kind      = kind;
+        this.paymentId = paymentId;
+    }
+
+    public Kind getKind()       { return kind; }
+    public Long getPaymentId()  { return paymentId; }
+}
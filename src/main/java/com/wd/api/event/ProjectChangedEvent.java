@@ -0,0 +1,12 @@
+package com.wd.api.event;
+
+/**
+ * Published when a project is created, deleted, or has its status, phase,
+ * budget or dates changed.
+ */
+public class ProjectChangedEvent extends DomainEvent {
+
+    public ProjectChangedEvent(Object source, Long projectId, Change change) {
+        super(source, projectId, change);
+    }
+}
@@ -0,0 +1,18 @@
+package com.wd.api.event;
+
+/**
+ * Published when a task is created or deleted, or when an edit can move its
+ * status or due date (the fields task KPIs count on). Pure schedule or
+ * progress-percentage edits that leave the status alone do not publish.
+ */
+public class TaskChangedEvent extends DomainEvent {
+
+    private final Long taskId;
+
+    public TaskChangedEvent(Object source, Long taskId, Long projectId, Change change) {
+        super(source, projectId, change);
+        this.taskId = taskId;
+    }
+
+    public Long getTaskId() { return taskId; }
+}
@@ -1,7 +1,8 @@
 package com.wd.api.filter;
 
-import com.wd.api.model.IdempotencyResponse;
-import com.wd.api.repository.IdempotencyResponseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
@@ -12,66 +13,110 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletResponseWrapper;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.Ordered;
-import org.springframework.core.annotation.Order;
+import jakarta.servlet.http.Part;
 import org.springframework.lang.NonNull;
-import org.springframework.stereotype.Component;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 /**
- * S5 PR1: caches 2xx responses keyed by the {@code Idempotency-Key} header for
- * 24 hours, scoped to a configurable set of mutation paths. Absent header is a
- * no-op (pre-S5 clients keep working).
+ * S5 PR1: caches 2xx responses keyed by a client-supplied idempotency header,
+ * scoped to a configurable set of mutation paths. Absent header is a no-op
+ * (pre-S5 clients keep working).
+ *
+ * <p>One class serves every call site; each registration gets its own
+ * {@link IdempotencyScope} from {@code IdempotencyConfig}:
+ * {@code offline} ({@code Idempotency-Key}, 24h — site reports, delays, task
+ * completion from the offline mobile queue) and {@code boq}
+ * ({@code X-Idempotency-Key}, 5 min, per user — BOQ {@code /execute} and
+ * {@code /bill}). Responses live in the configured {@link IdempotencyStore}.
  *
  * <p>G-57 hardening: stores SHA-256 of the request body alongside the cached
  * response and returns 409 Conflict when the same key is replayed with a
  * different payload. Previously, key-only matching would silently replay the
  * original response — risky for financial mutations.
  *
- * <p>G-58 hardening: scope path-pattern is loaded from
- * {@code wd.idempotency.scoped-paths} (regex) so new mutation endpoints can be
- * brought under the filter without code edits. Default preserves the original
- * S5 PR1 scope.
+ * <p>G-58 hardening: scope path-patterns are configuration
+ * ({@code wd.idempotency.<scope>.paths}, regex) so new mutation endpoints can
+ * be brought under the filter without code edits.
+ *
+ * <p>The body hash is computed while streaming, never from a whole-body
+ * {@code byte[]}: plain bodies are digested as they are spooled (in memory up
+ * to {@code wd.idempotency.body-spill-threshold}, default 256 KB, then to a
+ * temp file), and multipart uploads are hashed part by part from the
+ * container's own disk-backed parts, so photo uploads are never heap-resident.
+ *
+ * <p>A duplicate arriving while the first request still runs waits for it
+ * ({@link IdempotencyKeyLocks}) and replays its response; if the wait times
+ * out it gets 409 {@code IDEMPOTENCY_REQUEST_IN_PROGRESS}.
  *
- * <p>Mounted late enough to run after auth (Spring Security default order is
- * {@code SecurityProperties.DEFAULT_FILTER_ORDER == -100}); we sit just before
- * the dispatcher servlet at {@code LOWEST_PRECEDENCE - 10}.
+ * <p>Outcomes are counted as {@code idempotency.requests} (tags {@code scope},
+ * {@code outcome}: executed, replayed, conflict, in_progress) and stored
+ * response sizes recorded in {@code idempotency.stored.bytes}.
  */
-@Component("offlineIdempotencyFilter")
-@Order(Ordered.LOWEST_PRECEDENCE - 10)
 public class IdempotencyFilter extends OncePerRequestFilter {
 
-    private static final String HEADER = "Idempotency-Key";
-    private static final long CACHE_TTL_HOURS = 24;
+    /** Bodies up to this size are hashed and held in memory; larger ones spill to a temp file. */
+    static final int DEFAULT_SPILL_THRESHOLD = 256 * 1024;
+
+    /** {@code idempotency_responses.idempotency_key} width; longer storage keys are hashed down. */
+    private static final int MAX_STORAGE_KEY_LENGTH = 64;
+
+    private final IdempotencyScope scope;
+    private final IdempotencyStore store;
+    private final IdempotencyKeyLocks locks;
+    private final int spillThreshold;
 
-    static final String DEFAULT_SCOPED_PATHS =
-            "^/api/site-reports(/.*)?$"
-                    + "|^/api/projects/[^/]+/delays(/.*)?$"
-                    + "|^/api/tasks/[^/]+/mark-complete$";
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter conflicts;
+    private final Counter inProgress;
+    private final DistributionSummary storedBytes;
 
-    private final IdempotencyResponseRepository repo;
-    private final Pattern scopedPaths;
+    public IdempotencyFilter(IdempotencyScope scope, IdempotencyStore store, IdempotencyKeyLocks locks,
+                             int spillThreshold, MeterRegistry meterRegistry) {
+        this.scope = scope;
+        this.store = store;
+        this.locks = locks;
+        this.spillThreshold = spillThreshold;
+        this.executed = outcomeCounter(meterRegistry, "executed");
+        this.replayed = outcomeCounter(meterRegistry, "replayed");
+        this.conflicts = outcomeCounter(meterRegistry, "conflict");
+        this.inProgress = outcomeCounter(meterRegistry, "in_progress");
+        this.storedBytes = DistributionSummary.builder("idempotency.stored.bytes")
+                .description("Size of responses stored for replay")
+                .baseUnit("bytes")
+                .tag("scope", scope.name())
+                .register(meterRegistry);
+    }
 
-    public IdempotencyFilter(IdempotencyResponseRepository repo,
-                             @Value("${wd.idempotency.scoped-paths:" + DEFAULT_SCOPED_PATHS + "}")
-                             String scopedPathsRegex) {
-        this.repo = repo;
-        this.scopedPaths = Pattern.compile(scopedPathsRegex);
+    private Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests carrying an idempotency key, by outcome")
+                .tag("scope", scope.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -79,124 +124,256 @@ public class IdempotencyFilter extends OncePerRequestFilter {
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain chain) throws ServletException, IOException {
 
-        String key = request.getHeader(HEADER);
+        String key = request.getHeader(scope.header());
         String path = request.getRequestURI();
         String method = request.getMethod();
 
-        if (key == null || key.isBlank() || !scopedPaths.matcher(path).matches()) {
+        if (key == null || key.isBlank() || !scope.covers(method, path)) {
             chain.doFilter(request, response);
             return;
         }
 
-        // Buffer the body once so we can hash it AND let the controller read
-        // it normally via getInputStream(). A naive readAllBytes() on the
-        // original request would consume the stream and break the controller.
-        BufferedRequestWrapper wrappedRequest = new BufferedRequestWrapper(request);
-        String bodyHash = sha256Hex(wrappedRequest.getBufferedBody());
-
-        Optional<IdempotencyResponse> hit =
-                repo.findByIdempotencyKeyAndRequestMethodAndRequestPath(key, method, path);
-        if (hit.isPresent() && hit.get().getExpiresAt().isAfter(LocalDateTime.now())) {
-            IdempotencyResponse cached = hit.get();
-
-            // G-57: replays with the same key but a different body must NOT
-            // silently return the original 2xx. Treat NULL legacy hashes as
-            // "skip check" — rows expire within 24h so the gap closes itself.
-            String cachedHash = cached.getRequestBodyHash();
-            if (cachedHash != null && !cachedHash.equals(bodyHash)) {
+        if (key.length() > scope.maxKeyLength()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"success\":false,\"message\":\"" + scope.header()
+                    + " must not exceed " + scope.maxKeyLength() + " characters\"}");
+            return;
+        }
+        String storageKey = storageKey(key);
+
+        // Hash the body before the lookup (G-57 needs it to refuse a changed
+        // payload) without holding large uploads on the heap.
+        if (isMultipart(request)) {
+            // Let the container parse the parts — it spools file parts to disk —
+            // and hash them part by part. The controller reads the same parsed
+            // parts, so the raw stream is never touched here.
+            String bodyHash;
+            try {
+                bodyHash = multipartHash(request);
+            } catch (IllegalStateException | ServletException e) {
+                // Oversized or malformed upload: the dispatcher hits the same
+                // parse error and answers it the usual way.
+                chain.doFilter(request, response);
+                return;
+            }
+            handle(request, response, chain, storageKey, method, path, bodyHash);
+        } else {
+            // Read the body once through a digest; small bodies stay in memory,
+            // larger ones spill to a temp file that is replayed to the controller.
+            try (SpooledRequestWrapper wrappedRequest = new SpooledRequestWrapper(request, spillThreshold)) {
+                handle(wrappedRequest, response, chain, storageKey, method, path, wrappedRequest.getBodyHash());
+            }
+        }
+    }
+
+    /**
+     * Key under which the response is stored: the client key itself, or — for
+     * per-user scopes and keys too long for the table — a SHA-256 of it.
+     */
+    private String storageKey(String key) {
+        String scoped = scope.perUser() ? currentPrincipal() + ":" + key : key;
+        if (!scope.perUser() && scoped.length() <= MAX_STORAGE_KEY_LENGTH) {
+            return scoped;
+        }
+        return HexFormat.of().formatHex(sha256().digest(scoped.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String currentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() ? auth.getName() : "anonymous";
+    }
+
+    private void handle(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                        String key, String method, String path, String bodyHash)
+            throws ServletException, IOException {
+        Optional<IdempotencyStore.Entry> hit = store.find(key, method, path);
+        if (hit.isEmpty()) {
+            // Concurrent duplicates (offline retries racing the original) wait
+            // here for the first execution rather than running it twice.
+            IdempotencyKeyLocks.Claim claim = locks.acquire(key);
+            if (claim == null) {
+                inProgress.increment();
                 response.setStatus(HttpServletResponse.SC_CONFLICT);
                 response.setContentType("application/json");
                 response.getWriter().write(
-                        "{\"success\":false,\"code\":\"IDEMPOTENCY_KEY_REPLAYED_WITH_DIFFERENT_BODY\","
-                                + "\"message\":\"Idempotency-Key matches a prior request with a "
-                                + "different payload — refusing to replay.\"}");
+                        "{\"success\":false,\"code\":\"IDEMPOTENCY_REQUEST_IN_PROGRESS\","
+                                + "\"message\":\"A request with this idempotency key is still being "
+                                + "processed — retry shortly.\"}");
                 return;
             }
+            try (claim) {
+                hit = store.find(key, method, path);
+                if (hit.isEmpty()) {
+                    execute(request, response, chain, key, method, path, bodyHash);
+                    return;
+                }
+            }
+        }
+        IdempotencyStore.Entry cached = hit.get();
 
-            response.setStatus(cached.getResponseStatus());
-            response.setContentType(cached.getResponseContentType());
-            byte[] body = cached.getResponseBody().getBytes(StandardCharsets.UTF_8);
-            response.setContentLength(body.length);
-            response.addHeader("Idempotency-Replayed", "true");
-            response.getOutputStream().write(body);
-            response.getOutputStream().flush();
+        // G-57: replays with the same key but a different body must NOT
+        // silently return the original 2xx. Treat NULL legacy hashes as
+        // "skip check" — rows expire within 24h so the gap closes itself.
+        String cachedHash = cached.bodyHash();
+        if (cachedHash != null && !cachedHash.equals(bodyHash)) {
+            conflicts.increment();
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            response.setContentType("application/json");
+            response.getWriter().write(
+                    "{\"success\":false,\"code\":\"IDEMPOTENCY_KEY_REPLAYED_WITH_DIFFERENT_BODY\","
+                            + "\"message\":\"Idempotency key matches a prior request with a "
+                            + "different payload — refusing to replay.\"}");
             return;
         }
 
+        replayed.increment();
+        response.setStatus(cached.status());
+        response.setContentType(cached.contentType());
+        response.setContentLength(cached.body().length);
+        response.addHeader(scope.replayedHeader(), "true");
+        response.getOutputStream().write(cached.body());
+        response.getOutputStream().flush();
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         String key, String method, String path, String bodyHash)
+            throws ServletException, IOException {
         // Cache miss (or expired): wrap response, capture body, persist on 2xx.
+        executed.increment();
         CachingResponseWrapper wrapper = new CachingResponseWrapper(response);
-        chain.doFilter(wrappedRequest, wrapper);
+        chain.doFilter(request, wrapper);
         wrapper.flushBuffer();
 
         int status = wrapper.getStatus();
         if (status >= 200 && status < 300) {
-            String body = wrapper.getCapturedBody();
             String contentType = response.getContentType() != null
                     ? response.getContentType() : "application/json";
+            byte[] body = wrapper.getCapturedBytes();
+            store.save(new IdempotencyStore.Entry(key, method, path, status, contentType, body, bodyHash,
+                    LocalDateTime.now().plus(scope.ttl())));
+            storedBytes.record(body.length);
+        }
+    }
 
-            IdempotencyResponse row = IdempotencyResponse.builder()
-                    .idempotencyKey(key)
-                    .requestMethod(method)
-                    .requestPath(path)
-                    .responseStatus(status)
-                    .responseBody(body)
-                    .responseContentType(contentType)
-                    .requestBodyHash(bodyHash)
-                    .cachedAt(LocalDateTime.now())
-                    .expiresAt(LocalDateTime.now().plusHours(CACHE_TTL_HOURS))
-                    .build();
-            repo.save(row);
+    private static boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().startsWith("multipart/");
+    }
+
+    /**
+     * SHA-256 over every part's name, filename, content type and content, in
+     * request order. Independent of the multipart boundary, which clients pick
+     * afresh on each retry, so a genuine retry of the same upload matches.
+     */
+    static String multipartHash(HttpServletRequest request) throws IOException, ServletException {
+        MessageDigest md = sha256();
+        byte[] buf = new byte[8192];
+        for (Part part : request.getParts()) {
+            updateField(md, part.getName());
+            updateField(md, part.getSubmittedFileName());
+            updateField(md, part.getContentType());
+            try (InputStream in = part.getInputStream()) {
+                for (int n; (n = in.read(buf)) != -1; ) {
+                    md.update(buf, 0, n);
+                }
+            }
+            md.update((byte) 0);
         }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static void updateField(MessageDigest md, String value) {
+        if (value != null) md.update(value.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
     }
 
-    private static String sha256Hex(byte[] bytes) {
+    private static MessageDigest sha256() {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(bytes);
-            StringBuilder sb = new StringBuilder(64);
-            for (byte b : digest) sb.append(String.format("%02x", b));
-            return sb.toString();
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
-    // ---- request body buffering ----
+    // ---- request body spooling ----
 
-    /** Reads the body once into memory and re-serves it on every
+    /** Reads the body once, hashing as it goes, and re-serves it on every
      *  getInputStream / getReader call so downstream handlers see an
-     *  untouched stream. */
-    private static final class BufferedRequestWrapper extends HttpServletRequestWrapper {
+     *  untouched stream. Up to {@code threshold} bytes are kept in memory;
+     *  beyond that the body is written to a temp file, deleted on close. */
+    static final class SpooledRequestWrapper extends HttpServletRequestWrapper implements AutoCloseable {
         private final byte[] body;
+        private final Path spillFile;
+        private final String bodyHash;
 
-        BufferedRequestWrapper(HttpServletRequest request) throws IOException {
+        SpooledRequestWrapper(HttpServletRequest request, int threshold) throws IOException {
             super(request);
-            try (var in = request.getInputStream();
-                 var out = new ByteArrayOutputStream()) {
-                in.transferTo(out);
-                this.body = out.toByteArray();
+            MessageDigest md = sha256();
+            byte[] head;
+            Path file = null;
+            try (var in = new DigestInputStream(request.getInputStream(), md)) {
+                head = in.readNBytes(threshold);
+                int next = head.length == threshold ? in.read() : -1;
+                if (next != -1) {
+                    // Past the threshold: write what we have and stream the
+                    // rest straight to disk, still through the digest.
+                    file = Files.createTempFile("idempotency-", ".body");
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                        out.write(head);
+                        out.write(next);
+                        in.transferTo(out);
+                    } catch (IOException e) {
+                        Files.deleteIfExists(file);
+                        throw e;
+                    }
+                    head = null;
+                }
             }
+            this.body = head;
+            this.spillFile = file;
+            this.bodyHash = HexFormat.of().formatHex(md.digest());
         }
 
-        byte[] getBufferedBody() { return body; }
+        String getBodyHash() { return bodyHash; }
+
+        boolean isSpilled() { return spillFile != null; }
 
         @Override
-        public ServletInputStream getInputStream() {
-            ByteArrayInputStream bais = new ByteArrayInputStream(body);
+        public ServletInputStream getInputStream() throws IOException {
+            InputStream source = spillFile != null
+                    ? new BufferedInputStream(Files.newInputStream(spillFile))
+                    : new ByteArrayInputStream(body);
             return new ServletInputStream() {
-                @Override public int read() { return bais.read(); }
-                @Override public boolean isFinished() { return bais.available() == 0; }
+                private boolean finished;
+                @Override public int read() throws IOException {
+                    int b = source.read();
+                    if (b == -1) finished = true;
+                    return b;
+                }
+                @Override public int read(byte[] b, int off, int len) throws IOException {
+                    int n = source.read(b, off, len);
+                    if (n == -1) finished = true;
+                    return n;
+                }
+                @Override public void close() throws IOException { source.close(); }
+                @Override public boolean isFinished() { return finished; }
                 @Override public boolean isReady() { return true; }
                 @Override public void setReadListener(ReadListener l) {
-                    // No-op: body is fully buffered in memory, so non-blocking reads are not used.
+                    // No-op: body is already spooled, so non-blocking reads are not used.
                 }
             };
         }
 
         @Override
-        public BufferedReader getReader() {
+        public BufferedReader getReader() throws IOException {
             return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
         }
+
+        @Override
+        public void close() throws IOException {
+            if (spillFile != null) Files.deleteIfExists(spillFile);
+        }
     }
 
     // ---- response capture helpers ----
@@ -212,7 +389,7 @@ public class IdempotencyFilter extends OncePerRequestFilter {
         @Override public ServletOutputStream getOutputStream() { return outputStream; }
         @Override public PrintWriter getWriter() { return writer; }
 
-        String getCapturedBody() { writer.flush(); return buffer.toString(StandardCharsets.UTF_8); }
+        byte[] getCapturedBytes() { writer.flush(); return buffer.toByteArray(); }
 
         @Override public void flushBuffer() throws IOException {
             writer.flush();
@@ -0,0 +1,75 @@
+package com.wd.api.filter;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-key claims held while a request's first execution runs, so a concurrent
+ * duplicate on this node waits and then replays the stored response instead
+ * of running the mutation twice. Entries exist only while a key is claimed or
+ * awaited.
+ */
+public class IdempotencyKeyLocks {
+
+    private final ConcurrentHashMap<String, KeyLock> inFlight = new ConcurrentHashMap<>();
+    private final Duration wait;
+
+    public IdempotencyKeyLocks(Duration wait) {
+        this.wait = wait;
+    }
+
+    /**
+     * Claim the key, waiting up to the configured time while another request
+     * holds it. Returns {@code null} if the wait runs out (or is interrupted);
+     * otherwise the caller must close the claim once its response is stored.
+     */
+    public Claim acquire(String key) {
+        KeyLock keyLock = inFlight.compute(key, (k, existing) -> {
+            KeyLock l = existing != null ? existing : new KeyLock();
+            l.users++;
+            return l;
+        });
+        boolean acquired = false;
+        try {
+            acquired = keyLock.permit.tryAcquire(wait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!acquired) release(key);
+        }
+        return acquired ? new Claim(key, keyLock) : null;
+    }
+
+    int size() {
+        return inFlight.size();
+    }
+
+    private void release(String key) {
+        inFlight.computeIfPresent(key, (k, l) -> --l.users == 0 ? null : l);
+    }
+
+    private static final class KeyLock {
+        // A permit rather than a lock: the claim may be closed on another thread.
+        final Semaphore permit = new Semaphore(1);
+        int users; // guarded by the map's per-key compute
+    }
+
+    /** A held claim on one key; closing it lets the next waiting duplicate in. */
+    public final class Claim implements AutoCloseable {
+        private final String key;
+        private final KeyLock keyLock;
+
+        private Claim(String key, KeyLock keyLock) {
+            this.key = key;
+            this.keyLock = keyLock;
+        }
+
+        @Override
+        public void close() {
+            keyLock.permit.release();
+            release(key);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.wd.api.filter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * What one {@link IdempotencyFilter} registration covers and how its keys
+ * behave. Built from {@code wd.idempotency.<scope>.*} by {@code IdempotencyConfig}.
+ *
+ * @param name           metric tag, e.g. {@code offline} or {@code boq}
+ * @param paths          request URIs covered (full match)
+ * @param methods        HTTP methods covered; empty means all
+ * @param header         request header carrying the client's key
+ * @param replayedHeader response header set to {@code true} on a replay
+ * @param ttl            how long a response can be replayed
+ * @param perUser        scope keys to the authenticated user, so two users cannot collide
+ * @param maxKeyLength   longer keys are rejected with 400
+ */
+public record IdempotencyScope(String name, Pattern paths, Set<String> methods, String header,
+                               String replayedHeader, Duration ttl, boolean perUser, int maxKeyLength) {
+
+    public boolean covers(String method, String path) {
+        return (methods.isEmpty() || methods.contains(method)) && paths.matcher(path).matches();
+    }
+}
@@ -0,0 +1,57 @@
+package com.wd.api.filter;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Where {@link IdempotencyFilter} keeps the responses it may replay.
+ *
+ * <p>Implementations: {@link InMemoryIdempotencyStore} (per node, bounded by
+ * bytes), {@link JdbcIdempotencyStore} (the {@code idempotency_responses}
+ * table, shared and restart-safe) and {@link TieredIdempotencyStore} (memory
+ * in front of JDBC, the default). Chosen with {@code wd.idempotency.store}.
+ */
+public interface IdempotencyStore {
+
+    /** The live (unexpired) response stored under this key for this method and path. */
+    Optional<Entry> find(String key, String method, String path);
+
+    void save(Entry entry);
+
+    /** A stored 2xx response. {@code key} is the storage key, at most 64 characters. */
+    record Entry(String key, String method, String path, int status, String contentType,
+                 byte[] body, String bodyHash, LocalDateTime expiresAt) {
+
+        public boolean isLive() {
+            return expiresAt.isAfter(LocalDateTime.now());
+        }
+
+        boolean matches(String method, String path) {
+            return this.method.equals(method) && this.path.equals(path);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry(String k, String m, String p, int s, String ct, byte[] b, String h,
+                                      LocalDateTime e)
+                    && key.equals(k) && method.equals(m) && path.equals(p) && status == s
+                    && Objects.equals(contentType, ct)
+                    && Arrays.equals(body, b)
+                    && Objects.equals(bodyHash, h)
+                    && Objects.equals(expiresAt, e);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, method, path, status, contentType, Arrays.hashCode(body), bodyHash, expiresAt);
+        }
+
+        @Override
+        public String toString() {
+            return "Entry[key=" + key + ", method=" + method + ", path=" + path
+                    + ", status=" + status + ", body=" + body.length + " bytes, expiresAt=" + expiresAt + "]";
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.wd.api.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Per-node store: a Caffeine cache capped by stored bytes, each entry expiring
+ * at its own {@code expiresAt}. Lost on restart and not shared between
+ * instances — on its own only suitable for single-node setups; normally the
+ * front tier of {@link TieredIdempotencyStore}.
+ *
+ * <p>Exposed as the {@code idempotencyResponses} cache in the {@code cache.*}
+ * metrics, plus the {@code idempotency.memory.bytes} gauge.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, Entry> cache;
+
+    public InMemoryIdempotencyStore(long maxBytes, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> key.length() + entry.body().length)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return nanosUntilExpiry(entry);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return nanosUntilExpiry(entry);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotencyResponses");
+        Gauge.builder("idempotency.memory.bytes", this, InMemoryIdempotencyStore::storedBytes)
+                .description("Response bytes held by the in-memory idempotency store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<Entry> find(String key, String method, String path) {
+        Entry entry = cache.getIfPresent(key);
+        // Same key on another method/path is a different request.
+        return entry != null && entry.matches(method, path) ? Optional.of(entry) : Optional.empty();
+    }
+
+    @Override
+    public void save(Entry entry) {
+        cache.put(entry.key(), entry);
+    }
+
+    long storedBytes() {
+        cache.cleanUp();
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private static long nanosUntilExpiry(Entry entry) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), entry.expiresAt()).toNanos());
+    }
+}
@@ -0,0 +1,91 @@
+package com.wd.api.filter;
+
+import com.wd.api.model.IdempotencyResponse;
+import com.wd.api.repository.IdempotencyResponseRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Store backed by the {@code idempotency_responses} table: shared by every
+ * instance and kept across restarts. Expired rows are removed by
+ * {@code IdempotencyResponseSweeper}.
+ *
+ * <p>Bodies larger than {@code compressThreshold} bytes are stored gzipped in
+ * {@code response_body_gzip} (V168) with {@code response_body} left null.
+ */
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyResponseRepository repo;
+    private final long compressThreshold;
+
+    public JdbcIdempotencyStore(IdempotencyResponseRepository repo, long compressThreshold) {
+        this.repo = repo;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public Optional<Entry> find(String key, String method, String path) {
+        return repo.findByIdempotencyKeyAndRequestMethodAndRequestPath(key, method, path)
+                .filter(row -> row.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(JdbcIdempotencyStore::toEntry);
+    }
+
+    @Override
+    public void save(Entry entry) {
+        IdempotencyResponse row = IdempotencyResponse.builder()
+                .idempotencyKey(entry.key())
+                .requestMethod(entry.method())
+                .requestPath(entry.path())
+                .responseStatus(entry.status())
+                .responseContentType(entry.contentType())
+                .requestBodyHash(entry.bodyHash())
+                .cachedAt(LocalDateTime.now())
+                .expiresAt(entry.expiresAt())
+                .build();
+        if (entry.body().length > compressThreshold) {
+            row.setResponseBodyGzip(gzip(entry.body()));
+        } else {
+            row.setResponseBody(new String(entry.body(), StandardCharsets.UTF_8));
+        }
+        repo.save(row);
+    }
+
+    private static Entry toEntry(IdempotencyResponse row) {
+        byte[] body;
+        if (row.getResponseBodyGzip() != null) {
+            body = gunzip(row.getResponseBodyGzip());
+        } else {
+            body = row.getResponseBody() != null
+                    ? row.getResponseBody().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        }
+        return new Entry(row.getIdempotencyKey(), row.getRequestMethod(), row.getRequestPath(),
+                row.getResponseStatus(), row.getResponseContentType(), body,
+                row.getRequestBodyHash(), row.getExpiresAt());
+    }
+
+    static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] compressed) {
+        try (GZIPInputStream gz = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return gz.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
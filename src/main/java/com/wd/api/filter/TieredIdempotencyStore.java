@@ -0,0 +1,37 @@
+package com.wd.api.filter;
+
+import java.util.Optional;
+
+/**
+ * Memory in front of JDBC. Offline clients retry the same key many times
+ * within seconds, so most replays never reach Postgres; the table keeps
+ * responses across restarts and shares them between instances. Misses are
+ * not remembered — another node may write the row at any moment.
+ */
+public class TieredIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyStore front;
+    private final IdempotencyStore back;
+
+    public TieredIdempotencyStore(IdempotencyStore front, IdempotencyStore back) {
+        this.front = front;
+        this.back = back;
+    }
+
+    @Override
+    public Optional<Entry> find(String key, String method, String path) {
+        Optional<Entry> hit = front.find(key, method, path);
+        if (hit.isPresent()) {
+            return hit;
+        }
+        hit = back.find(key, method, path);
+        hit.ifPresent(front::save);
+        return hit;
+    }
+
+    @Override
+    public void save(Entry entry) {
+        back.save(entry);
+        front.save(entry);
+    }
+}
@@ -29,6 +29,9 @@ public class GalleryImage {
     @Column(name = "thumbnail_path", length = 500)
     private String thumbnailPath;
 
+    @Column(name = "preview_path", length = 500)
+    private String previewPath;
+
     @Column(length = 255)
     private String caption;
 
@@ -113,6 +116,14 @@ public class GalleryImage {
         this.thumbnailPath = thumbnailPath;
     }
 
+    public String getPreviewPath() {
+        return previewPath;
+    }
+
+    public void setPreviewPath(String previewPath) {
+        this.previewPath = previewPath;
+    }
+
     public String getCaption() {
         return caption;
     }
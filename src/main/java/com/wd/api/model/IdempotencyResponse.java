@@ -32,9 +32,14 @@ public class IdempotencyResponse {
     @Column(name = "response_status", nullable = false)
     private Integer responseStatus;
 
-    @Column(name = "response_body", columnDefinition = "TEXT", nullable = false)
+    /** Null when the body was large enough to be stored in {@link #responseBodyGzip}. */
+    @Column(name = "response_body", columnDefinition = "TEXT")
     private String responseBody;
 
+    /** Gzipped response body for large responses (V168); null otherwise. */
+    @Column(name = "response_body_gzip")
+    private byte[] responseBodyGzip;
+
     @Column(name = "response_content_type", length = 80, nullable = false)
     private String responseContentType;
 
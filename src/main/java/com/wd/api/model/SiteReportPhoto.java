@@ -23,6 +23,14 @@ public class SiteReportPhoto {
     @Column(name = "storage_path", nullable = false)
     private String storagePath;
 
+    /** 256 px rendition, set by PhotoRenditionService once generated (V172). */
+    @Column(name = "thumbnail_path", length = 500)
+    private String thumbnailPath;
+
+    /** 1280 px rendition, set by PhotoRenditionService once generated (V172). */
+    @Column(name = "preview_path", length = 500)
+    private String previewPath;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -77,6 +85,22 @@ public class SiteReportPhoto {
         this.storagePath = storagePath;
     }
 
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+
+    public void setThumbnailPath(String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+    }
+
+    public String getPreviewPath() {
+        return previewPath;
+    }
+
+    public void setPreviewPath(String previewPath) {
+        this.previewPath = previewPath;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -38,6 +38,10 @@ public class WebhookEventLog {
     @Column(name = "delivered_at")
     private LocalDateTime deliveredAt;
 
+    /** When the dispatcher may (re)try this event; null once DELIVERED or DEAD_LETTER. */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
 
@@ -67,6 +71,7 @@ public class WebhookEventLog {
     public Integer getAttempts() { return attempts; }
     public LocalDateTime getLastAttemptAt() { return lastAttemptAt; }
     public LocalDateTime getDeliveredAt() { return deliveredAt; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
     public String getErrorMessage() { return errorMessage; }
     public LocalDateTime getCreatedAt() { return createdAt; }
 
@@ -81,5 +86,6 @@ public class WebhookEventLog {
     public void setAttempts(Integer attempts) { this.attempts = attempts; }
     public void setLastAttemptAt(LocalDateTime lastAttemptAt) { this.lastAttemptAt = lastAttemptAt; }
     public void setDeliveredAt(LocalDateTime deliveredAt) { this.deliveredAt = deliveredAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
 }
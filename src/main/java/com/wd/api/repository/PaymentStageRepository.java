@@ -2,12 +2,14 @@ package com.wd.api.repository;
 
 import com.wd.api.model.PaymentStage;
 import com.wd.api.model.enums.PaymentStageStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
@@ -47,4 +49,22 @@ public interface PaymentStageRepository extends JpaRepository<PaymentStage, Long
            "AND s.dueDate IS NOT NULL " +
            "ORDER BY s.id ASC")
     List<PaymentStage> findCandidatesForReminder();
+
+    /**
+     * Keyset page of reminder candidates for {@code PaymentMilestoneReminderJob}:
+     * stages with id above {@code afterId} whose due date makes a reminder fire
+     * today (due on {@code today} or {@code tMinus3Due}, or past due and
+     * OVERDUE). Pass {@code afterId = 0} and then the last id of each page;
+     * the page size comes from {@code page}.
+     */
+    @Query("SELECT s FROM PaymentStage s " +
+           "WHERE s.id > :afterId " +
+           "AND s.status NOT IN ('PAID','ON_HOLD') " +
+           "AND (s.dueDate = :today OR s.dueDate = :tMinus3Due " +
+           "     OR (s.dueDate < :today AND s.status = 'OVERDUE')) " +
+           "ORDER BY s.id ASC")
+    List<PaymentStage> findReminderCandidatesAfter(@Param("afterId") Long afterId,
+                                                   @Param("today") LocalDate today,
+                                                   @Param("tMinus3Due") LocalDate tMinus3Due,
+                                                   Pageable page);
 }
@@ -1,32 +1,60 @@
 package com.wd.api.scheduler;
 
-import com.wd.api.repository.IdempotencyResponseRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 
 /**
- * S5 PR1: weekly cleanup of expired idempotency cache rows. Runs every
- * Sunday 03:00 Asia/Kolkata. Manually-invokable via {@link #sweep()} for
- * tests.
+ * Incremental cleanup of expired idempotency cache rows. Every
+ * {@code wd.idempotency.sweep-interval-ms} (default 10 min) it deletes expired
+ * rows in small batches, oldest first, capped per run — so the table never
+ * carries a week of dead rows and no single delete holds long locks.
+ * {@code SKIP LOCKED} lets several instances sweep side by side.
+ * Manually-invokable via {@link #sweep()} for tests.
  */
 @Component
 public class IdempotencyResponseSweeper {
 
     private static final Logger log = LoggerFactory.getLogger(IdempotencyResponseSweeper.class);
 
-    private final IdempotencyResponseRepository repo;
+    static final String DELETE_EXPIRED_BATCH = """
+            DELETE FROM idempotency_responses
+             WHERE idempotency_key IN (
+                   SELECT idempotency_key FROM idempotency_responses
+                    WHERE expires_at < ?
+                    ORDER BY expires_at
+                    LIMIT ?
+                      FOR UPDATE SKIP LOCKED)
+            """;
 
-    public IdempotencyResponseSweeper(IdempotencyResponseRepository repo) {
-        this.repo = repo;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public IdempotencyResponseSweeper(JdbcTemplate jdbcTemplate,
+                                      @Value("${wd.idempotency.sweep-batch-size:500}") int batchSize,
+                                      @Value("${wd.idempotency.sweep-max-batches:20}") int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
     }
 
-    @Scheduled(cron = "0 0 3 * * SUN", zone = "Asia/Kolkata")
+    @Scheduled(fixedDelayString = "${wd.idempotency.sweep-interval-ms:600000}", initialDelay = 60_000)
     public void sweep() {
-        int deleted = repo.deleteByExpiresAtBefore(LocalDateTime.now());
-        log.info("IdempotencyResponseSweeper deleted {} expired rows", deleted);
+        LocalDateTime cutoff = LocalDateTime.now();
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int deleted = jdbcTemplate.update(DELETE_EXPIRED_BATCH, cutoff, batchSize);
+            total += deleted;
+            if (deleted < batchSize) break;
+        }
+        if (total > 0) {
+            log.info("IdempotencyResponseSweeper deleted {} expired rows", total);
+        }
     }
 }
@@ -2,26 +2,36 @@ package com.wd.api.scheduler;
 
 import com.wd.api.model.PaymentStage;
 import com.wd.api.model.enums.ReminderKind;
-import com.wd.api.repository.PaymentStageReminderSentRepository;
 import com.wd.api.repository.PaymentStageRepository;
 import com.wd.api.service.WebhookPublisherService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * S6 PR2 — daily 09:00 IST scan of {@code payment_stages} that fires up to one
  * webhook per (stage, kind) reminder per day.
  *
  * <p><b>Selection rules</b> (applied to each candidate returned by
- * {@link PaymentStageRepository#findCandidatesForReminder()}):
+ * {@link PaymentStageRepository#findReminderCandidatesAfter}, which already
+ * narrows by due date in SQL):
  * <ul>
  *   <li>{@code due_date == today + 3 days} → {@link ReminderKind#T_MINUS_3}</li>
  *   <li>{@code due_date == today}           → {@link ReminderKind#DUE_TODAY}</li>
@@ -29,14 +39,24 @@ import java.util.List;
  *   <li>otherwise → skip (e.g. INVOICED-but-past-due waits for the OVERDUE auto-flip job)</li>
  * </ul>
  *
- * <p><b>Idempotency:</b> for each (stage, kind), the job first attempts an
- * INSERT-ON-CONFLICT-DO-NOTHING into {@code payment_stage_reminder_sent}. If
- * the insert affects 1 row → publish. If 0 rows → already sent today (or
- * earlier), skip silently. Re-running the job on the same day is a no-op.
+ * <p><b>Chunking:</b> candidates are read by keyset on {@code id}
+ * ({@code payment.reminders.chunk-size} per page, default 500), so memory and
+ * per-query cost stay bounded however many stages exist. Each chunk is one
+ * short transaction: a single multi-row
+ * {@code INSERT ... ON CONFLICT DO NOTHING RETURNING} into
+ * {@code payment_stage_reminder_sent}, then one batch of webhook events into
+ * the outbox for exactly the rows that came back.
  *
- * <p><b>Order:</b> insert first, publish second. If the publish fails after
- * the insert commits, the customer doesn't get that day's reminder — accepted
- * trade-off (under-notify > over-notify; same as S3 PR3 HANDOVER_SHIFT).
+ * <p><b>Idempotency:</b> the (stage_id, reminder_kind) unique constraint is
+ * the single source of truth. A pair that already exists is not returned by
+ * the insert and is not published. Re-running the job on the same day is a
+ * no-op, and racing instances get exactly one winner per pair.
+ *
+ * <p><b>Dispatch:</b> publishing only queues {@code webhook_event_log} rows;
+ * {@link com.wd.api.service.WebhookDispatcher} delivers them off this thread,
+ * so a slow Customer API no longer stretches the job. Ledger rows and queued
+ * events commit together — if queuing fails, the chunk rolls back and the
+ * reminders go out on the next run instead of being lost.
  *
  * <p><b>Profile gating:</b> the bean is excluded from the {@code test} profile
  * so the cron does not fire inside the JUnit suite (where
@@ -49,44 +69,100 @@ public class PaymentMilestoneReminderJob {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentMilestoneReminderJob.class);
 
+    static final String INSERT_RETURNING_PREFIX =
+            "INSERT INTO payment_stage_reminder_sent (stage_id, reminder_kind, sent_at) VALUES ";
+    static final String INSERT_RETURNING_SUFFIX =
+            " ON CONFLICT (stage_id, reminder_kind) DO NOTHING RETURNING stage_id, reminder_kind";
+
     private final PaymentStageRepository stageRepo;
-    private final PaymentStageReminderSentRepository reminderRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
     private final WebhookPublisherService webhookPublisher;
     private final Clock clock;
+    private final int chunkSize;
 
     public PaymentMilestoneReminderJob(PaymentStageRepository stageRepo,
-                                       PaymentStageReminderSentRepository reminderRepo,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
                                        WebhookPublisherService webhookPublisher,
-                                       Clock clock) {
+                                       Clock clock,
+                                       @Value("${payment.reminders.chunk-size:500}") int chunkSize) {
         this.stageRepo = stageRepo;
-        this.reminderRepo = reminderRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.webhookPublisher = webhookPublisher;
         this.clock = clock;
+        this.chunkSize = chunkSize;
+    }
+
+    /** A reminder that won its ledger row and is ready to publish. */
+    public record Reminder(ReminderKind kind, ReminderContext ctx) {
     }
 
     @Scheduled(cron = "0 0 9 * * *", zone = "Asia/Kolkata")
     public void run() {
+        long t0 = System.nanoTime();
         LocalDate today = LocalDate.now(clock);
-        List<PaymentStage> candidates = stageRepo.findCandidatesForReminder();
-        log.info("PaymentMilestoneReminderJob: scanning {} candidate stage(s) for today={}",
-                candidates.size(), today);
+        Pageable page = PageRequest.ofSize(chunkSize);
 
+        int scanned = 0;
         int sent = 0;
-        for (PaymentStage stage : candidates) {
-            ReminderKind kind = classify(stage, today);
-            if (kind == null) continue;
-
-            boolean inserted = reminderRepo.insertIfAbsent(stage.getId(), kind);
-            if (!inserted) {
-                log.debug("Reminder already sent for stage={} kind={} — skipping", stage.getId(), kind);
-                continue;
+        int chunks = 0;
+        long afterId = 0L;
+        while (true) {
+            List<PaymentStage> chunk = stageRepo.findReminderCandidatesAfter(
+                    afterId, today, today.plusDays(3), page);
+            if (chunk.isEmpty()) break;
+            chunks++;
+            scanned += chunk.size();
+            afterId = chunk.get(chunk.size() - 1).getId();
+
+            Map<Long, PaymentStage> stages = new LinkedHashMap<>();
+            Map<Long, ReminderKind> kinds = new LinkedHashMap<>();
+            for (PaymentStage stage : chunk) {
+                ReminderKind kind = classify(stage, today);
+                if (kind == null) continue;
+                stages.put(stage.getId(), stage);
+                kinds.put(stage.getId(), kind);
             }
+            if (!kinds.isEmpty()) {
+                Integer published = transactionTemplate.execute(status -> {
+                    List<Reminder> won = new ArrayList<>();
+                    for (Map.Entry<Long, ReminderKind> row : insertIfAbsent(kinds)) {
+                        won.add(new Reminder(row.getValue(), ReminderContext.from(stages.get(row.getKey()))));
+                    }
+                    if (!won.isEmpty()) {
+                        webhookPublisher.publishPaymentMilestonesDue(won);
+                    }
+                    return won.size();
+                });
+                sent += published != null ? published : 0;
+            }
+            if (chunk.size() < chunkSize) break;
+        }
+        log.info("PaymentMilestoneReminderJob: today={} scanned {} candidate stage(s) in {} chunk(s), "
+                        + "queued {} reminder(s) in {} ms",
+                today, scanned, chunks, sent, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+    }
 
-            ReminderContext ctx = ReminderContext.from(stage);
-            webhookPublisher.publishPaymentMilestoneDue(kind, ctx);
-            sent++;
+    /**
+     * One multi-row insert into the dedup ledger for the whole chunk.
+     *
+     * @return the (stage id, kind) pairs that were newly inserted; pairs sent
+     *         on an earlier run hit the unique constraint and are left out
+     */
+    List<Map.Entry<Long, ReminderKind>> insertIfAbsent(Map<Long, ReminderKind> kinds) {
+        StringBuilder sql = new StringBuilder(INSERT_RETURNING_PREFIX);
+        List<Object> args = new ArrayList<>(kinds.size() * 2);
+        for (Map.Entry<Long, ReminderKind> row : kinds.entrySet()) {
+            sql.append(args.isEmpty() ? "(?, ?, NOW())" : ", (?, ?, NOW())");
+            args.add(row.getKey());
+            args.add(row.getValue().name());
         }
-        log.info("PaymentMilestoneReminderJob: dispatched {} reminder(s)", sent);
+        sql.append(INSERT_RETURNING_SUFFIX);
+        return jdbcTemplate.query(sql.toString(),
+                (rs, i) -> Map.entry(rs.getLong("stage_id"), ReminderKind.valueOf(rs.getString("reminder_kind"))),
+                args.toArray());
     }
 
     /** null = no reminder fires for this stage today. */
@@ -0,0 +1,49 @@
+package com.wd.api.scheduler;
+
+import com.wd.api.service.PhotoRenditionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates thumb/preview renditions for photos stored before
+ * {@link PhotoRenditionService} existed, and for uploads whose rendition
+ * request was dropped because the worker queue was full.
+ *
+ * <p>Runs nightly ({@code media.renditions.backfill-cron}, default 02:30 IST)
+ * and renders at most {@code media.renditions.backfill-max-per-run} files per
+ * run, so a large existing storage tree is worked through over several nights
+ * instead of one long CPU-bound pass. Rows are picked by the partial
+ * {@code thumbnail_path IS NULL} indexes from V172.
+ *
+ * <p>Excluded from the {@code test} profile like the other scheduled jobs;
+ * {@link #run()} is callable directly.
+ */
+@Component
+@Profile("!test")
+public class PhotoRenditionBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoRenditionBackfillJob.class);
+
+    private final PhotoRenditionService photoRenditionService;
+    private final int maxPerRun;
+
+    public PhotoRenditionBackfillJob(PhotoRenditionService photoRenditionService,
+                                     @Value("${media.renditions.backfill-max-per-run:2000}") int maxPerRun) {
+        this.photoRenditionService = photoRenditionService;
+        this.maxPerRun = maxPerRun;
+    }
+
+    @Scheduled(cron = "${media.renditions.backfill-cron:0 30 2 * * *}", zone = "Asia/Kolkata")
+    public void run() {
+        long t0 = System.currentTimeMillis();
+        int processed = photoRenditionService.backfill(maxPerRun);
+        if (processed > 0) {
+            log.info("PhotoRenditionBackfillJob processed {} photos in {} ms{}", processed,
+                    System.currentTimeMillis() - t0, processed == maxPerRun ? " (cap reached, continuing next run)" : "");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.wd.api.scheduler;
+
+import com.wd.api.service.PhotoRenditionService;
+import com.wd.api.service.StorageBlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Brings existing storage under {@link StorageBlobStore}: walks the storage
+ * directories this service writes and adopts every file that has no blob
+ * mapping yet. A file whose bytes
+ * already exist as a blob is replaced by a hard link to it, which frees its
+ * bytes. The job also releases mappings whose path no longer exists, e.g.
+ * files the customer API deleted directly on the shared volume, and removes
+ * blob files whose adoption was rolled back with the caller's transaction.
+ *
+ * <p>Only {@code storage.blobs.dedupe-dirs} is walked (default: the
+ * directories of {@code FileStorageService} and {@code DpcIssueService}).
+ * Every writer there goes through {@code AtomicFiles}, so a file is replaced,
+ * never rewritten in place. The rest of the shared volume belongs to the
+ * customer API and others, which may rewrite files in place; a hard-linked
+ * file rewritten that way would change every path sharing its blob, so do not
+ * add such directories here.
+ *
+ * <p>Only settled files are adopted: dot-files (the temporaries of
+ * {@code AtomicFiles} and of the link swap), files modified within
+ * {@code storage.blobs.dedupe-min-age} (default 10 minutes) and photo
+ * renditions, which the backfill may render again, are left alone.
+ *
+ * <p>Safe to re-run and to interrupt: adopted paths are skipped, and each file
+ * is swapped for its link atomically. Run on demand from
+ * {@code POST /api/admin/storage/dedupe}, or on
+ * {@code storage.blobs.dedupe-cron} (default {@code -}, i.e. off).
+ */
+@Component
+public class StorageDedupeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageDedupeJob.class);
+
+    /** Outcome of one pass; {@code bytesReclaimed} is what the duplicates stop occupying. */
+    public record Report(long filesScanned, long filesAdopted, long duplicatesLinked, long bytesReclaimed,
+                         long recentFilesSkipped, long stalePathsReleased, long orphanBlobsRemoved,
+                         long failures, long durationMs) {
+    }
+
+    private final StorageBlobStore blobStore;
+    private final Duration minAge;
+    private final List<String> directories;
+
+    public StorageDedupeJob(StorageBlobStore blobStore,
+                            @Value("${storage.blobs.dedupe-min-age:10m}") Duration minAge,
+                            @Value("${storage.blobs.dedupe-dirs:leads,projects,site-reports,gallery,observations,dpc}")
+                            List<String> directories) {
+        this.blobStore = blobStore;
+        this.minAge = minAge;
+        this.directories = directories;
+    }
+
+    @Scheduled(cron = "${storage.blobs.dedupe-cron:-}", zone = "Asia/Kolkata")
+    public void scheduledRun() {
+        run();
+    }
+
+    /** One full pass. Serialised: a second caller waits for the running pass. */
+    public synchronized Report run() {
+        long t0 = System.currentTimeMillis();
+        if (!blobStore.isActive()) {
+            log.info("StorageDedupeJob skipped: blob storage is disabled");
+            return new Report(0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+
+        Path root = blobStore.getRoot();
+        Set<String> mapped = blobStore.mappedPaths();
+        Set<String> seen = new HashSet<>();
+        long scanned = 0;
+        long adopted = 0;
+        long duplicates = 0;
+        long reclaimed = 0;
+        long recent = 0;
+        long failures = 0;
+        FileTime settledBefore = FileTime.from(Instant.now().minus(minAge));
+
+        try (Stream<Path> files = walkOwnedDirectories(root)) {
+            Iterator<Path> it = files
+                    .filter(p -> !p.getFileName().toString().startsWith("."))
+                    .filter(Files::isRegularFile)
+                    .iterator();
+            while (it.hasNext()) {
+                Path file = it.next();
+                String relativePath = root.relativize(file).toString().replace('\\', '/');
+                if (mapped.contains(relativePath)) {
+                    scanned++;
+                    seen.add(relativePath);
+                    continue;
+                }
+                if (PhotoRenditionService.isRendition(relativePath)) {
+                    continue;
+                }
+                scanned++;
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(settledBefore) > 0) {
+                        recent++;
+                        continue;
+                    }
+                    StorageBlobStore.Adoption adoption = blobStore.adopt(relativePath);
+                    if (adoption != null) {
+                        adopted++;
+                        if (adoption.duplicate()) duplicates++;
+                        reclaimed += adoption.reclaimedBytes();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failures++;
+                    log.warn("StorageDedupeJob could not adopt {}: {}", relativePath, e.getMessage());
+                }
+            }
+        } catch (UncheckedIOException e) {
+            // Partial walk: do not treat unvisited mappings as stale.
+            log.error("StorageDedupeJob walk of {} failed: {}", directories, e.getMessage(), e);
+            return new Report(scanned, adopted, duplicates, reclaimed, recent, 0, 0, failures + 1,
+                    System.currentTimeMillis() - t0);
+        }
+
+        long stale = 0;
+        for (String path : mapped) {
+            if (!seen.contains(path) && !Files.exists(root.resolve(path))) {
+                blobStore.release(path);
+                stale++;
+            }
+        }
+
+        long orphans = 0;
+        try {
+            orphans = blobStore.removeOrphanBlobs(minAge);
+        } catch (IOException | UncheckedIOException e) {
+            failures++;
+            log.warn("StorageDedupeJob could not sweep orphan blobs: {}", e.getMessage());
+        }
+
+        Report report = new Report(scanned, adopted, duplicates, reclaimed, recent, stale, orphans, failures,
+                System.currentTimeMillis() - t0);
+        log.info("StorageDedupeJob: {} files scanned, {} adopted, {} duplicates linked, {} MB reclaimed, "
+                        + "{} too recent, {} stale mappings released, {} orphan blobs removed, {} failures in {} ms",
+                scanned, adopted, duplicates, reclaimed / (1024 * 1024), recent, stale, orphans, failures,
+                report.durationMs());
+        return report;
+    }
+
+    /** Every path under the configured directories that exist, one directory after the other. */
+    private Stream<Path> walkOwnedDirectories(Path root) {
+        Path blobs = root.resolve(StorageBlobStore.BLOB_DIR);
+        return directories.stream()
+                .map(dir -> root.resolve(dir.trim()).normalize())
+                .filter(dir -> dir.startsWith(root) && !dir.equals(root) && !dir.startsWith(blobs))
+                .filter(Files::isDirectory)
+                .flatMap(dir -> {
+                    try {
+                        return Files.walk(dir);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+}
@@ -4,7 +4,6 @@ import com.wd.api.service.TaskAlertService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -30,7 +29,6 @@ import org.springframework.stereotype.Component;
  * @author Senior Engineer (15+ years construction domain)
  */
 @Component
-@EnableScheduling
 @ConditionalOnProperty(name = "task.alerts.enabled", havingValue = "true", matchIfMissing = true // Enabled by default
 )
 public class TaskAlertScheduler {
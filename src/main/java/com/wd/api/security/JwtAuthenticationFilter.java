@@ -29,10 +29,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
 
+    private final PortalPrincipalCache principalCache;
+
     public JwtAuthenticationFilter(JwtService jwtService,
-                                   UserDetailsService userDetailsService) {
+                                   UserDetailsService userDetailsService,
+                                   PortalPrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -62,8 +66,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String jwt = authHeader.substring(7);
 
-        // Validate token first
-        if (!jwtService.validateToken(jwt)) {
+        // Validate token first — everything below reads from the verified token
+        final VerifiedToken token = jwtService.verify(jwt).orElse(null);
+        if (token == null) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -74,22 +79,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         // Extract token type and subject
-        String tokenType = jwtService.extractTokenType(jwt);
-        String actualSubject = jwtService.extractActualSubject(jwt);
+        String tokenType = token.tokenType();
+        String actualSubject = token.actualSubject();
 
         // Handle different token types
         if (JwtConstants.TOKEN_TYPE_PARTNER.equals(tokenType)) {
             // Partnership user authentication
-            handlePartnerAuthentication(jwt, actualSubject, request);
+            handlePartnerAuthentication(actualSubject, request);
         } else {
             // Portal user authentication (company employees only)
-            handlePortalAuthentication(jwt, actualSubject, request);
+            handlePortalAuthentication(token, actualSubject, request);
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private void handlePartnerAuthentication(String jwt, String phone, HttpServletRequest request) {
+    private void handlePartnerAuthentication(String phone, HttpServletRequest request) {
         // Create simple authentication for partnership users
         List<GrantedAuthority> authorities = List.of(
                 new SimpleGrantedAuthority("ROLE_PARTNER"));
@@ -102,12 +107,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         SecurityContextHolder.getContext().setAuthentication(authToken);
     }
 
-    private void handlePortalAuthentication(String jwt, String email, HttpServletRequest request) {
+    private void handlePortalAuthentication(VerifiedToken token, String email, HttpServletRequest request) {
         try {
-            logger.debug("Loading portal user for: {}", email);
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+            UserDetails userDetails = principalCache.get(email, token.issuedAt(), () -> {
+                logger.debug("Loading portal user for: {}", email);
+                return this.userDetailsService.loadUserByUsername(email);
+            });
 
-            if (jwtService.validateToken(jwt, userDetails)) {
+            if (jwtService.isValidFor(token, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
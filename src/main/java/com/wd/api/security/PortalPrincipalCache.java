@@ -0,0 +1,170 @@
+package com.wd.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wd.api.model.Permission;
+import com.wd.api.model.PortalRole;
+import com.wd.api.model.PortalUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of portal principals loaded by {@link JwtAuthenticationFilter},
+ * so an authenticated request does not reload the user, role and permissions
+ * on every call.
+ *
+ * <p>Keyed by token subject plus issued-at: a fresh login always gets a fresh
+ * load. Entries are dropped when a user is edited, disabled or deleted
+ * ({@link #evictUser}) and when any role's permissions change ({@link #evictAll}).
+ * Those evictions are local to this node; the TTL
+ * ({@code jwt.principal-cache.ttl}, default 60s) bounds how long another node
+ * can keep serving the old principal.
+ *
+ * <p>The cache holds an immutable {@link Snapshot}, never the loaded
+ * {@link PortalUser} entity: each request gets its own principal built from
+ * the snapshot, so no request can see another's changes to it and no JPA
+ * entity outlives the session that loaded it. The snapshot leaves out the
+ * password hash, which a token-authenticated request does not need.
+ *
+ * <p>Exposed as the {@code jwtPrincipals} cache in the {@code cache.*} metrics.
+ */
+@Component
+public class PortalPrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PortalPrincipalCache.class);
+
+    private record Key(String subject, long issuedAt) {
+    }
+
+    private final Cache<Key, Snapshot> cache;
+
+    public PortalPrincipalCache(@Value("${jwt.principal-cache.ttl:60s}") Duration ttl,
+                                @Value("${jwt.principal-cache.maximum-size:10000}") long maximumSize,
+                                MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtPrincipals");
+    }
+
+    /**
+     * Return a principal for this token, built from the cached snapshot and
+     * loading it on a miss. Tokens without an issued-at claim are never cached.
+     */
+    public UserDetails get(String subject, Date issuedAt, Supplier<UserDetails> loader) {
+        if (subject == null || issuedAt == null) {
+            return loader.get();
+        }
+        return cache.get(new Key(subject, issuedAt.getTime()), k -> Snapshot.of(loader.get())).toPrincipal();
+    }
+
+    /** Drop every cached principal of one user (any token). */
+    public void evictUser(String subject) {
+        if (subject == null) return;
+        cache.asMap().keySet().removeIf(k -> k.subject().equalsIgnoreCase(subject));
+        logger.debug("Evicted cached principals for {}", subject);
+    }
+
+    /** Drop every cached principal, e.g. after a role's permissions change. */
+    public void evictAll() {
+        cache.invalidateAll();
+        logger.debug("Evicted all cached principals");
+    }
+
+    /**
+     * What a principal is rebuilt from: the portal user's fields and role, or,
+     * for any other {@link UserDetails}, its name, authorities and enabled flag.
+     */
+    private record Snapshot(String username, List<GrantedAuthority> authorities, boolean enabled, PortalUserData user) {
+
+        static Snapshot of(UserDetails details) {
+            PortalUserData user = details instanceof PortalUser portalUser ? PortalUserData.of(portalUser) : null;
+            return new Snapshot(details.getUsername(), List.copyOf(details.getAuthorities()), details.isEnabled(), user);
+        }
+
+        UserDetails toPrincipal() {
+            if (user != null) {
+                return user.toPortalUser();
+            }
+            return User.withUsername(username).password("").authorities(authorities).disabled(!enabled).build();
+        }
+    }
+
+    private record PortalUserData(Long id, String email, String firstName, String lastName, Boolean enabled,
+                                  String fcmToken, String phone, String whatsapp, String designation,
+                                  String department, RoleData role) {
+
+        static PortalUserData of(PortalUser u) {
+            return new PortalUserData(u.getId(), u.getEmail(), u.getFirstName(), u.getLastName(), u.getEnabled(),
+                    u.getFcmToken(), u.getPhone(), u.getWhatsapp(), u.getDesignation(), u.getDepartment(),
+                    u.getRole() != null ? RoleData.of(u.getRole()) : null);
+        }
+
+        PortalUser toPortalUser() {
+            PortalUser u = new PortalUser();
+            u.setId(id);
+            u.setEmail(email);
+            u.setFirstName(firstName);
+            u.setLastName(lastName);
+            u.setEnabled(enabled);
+            u.setFcmToken(fcmToken);
+            u.setPhone(phone);
+            u.setWhatsapp(whatsapp);
+            u.setDesignation(designation);
+            u.setDepartment(department);
+            u.setRole(role != null ? role.toPortalRole() : null);
+            return u;
+        }
+    }
+
+    private record RoleData(Long id, String name, String description, String code, List<PermissionData> permissions) {
+
+        static RoleData of(PortalRole r) {
+            List<PermissionData> permissions = r.getPermissions() == null ? null : r.getPermissions().stream()
+                    .filter(Objects::nonNull)
+                    .map(p -> new PermissionData(p.getId(), p.getName(), p.getDescription()))
+                    .toList();
+            return new RoleData(r.getId(), r.getName(), r.getDescription(), r.getCode(), permissions);
+        }
+
+        PortalRole toPortalRole() {
+            PortalRole r = new PortalRole();
+            r.setId(id);
+            r.setName(name);
+            r.setDescription(description);
+            r.setCode(code);
+            if (permissions != null) {
+                Set<Permission> copies = new HashSet<>();
+                for (PermissionData p : permissions) {
+                    Permission copy = new Permission();
+                    copy.setId(p.id());
+                    copy.setName(p.name());
+                    copy.setDescription(p.description());
+                    copies.add(copy);
+                }
+                r.setPermissions(copies);
+            }
+            return r;
+        }
+    }
+
+    private record PermissionData(Long id, String name, String description) {
+    }
+}
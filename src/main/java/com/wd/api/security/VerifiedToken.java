@@ -0,0 +1,70 @@
+package com.wd.api.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * A JWT whose signature, expiry and audience have been checked by
+ * {@code JwtService.verify}. Pass this around instead of the raw string so
+ * nothing downstream re-parses (and re-verifies) the token.
+ */
+public final class VerifiedToken {
+
+    private final Claims claims;
+
+    public VerifiedToken(Claims claims) {
+        this.claims = claims;
+    }
+
+    /** Raw {@code sub} claim, including any legacy {@code TYPE_} prefix. */
+    public String subject() {
+        return claims.getSubject();
+    }
+
+    /**
+     * The email / phone the token was issued for. Strips the legacy
+     * {@code UPPERCASE_} subject prefix, but only when the subject has no
+     * '@' — real emails such as {@code task_editor@test.com} are kept intact.
+     */
+    public String actualSubject() {
+        String subject = claims.getSubject();
+        if (subject == null) return null;
+        if (subject.contains("@")) {
+            // Modern token: subject is a plain email, no prefix to strip
+            return subject;
+        }
+        if (subject.matches("^[A-Z]+_.*")) {
+            // Legacy token: had UPPERCASE_ prefix — strip it for backward compatibility
+            return subject.substring(subject.indexOf("_") + 1);
+        }
+        return subject;
+    }
+
+    /** Signed {@code tokenType} claim; {@link JwtConstants#DEFAULT_TOKEN_TYPE} for tokens that predate it. */
+    public String tokenType() {
+        Object tokenType = claims.get(JwtConstants.CLAIM_TOKEN_TYPE);
+        return tokenType != null ? tokenType.toString() : JwtConstants.DEFAULT_TOKEN_TYPE;
+    }
+
+    public Date issuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    public Date expiration() {
+        return claims.getExpiration();
+    }
+
+    public Set<String> audience() {
+        return claims.getAudience();
+    }
+
+    public boolean isExpired() {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
+    }
+
+    public Claims claims() {
+        return claims;
+    }
+}
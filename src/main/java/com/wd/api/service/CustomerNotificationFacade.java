@@ -29,8 +29,11 @@ import java.util.Set;
  *  - notifyAll()      → all customer members regardless of role (milestone completions, new documents)
  *  - notifyCustomer() → single customer user by ID, no project context (lead status changes)
  *
- * Design: runs in a separate transaction (REQUIRES_NEW) so a notification failure
- * never rolls back the caller's business transaction.
+ * Design: project notifications go through {@link NotificationFanout} — members are
+ * resolved, rows batch-inserted and devices multicast off-thread after the caller
+ * commits, in the fan-out's own transaction, so a notification failure never rolls
+ * back (or slows down) the caller's business transaction. notifyCustomer() is a
+ * single row and stays inline in a separate transaction (REQUIRES_NEW).
  */
 @Service
 public class CustomerNotificationFacade {
@@ -44,57 +47,37 @@ public class CustomerNotificationFacade {
     private final CustomerNotificationRepository customerNotificationRepository;
     private final CustomerUserRepository customerUserRepository;
     private final PushNotificationService pushNotificationService;
+    private final NotificationFanout notificationFanout;
 
     public CustomerNotificationFacade(
             ProjectMemberRepository projectMemberRepository,
             CustomerNotificationRepository customerNotificationRepository,
             CustomerUserRepository customerUserRepository,
-            PushNotificationService pushNotificationService) {
+            PushNotificationService pushNotificationService,
+            NotificationFanout notificationFanout) {
         this.projectMemberRepository = projectMemberRepository;
         this.customerNotificationRepository = customerNotificationRepository;
         this.customerUserRepository = customerUserRepository;
         this.pushNotificationService = pushNotificationService;
+        this.notificationFanout = notificationFanout;
     }
 
     /**
      * Notify CUSTOMER + CUSTOMER_ADMIN role members of a project.
      * Use for: site reports created, payment status updates.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void notifyOwners(Long projectId, String title, String body,
                               String notificationType, Long referenceId) {
-        try {
-            List<ProjectMember> members = projectMemberRepository.findByProjectId(projectId);
-            List<CustomerUser> targets = members.stream()
-                    .filter(m -> m.getCustomerUser() != null)
-                    .map(ProjectMember::getCustomerUser)
-                    .filter(u -> u.getRole() != null && OWNER_ROLES.contains(u.getRole().getName()))
-                    .toList();
-
-            persistAndPush(targets, projectId, title, body, notificationType, referenceId);
-        } catch (Exception e) {
-            logger.error("Failed to send owner notifications for project {}: {}", projectId, e.getMessage(), e);
-        }
+        fanOut(projectId, true, title, body, notificationType, referenceId);
     }
 
     /**
      * Notify ALL customer members of a project regardless of role.
      * Use for: milestone completions, new document uploads.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void notifyAll(Long projectId, String title, String body,
                            String notificationType, Long referenceId) {
-        try {
-            List<ProjectMember> members = projectMemberRepository.findByProjectId(projectId);
-            List<CustomerUser> targets = members.stream()
-                    .filter(m -> m.getCustomerUser() != null)
-                    .map(ProjectMember::getCustomerUser)
-                    .toList();
-
-            persistAndPush(targets, projectId, title, body, notificationType, referenceId);
-        } catch (Exception e) {
-            logger.error("Failed to send notifications to all members for project {}: {}", projectId, e.getMessage(), e);
-        }
+        fanOut(projectId, false, title, body, notificationType, referenceId);
     }
 
     /**
@@ -123,6 +106,25 @@ public class CustomerNotificationFacade {
         }
     }
 
+    private void fanOut(Long projectId, boolean ownersOnly, String title, String body,
+                        String notificationType, Long referenceId) {
+        if (projectId == null) return;
+        try {
+            notificationFanout.submit(NotificationFanout.Audience.CUSTOMER,
+                    () -> projectMemberRepository.findByProjectId(projectId).stream()
+                            .map(ProjectMember::getCustomerUser)
+                            .filter(u -> u != null)
+                            .filter(u -> !ownersOnly
+                                    || (u.getRole() != null && OWNER_ROLES.contains(u.getRole().getName())))
+                            .map(u -> new NotificationFanout.Recipient(u.getId(), u.getFcmToken()))
+                            .toList(),
+                    new NotificationFanout.Message(title, body, notificationType, referenceId, projectId, null,
+                            pushData(notificationType, projectId, referenceId)));
+        } catch (Exception e) {
+            logger.error("Failed to queue customer notifications for project {}: {}", projectId, e.getMessage(), e);
+        }
+    }
+
     private void persistAndPush(List<CustomerUser> targets, Long projectId,
                                   String title, String body,
                                   String notificationType, Long referenceId) {
@@ -146,16 +148,19 @@ public class CustomerNotificationFacade {
                 .toList();
 
         if (!tokens.isEmpty()) {
-            // Build data payload — avoid Map.of() because projectId may be null
-            Map<String, String> data = new HashMap<>();
-            data.put("type", notificationType);
-            data.put("projectId", projectId != null ? String.valueOf(projectId) : "");
-            data.put("referenceId", referenceId != null ? String.valueOf(referenceId) : "");
-
-            pushNotificationService.sendToTokens(tokens, title, body, data);
+            pushNotificationService.sendToTokens(tokens, title, body, pushData(notificationType, projectId, referenceId));
         }
 
         logger.info("Customer notification '{}' dispatched to {} user(s) for project {}",
                 notificationType, targets.size(), projectId);
     }
+
+    private static Map<String, String> pushData(String notificationType, Long projectId, Long referenceId) {
+        // Avoid Map.of() because projectId may be null
+        Map<String, String> data = new HashMap<>();
+        data.put("type", notificationType);
+        data.put("projectId", projectId != null ? String.valueOf(projectId) : "");
+        data.put("referenceId", referenceId != null ? String.valueOf(referenceId) : "");
+        return data;
+    }
 }
@@ -5,6 +5,9 @@ import com.wd.api.dto.CustomerProjectResponse;
 import com.wd.api.dto.CustomerProjectUpdateRequest;
 import com.wd.api.dto.ProjectSearchFilter;
 import com.wd.api.dto.ProjectMemberRequest;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.LeadChangedEvent;
+import com.wd.api.event.ProjectChangedEvent;
 import com.wd.api.dto.ProjectMemberResponse;
 import com.wd.api.model.CustomerProject;
 import com.wd.api.model.CustomerUser;
@@ -26,6 +29,7 @@ import com.wd.api.model.PortalUser;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -75,6 +79,8 @@ public class CustomerProjectService {
 
     private final CustomerNotificationFacade customerNotificationFacade;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     public CustomerProjectService(
             CustomerProjectRepository customerProjectRepository,
             CustomerUserRepository customerUserRepository,
@@ -84,7 +90,8 @@ public class CustomerProjectService {
             ActivityFeedRepository activityFeedRepository,
             QualityCheckRepository qualityCheckRepository,
             PaymentScheduleRepository paymentScheduleRepository,
-            CustomerNotificationFacade customerNotificationFacade) {
+            CustomerNotificationFacade customerNotificationFacade,
+            ApplicationEventPublisher eventPublisher) {
         this.customerProjectRepository = customerProjectRepository;
         this.customerUserRepository = customerUserRepository;
         this.projectMemberRepository = projectMemberRepository;
@@ -94,6 +101,7 @@ public class CustomerProjectService {
         this.qualityCheckRepository = qualityCheckRepository;
         this.paymentScheduleRepository = paymentScheduleRepository;
         this.customerNotificationFacade = customerNotificationFacade;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -348,6 +356,7 @@ public class CustomerProjectService {
                     lead.setConvertedById(user.getId());
                 });
                 leadRepository.save(lead);
+                eventPublisher.publishEvent(new LeadChangedEvent(this, leadId, DomainEvent.Change.UPDATED));
             });
         }
 
@@ -364,6 +373,7 @@ public class CustomerProjectService {
 
         syncTeamMembers(savedProject, request);
 
+        eventPublisher.publishEvent(new ProjectChangedEvent(this, savedProject.getId(), DomainEvent.Change.CREATED));
         return customerProjectRepository.save(savedProject);
     }
 
@@ -563,6 +573,7 @@ public class CustomerProjectService {
             syncProjectManagerMember(project, request.getProjectManagerId());
         }
 
+        eventPublisher.publishEvent(new ProjectChangedEvent(this, project.getId(), DomainEvent.Change.UPDATED));
         return customerProjectRepository.save(project);
     }
 
@@ -595,6 +606,7 @@ public class CustomerProjectService {
             // DataIntegrityViolationException - these entities require explicit deletion
             // for business compliance and audit trail purposes
             customerProjectRepository.delete(project);
+            eventPublisher.publishEvent(new ProjectChangedEvent(this, id, DomainEvent.Change.DELETED));
             logger.info("Customer project deleted successfully - ID: {}", id);
         } catch (org.springframework.dao.DataIntegrityViolationException e) {
             // Extract constraint information from the exception
@@ -0,0 +1,31 @@
+package com.wd.api.service;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Boot-time rebuild of the dashboard rollup, so a node that was down at the
+ * nightly run (or whose last run failed) catches up without a dashboard read
+ * paying for it. Until it finishes, reads serve the previous aggregate.
+ *
+ * <p>Disabled in tests (the {@code !test} profile filter): the rollup table is
+ * created by Flyway, which the H2 test contexts do not run.
+ */
+@Component
+@Profile("!test")
+@Order(60) // after CpmInitialPopulator
+public class DashboardAggregateBootRebuild implements CommandLineRunner {
+
+    private final DashboardAggregateStore store;
+
+    public DashboardAggregateBootRebuild(DashboardAggregateStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void run(String... args) {
+        store.scheduledRebuild();
+    }
+}
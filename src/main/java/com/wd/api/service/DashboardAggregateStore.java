@@ -0,0 +1,191 @@
+package com.wd.api.service;
+
+import com.wd.api.dto.DashboardProjectsDTO;
+import com.wd.api.event.DelayChangedEvent;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.PaymentChangedEvent;
+import com.wd.api.event.ProjectChangedEvent;
+import com.wd.api.event.TaskChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-project dashboard rollup ({@code dashboard_project_rollup}, V166): one
+ * row per ACTIVE project holding budget, sqft, overdue-task and open-delay
+ * counts, so {@link DashboardService} reads a single aggregate and an indexed
+ * top-N instead of loading every active project and counting per project.
+ *
+ * <p>Kept current two ways:
+ * <ul>
+ *   <li>after a task, delay, payment or project write commits, that project's
+ *       row is recomputed (one upsert, or a delete once it is no longer ACTIVE);</li>
+ *   <li>once a day the whole table is rebuilt set-based. Overdue counts move
+ *       with the calendar even when nothing is written, and the rebuild also
+ *       corrects writes that bypass the services. {@link DashboardAggregateBootRebuild}
+ *       runs the same rebuild at boot. Reads never rebuild: they serve the last
+ *       aggregate, so a dashboard request never waits on a full-table pass.</li>
+ * </ul>
+ *
+ * <p>Refresh failures are logged and never propagate to the writer; the next
+ * rebuild repairs the row.
+ */
+@Component
+public class DashboardAggregateStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardAggregateStore.class);
+
+    private static final String UPSERT = """
+            INSERT INTO dashboard_project_rollup
+                   (project_id, budget, sqfeet, overdue_tasks, active_delays, refreshed_at)
+            SELECT p.id, COALESCE(p.budget, 0), COALESCE(p.sqfeet, 0),
+                   COALESCE(t.overdue, 0), COALESCE(d.active, 0), NOW()
+              FROM customer_projects p
+              LEFT JOIN (SELECT project_id, COUNT(*) AS overdue
+                           FROM tasks
+                          WHERE deleted_at IS NULL AND due_date < ?
+                            AND status NOT IN ('COMPLETED', 'CANCELLED')
+                          GROUP BY project_id) t ON t.project_id = p.id
+              LEFT JOIN (SELECT project_id, COUNT(*) AS active
+                           FROM delay_logs
+                          WHERE to_date IS NULL
+                          GROUP BY project_id) d ON d.project_id = p.id
+             WHERE p.deleted_at IS NULL AND p.project_status = 'ACTIVE' %s
+            ON CONFLICT (project_id) DO UPDATE
+               SET budget = EXCLUDED.budget,
+                   sqfeet = EXCLUDED.sqfeet,
+                   overdue_tasks = EXCLUDED.overdue_tasks,
+                   active_delays = EXCLUDED.active_delays,
+                   refreshed_at = EXCLUDED.refreshed_at
+             WHERE (dashboard_project_rollup.budget, dashboard_project_rollup.sqfeet,
+                    dashboard_project_rollup.overdue_tasks, dashboard_project_rollup.active_delays)
+                   IS DISTINCT FROM
+                   (EXCLUDED.budget, EXCLUDED.sqfeet, EXCLUDED.overdue_tasks, EXCLUDED.active_delays)
+            """;
+
+    private static final String DELETE_INACTIVE = """
+            DELETE FROM dashboard_project_rollup r
+             WHERE NOT EXISTS (SELECT 1 FROM customer_projects p
+                                WHERE p.id = r.project_id
+                                  AND p.deleted_at IS NULL AND p.project_status = 'ACTIVE') %s
+            """;
+
+    static final String UPSERT_ALL = UPSERT.formatted("");
+    static final String UPSERT_ONE = UPSERT.formatted("AND p.id = ?");
+    static final String DELETE_ALL_INACTIVE = DELETE_INACTIVE.formatted("");
+    static final String DELETE_ONE_INACTIVE = DELETE_INACTIVE.formatted("AND r.project_id = ?");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final Clock clock;
+
+    public DashboardAggregateStore(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        // After-commit listeners run with the committed transaction's resources
+        // still bound; writes there need their own transaction to be committed.
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Active-project count and the budget / sqft sums across them. */
+    public record ActiveTotals(long count, BigDecimal totalBudget, BigDecimal totalSqfeet) {
+    }
+
+    // ─── Reads ───────────────────────────────────────────────────────────────
+
+    public ActiveTotals activeTotals() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(SUM(budget), 0), COALESCE(SUM(sqfeet), 0) FROM dashboard_project_rollup",
+                (rs, i) -> new ActiveTotals(rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3)));
+    }
+
+    /** Active projects with overdue tasks or open delays, most overdue tasks first. */
+    public List<DashboardProjectsDTO.ProjectHealthItem> atRisk(int limit) {
+        return jdbcTemplate.query("""
+                        SELECT r.project_id, p.name, p.budget_progress, r.overdue_tasks, r.active_delays
+                          FROM dashboard_project_rollup r
+                          JOIN customer_projects p ON p.id = r.project_id
+                         WHERE r.overdue_tasks > 0 OR r.active_delays > 0
+                         ORDER BY r.overdue_tasks DESC, r.project_id
+                         LIMIT ?
+                        """,
+                (rs, i) -> DashboardProjectsDTO.ProjectHealthItem.builder()
+                        .projectId(rs.getLong(1))
+                        .projectName(rs.getString(2))
+                        .budgetUtilizationPct(rs.getBigDecimal(3))
+                        .overdueTasks(rs.getInt(4))
+                        .activeDelays(rs.getInt(5))
+                        .build(),
+                limit);
+    }
+
+    // ─── Incremental maintenance ─────────────────────────────────────────────
+
+    /**
+     * Runs ahead of {@link DashboardCacheInvalidator} so a dashboard read
+     * triggered by the eviction already sees the refreshed row.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(DomainEvent event) {
+        if (event.getProjectId() == null) return;
+        if (event instanceof TaskChangedEvent || event instanceof DelayChangedEvent
+                || event instanceof PaymentChangedEvent || event instanceof ProjectChangedEvent) {
+            try {
+                refreshProject(event.getProjectId());
+            } catch (RuntimeException e) {
+                log.warn("Dashboard rollup refresh failed for project {}; next rebuild will repair it",
+                        event.getProjectId(), e);
+            }
+        }
+    }
+
+    public void refreshProject(long projectId) {
+        Date today = Date.valueOf(LocalDate.now(clock));
+        requiresNew.executeWithoutResult(status -> {
+            jdbcTemplate.update(UPSERT_ONE, today, projectId);
+            jdbcTemplate.update(DELETE_ONE_INACTIVE, projectId);
+        });
+    }
+
+    // ─── Full rebuild ────────────────────────────────────────────────────────
+
+    /** Just after midnight IST, when every overdue count may have moved. */
+    @Scheduled(cron = "${dashboard.aggregates.rebuild-cron:0 5 0 * * *}", zone = "Asia/Kolkata")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Dashboard rollup rebuild failed; reads serve the previous aggregate until the next run", e);
+        }
+    }
+
+    public synchronized void rebuild() {
+        LocalDate today = LocalDate.now(clock);
+        long t0 = System.currentTimeMillis();
+        int[] changed = new int[2];
+        requiresNew.executeWithoutResult(status -> {
+            changed[0] = jdbcTemplate.update(UPSERT_ALL, Date.valueOf(today));
+            changed[1] = jdbcTemplate.update(DELETE_ALL_INACTIVE);
+        });
+        log.info("Dashboard rollup rebuilt for {}: {} rows upserted/corrected, {} removed in {}ms",
+                today, changed[0], changed[1], System.currentTimeMillis() - t0);
+    }
+}
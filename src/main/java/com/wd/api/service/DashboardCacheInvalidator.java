@@ -0,0 +1,95 @@
+package com.wd.api.service;
+
+import com.wd.api.event.DelayChangedEvent;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.FinalAccountAgreedEvent;
+import com.wd.api.event.LeadChangedEvent;
+import com.wd.api.event.PaymentChangedEvent;
+import com.wd.api.event.ProjectChangedEvent;
+import com.wd.api.event.StagePaymentCertifiedEvent;
+import com.wd.api.event.TaskChangedEvent;
+import com.wd.api.event.VOApprovedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Evicts exactly the {@link DashboardService} caches a domain event can move,
+ * after the publishing transaction commits (so the next read recomputes from
+ * committed rows). Events published outside a transaction evict immediately.
+ *
+ * <pre>
+ *   lead              → overview, leads
+ *   task              → overview, projects (at-risk list), operations
+ *   delay             → projects (at-risk list), operations
+ *   customer payment  → overview, finance
+ *   invoice / cost    → finance
+ *   project           → overview, projects, finance (active-project targets)
+ * </pre>
+ */
+@Component
+public class DashboardCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardCacheInvalidator.class);
+
+    static final String OVERVIEW = "dashboardOverview";
+    static final String PROJECTS = "dashboardProjects";
+    static final String LEADS = "dashboardLeads";
+    static final String FINANCE = "dashboardFinance";
+    static final String OPERATIONS = "dashboardOperations";
+
+    private final CacheManager cacheManager;
+
+    public DashboardCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(DomainEvent event) {
+        evict(affectedBy(event));
+    }
+
+    /** Certification, VO approval and final-account sign-off all rewrite payment schedules. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(StagePaymentCertifiedEvent event) {
+        evict(List.of(OVERVIEW, FINANCE));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(VOApprovedEvent event) {
+        evict(List.of(OVERVIEW, FINANCE));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(FinalAccountAgreedEvent event) {
+        evict(List.of(OVERVIEW, FINANCE));
+    }
+
+    static List<String> affectedBy(DomainEvent event) {
+        return switch (event) {
+            case LeadChangedEvent e -> List.of(OVERVIEW, LEADS);
+            case TaskChangedEvent e -> List.of(OVERVIEW, PROJECTS, OPERATIONS);
+            case DelayChangedEvent e -> List.of(PROJECTS, OPERATIONS);
+            case PaymentChangedEvent e -> e.getKind() == PaymentChangedEvent.Kind.CUSTOMER_PAYMENT
+                    ? List.of(OVERVIEW, FINANCE)
+                    : List.of(FINANCE);
+            case ProjectChangedEvent e -> List.of(OVERVIEW, PROJECTS, FINANCE);
+            default -> List.of(OVERVIEW, PROJECTS, LEADS, FINANCE, OPERATIONS);
+        };
+    }
+
+    private void evict(List<String> cacheNames) {
+        for (String name : cacheNames) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.evict("global");
+            }
+        }
+        log.debug("Dashboard caches evicted: {}", cacheNames);
+    }
+}
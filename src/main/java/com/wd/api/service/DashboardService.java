@@ -1,8 +1,6 @@
 package com.wd.api.service;
 
 import com.wd.api.dto.*;
-import com.wd.api.model.CustomerProject;
-import com.wd.api.model.enums.ProjectStatus;
 import com.wd.api.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
@@ -33,13 +31,14 @@ public class DashboardService {
     private final ApprovalRequestRepository approvalRequestRepository;
     private final DelayLogRepository delayLogRepository;
     private final ProjectInvoiceRepository projectInvoiceRepository;
+    private final DashboardAggregateStore aggregateStore;
 
     // ─── Overview ────────────────────────────────────────────────────────────
 
-    @Cacheable(value = "dashboardOverview", key = "'global'")
+    @Cacheable(value = "dashboardOverview", key = "'global'", sync = true)
     @Transactional(readOnly = true)
     public DashboardOverviewDTO getOverview() {
-        long activeProjects = projectRepository.findByProjectStatusAndDeletedAtIsNull(ProjectStatus.ACTIVE).size();
+        long activeProjects = aggregateStore.activeTotals().count();
         long totalLeads = leadRepository.count();
         long openLeads = leadRepository.countOpen();
         BigDecimal revenueCollected = paymentScheduleRepository.sumPaidAmount();
@@ -64,7 +63,7 @@ public class DashboardService {
 
     // ─── Projects ────────────────────────────────────────────────────────────
 
-    @Cacheable(value = "dashboardProjects", key = "'global'")
+    @Cacheable(value = "dashboardProjects", key = "'global'", sync = true)
     @Transactional(readOnly = true)
     public DashboardProjectsDTO getProjectStats() {
         // Phase breakdown
@@ -91,18 +90,14 @@ public class DashboardService {
         long overdueProjects = projectRepository.countOverdueProjects();
 
         // Budget & sqft aggregation (global totals across all active projects)
-        List<CustomerProject> activeProjects = projectRepository.findByProjectStatusAndDeletedAtIsNull(ProjectStatus.ACTIVE);
-        BigDecimal totalBudget = activeProjects.stream()
-                .map(p -> p.getBudget() != null ? p.getBudget() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal totalSqfeet = activeProjects.stream()
-                .map(p -> p.getSqfeet() != null ? p.getSqfeet() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal averageBudget = activeProjects.isEmpty() ? BigDecimal.ZERO
-                : totalBudget.divide(BigDecimal.valueOf(activeProjects.size()), 2, RoundingMode.HALF_UP);
+        DashboardAggregateStore.ActiveTotals totals = aggregateStore.activeTotals();
+        BigDecimal totalBudget = totals.totalBudget();
+        BigDecimal totalSqfeet = totals.totalSqfeet();
+        BigDecimal averageBudget = totals.count() == 0 ? BigDecimal.ZERO
+                : totalBudget.divide(BigDecimal.valueOf(totals.count()), 2, RoundingMode.HALF_UP);
 
         // At-risk projects: overdue tasks or active delays
-        List<DashboardProjectsDTO.ProjectHealthItem> atRisk = buildAtRiskList(activeProjects);
+        List<DashboardProjectsDTO.ProjectHealthItem> atRisk = aggregateStore.atRisk(5);
 
         return DashboardProjectsDTO.builder()
                 .totalProjects(totalProjects)
@@ -119,29 +114,9 @@ public class DashboardService {
                 .build();
     }
 
-    private List<DashboardProjectsDTO.ProjectHealthItem> buildAtRiskList(List<CustomerProject> projects) {
-        LocalDate today = LocalDate.now();
-        return projects.stream()
-                .map(p -> {
-                    int overdueTasks = taskRepository.countOverdueByProjectId(p.getId(), today);
-                    int activeDelays = delayLogRepository.countActiveByProjectId(p.getId());
-                    return DashboardProjectsDTO.ProjectHealthItem.builder()
-                            .projectId(p.getId())
-                            .projectName(p.getName())
-                            .overdueTasks(overdueTasks)
-                            .activeDelays(activeDelays)
-                            .budgetUtilizationPct(p.getBudgetProgress())
-                            .build();
-                })
-                .filter(item -> item.getOverdueTasks() > 0 || item.getActiveDelays() > 0)
-                .sorted(Comparator.comparingInt(DashboardProjectsDTO.ProjectHealthItem::getOverdueTasks).reversed())
-                .limit(5)
-                .toList();
-    }
-
     // ─── Leads ───────────────────────────────────────────────────────────────
 
-    @Cacheable(value = "dashboardLeads", key = "'global'")
+    @Cacheable(value = "dashboardLeads", key = "'global'", sync = true)
     @Transactional(readOnly = true)
     public DashboardLeadsDTO getLeadStats() {
         long totalLeads = leadRepository.count();
@@ -196,7 +171,7 @@ public class DashboardService {
 
     // ─── Finance ─────────────────────────────────────────────────────────────
 
-    @Cacheable(value = "dashboardFinance", key = "'global'")
+    @Cacheable(value = "dashboardFinance", key = "'global'", sync = true)
     @Transactional(readOnly = true)
     public DashboardFinanceDTO getFinanceStats() {
         BigDecimal revenueCollected = paymentScheduleRepository.sumPaidAmount();
@@ -273,7 +248,7 @@ public class DashboardService {
 
     // ─── Operations ──────────────────────────────────────────────────────────
 
-    @Cacheable(value = "dashboardOperations", key = "'global'")
+    @Cacheable(value = "dashboardOperations", key = "'global'", sync = true)
     @Transactional(readOnly = true)
     public DashboardOperationsDTO getOperationsStats() {
         LocalDate today = LocalDate.now();
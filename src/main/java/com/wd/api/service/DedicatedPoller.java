@@ -0,0 +1,60 @@
+package com.wd.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Own daemon thread for a poller whose tick can block on the network (HTTP,
+ * SMTP, slow SSE clients). The {@code @Scheduled} method only calls
+ * {@link #trigger}, so the shared scheduler (2 threads in production) is
+ * never held by a slow endpoint and the cron jobs keep their slots.
+ *
+ * <p>A tick requested while the previous one is still running is skipped,
+ * which keeps the {@code fixedDelay} "never overlaps itself" guarantee.
+ */
+final class DedicatedPoller {
+
+    private static final Logger log = LoggerFactory.getLogger(DedicatedPoller.class);
+
+    private final String name;
+    private final ExecutorService thread;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    DedicatedPoller(String name) {
+        this.name = name;
+        this.thread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Run {@code tick} on the poller thread unless a tick is already running. */
+    void trigger(Runnable tick) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            thread.execute(() -> {
+                try {
+                    tick.run();
+                } catch (RuntimeException e) {
+                    log.error("{} tick failed: {}", name, e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false); // shutting down
+        }
+    }
+
+    void shutdown() {
+        thread.shutdownNow();
+    }
+}
@@ -1,6 +1,8 @@
 package com.wd.api.service;
 
 import com.wd.api.dto.DelayLogSearchFilter;
+import com.wd.api.event.DelayChangedEvent;
+import com.wd.api.event.DomainEvent;
 import com.wd.api.model.CustomerProject;
 import com.wd.api.model.DelayLog;
 import com.wd.api.model.PortalUser;
@@ -9,11 +11,12 @@ import com.wd.api.repository.DelayLogRepository;
 import com.wd.api.repository.PortalUserRepository;
 import com.wd.api.repository.ProjectScheduleConfigRepository;
 import com.wd.api.repository.TaskRepository;
-import com.wd.api.service.scheduling.CpmService;
+import com.wd.api.service.scheduling.CpmRecomputeScheduler;
 import com.wd.api.service.scheduling.DelayApplier;
 import com.wd.api.service.scheduling.HandoverShiftDetector;
 import com.wd.api.service.scheduling.HolidayService;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -47,12 +50,14 @@ public class DelayLogService {
 
     private final HolidayService holidayService;
 
-    private final CpmService cpmService;
+    private final CpmRecomputeScheduler cpmScheduler;
 
     private final HandoverShiftDetector handoverShiftDetector;
 
     private final ProjectScheduleConfigRepository scheduleConfigRepo;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     public DelayLogService(
             DelayLogRepository delayLogRepository,
             CustomerProjectRepository projectRepository,
@@ -60,18 +65,20 @@ public class DelayLogService {
             WebhookPublisherService webhookPublisherService,
             TaskRepository taskRepository,
             HolidayService holidayService,
-            CpmService cpmService,
+            CpmRecomputeScheduler cpmScheduler,
             HandoverShiftDetector handoverShiftDetector,
-            ProjectScheduleConfigRepository scheduleConfigRepo) {
+            ProjectScheduleConfigRepository scheduleConfigRepo,
+            ApplicationEventPublisher eventPublisher) {
         this.delayLogRepository = delayLogRepository;
         this.projectRepository = projectRepository;
         this.portalUserRepository = portalUserRepository;
         this.webhookPublisherService = webhookPublisherService;
         this.taskRepository = taskRepository;
         this.holidayService = holidayService;
-        this.cpmService = cpmService;
+        this.cpmScheduler = cpmScheduler;
         this.handoverShiftDetector = handoverShiftDetector;
         this.scheduleConfigRepo = scheduleConfigRepo;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -172,12 +179,13 @@ public class DelayLogService {
         // Publish webhook so Customer API can notify project customers
         String category = saved.getReasonCategory() != null ? saved.getReasonCategory() : saved.getDelayType();
         webhookPublisherService.publishDelayReported(projectId, saved.getId(), category);
+        eventPublisher.publishEvent(new DelayChangedEvent(this, saved.getId(), projectId, DomainEvent.Change.CREATED));
 
         // S3 PR3 — apply delay to pending tasks, recompute CPM, then alert
         // customer if the handover date moved beyond the threshold.
         try {
             newApplier(projectId).applyDelayToTasks(saved);
-            cpmService.recompute(projectId);
+            cpmScheduler.flush(projectId);
             handoverShiftDetector.checkAndAlert(projectId);
         } catch (Exception ex) {
             // Recompute / alert failures must never roll back the delay write.
@@ -211,9 +219,10 @@ public class DelayLogService {
         // CPM recompute still runs so any independent date changes propagate,
         // and the handover-shift detector still alerts customers if needed.
         Long projectId = existing.getProject() != null ? existing.getProject().getId() : null;
+        eventPublisher.publishEvent(new DelayChangedEvent(this, saved.getId(), projectId, DomainEvent.Change.UPDATED));
         if (projectId != null) {
             try {
-                cpmService.recompute(projectId);
+                cpmScheduler.flush(projectId);
                 handoverShiftDetector.checkAndAlert(projectId);
             } catch (Exception ex) {
                 LoggerFactory.getLogger(DelayLogService.class)
@@ -228,7 +237,11 @@ public class DelayLogService {
     @Transactional
     public void deleteDelay(Long delayId) {
         if (delayId != null) {
+            Long projectId = delayLogRepository.findById(delayId)
+                    .map(d -> d.getProject() != null ? d.getProject().getId() : null)
+                    .orElse(null);
             delayLogRepository.deleteById(delayId);
+            eventPublisher.publishEvent(new DelayChangedEvent(this, delayId, projectId, DomainEvent.Change.DELETED));
         }
     }
 
@@ -172,6 +172,8 @@ public class DocumentService {
 
         try (java.util.stream.Stream<java.nio.file.Path> walk = java.nio.file.Files.walk(projectRoot)) {
             walk.filter(java.nio.file.Files::isRegularFile).forEach(file -> {
+                // Dot-files are in-flight temporaries (AtomicFiles), not documents.
+                if (file.getFileName().toString().startsWith(".")) return;
                 java.nio.file.Path categoryFolder = file.getParent();
                 if (categoryFolder == null) return;
                 String folderName = categoryFolder.getFileName().toString();
@@ -309,7 +311,20 @@ public class DocumentService {
             projectDoc.setReferenceId(projectId);
             projectDoc.setReferenceType(REFERENCE_TYPE_PROJECT);
             projectDoc.setFilename(leadDoc.getFilename());
-            projectDoc.setFilePath(leadDoc.getFilePath());
+            // Own path (a hard link to the same blob), so deleting either
+            // document releases only its own reference to the file.
+            String subFolder = "projects/" + projectId;
+            if (leadDoc.getCategory() != null) {
+                subFolder += "/" + sanitizeFolderName(leadDoc.getCategory().getName());
+            }
+            try {
+                projectDoc.setFilePath(fileStorageService.copyFile(leadDoc.getFilePath(), subFolder));
+            } catch (RuntimeException ex) {
+                // Missing source file: keep the old shared-path behaviour rather than fail the conversion.
+                logger.warn("Could not copy lead document {} to project {}: {}",
+                        leadDoc.getFilePath(), projectId, ex.getMessage());
+                projectDoc.setFilePath(leadDoc.getFilePath());
+            }
             projectDoc.setFileSize(leadDoc.getFileSize());
             projectDoc.setFileType(leadDoc.getFileType());
             projectDoc.setDescription(leadDoc.getDescription());
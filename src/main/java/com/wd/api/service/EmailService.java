@@ -6,10 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import com.wd.api.model.Task;
@@ -18,7 +15,13 @@ import com.wd.api.model.TaskAlert;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.util.Locale;
+import java.util.Map;
 
+/**
+ * Builds the portal's outgoing mails. Each send* method renders the message
+ * and hands it to {@link MailOutbox}; {@link MailDispatcher} does the SMTP work
+ * in batches. With {@code app.email.enabled=false} mails are only logged.
+ */
 @Service
 public class EmailService {
 
@@ -26,23 +29,35 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
 
-    private final boolean emailEnabled;
+    private final MailOutbox mailOutbox;
+
+    private final MailTemplates mailTemplates;
 
-    private final String fromEmail;
+    private final boolean emailEnabled;
 
     /** Alert recipient for HOT lead and system-level notifications. Configured per-environment. */
     private final String adminEmail;
 
     public EmailService(@Autowired(required = false) JavaMailSender mailSender,
+                        MailOutbox mailOutbox,
+                        MailTemplates mailTemplates,
                         @Value("${app.email.enabled:false}") boolean emailEnabled,
-                        @Value("${spring.mail.username:noreply@walldot.com}") String fromEmail,
                         @Value("${app.admin.email:info@walldotbuilders.com}") String adminEmail) {
         this.mailSender = mailSender;
+        this.mailOutbox = mailOutbox;
+        this.mailTemplates = mailTemplates;
         this.emailEnabled = emailEnabled;
-        this.fromEmail = fromEmail;
         this.adminEmail = adminEmail;
     }
 
+    /**
+     * Queue a rendered mail in {@link MailOutbox} (same transaction as the
+     * caller; {@link MailDispatcher} sends it).
+     */
+    private void deliver(MailOutbox.Mail mail) {
+        mailOutbox.enqueue(mail);
+    }
+
     /**
      * Sends a welcome email to the newly created user with their credentials.
      * If email is disabled or mocked, it logs the content instead.
@@ -51,18 +66,11 @@ public class EmailService {
      * @param name     Recipient name
      * @param password Generated password
      */
-    @Async
     public void sendWelcomeEmail(String to, String name, String password) {
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(to);
-                message.setSubject("Welcome to Walldot Portal - Account Created");
-                message.setText(buildWelcomeEmailBody(name, to, password));
-
-                mailSender.send(message);
-                logger.info("Welcome email sent successfully to {}", to);
+                deliver(MailOutbox.Mail.text(to, "Welcome to Walldot Portal - Account Created", buildWelcomeEmailBody(name, to, password)));
+                logger.info("Welcome email queued for {}", to);
             } catch (Exception e) {
                 logger.error("Failed to send welcome email to {}. Falling back to simulation log.", to, e);
                 logEmailSimulation(to, name, password);
@@ -89,7 +97,6 @@ public class EmailService {
                 """, name, username, password);
     }
 
-    @Async
     public void sendLeadWelcomeEmail(Lead lead) {
         // Only send if email is valid
         if (lead.getEmail() == null || lead.getEmail().isEmpty())
@@ -112,14 +119,8 @@ public class EmailService {
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(lead.getEmail());
-                message.setSubject(subject);
-                message.setText(body);
-
-                mailSender.send(message);
-                logger.info("Lead welcome email sent successfully to {}", lead.getEmail());
+                deliver(MailOutbox.Mail.text(lead.getEmail(), subject, body));
+                logger.info("Lead welcome email queued for {}", lead.getEmail());
             } catch (Exception e) {
                 logger.error("Failed to send lead welcome email to {}. Falling back to simulation.", lead.getEmail(),
                         e);
@@ -136,7 +137,6 @@ public class EmailService {
     // lead-related, add a dedicated, explicitly-named method here and document its
     // audience clearly.  Do NOT resurrect a generic status-update email.
 
-    @Async
     public void sendAdminScoreAlert(Lead lead) {
         String subject = "HOT LEAD ALERT: " + lead.getName();
         String body = String.format("""
@@ -157,13 +157,8 @@ public class EmailService {
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(adminEmail);
-                message.setSubject(subject);
-                message.setText(body);
-                mailSender.send(message);
-                logger.info("Admin Hot Lead Alert sent for {}", lead.getId());
+                deliver(MailOutbox.Mail.text(adminEmail, subject, body));
+                logger.info("Admin Hot Lead Alert queued for {}", lead.getId());
             } catch (Exception e) {
                 logEmailSimulation(adminEmail, subject, body);
             }
@@ -172,19 +167,13 @@ public class EmailService {
         }
     }
 
-    @Async
     public void sendTaskAlert(String to, Task task, String messageContent, TaskAlert.AlertSeverity severity) {
         String subject = String.format("ACTION REQUIRED: %s Task Alert - %s", severity, task.getTitle());
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(messageContent);
-                mailSender.send(message);
-                logger.info("Task alert email sent to {}", to);
+                deliver(MailOutbox.Mail.text(to, subject, messageContent));
+                logger.info("Task alert email queued for {}", to);
             } catch (Exception e) {
                 logger.error("Failed to send task alert to {}. Simulation logged.", to, e);
                 logEmailSimulation(to, subject, messageContent);
@@ -194,6 +183,32 @@ public class EmailService {
         }
     }
 
+    /**
+     * Sends one deadline digest covering every task of a severity in this run,
+     * instead of one {@link #sendTaskAlert} mail per task.
+     *
+     * @param to        Admin email address
+     * @param severity  Severity shared by all tasks in the digest
+     * @param taskCount Number of tasks listed
+     * @param digest    Pre-formatted task list
+     */
+    public void sendTaskAlertDigest(String to, TaskAlert.AlertSeverity severity, int taskCount, String digest) {
+        String subject = String.format("ACTION REQUIRED: %s Task Alerts - %d task%s",
+                severity, taskCount, taskCount == 1 ? "" : "s");
+
+        if (emailEnabled && mailSender != null) {
+            try {
+                deliver(MailOutbox.Mail.text(to, subject, digest));
+                logger.info("Task alert digest ({} {}) queued for {}", taskCount, severity, to);
+            } catch (Exception e) {
+                logger.error("Failed to send task alert digest to {}. Simulation logged.", to, e);
+                logEmailSimulation(to, subject, digest);
+            }
+        } else {
+            logEmailSimulation(to, subject, digest);
+        }
+    }
+
     /**
      * Sends a password-reset email to a CustomerUser.
      * Called by portal staff when they trigger "Send Reset Password Email" from the portal app.
@@ -203,20 +218,14 @@ public class EmailService {
      * @param firstName Customer first name (for personalisation)
      * @param resetLink Full URL with encoded token and email query params
      */
-    @Async
     public void sendCustomerPasswordResetEmail(String to, String firstName, String resetLink) {
         String subject = "Reset Your Walldot Customer Password";
         String body = buildCustomerPasswordResetEmailBody(firstName, resetLink);
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(body);
-                mailSender.send(message);
-                logger.info("Customer password reset email sent to {}", to);
+                deliver(MailOutbox.Mail.text(to, subject, body));
+                logger.info("Customer password reset email queued for {}", to);
             } catch (Exception e) {
                 logger.error("Failed to send customer password reset email to {}. Simulation logged.", to, e);
                 logEmailSimulation(to, subject, body);
@@ -247,7 +256,6 @@ public class EmailService {
      * Sends a password reset email to a partnership/referral partner.
      * Reset link points to the website's partnerships login page with reset mode.
      */
-    @Async
     public void sendPartnerPasswordResetEmail(String to, String name, String resetLink) {
         String subject = "Reset Your Walldot Partner Account Password";
         String body = String.format("""
@@ -269,13 +277,8 @@ public class EmailService {
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(body);
-                mailSender.send(message);
-                logger.info("Partner password reset email sent to {}", to);
+                deliver(MailOutbox.Mail.text(to, subject, body));
+                logger.info("Partner password reset email queued for {}", to);
             } catch (Exception e) {
                 logger.error("Failed to send partner password reset email to {}. Simulation logged.", to, e);
                 logEmailSimulation(to, subject, body);
@@ -289,7 +292,6 @@ public class EmailService {
      * Sends a partner application approval email.
      * Called when a portal admin approves a partnership application.
      */
-    @Async
     public void sendPartnerApprovalEmail(String to, String name, String partnershipType) {
         String subject = "Your Walldot Partner Application Has Been Approved!";
         String body = String.format("""
@@ -311,13 +313,8 @@ public class EmailService {
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(body);
-                mailSender.send(message);
-                logger.info("Partner approval email sent to {}", to);
+                deliver(MailOutbox.Mail.text(to, subject, body));
+                logger.info("Partner approval email queued for {}", to);
             } catch (Exception e) {
                 logger.error("Failed to send partner approval email to {}. Simulation logged.", to, e);
                 logEmailSimulation(to, subject, body);
@@ -332,7 +329,6 @@ public class EmailService {
      * Does NOT say "thank you for contacting us" — they didn't initiate contact.
      * Informs them that Walldot's team will reach out and they should expect a call.
      */
-    @Async
     public void sendReferralLeadNotificationEmail(Lead lead) {
         if (lead.getEmail() == null || lead.getEmail().isEmpty())
             return;
@@ -364,13 +360,8 @@ public class EmailService {
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(lead.getEmail());
-                message.setSubject(subject);
-                message.setText(body);
-                mailSender.send(message);
-                logger.info("Referral lead notification email sent to {}", lead.getEmail());
+                deliver(MailOutbox.Mail.text(lead.getEmail(), subject, body));
+                logger.info("Referral lead notification email queued for {}", lead.getEmail());
             } catch (Exception e) {
                 logger.error("Failed to send referral lead notification email to {}. Simulation logged.", lead.getEmail(), e);
                 logEmailSimulation(lead.getEmail(), subject, body);
@@ -384,7 +375,6 @@ public class EmailService {
      * Sends an invite email to a person who was referred by someone.
      * They click the setup link to set a password and login to track their inquiry status.
      */
-    @Async
     public void sendReferredClientInviteEmail(String to, String name, String referrerName, String setupLink) {
         String subject = "You've been referred to Walldot Builders — Track Your Inquiry";
         String body = String.format("""
@@ -409,13 +399,8 @@ public class EmailService {
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(body);
-                mailSender.send(message);
-                logger.info("Referred client invite email sent to {}", to);
+                deliver(MailOutbox.Mail.text(to, subject, body));
+                logger.info("Referred client invite email queued for {}", to);
             } catch (Exception e) {
                 logger.error("Failed to send referred client invite email to {}. Simulation logged.", to, e);
                 logEmailSimulation(to, subject, body);
@@ -429,7 +414,6 @@ public class EmailService {
      * Sends a partner application rejection email.
      * Called when a portal admin rejects a partnership application.
      */
-    @Async
     public void sendPartnerRejectionEmail(String to, String name) {
         String subject = "Update on Your Walldot Partner Application";
         String body = String.format("""
@@ -449,13 +433,8 @@ public class EmailService {
 
         if (emailEnabled && mailSender != null) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(body);
-                mailSender.send(message);
-                logger.info("Partner rejection email sent to {}", to);
+                deliver(MailOutbox.Mail.text(to, subject, body));
+                logger.info("Partner rejection email queued for {}", to);
             } catch (Exception e) {
                 logger.error("Failed to send partner rejection email to {}. Simulation logged.", to, e);
                 logEmailSimulation(to, subject, body);
@@ -474,22 +453,14 @@ public class EmailService {
      * @param name      Recipient first name (for personalisation)
      * @param resetLink Full URL including token, e.g. https://portal.../reset-password?token=XXX
      */
-    @Async
     public void sendPortalPasswordResetEmail(String to, String name, String resetLink) {
         String subject = "Reset Your Walldot Portal Password";
         String html = buildPortalPasswordResetHtml(name, resetLink);
 
         if (emailEnabled && mailSender != null) {
             try {
-                jakarta.mail.internet.MimeMessage mimeMessage = mailSender.createMimeMessage();
-                MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-                helper.setFrom(fromEmail, "Walldot Builders Portal");
-                helper.setTo(to);
-                helper.setSubject(subject);
-                helper.setText(html, true); // true = HTML
-
-                mailSender.send(mimeMessage);
-                logger.info("Portal password reset email sent to {}", to);
+                deliver(new MailOutbox.Mail(to, "Walldot Builders Portal", subject, null, html));
+                logger.info("Portal password reset email queued for {}", to);
             } catch (Exception e) {
                 logger.error("Failed to send portal password reset email to {}", to, e);
                 logEmailSimulation(to, subject, "[HTML email — body omitted]");
@@ -501,111 +472,8 @@ public class EmailService {
     }
 
     private String buildPortalPasswordResetHtml(String name, String resetLink) {
-        return """
-            <!DOCTYPE html>
-            <html lang="en">
-            <head>
-              <meta charset="UTF-8">
-              <meta name="viewport" content="width=device-width, initial-scale=1.0">
-              <title>Reset Your Password</title>
-            </head>
-            <body style="margin:0;padding:0;background:#F4F5F7;font-family:'Segoe UI',Arial,sans-serif;">
-              <table width="100%%" cellpadding="0" cellspacing="0" style="background:#F4F5F7;padding:40px 0;">
-                <tr>
-                  <td align="center">
-                    <table width="580" cellpadding="0" cellspacing="0"
-                           style="background:#ffffff;border-radius:12px;overflow:hidden;
-                                  box-shadow:0 4px 20px rgba(0,0,0,0.08);">
-
-                      <!-- Header -->
-                      <tr>
-                        <td style="background:linear-gradient(135deg,#E84545,#2A2A3A);
-                                   padding:36px 40px;text-align:center;">
-                          <h1 style="margin:0;color:#ffffff;font-size:24px;
-                                     font-weight:700;letter-spacing:-0.5px;">
-                            Walldot Builders
-                          </h1>
-                          <p style="margin:6px 0 0;color:rgba(255,255,255,0.75);font-size:13px;">
-                            Portal Administration
-                          </p>
-                        </td>
-                      </tr>
-
-                      <!-- Body -->
-                      <tr>
-                        <td style="padding:40px 48px;">
-                          <h2 style="margin:0 0 16px;color:#2A2A3A;font-size:22px;font-weight:700;">
-                            Reset Your Password
-                          </h2>
-                          <p style="margin:0 0 12px;color:#555;font-size:15px;line-height:1.6;">
-                            Hi <strong>%s</strong>,
-                          </p>
-                          <p style="margin:0 0 24px;color:#555;font-size:15px;line-height:1.6;">
-                            We received a request to reset the password for your Walldot Builders
-                            portal account. Click the button below to choose a new password.
-                          </p>
-
-                          <!-- CTA Button -->
-                          <table cellpadding="0" cellspacing="0" style="margin:0 auto 28px;">
-                            <tr>
-                              <td align="center"
-                                  style="background:#E84545;border-radius:8px;">
-                                <a href="%s"
-                                   style="display:inline-block;padding:14px 36px;
-                                          color:#ffffff;font-size:15px;font-weight:600;
-                                          text-decoration:none;letter-spacing:0.3px;">
-                                  Reset Password
-                                </a>
-                              </td>
-                            </tr>
-                          </table>
-
-                          <!-- Expiry notice -->
-                          <div style="background:#FFF8F0;border:1px solid #FFD9A0;
-                                      border-radius:8px;padding:14px 18px;margin-bottom:24px;">
-                            <p style="margin:0;color:#7A4A00;font-size:13px;line-height:1.5;">
-                              ⏱ <strong>This link expires in 30 minutes.</strong>
-                              If it expires, you can request a new one from the login screen.
-                            </p>
-                          </div>
-
-                          <!-- Fallback link -->
-                          <p style="margin:0 0 8px;color:#888;font-size:13px;">
-                            If the button doesn't work, copy and paste this URL into your browser:
-                          </p>
-                          <p style="margin:0 0 24px;font-size:12px;
-                                    word-break:break-all;color:#E84545;">
-                            %s
-                          </p>
-
-                          <!-- Security notice -->
-                          <div style="border-top:1px solid #EEEEEE;padding-top:20px;">
-                            <p style="margin:0;color:#AAA;font-size:12px;line-height:1.6;">
-                              🔒 If you did not request this password reset, please ignore this
-                              email. Your password will remain unchanged. For security concerns,
-                              contact your system administrator.
-                            </p>
-                          </div>
-                        </td>
-                      </tr>
-
-                      <!-- Footer -->
-                      <tr>
-                        <td style="background:#F8F9FA;padding:20px 48px;
-                                   border-top:1px solid #EEEEEE;text-align:center;">
-                          <p style="margin:0;color:#AAA;font-size:12px;">
-                            © 2025 Walldot Builders LLP · Kerala, India
-                          </p>
-                        </td>
-                      </tr>
-
-                    </table>
-                  </td>
-                </tr>
-              </table>
-            </body>
-            </html>
-            """.formatted(name, resetLink, resetLink);
+        return mailTemplates.render(MailTemplates.PORTAL_PASSWORD_RESET,
+                Map.of("name", name, "resetLink", resetLink));
     }
 
     /**
@@ -628,7 +496,6 @@ public class EmailService {
      * @param cr                the change request being approved
      * @param expiresInMinutes  matches OtpService expiry window (15)
      */
-    @Async
     public void sendCrApprovalOtp(String to, String customerName, String otpCode,
                                   ProjectVariation cr, int expiresInMinutes) {
         String crTitle = deriveCrTitle(cr);
@@ -644,14 +511,8 @@ public class EmailService {
 
         if (emailEnabled && mailSender != null) {
             try {
-                jakarta.mail.internet.MimeMessage mime = mailSender.createMimeMessage();
-                MimeMessageHelper helper = new MimeMessageHelper(mime, true, "UTF-8");
-                helper.setFrom(fromEmail, "Walldot Builders");
-                helper.setTo(to);
-                helper.setSubject(subject);
-                helper.setText(plain, html);  // plain alternative, then HTML
-                mailSender.send(mime);
-                logger.info("CR approval OTP email sent to {} for CR id={}", to, cr.getId());
+                deliver(new MailOutbox.Mail(to, "Walldot Builders", subject, plain, html));  // plain alternative + HTML
+                logger.info("CR approval OTP email queued for {} for CR id={}", to, cr.getId());
             } catch (Exception e) {
                 logger.error("Failed to send CR approval OTP email to {} (CR id={})", to, cr.getId(), e);
                 // Do NOT log the OTP code in any branch.
@@ -668,83 +529,13 @@ public class EmailService {
     String buildCrApprovalOtpHtml(String customerName, String crTitle,
                                   String costImpact, String timeImpact,
                                   String otpCode, int expiresInMinutes) {
-        return """
-            <!DOCTYPE html>
-            <html lang="en">
-            <head>
-              <meta charset="UTF-8">
-              <title>Approve change request</title>
-            </head>
-            <body style="margin:0;padding:0;background:#F4F5F7;font-family:'Segoe UI',Arial,sans-serif;">
-              <table width="100%%" cellpadding="0" cellspacing="0" style="background:#F4F5F7;padding:40px 0;">
-                <tr><td align="center">
-                  <table width="580" cellpadding="0" cellspacing="0"
-                         style="background:#ffffff;border-radius:12px;overflow:hidden;
-                                box-shadow:0 4px 20px rgba(0,0,0,0.08);">
-                    <tr><td style="background:linear-gradient(135deg,#E84545,#2A2A3A);
-                                   padding:36px 40px;text-align:center;">
-                      <h1 style="margin:0;color:#ffffff;font-size:24px;font-weight:700;">
-                        Walldot Builders
-                      </h1>
-                      <p style="margin:6px 0 0;color:rgba(255,255,255,0.75);font-size:13px;">
-                        Change Request Approval
-                      </p>
-                    </td></tr>
-                    <tr><td style="padding:40px 48px;">
-                      <h2 style="margin:0 0 16px;color:#2A2A3A;font-size:22px;font-weight:700;">
-                        Approve change request
-                      </h2>
-                      <p style="margin:0 0 12px;color:#555;font-size:15px;line-height:1.6;">
-                        Hi <strong>%s</strong>,
-                      </p>
-                      <p style="margin:0 0 18px;color:#555;font-size:15px;line-height:1.6;">
-                        Your project team is requesting your approval for the following change:
-                      </p>
-                      <table width="100%%" cellpadding="0" cellspacing="0"
-                             style="background:#FAFAFC;border-radius:8px;padding:18px;margin-bottom:24px;">
-                        <tr><td>
-                          <p style="margin:0 0 8px;font-size:15px;color:#2A2A3A;">
-                            <strong>%s</strong>
-                          </p>
-                          <p style="margin:0 0 4px;color:#666;font-size:14px;">
-                            Cost impact: <strong>%s</strong>
-                          </p>
-                          <p style="margin:0;color:#666;font-size:14px;">
-                            Time impact: <strong>%s</strong>
-                          </p>
-                        </td></tr>
-                      </table>
-                      <p style="margin:0 0 8px;color:#555;font-size:15px;">
-                        Enter this 6-digit code in the customer app to approve:
-                      </p>
-                      <div style="background:#FFF8F0;border:1px solid #FFD9A0;border-radius:8px;
-                                  padding:18px;text-align:center;margin-bottom:24px;">
-                        <p style="margin:0;color:#7A4A00;font-size:30px;font-weight:700;letter-spacing:6px;">
-                          %s
-                        </p>
-                      </div>
-                      <p style="margin:0 0 8px;color:#888;font-size:13px;">
-                        This code expires in <strong>%d minutes</strong>.
-                      </p>
-                      <div style="border-top:1px solid #EEEEEE;padding-top:16px;margin-top:20px;">
-                        <p style="margin:0;color:#AAA;font-size:12px;line-height:1.6;">
-                          If you didn't expect this email, you can safely ignore it.
-                          Your project will not change unless you enter this code.
-                        </p>
-                      </div>
-                    </td></tr>
-                    <tr><td style="background:#F8F9FA;padding:20px 48px;
-                                   border-top:1px solid #EEEEEE;text-align:center;">
-                      <p style="margin:0;color:#AAA;font-size:12px;">
-                        \u00a9 2026 Walldot Builders LLP \u00b7 Kerala, India
-                      </p>
-                    </td></tr>
-                  </table>
-                </td></tr>
-              </table>
-            </body>
-            </html>
-            """.formatted(customerName, crTitle, costImpact, timeImpact, otpCode, expiresInMinutes);
+        return mailTemplates.render(MailTemplates.CR_APPROVAL_OTP, Map.of(
+                "customerName", customerName,
+                "crTitle", crTitle,
+                "costImpact", costImpact,
+                "timeImpact", timeImpact,
+                "otpCode", otpCode,
+                "expiresInMinutes", expiresInMinutes));
     }
 
     String buildCrApprovalOtpPlainText(String customerName, String crTitle, String crDescription,
@@ -1,28 +1,31 @@
 package com.wd.api.service;
 
 import com.wd.api.config.FileUploadConfig;
+import com.wd.api.util.AtomicFiles;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.IIOImage;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.stream.ImageOutputStream;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class FileStorageService {
@@ -41,8 +44,37 @@ public class FileStorageService {
 
     private final Path fileStorageLocation;
 
+    private final ImageOptimizer imageOptimizer;
+
+    private final StorageBlobStore blobStore;
+
+    /**
+     * CPU pool for {@link #storeOptimizedImages}. Bounded queue; when it is
+     * full the request thread encodes its own photo, which throttles uploads
+     * instead of queueing unbounded decode work. One thread per core unless
+     * {@code file.image.encode-workers} says otherwise: on the 1-core
+     * production VPS more threads add decode heap without adding speed.
+     */
+    private final ThreadPoolExecutor encodeWorkers;
+
     public FileStorageService(FileUploadConfig fileUploadConfig,
-            @org.springframework.beans.factory.annotation.Value("${storageBasePath}") String storageBasePath) {
+            @org.springframework.beans.factory.annotation.Value("${storageBasePath}") String storageBasePath,
+            ImageOptimizer imageOptimizer,
+            StorageBlobStore blobStore,
+            @org.springframework.beans.factory.annotation.Value("${file.image.encode-workers:0}") int encodeWorkerCount,
+            @org.springframework.beans.factory.annotation.Value("${file.image.encode-queue-capacity:64}") int encodeQueueCapacity) {
+        this.imageOptimizer = imageOptimizer;
+        this.blobStore = blobStore;
+        AtomicInteger seq = new AtomicInteger();
+        int workers = encodeWorkerCount > 0 ? encodeWorkerCount : Runtime.getRuntime().availableProcessors();
+        this.encodeWorkers = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(encodeQueueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "photo-encode-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
         String uploadDir = storageBasePath.trim();
 
         logger.info("Initializing File Storage at: {}", uploadDir);
@@ -84,12 +116,18 @@ public class FileStorageService {
             Path targetLocation = this.fileStorageLocation.resolve(subDirectory);
             Files.createDirectories(targetLocation);
 
-            // Copy file to the target location
+            // Copy file to the target location; it only appears once complete.
             Path destinationFile = targetLocation.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), destinationFile, StandardCopyOption.REPLACE_EXISTING);
+            AtomicFiles.write(destinationFile, temp -> {
+                try (InputStream in = file.getInputStream()) {
+                    Files.copy(in, temp);
+                }
+            });
             applyStoragePermissions(destinationFile);
 
-            return subDirectory + "/" + uniqueFileName;
+            String storedPath = subDirectory + "/" + uniqueFileName;
+            adoptQuietly(storedPath);
+            return storedPath;
         } catch (IOException ex) {
             throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
         }
@@ -102,6 +140,11 @@ public class FileStorageService {
      * loss. Pure-Java path via {@link javax.imageio.ImageIO} — no native
      * libs, no platform-specific deployment risk.
      *
+     * <p>Decoding goes through {@link ImageOptimizer}: header-first
+     * dimensions, subsampled decode to {@code file.image.max-edge} (default
+     * 2048 px), EXIF orientation applied, pooled JPEG writers. Heap per photo
+     * is bounded by the max edge rather than the camera's megapixels.
+     *
      * <p>WebP would be an even-smaller format (~30–40% additional saving)
      * but the only Java WebP encoder ships native binaries, which
      * complicates Linux containerised deployment. When the deployment
@@ -125,69 +168,152 @@ public class FileStorageService {
             throw new RuntimeException("Sorry! Filename contains invalid path sequence " + originalFileName);
         }
 
-        // Read the upload into a BufferedImage. ImageIO returns null when
-        // the bytes aren't a recognised image (PDF, video, plain blob);
-        // we fall through to the raw store in that case.
-        BufferedImage source;
+        Path destinationFile = null;
         try {
-            source = ImageIO.read(file.getInputStream());
-        } catch (IOException ex) {
-            logger.warn("Could not read upload as image, falling back to raw store: {}", ex.getMessage());
+            String uniqueFileName = UUID.randomUUID().toString() + ".jpg";
+            Path targetLocation = this.fileStorageLocation.resolve(subDirectory);
+            Files.createDirectories(targetLocation);
+            destinationFile = targetLocation.resolve(uniqueFileName);
+
+            long t0 = System.nanoTime();
+            ImageOptimizer.Result result = imageOptimizer.writeJpeg(file, destinationFile);
+            if (result == null) {
+                // Non-image binary — keep as-is.
+                return storeFile(file, subDirectory);
+            }
+            applyStoragePermissions(destinationFile);
+
+            long originalBytes = file.getSize();
+            long encodedBytes = Files.size(destinationFile);
+            logger.info("Optimised image {} → {}: {}x{} → {}x{} (1/{} decode, orientation {}), {} KB → {} KB in {} ms",
+                    originalFileName, uniqueFileName,
+                    result.sourceWidth(), result.sourceHeight(), result.width(), result.height(),
+                    result.subsampling(), result.orientation(),
+                    originalBytes / 1024, encodedBytes / 1024, (System.nanoTime() - t0) / 1_000_000);
+
+            String storedPath = subDirectory + "/" + uniqueFileName;
+            adoptQuietly(storedPath);
+            return storedPath;
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Image optimisation failed for {}, falling back to raw store: {}",
+                    originalFileName, ex.getMessage());
+            deleteQuietly(destinationFile);
             return storeFile(file, subDirectory);
         }
-        if (source == null) {
-            // Non-image binary — keep as-is.
-            return storeFile(file, subDirectory);
+    }
+
+    /**
+     * {@link #storeOptimizedImage} for several uploads at once, encoded in
+     * parallel on the {@code file.image.encode-workers} pool. Paths come back
+     * in input order. All-or-nothing: if any photo fails, the ones already
+     * written are deleted before the first failure is rethrown, so callers
+     * only have to clean up after their own later steps.
+     */
+    public List<String> storeOptimizedImages(List<MultipartFile> files, String subDirectory) {
+        if (files.size() == 1) {
+            return List.of(storeOptimizedImage(files.get(0), subDirectory));
+        }
+        List<Future<String>> pending = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            pending.add(encodeWorkers.submit(() -> storeOptimizedImage(file, subDirectory)));
         }
 
-        // JPEG doesn't support alpha — for PNGs/etc with transparency,
-        // composite onto white before encoding so we don't lose pixels
-        // to ImageIO's silent-black behaviour.
-        BufferedImage rgb;
-        if (source.getColorModel().hasAlpha()) {
-            rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
-            Graphics2D g = rgb.createGraphics();
+        List<String> stored = new ArrayList<>(files.size());
+        RuntimeException failure = null;
+        for (Future<String> future : pending) {
             try {
-                g.setColor(java.awt.Color.WHITE);
-                g.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
-                g.drawImage(source, 0, 0, null);
-            } finally {
-                g.dispose();
+                stored.add(future.get());
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause() instanceof RuntimeException re
+                            ? re : new RuntimeException("Could not store photo", ex.getCause());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new RuntimeException("Interrupted while storing photos", ex);
+                }
             }
-        } else {
-            rgb = source;
         }
+        if (failure != null) {
+            deleteFilesQuietly(stored);
+            throw failure;
+        }
+        return stored;
+    }
+
+    /** Best-effort removal of files written by a request that then failed. */
+    public void deleteFilesQuietly(List<String> filePaths) {
+        for (String filePath : filePaths) {
+            releaseQuietly(filePath);
+            deleteQuietly(getFilePath(filePath));
+        }
+    }
 
+    /**
+     * Give {@code sourcePath}'s file a second, independently deletable path
+     * under {@code subDirectory}, e.g. when a lead's documents move to its
+     * project. A hard link where the filesystem allows it, so the copy costs
+     * no bytes; a plain copy otherwise.
+     *
+     * @return relative storage path of the copy
+     */
+    public String copyFile(String sourcePath, String subDirectory) {
+        Path source = getFilePath(sourcePath);
+        String fileName = source.getFileName().toString();
+        int dotIndex = fileName.lastIndexOf('.');
+        String uniqueFileName = UUID.randomUUID() + (dotIndex > 0 ? fileName.substring(dotIndex) : "");
         try {
-            String uniqueFileName = UUID.randomUUID().toString() + ".jpg";
             Path targetLocation = this.fileStorageLocation.resolve(subDirectory);
             Files.createDirectories(targetLocation);
-            Path destinationFile = targetLocation.resolve(uniqueFileName);
+            Path target = targetLocation.resolve(uniqueFileName);
+            try {
+                Files.createLink(target, source);
+            } catch (UnsupportedOperationException | java.nio.file.FileSystemException ex) {
+                AtomicFiles.write(target, temp -> Files.copy(source, temp));
+                applyStoragePermissions(target);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not copy file " + sourcePath, ex);
+        }
+        String storedPath = subDirectory + "/" + uniqueFileName;
+        adoptQuietly(storedPath);
+        return storedPath;
+    }
 
-            ImageWriter writer = ImageIO.getImageWritersByMIMEType("image/jpeg").next();
-            ImageWriteParam params = writer.getDefaultWriteParam();
-            params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-            params.setCompressionQuality(0.82f);
+    /**
+     * Register a freshly written file with the blob layer. A failure leaves
+     * it as a plain file, which {@code StorageDedupeJob} adopts later, so it
+     * never fails the upload.
+     */
+    private void adoptQuietly(String storedPath) {
+        try {
+            blobStore.adopt(storedPath);
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Could not adopt {} into blob storage: {}", storedPath, ex.getMessage());
+        }
+    }
 
-            try (ImageOutputStream out = ImageIO.createImageOutputStream(destinationFile.toFile())) {
-                writer.setOutput(out);
-                writer.write(null, new IIOImage(rgb, null, null), params);
-            } finally {
-                writer.dispose();
-            }
-            applyStoragePermissions(destinationFile);
+    private void releaseQuietly(String filePath) {
+        try {
+            blobStore.release(filePath);
+        } catch (RuntimeException ex) {
+            // A leftover mapping is released by StorageDedupeJob once the path is gone.
+            logger.warn("Could not release blob reference for {}: {}", filePath, ex.getMessage());
+        }
+    }
 
-            long originalBytes = file.getSize();
-            long encodedBytes = Files.size(destinationFile);
-            logger.info("Optimised image {} → {}: {} KB → {} KB",
-                    originalFileName, uniqueFileName,
-                    originalBytes / 1024, encodedBytes / 1024);
+    @PreDestroy
+    void shutdown() {
+        encodeWorkers.shutdown();
+    }
 
-            return subDirectory + "/" + uniqueFileName;
+    private void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
         } catch (IOException ex) {
-            logger.warn("Image optimisation failed for {}, falling back to raw store: {}",
-                    originalFileName, ex.getMessage());
-            return storeFile(file, subDirectory);
+            logger.warn("Could not remove partial file {}: {}", path, ex.getMessage());
         }
     }
 
@@ -207,7 +333,13 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Delete a stored path. For a path under the blob layer this drops one
+     * reference: the bytes stay on disk while another path still shares
+     * them, and the blob goes with its last reference.
+     */
     public void deleteFile(String filePath) {
+        releaseQuietly(filePath);
         try {
             Path file = this.fileStorageLocation.resolve(filePath).normalize();
             Files.deleteIfExists(file);
@@ -6,6 +6,7 @@ import com.wd.api.model.CustomerProject;
 import com.wd.api.model.GalleryImage;
 import com.wd.api.model.PortalUser;
 import com.wd.api.model.SiteReport;
+import com.wd.api.model.SiteReportPhoto;
 import com.wd.api.repository.CustomerProjectRepository;
 import com.wd.api.repository.GalleryImageRepository;
 import com.wd.api.repository.SiteReportRepository;
@@ -37,15 +38,18 @@ public class GalleryService {
     private final CustomerProjectRepository projectRepository;
     private final SiteReportRepository siteReportRepository;
     private final FileStorageService fileStorageService;
+    private final PhotoRenditionService photoRenditionService;
 
     public GalleryService(GalleryImageRepository galleryImageRepository,
             CustomerProjectRepository projectRepository,
             SiteReportRepository siteReportRepository,
-            FileStorageService fileStorageService) {
+            FileStorageService fileStorageService,
+            PhotoRenditionService photoRenditionService) {
         this.galleryImageRepository = galleryImageRepository;
         this.projectRepository = projectRepository;
         this.siteReportRepository = siteReportRepository;
         this.fileStorageService = fileStorageService;
+        this.photoRenditionService = photoRenditionService;
     }
 
     @Transactional(readOnly = true)
@@ -144,6 +148,7 @@ public class GalleryService {
 
         GalleryImage savedImage = galleryImageRepository.save(image);
         logger.info("Gallery image uploaded for project {}: {}", projectId, savedImage.getId());
+        photoRenditionService.generateAfterCommit(List.of(storedPath));
 
         return GalleryImageDto.fromEntity(savedImage);
     }
@@ -176,9 +181,8 @@ public class GalleryService {
         if (image.getImagePath() != null) {
             fileStorageService.deleteFile(image.getImagePath());
         }
-        if (image.getThumbnailPath() != null) {
-            fileStorageService.deleteFile(image.getThumbnailPath());
-        }
+        photoRenditionService.deleteRenditions(image.getImagePath(),
+                image.getThumbnailPath(), image.getPreviewPath());
 
         galleryImageRepository.delete(image);
         logger.info("Gallery image deleted: {}", id);
@@ -205,41 +209,57 @@ public class GalleryService {
                 .map(GalleryImage::getImagePath)
                 .collect(Collectors.toSet());
 
-        int created = 0;
-        for (var photo : siteReport.getPhotos()) {
-            if (existingPaths.contains(photo.getStoragePath())) {
-                continue;
-            }
-            // Anchor every date field to the site report so the gallery
-            // displays the actual capture/submission time, not the moment
-            // the gallery row was created (matters for backfills + late
-            // syncs — otherwise all backfilled rows show "today").
-            LocalDateTime reportTimestamp = siteReport.getReportDate() != null
-                    ? siteReport.getReportDate()
-                    : siteReport.getCreatedAt();
-            if (reportTimestamp == null) {
-                reportTimestamp = LocalDateTime.now();
-            }
+        List<SiteReportPhoto> missing = siteReport.getPhotos().stream()
+                .filter(photo -> !existingPaths.contains(photo.getStoragePath()))
+                .toList();
+        int created = createImagesFromSiteReportPhotos(siteReport, missing, uploadedBy);
 
+        if (created > 0) {
+            logger.info("Created {} gallery images from site report {}", created, siteReportId);
+        }
+        return created;
+    }
+
+    /**
+     * Gallery rows for photos just added to a site report, saved in one
+     * {@code saveAll}. Joins the caller's transaction, so
+     * {@link SiteReportService} commits photo and gallery rows together.
+     */
+    @Transactional
+    public int createImagesFromSiteReportPhotos(SiteReport siteReport, List<SiteReportPhoto> photos,
+            PortalUser uploadedBy) {
+        if (photos.isEmpty()) {
+            return 0;
+        }
+        // Anchor every date field to the site report so the gallery
+        // displays the actual capture/submission time, not the moment
+        // the gallery row was created (matters for backfills + late
+        // syncs — otherwise all backfilled rows show "today").
+        LocalDateTime reportTimestamp = siteReport.getReportDate() != null
+                ? siteReport.getReportDate()
+                : siteReport.getCreatedAt();
+        if (reportTimestamp == null) {
+            reportTimestamp = LocalDateTime.now();
+        }
+
+        List<GalleryImage> images = new ArrayList<>(photos.size());
+        for (SiteReportPhoto photo : photos) {
             GalleryImage galleryImage = new GalleryImage();
             galleryImage.setProject(siteReport.getProject());
             galleryImage.setSiteReport(siteReport);
             galleryImage.setImagePath(photo.getStoragePath());
             galleryImage.setImageUrl(photo.getPhotoUrl());
+            galleryImage.setThumbnailPath(photo.getThumbnailPath());
+            galleryImage.setPreviewPath(photo.getPreviewPath());
             galleryImage.setCaption("From Site Report: " + siteReport.getTitle());
             galleryImage.setTakenDate(reportTimestamp.toLocalDate());
             galleryImage.setUploadedBy(uploadedBy);
             galleryImage.setUploadedAt(reportTimestamp);
             galleryImage.setCreatedAt(reportTimestamp);
-
-            galleryImageRepository.save(galleryImage);
-            created++;
-        }
-
-        if (created > 0) {
-            logger.info("Created {} gallery images from site report {}", created, siteReportId);
+            images.add(galleryImage);
         }
-        return created;
+        galleryImageRepository.saveAll(images);
+        return images.size();
     }
 
     /**
@@ -28,14 +28,14 @@ public class GanttService {
 
     private final TaskPredecessorRepository taskPredecessorRepository;
 
-    private final com.wd.api.service.scheduling.CpmService cpmService;
+    private final com.wd.api.service.scheduling.CpmRecomputeScheduler cpmScheduler;
 
     public GanttService(TaskRepository taskRepository,
                         TaskPredecessorRepository taskPredecessorRepository,
-                        com.wd.api.service.scheduling.CpmService cpmService) {
+                        com.wd.api.service.scheduling.CpmRecomputeScheduler cpmScheduler) {
         this.taskRepository = taskRepository;
         this.taskPredecessorRepository = taskPredecessorRepository;
-        this.cpmService = cpmService;
+        this.cpmScheduler = cpmScheduler;
     }
 
     // ──────────────────────────────────────────────────────────────────────────
@@ -168,7 +168,7 @@ public class GanttService {
         Task saved = taskRepository.save(task);
         // S2 PR1: schedule mutations change CPM inputs; keep denormalized columns consistent.
         if (saved.getProject() != null && saved.getProject().getId() != null) {
-            cpmService.recompute(saved.getProject().getId());
+            cpmScheduler.requestRecompute(saved.getProject().getId(), List.of(saved.getId()));
         }
         return saved;
     }
@@ -0,0 +1,280 @@
+package com.wd.api.service;
+
+import com.wd.api.util.AtomicFiles;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Decodes an uploaded photo at bounded cost and re-encodes it as JPEG.
+ *
+ * <p>{@code ImageIO.read} on a 12 MP phone photo materialises a ~48 MB
+ * ARGB raster before anything is scaled. Here the dimensions come from the
+ * image header first, and the decode uses {@link ImageReadParam} source
+ * subsampling so the raster's long edge stays under 1.5 x {@code maxEdge}.
+ * A single draw pass then scales to {@code maxEdge}, applies the EXIF
+ * orientation (the re-encode drops metadata, so it has to be baked into the
+ * pixels) and composites alpha onto white. Heap per photo therefore depends on
+ * {@code file.image.max-edge}, not on the camera's resolution.
+ *
+ * <p>JPEG writers are pooled ({@code file.image.writer-pool-size}): an
+ * {@link ImageWriter} is not thread-safe but is reusable after
+ * {@link ImageWriter#reset()}, which saves the plugin lookup and codec setup
+ * on every photo.
+ */
+@Component
+public class ImageOptimizer {
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final int defaultMaxEdge;
+    private final float quality;
+    private final BlockingQueue<ImageWriter> writers;
+
+    public ImageOptimizer(@Value("${file.image.max-edge:2048}") int defaultMaxEdge,
+                          @Value("${file.image.jpeg-quality:0.82}") float quality,
+                          @Value("${file.image.writer-pool-size:4}") int writerPoolSize) {
+        this.defaultMaxEdge = defaultMaxEdge;
+        this.quality = quality;
+        this.writers = new ArrayBlockingQueue<>(Math.max(1, writerPoolSize));
+    }
+
+    /**
+     * The bytes have an image reader but do not decode (truncated, CMYK JPEG,
+     * ...). Unlike other {@link IOException}s from {@link #writeJpeg}, retrying
+     * the same file will not help.
+     */
+    public static class UndecodableImageException extends IOException {
+        UndecodableImageException(Throwable cause) {
+            super("Undecodable image: " + cause.getMessage(), cause);
+        }
+    }
+
+    /** Source and output geometry of one optimised image. */
+    public record Result(int sourceWidth, int sourceHeight, int width, int height,
+                         int subsampling, int orientation) {
+    }
+
+    /** {@link #writeJpeg(InputStreamSource, Path, int)} at {@code file.image.max-edge}. */
+    public Result writeJpeg(InputStreamSource source, Path destination) throws IOException {
+        return writeJpeg(source, destination, defaultMaxEdge);
+    }
+
+    /**
+     * Decode {@code source}, fit it inside {@code maxEdge} x {@code maxEdge},
+     * upright and without alpha, and write it to {@code destination} as JPEG.
+     *
+     * @return the geometry, or {@code null} when ImageIO has no reader for
+     *         the bytes (PDF, video, ...) — nothing is written in that case
+     * @throws UndecodableImageException when the bytes look like an image
+     *         but cannot be decoded (truncated, CMYK JPEG, ...)
+     * @throws IOException when reading the source or writing fails
+     */
+    public Result writeJpeg(InputStreamSource source, Path destination, int maxEdge) throws IOException {
+        int orientation;
+        try (InputStream in = source.getInputStream()) {
+            orientation = exifOrientation(in);
+        }
+
+        BufferedImage decoded;
+        int sourceWidth;
+        int sourceHeight;
+        int subsampling;
+        try (InputStream in = source.getInputStream();
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis != null ? ImageIO.getImageReaders(iis) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                // Header only: no pixels decoded yet.
+                sourceWidth = reader.getWidth(0);
+                sourceHeight = reader.getHeight(0);
+                subsampling = subsampling(sourceWidth, sourceHeight, maxEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                decoded = reader.read(0, param);
+            } catch (IIOException | RuntimeException e) {
+                // Format errors; a failing source stream surfaces as a plain IOException.
+                throw new UndecodableImageException(e);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        BufferedImage upright = normalise(decoded, orientation, maxEdge);
+        write(upright, destination);
+        return new Result(sourceWidth, sourceHeight, upright.getWidth(), upright.getHeight(),
+                subsampling, orientation);
+    }
+
+    /**
+     * Smallest integer step that brings the long edge to {@code maxEdge} or
+     * below, backed off by one when that would land under three quarters of
+     * {@code maxEdge} (a 2100 px photo decodes at 1/1, not 1/2 = 1050 px).
+     * Either way the decoded long edge stays under 1.5 x {@code maxEdge}.
+     */
+    static int subsampling(int width, int height, int maxEdge) {
+        int edge = Math.max(width, height);
+        int step = Math.max(1, (edge + maxEdge - 1) / maxEdge);
+        if (step > 1 && edge / step < maxEdge * 3 / 4) {
+            step--;
+        }
+        return step;
+    }
+
+    /** Scale into {@code maxEdge}, apply EXIF orientation and drop alpha, in one draw when any is needed. */
+    static BufferedImage normalise(BufferedImage image, int orientation, int maxEdge) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(w, h));
+        boolean opaqueRgb = image.getType() == BufferedImage.TYPE_3BYTE_BGR
+                || image.getType() == BufferedImage.TYPE_INT_RGB;
+        if (scale == 1.0 && orientation == 1 && opaqueRgb) {
+            return image;
+        }
+
+        int sw = Math.max(1, (int) Math.round(w * scale));
+        int sh = Math.max(1, (int) Math.round(h * scale));
+        boolean swap = orientation >= 5 && orientation <= 8;
+        BufferedImage out = new BufferedImage(swap ? sh : sw, swap ? sw : sh, BufferedImage.TYPE_INT_RGB);
+
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, sw, 0);     // mirror horizontal
+            case 3 -> new AffineTransform(-1, 0, 0, -1, sw, sh);   // rotate 180
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, sh);     // mirror vertical
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);       // transpose
+            case 6 -> new AffineTransform(0, 1, -1, 0, sh, 0);     // rotate 90 CW
+            case 7 -> new AffineTransform(0, -1, -1, 0, sh, sw);   // transverse
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, sw);     // rotate 90 CCW
+            default -> new AffineTransform();
+        };
+        transform.concatenate(AffineTransform.getScaleInstance((double) sw / w, (double) sh / h));
+
+        Graphics2D g = out.createGraphics();
+        try {
+            // JPEG has no alpha: composite onto white rather than ImageIO's black.
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, out.getWidth(), out.getHeight());
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    /**
+     * Through {@link AtomicFiles}: {@code FileImageOutputStream} opens the
+     * file {@code rw} without truncating, so writing in place would leave a
+     * half-written file visible and modify any hard link to an existing one.
+     */
+    private void write(BufferedImage image, Path destination) throws IOException {
+        AtomicFiles.write(destination, temp -> encode(image, temp));
+    }
+
+    private void encode(BufferedImage image, Path destination) throws IOException {
+        ImageWriter writer = writers.poll();
+        if (writer == null) {
+            writer = ImageIO.getImageWritersByMIMEType("image/jpeg").next();
+        }
+        boolean reusable = false;
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(destination.toFile())) {
+            ImageWriteParam params = writer.getDefaultWriteParam();
+            params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            params.setCompressionQuality(quality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), params);
+            reusable = true;
+        } finally {
+            if (reusable) {
+                writer.reset();
+                if (!writers.offer(writer)) writer.dispose();
+            } else {
+                writer.dispose();
+            }
+        }
+    }
+
+    /**
+     * EXIF orientation (1–8) from a JPEG's APP1 segment, reading only the
+     * markers before the image data. 1 (upright) for anything that is not a
+     * JPEG, has no EXIF block, or is malformed.
+     */
+    static int exifOrientation(InputStream stream) {
+        try {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readUnsignedShort() != 0xFFD8) return 1;
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) return 1;
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) return 1;
+                if (marker != 0xFFE1) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                byte[] app1 = in.readNBytes(length);
+                if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+                    continue; // XMP or other APP1 payload
+                }
+                return tiffOrientation(app1, 6);
+            }
+        } catch (IOException e) {
+            return 1; // includes EOF before any EXIF block
+        }
+    }
+
+    private static int tiffOrientation(byte[] b, int tiff) {
+        boolean little = b[tiff] == 'I' && b[tiff + 1] == 'I';
+        int ifd = tiff + readInt(b, tiff + 4, little);
+        if (ifd < tiff || ifd + 2 > b.length) return 1;
+        int entries = readShort(b, ifd, little);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > b.length) return 1;
+            if (readShort(b, entry, little) == ORIENTATION_TAG) {
+                int value = readShort(b, entry + 8, little);
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] b, int at, boolean little) {
+        return little
+                ? (b[at] & 0xFF) | (b[at + 1] & 0xFF) << 8
+                : (b[at] & 0xFF) << 8 | (b[at + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] b, int at, boolean little) {
+        return little
+                ? readShort(b, at, true) | readShort(b, at + 2, true) << 16
+                : readShort(b, at, false) << 16 | readShort(b, at + 2, false);
+    }
+}
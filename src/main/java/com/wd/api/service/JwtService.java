@@ -1,9 +1,16 @@
 package com.wd.api.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.wd.api.security.JwtConstants;
+import com.wd.api.security.VerifiedToken;
+import com.wd.api.util.TokenHashUtil;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.JwtBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,6 +22,8 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
@@ -43,6 +52,9 @@ public class JwtService {
     @Value("${jwt.aud.enforce}")
     private boolean audEnforce;
 
+    @Value("${jwt.claims-cache.maximum-size:10000}")
+    private long claimsCacheMaximumSize;
+
     /**
      * Always-initialized HMAC key — used for signing in HS256 mode and for
      * backward-compatible verification of old tokens when running in RS256 mode.
@@ -61,6 +73,19 @@ public class JwtService {
     /** True when RS256 is configured and a valid private key was loaded. */
     private boolean useRsa = false;
 
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Signature-verified claims keyed by SHA-256 of the raw token, each entry
+     * living until its token expires. Only successfully verified tokens are
+     * cached; audience is re-checked on every call (it is a runtime toggle).
+     */
+    private Cache<String, Claims> verifiedClaims;
+
+    public JwtService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @PostConstruct
     private void initSigningKey() {
         // Always build the HMAC key — needed for backward-compat fallback verification.
@@ -77,6 +102,30 @@ public class JwtService {
             this.useRsa = false;
             logger.info("JWT signing initialized with HS256 (HMAC)");
         }
+
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaximumSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        Date exp = claims.getExpiration();
+                        if (exp == null) return 0; // never cache tokens without an expiry
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, exp.getTime() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwtClaims");
     }
 
     private Key getSigningKey() {
@@ -133,8 +182,19 @@ public class JwtService {
      * during the transition window.
      * <p>
      * When running in HS256 mode: verifies with the HMAC key only.
+     * <p>
+     * Verified claims are cached until the token expires, so repeated calls for
+     * the same token cost a SHA-256 and a map lookup. Invalid tokens throw and
+     * are not cached.
      */
     private Claims extractAllClaims(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT must not be empty");
+        }
+        return verifiedClaims.get(TokenHashUtil.hash(token), k -> parseAndVerify(token));
+    }
+
+    private Claims parseAndVerify(String token) {
         if (useRsa) {
             try {
                 return Jwts.parser()
@@ -160,10 +220,6 @@ public class JwtService {
                 .getPayload();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     // ── Token generation ─────────────────────────────────────────────────────
 
     public String generateAccessToken(UserDetails userDetails) {
@@ -200,35 +256,17 @@ public class JwtService {
      * Now reads from a cryptographically signed claim in the JWT payload.
      */
     public String extractTokenType(String token) {
-        Object tokenType = extractAllClaims(token).get(JwtConstants.CLAIM_TOKEN_TYPE);
-        if (tokenType != null) {
-            return tokenType.toString();
-        }
-        return JwtConstants.DEFAULT_TOKEN_TYPE; // Safe default for tokens issued before this fix
+        return new VerifiedToken(extractAllClaims(token)).tokenType();
     }
 
     /**
      * Extract the actual subject (email).
      * Previously had to strip the "PARTNER_" prefix from subject — now subject is just the email.
-     * Backward-compatible: strips legacy prefix for tokens issued before this fix.
-     *
-     * Safety: only strips when subject has no '@' (real emails always have '@')
-     * AND matches the legacy prefix shape (ALLCAPS_...). This prevents
-     * truncating emails that legitimately contain an underscore such as
-     * task_editor@test.com or john_smith@company.com.
+     * Backward-compatible: strips legacy prefix for tokens issued before this fix
+     * (see {@link VerifiedToken#actualSubject()}).
      */
     public String extractActualSubject(String token) {
-        String subject = extractUsername(token);
-        if (subject == null) return null;
-        if (subject.contains("@")) {
-            // Modern token: subject is a plain email, no prefix to strip
-            return subject;
-        }
-        if (subject.matches("^[A-Z]+_.*")) {
-            // Legacy token: had UPPERCASE_ prefix — strip it for backward compatibility
-            return subject.substring(subject.indexOf("_") + 1);
-        }
-        return subject;
+        return new VerifiedToken(extractAllClaims(token)).actualSubject();
     }
 
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
@@ -250,31 +288,45 @@ public class JwtService {
     // ── Validation ───────────────────────────────────────────────────────────
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        if (!validateToken(token)) {
-            return false;
-        }
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return verify(token).map(t -> isValidFor(t, userDetails)).orElse(false);
+    }
+
+    /** Subject and expiry check of an already verified token against the loaded user. */
+    public boolean isValidFor(VerifiedToken token, UserDetails userDetails) {
+        return token.subject().equals(userDetails.getUsername()) && !token.isExpired();
     }
 
     public Boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    /**
+     * Verify the signature, expiry and audience of a token. The signature check
+     * runs once per distinct token; later calls hit the verified-claims cache.
+     *
+     * @return the verified token, or empty if it is not valid
+     */
+    public Optional<VerifiedToken> verify(String token) {
         try {
             Claims claims = extractAllClaims(token);
+            if (claims.getExpiration() != null && claims.getExpiration().before(new Date())) {
+                return Optional.empty();
+            }
 
             java.util.Set<String> tokenAud = claims.getAudience();
             boolean audMatches = tokenAud != null && tokenAud.contains(audValue);
 
             if (!audMatches) {
                 if (audEnforce) {
-                    return false;
+                    return Optional.empty();
                 }
                 logger.warn("JWT missing or mismatched aud claim (token audience={}, expected={}). "
                         + "This should only occur during the phased aud rollout — investigate if seen post-rollout.",
                         tokenAud, audValue);
             }
-            return true;
+            return Optional.of(new VerifiedToken(claims));
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
 
@@ -1,9 +1,12 @@
 package com.wd.api.service;
 
 import com.wd.api.dto.LabourPaymentDTO;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.PaymentChangedEvent;
 import com.wd.api.model.*;
 import com.wd.api.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +24,7 @@ public class LabourPaymentService {
     private final CustomerProjectRepository projectRepository;
     private final MeasurementBookRepository mbRepository;
     private final WageSheetRepository wageSheetRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public LabourPaymentDTO recordLabourPayment(LabourPaymentDTO dto) {
@@ -69,7 +73,10 @@ public class LabourPaymentService {
                 .notes(dto.getNotes())
                 .build();
 
-        return mapToDTO(labourPaymentRepository.save(payment));
+        LabourPayment saved = labourPaymentRepository.save(payment);
+        eventPublisher.publishEvent(new PaymentChangedEvent(this, PaymentChangedEvent.Kind.COST,
+                saved.getId(), projectId, DomainEvent.Change.CREATED));
+        return mapToDTO(saved);
     }
 
     // ── Internal helpers ──────────────────────────────────────────────────────
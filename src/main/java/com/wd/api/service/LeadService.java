@@ -5,8 +5,12 @@ import com.wd.api.dto.PaginationParams;
 import com.wd.api.dto.PartnershipReferralRequest;
 import com.wd.api.dto.LeadSearchFilter;
 import com.wd.api.repository.LeadRepository;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.LeadChangedEvent;
+import com.wd.api.event.ProjectChangedEvent;
 import com.wd.api.util.SpecificationBuilder;
 import jakarta.persistence.criteria.Predicate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -80,6 +84,8 @@ public class LeadService {
 
     private final CustomerNotificationFacade customerNotificationFacade;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     public LeadService(
             @org.springframework.context.annotation.Lazy LeadService self,
             LeadRepository leadRepository,
@@ -101,7 +107,8 @@ public class LeadService {
             com.wd.api.repository.BoqItemRepository boqItemRepository,
             BoqAuditService boqAuditService,
             PortalNotificationService portalNotificationService,
-            CustomerNotificationFacade customerNotificationFacade) {
+            CustomerNotificationFacade customerNotificationFacade,
+            ApplicationEventPublisher eventPublisher) {
         this.self = self;
         this.leadRepository = leadRepository;
         this.estimationRepository = estimationRepository;
@@ -123,6 +130,7 @@ public class LeadService {
         this.boqAuditService = boqAuditService;
         this.portalNotificationService = portalNotificationService;
         this.customerNotificationFacade = customerNotificationFacade;
+        this.eventPublisher = eventPublisher;
     }
 
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(LeadService.class);
@@ -250,6 +258,8 @@ public class LeadService {
             logger.error("Error in post-creation activities for lead {}: {}", savedLead.getId(), e.getMessage(), e);
         }
 
+        publishLeadChanged(savedLead.getId(), DomainEvent.Change.CREATED);
+
         return savedLead;
     }
 
@@ -652,6 +662,7 @@ public class LeadService {
             } catch (Exception e) {
                 logger.error("Failed to send notification for lead assignment", e);
             }
+            publishLeadChanged(savedLead.getId(), DomainEvent.Change.UPDATED);
             return savedLead;
         } catch (IllegalArgumentException e) {
             // Re-throw IllegalArgumentException as-is (for validation errors)
@@ -666,10 +677,15 @@ public class LeadService {
         }
     }
 
+    private void publishLeadChanged(Long leadId, DomainEvent.Change change) {
+        eventPublisher.publishEvent(new LeadChangedEvent(this, leadId, change));
+    }
+
     @Transactional
     public boolean deleteLead(Long id) {
         if (id != null && leadRepository.existsById(id)) {
             leadRepository.deleteById(id);
+            publishLeadChanged(id, DomainEvent.Change.DELETED);
             return true;
         }
         return false;
@@ -1128,7 +1144,9 @@ public class LeadService {
                 request.getPartnerId());
         lead.setNotes(partnerNotes + (request.getNotes() != null ? "\n" + request.getNotes() : ""));
 
-        return leadRepository.save(lead);
+        Lead savedLead = leadRepository.save(lead);
+        publishLeadChanged(savedLead.getId(), DomainEvent.Change.CREATED);
+        return savedLead;
     }
 
     /**
@@ -1460,6 +1478,9 @@ public class LeadService {
             lead.setConvertedAt(java.time.LocalDateTime.now());
             lead.setUpdatedAt(java.time.LocalDateTime.now());
             leadRepository.save(lead);
+            publishLeadChanged(lead.getId(), DomainEvent.Change.UPDATED);
+            eventPublisher.publishEvent(
+                    new ProjectChangedEvent(this, savedProject.getId(), DomainEvent.Change.CREATED));
 
             try {
                 activityFeedService.logProjectActivity("LEAD_CONVERTED", "Lead Converted",
@@ -1777,6 +1798,8 @@ public class LeadService {
             }
         }
 
+        publishLeadChanged(savedLead.getId(), DomainEvent.Change.UPDATED);
+
         return savedLead;
     }
 
@@ -1886,6 +1909,8 @@ public class LeadService {
             logger.warn("Error logging score update activity: {}", e.getMessage());
         }
 
+        publishLeadChanged(savedLead.getId(), DomainEvent.Change.UPDATED);
+
         return savedLead;
     }
 
@@ -0,0 +1,204 @@
+package com.wd.api.service;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends {@link MailOutbox} rows. One worker per instance (a tick never
+ * overlaps the previous one) claims up to
+ * {@code app.email.outbox.batch-size} due mails and hands them to
+ * {@link JavaMailSender#send(MimeMessage...)} in one call, which sends the
+ * whole batch over a single SMTP connection instead of one SSL handshake per
+ * mail. The SMTP session blocks, so the drain runs on its own
+ * {@link DedicatedPoller} thread rather than a shared scheduler thread.
+ *
+ * <p>A token bucket holds the batch to the provider's limit
+ * ({@code app.email.outbox.rate-per-minute}); mails over the limit simply
+ * stay due for the next tick. A mail the server refuses is retried with the
+ * webhook backoff (30s doubling, capped at 1h) and marked DEAD after
+ * {@value #MAX_ATTEMPTS} attempts. Does nothing while {@code app.email.enabled}
+ * is false.
+ *
+ * <p>Metrics: {@code mail.deliveries} (tag {@code outcome}: sent, failed,
+ * dead), {@code mail.ratelimited} (ticks cut short by the limit) and
+ * {@code mail.batch.duration}.
+ */
+@Component
+public class MailDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(MailDispatcher.class);
+
+    static final String STATUS_SENT = "SENT";
+    static final String STATUS_FAILED = "FAILED";
+    static final String STATUS_DEAD = "DEAD";
+    static final int MAX_ATTEMPTS = 5;
+
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+    private static final Duration SENT_RETENTION = Duration.ofDays(7);
+
+    private final MailOutbox outbox;
+    private final JavaMailSender mailSender;
+    private final boolean emailEnabled;
+    private final String fromEmail;
+    private final int batchSize;
+    private final Bucket rateLimit;
+
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter dead;
+    private final Counter rateLimited;
+    private final Timer batchDuration;
+
+    private final DedicatedPoller poller = new DedicatedPoller("mail-dispatch");
+
+    public MailDispatcher(MailOutbox outbox,
+                          @Autowired(required = false) JavaMailSender mailSender,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.email.enabled:false}") boolean emailEnabled,
+                          @Value("${spring.mail.username:noreply@walldot.com}") String fromEmail,
+                          @Value("${app.email.outbox.batch-size:50}") int batchSize,
+                          @Value("${app.email.outbox.rate-per-minute:60}") int ratePerMinute) {
+        this.outbox = outbox;
+        this.mailSender = mailSender;
+        this.emailEnabled = emailEnabled;
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.rateLimit = Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(ratePerMinute)
+                        .refillGreedy(ratePerMinute, Duration.ofMinutes(1))
+                        .build())
+                .build();
+
+        this.sent = deliveries(meterRegistry, "sent");
+        this.failed = deliveries(meterRegistry, "failed");
+        this.dead = deliveries(meterRegistry, "dead");
+        this.rateLimited = meterRegistry.counter("mail.ratelimited");
+        this.batchDuration = meterRegistry.timer("mail.batch.duration");
+    }
+
+    private static Counter deliveries(MeterRegistry registry, String outcome) {
+        return Counter.builder("mail.deliveries")
+                .description("Outbox mail send attempts")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.interval-ms:5000}")
+    public void scheduledDispatch() {
+        poller.trigger(this::dispatch);
+    }
+
+    /** Drain due mails in batches until the outbox is empty or the rate limit is reached. */
+    public void dispatch() {
+        if (!emailEnabled || mailSender == null) return;
+        while (true) {
+            int limit = (int) Math.min(batchSize, rateLimit.getAvailableTokens());
+            if (limit <= 0) {
+                rateLimited.increment();
+                return;
+            }
+            List<MailOutbox.Queued> batch = outbox.claim(limit, LocalDateTime.now(), CLAIM_LEASE);
+            if (batch.isEmpty()) return;
+            rateLimit.consumeIgnoringRateLimits(batch.size());
+            outbox.record(send(batch));
+            if (batch.size() < limit) return;
+        }
+    }
+
+    /** One SMTP session for the whole batch; per-mail outcome from the send exception. */
+    List<MailOutbox.Outcome> send(List<MailOutbox.Queued> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MailOutbox.Outcome> outcomes = new ArrayList<>(batch.size());
+        List<MailOutbox.Queued> built = new ArrayList<>(batch.size());
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (MailOutbox.Queued queued : batch) {
+            try {
+                messages.add(queued.mail().toMimeMessage(mailSender, fromEmail));
+                built.add(queued);
+            } catch (Exception e) {
+                outcomes.add(failure(queued, "Could not build message: " + e.getMessage(), now));
+            }
+        }
+        if (messages.isEmpty()) return outcomes;
+
+        long t0 = System.nanoTime();
+        Map<Object, Exception> failedMessages = Map.of();
+        String batchError = null;
+        try {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failedMessages = e.getFailedMessages();
+            batchError = e.getMessage();
+        } catch (MailException e) {
+            batchError = e.getMessage();
+        } finally {
+            batchDuration.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        }
+
+        for (int i = 0; i < built.size(); i++) {
+            MailOutbox.Queued queued = built.get(i);
+            Exception error = failedMessages.get(messages.get(i));
+            if (error != null) {
+                outcomes.add(failure(queued, error.getMessage(), now));
+            } else if (batchError != null && failedMessages.isEmpty()) {
+                // Connection-level failure: nothing in the batch went out.
+                outcomes.add(failure(queued, batchError, now));
+            } else {
+                sent.increment();
+                outcomes.add(new MailOutbox.Outcome(queued.id(), STATUS_SENT, queued.attempts() + 1,
+                        null, null, now));
+            }
+        }
+        return outcomes;
+    }
+
+    private MailOutbox.Outcome failure(MailOutbox.Queued queued, String error, LocalDateTime now) {
+        int attempts = queued.attempts() + 1;
+        String message = error == null ? "unknown" : error.length() > 500 ? error.substring(0, 500) : error;
+        if (attempts >= MAX_ATTEMPTS) {
+            dead.increment();
+            log.error("Mail {} to {} marked DEAD after {} attempts: {}", queued.id(), queued.mail().to(), attempts, message);
+            return new MailOutbox.Outcome(queued.id(), STATUS_DEAD, attempts, message, null, null);
+        }
+        failed.increment();
+        log.warn("Mail {} to {} failed (attempt {}): {}", queued.id(), queued.mail().to(), attempts, message);
+        return new MailOutbox.Outcome(queued.id(), STATUS_FAILED, attempts, message,
+                now.plus(WebhookDispatcher.backoff(attempts)), null);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.purge-interval-ms:3600000}", initialDelay = 300_000)
+    public void purgeSent() {
+        if (!emailEnabled) return;
+        int purged = outbox.purgeSent(LocalDateTime.now().minus(SENT_RETENTION));
+        if (purged > 0) {
+            log.debug("Purged {} sent mails from the outbox", purged);
+        }
+    }
+}
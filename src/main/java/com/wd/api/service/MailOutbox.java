@@ -0,0 +1,145 @@
+package com.wd.api.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.io.UnsupportedEncodingException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC access to {@code mail_outbox} (V170) for {@link EmailService} and
+ * {@link MailDispatcher}.
+ *
+ * <p>{@link #enqueue} runs in the caller's transaction, so a mail for a
+ * rolled-back operation is never sent. {@link #claim} leases due rows the
+ * same way as {@link WebhookOutbox}: {@code next_attempt_at} is pushed past
+ * the lease and {@code SKIP LOCKED} keeps other instances off them.
+ */
+@Component
+public class MailOutbox {
+
+    static final String INSERT = """
+            INSERT INTO mail_outbox (recipient, from_name, subject, text_body, html_body,
+                                     status, attempts, next_attempt_at, created_at)
+            VALUES (?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)
+            """;
+
+    static final String CLAIM_DUE = """
+            UPDATE mail_outbox SET next_attempt_at = ?
+             WHERE id IN (
+                   SELECT id FROM mail_outbox
+                    WHERE status IN ('PENDING', 'FAILED')
+                      AND next_attempt_at <= ?
+                    ORDER BY next_attempt_at, id
+                    LIMIT ?
+                      FOR UPDATE SKIP LOCKED)
+            RETURNING id, recipient, from_name, subject, text_body, html_body, attempts
+            """;
+
+    /** Terminal states drop the bodies: they may carry OTPs and reset links. */
+    static final String RECORD_OUTCOME = """
+            UPDATE mail_outbox
+               SET status = ?, attempts = ?, last_error = ?, next_attempt_at = ?, sent_at = ?,
+                   text_body = CASE WHEN ? THEN NULL ELSE text_body END,
+                   html_body = CASE WHEN ? THEN NULL ELSE html_body END
+             WHERE id = ?
+            """;
+
+    static final String PURGE_SENT = "DELETE FROM mail_outbox WHERE status = 'SENT' AND sent_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MailOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * A rendered mail. {@code text} and {@code html} may each be null, not both;
+     * {@code fromName} null means the bare sender address.
+     */
+    public record Mail(String to, String fromName, String subject, String text, String html) {
+
+        public static Mail text(String to, String subject, String text) {
+            return new Mail(to, null, subject, text, null);
+        }
+
+        /** Build the MIME message (HTML with plain-text alternative when both are set). */
+        public MimeMessage toMimeMessage(JavaMailSender sender, String fromEmail)
+                throws MessagingException, UnsupportedEncodingException {
+            MimeMessage mime = sender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mime, html != null, "UTF-8");
+            if (fromName != null) {
+                helper.setFrom(fromEmail, fromName);
+            } else {
+                helper.setFrom(fromEmail);
+            }
+            helper.setTo(to);
+            helper.setSubject(subject);
+            if (html != null && text != null) {
+                helper.setText(text, html);
+            } else if (html != null) {
+                helper.setText(html, true);
+            } else {
+                helper.setText(text);
+            }
+            return mime;
+        }
+    }
+
+    /** A claimed row; {@code attempts} is the count before this send. */
+    public record Queued(long id, Mail mail, int attempts) {
+    }
+
+    /** Result of one send attempt. {@code nextAttemptAt} is null for terminal states. */
+    public record Outcome(long id, String status, int attempts, String error,
+                          LocalDateTime nextAttemptAt, LocalDateTime sentAt) {
+
+        boolean terminal() {
+            return nextAttemptAt == null;
+        }
+    }
+
+    public void enqueue(Mail mail) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(INSERT, mail.to(), mail.fromName(), mail.subject(), mail.text(), mail.html(),
+                Timestamp.valueOf(now), Timestamp.valueOf(now));
+    }
+
+    /** Lease up to {@code limit} due mails, oldest first. */
+    public List<Queued> claim(int limit, LocalDateTime now, Duration lease) {
+        return jdbcTemplate.query(CLAIM_DUE,
+                (rs, i) -> new Queued(
+                        rs.getLong("id"),
+                        new Mail(rs.getString("recipient"), rs.getString("from_name"), rs.getString("subject"),
+                                rs.getString("text_body"), rs.getString("html_body")),
+                        rs.getInt("attempts")),
+                Timestamp.valueOf(now.plus(lease)), Timestamp.valueOf(now), limit);
+    }
+
+    /** Write back a batch of send results in one round trip. */
+    public void record(List<Outcome> outcomes) {
+        if (outcomes.isEmpty()) return;
+        jdbcTemplate.batchUpdate(RECORD_OUTCOME, outcomes, outcomes.size(), (ps, o) -> {
+            ps.setString(1, o.status());
+            ps.setInt(2, o.attempts());
+            ps.setString(3, o.error());
+            ps.setTimestamp(4, o.nextAttemptAt() != null ? Timestamp.valueOf(o.nextAttemptAt()) : null);
+            ps.setTimestamp(5, o.sentAt() != null ? Timestamp.valueOf(o.sentAt()) : null);
+            ps.setBoolean(6, o.terminal());
+            ps.setBoolean(7, o.terminal());
+            ps.setLong(8, o.id());
+        });
+    }
+
+    /** Delete SENT rows older than {@code cutoff}; returns the number removed. */
+    public int purgeSent(LocalDateTime cutoff) {
+        return jdbcTemplate.update(PURGE_SENT, Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,51 @@
+package com.wd.api.service;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTML mail bodies from {@code templates/mail/*.html}.
+ *
+ * <p>Uses its own Thymeleaf engine with a permanently cached resolver, so mail
+ * rendering does not follow {@code spring.thymeleaf.cache} (off in dev for
+ * the PDF templates). Every template is parsed once at construction; a
+ * broken template fails startup instead of the first password reset.
+ */
+@Component
+public class MailTemplates {
+
+    static final String PORTAL_PASSWORD_RESET = "portal-password-reset";
+    static final String CR_APPROVAL_OTP = "cr-approval-otp";
+
+    private static final List<String> TEMPLATES = List.of(PORTAL_PASSWORD_RESET, CR_APPROVAL_OTP);
+
+    private final SpringTemplateEngine engine;
+
+    public MailTemplates() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/mail/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        resolver.setCacheTTLMs(null);
+
+        this.engine = new SpringTemplateEngine();
+        this.engine.setTemplateResolver(resolver);
+        // Parse (and cache) every template up front.
+        TEMPLATES.forEach(name -> engine.process(name, new Context()));
+    }
+
+    public String render(String template, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        return engine.process(template, context);
+    }
+}
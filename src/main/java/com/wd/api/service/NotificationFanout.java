@@ -0,0 +1,270 @@
+package com.wd.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out of one in-app notification to many users: the audience is resolved,
+ * all rows go in with multi-row INSERTs ({@code notification.fanout.insert-batch-size}
+ * rows per statement) in one short transaction, and the devices are pushed with
+ * a single {@link PushNotificationService#sendToTokens} multicast. Portal users
+ * with an open notification stream on this node also get the notification and
+ * their new unread count over {@link NotificationStreamRegistry}.
+ *
+ * <p>Work is handed over after the caller's transaction commits (a rolled-back
+ * lead or payment notifies nobody) and runs on a small worker pool with a
+ * bounded queue. When the queue is full the fan-out runs on the submitting
+ * thread instead of being dropped, and is counted as backpressure. Failures
+ * are logged and counted, never propagated to the business operation.
+ *
+ * <p>{@code notification.fanout.deferred=false} runs every fan-out inline
+ * (still in its own transaction) — used by the test suite and as a kill switch.
+ *
+ * <p>Metrics: {@code notification.fanout.queue.depth},
+ * {@code notification.fanout.backpressure}, {@code notification.fanout.recipients}
+ * and {@code notification.fanout.failures} (tag {@code audience}; failures also
+ * tag {@code stage}: insert, push), {@code notification.fanout.duration}.
+ */
+@Service
+public class NotificationFanout {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationFanout.class);
+
+    /** Target table per audience; both share the same notification columns. */
+    public enum Audience {
+        PORTAL("portal_notifications", "portal_user_id", true),
+        CUSTOMER("customer_notifications", "customer_user_id", false);
+
+        private final String table;
+        private final String userColumn;
+        private final boolean hasLeadId;
+
+        Audience(String table, String userColumn, boolean hasLeadId) {
+            this.table = table;
+            this.userColumn = userColumn;
+            this.hasLeadId = hasLeadId;
+        }
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    /** One target user; {@code fcmToken} may be null when the user has no device. */
+    public record Recipient(Long userId, String fcmToken) {}
+
+    /** What every recipient gets: the stored row and the push payload. */
+    public record Message(String title, String body, String type,
+                          Long referenceId, Long projectId, Long leadId,
+                          Map<String, String> data) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PushNotificationService pushNotificationService;
+    private final NotificationStreamRegistry streamRegistry;
+    private final MeterRegistry meterRegistry;
+    private final boolean deferred;
+    private final int insertBatchSize;
+    private final ThreadPoolExecutor workers;
+
+    private final Counter backpressure;
+    private final Timer duration;
+
+    public NotificationFanout(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              PushNotificationService pushNotificationService,
+                              NotificationStreamRegistry streamRegistry,
+                              MeterRegistry meterRegistry,
+                              @Value("${notification.fanout.deferred:true}") boolean deferred,
+                              @Value("${notification.fanout.workers:2}") int workerCount,
+                              @Value("${notification.fanout.queue-capacity:500}") int queueCapacity,
+                              @Value("${notification.fanout.insert-batch-size:500}") int insertBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pushNotificationService = pushNotificationService;
+        this.streamRegistry = streamRegistry;
+        this.meterRegistry = meterRegistry;
+        this.deferred = deferred;
+        this.insertBatchSize = insertBatchSize;
+
+        this.backpressure = Counter.builder("notification.fanout.backpressure")
+                .description("Fan-outs run on the submitting thread because the queue was full")
+                .register(meterRegistry);
+        this.duration = meterRegistry.timer("notification.fanout.duration");
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemon("notification-fanout-"),
+                (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        log.debug("Notification fan-out dropped at shutdown");
+                        return;
+                    }
+                    backpressure.increment();
+                    task.run();
+                });
+        Gauge.builder("notification.fanout.queue.depth", workers, p -> p.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Notify everyone {@code recipients} resolves to. The supplier is called on
+     * the worker inside a fresh transaction, so it may walk lazy associations.
+     */
+    public void submit(Audience audience, Supplier<List<Recipient>> recipients, Message message) {
+        Runnable fanout = () -> execute(audience, recipients, message);
+        if (!deferred) {
+            fanout.run();
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    workers.execute(fanout);
+                }
+            });
+        } else {
+            workers.execute(fanout);
+        }
+    }
+
+    /** Resolve, insert in one transaction, then push once it has committed. */
+    void execute(Audience audience, Supplier<List<Recipient>> recipients, Message message) {
+        long t0 = System.nanoTime();
+        List<Recipient> targets;
+        try {
+            targets = transactionTemplate.execute(status -> {
+                List<Recipient> resolved = distinct(recipients.get());
+                insert(audience, resolved, message);
+                return resolved;
+            });
+        } catch (RuntimeException e) {
+            failure(audience, "insert").increment();
+            log.error("Notification fan-out '{}' failed to persist: {}", message.type(), e.getMessage(), e);
+            return;
+        } finally {
+            duration.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        }
+        if (targets == null || targets.isEmpty()) return;
+        meterRegistry.counter("notification.fanout.recipients", "audience", audience.tag()).increment(targets.size());
+
+        List<String> tokens = targets.stream()
+                .map(Recipient::fcmToken)
+                .filter(t -> t != null && !t.isBlank())
+                .toList();
+        if (!tokens.isEmpty()) {
+            int failed = pushNotificationService.sendToTokens(tokens, message.title(), message.body(), message.data());
+            if (failed > 0) failure(audience, "push").increment(failed);
+        }
+        if (audience == Audience.PORTAL) {
+            stream(targets, message);
+        }
+        log.info("Notification '{}' fanned out to {} {} user(s), {} device(s)",
+                message.type(), targets.size(), audience.tag(), tokens.size());
+    }
+
+    private void insert(Audience audience, List<Recipient> targets, Message message) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < targets.size(); from += insertBatchSize) {
+            List<Recipient> chunk = targets.subList(from, Math.min(from + insertBatchSize, targets.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(audience.table).append(" (")
+                    .append(audience.userColumn)
+                    .append(audience.hasLeadId ? ", project_id, lead_id" : ", project_id")
+                    .append(", title, body, notification_type, reference_id, is_read, created_at) VALUES ");
+            String row = audience.hasLeadId ? "(?, ?, ?, ?, ?, ?, ?, FALSE, ?)" : "(?, ?, ?, ?, ?, ?, FALSE, ?)";
+            List<Object> args = new ArrayList<>(chunk.size() * 8);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? row : ", " + row);
+                args.add(chunk.get(i).userId());
+                args.add(message.projectId());
+                if (audience.hasLeadId) args.add(message.leadId());
+                args.add(message.title());
+                args.add(message.body());
+                args.add(message.type());
+                args.add(message.referenceId());
+                args.add(now);
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    /** One grouped COUNT for the recipients listening on this node, then one event each. */
+    private void stream(List<Recipient> targets, Message message) {
+        List<Long> listening = targets.stream().map(Recipient::userId).filter(streamRegistry::isConnected).toList();
+        if (listening.isEmpty()) return;
+        try {
+            Map<Long, Long> unread = new LinkedHashMap<>();
+            String in = String.join(", ", Collections.nCopies(listening.size(), "?"));
+            jdbcTemplate.query("SELECT portal_user_id, COUNT(*) FROM portal_notifications "
+                            + "WHERE is_read = FALSE AND portal_user_id IN (" + in + ") GROUP BY portal_user_id",
+                    rs -> { unread.put(rs.getLong(1), rs.getLong(2)); }, listening.toArray());
+
+            Map<String, Object> dto = new LinkedHashMap<>();
+            dto.put("title", message.title());
+            dto.put("body", message.body());
+            dto.put("type", message.type());
+            dto.put("referenceId", message.referenceId());
+            dto.put("projectId", message.projectId());
+            dto.put("leadId", message.leadId());
+            dto.put("read", false);
+            dto.put("createdAt", LocalDateTime.now());
+            listening.forEach(userId -> streamRegistry.publishNotification(userId, dto,
+                    () -> unread.getOrDefault(userId, 0L)));
+        } catch (RuntimeException e) {
+            log.debug("Notification stream update for '{}' failed: {}", message.type(), e.getMessage());
+        }
+    }
+
+    private static List<Recipient> distinct(List<Recipient> recipients) {
+        Map<Long, Recipient> byUser = new LinkedHashMap<>();
+        for (Recipient r : recipients) {
+            if (r.userId() != null) byUser.putIfAbsent(r.userId(), r);
+        }
+        return new ArrayList<>(byUser.values());
+    }
+
+    private Counter failure(Audience audience, String stage) {
+        return meterRegistry.counter("notification.fanout.failures", "audience", audience.tag(), "stage", stage);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
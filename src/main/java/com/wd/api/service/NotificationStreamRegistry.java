@@ -0,0 +1,249 @@
+package com.wd.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Per-node registry of open portal notification streams (SSE), keyed by
+ * portal user id. Replaces the UI's unread-count polling: the client gets the
+ * current count on connect, then {@code notification} and {@code unread-count}
+ * events as they happen, and a comment heartbeat every
+ * {@code portal.notifications.stream.heartbeat-ms} keeps proxies from closing
+ * the idle connection.
+ *
+ * <p>Connections are capped per node ({@code max-connections}) and per user
+ * ({@code max-per-user}, oldest tab evicted). When the node is full
+ * {@link #open} returns {@code null} and the controller answers 503 so the
+ * client falls back to polling {@code /unread-count}. Streams also end after
+ * {@code timeout}; the client reconnects, which rebalances users across nodes.
+ *
+ * <p>Publishes are queued and written by this registry's own
+ * {@code notification-publish} thread, as heartbeats are by theirs, so a slow
+ * or stalled client never holds the business request that committed the
+ * notification. The queue is bounded; when it is full the event is dropped
+ * and counted, and the client catches up at its next event or reconnect.
+ *
+ * <p>Each node only knows its own connections — an event published on another
+ * node reaches the user at their next reconnect (initial count) at worst.
+ *
+ * <p>Metrics: {@code notifications.stream.connections},
+ * {@code notifications.stream.rejected}, {@code notifications.stream.events},
+ * {@code notifications.stream.dropped}.
+ */
+@Component
+public class NotificationStreamRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationStreamRegistry.class);
+
+    static final String EVENT_UNREAD_COUNT = "unread-count";
+    static final String EVENT_NOTIFICATION = "notification";
+
+    /** Client reconnect delay hint sent with the first event. */
+    private static final long RECONNECT_MS = 10_000;
+
+    /** Publishes waiting for the publish thread; far above a fan-out to every open stream. */
+    private static final int PUBLISH_QUEUE = 5_000;
+
+    private final Map<Long, Deque<SseEmitter>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final DedicatedPoller heartbeats = new DedicatedPoller("notification-heartbeat");
+    private final ThreadPoolExecutor publisher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PUBLISH_QUEUE), r -> {
+                Thread t = new Thread(r, "notification-publish");
+                t.setDaemon(true);
+                return t;
+            });
+    private final int maxConnections;
+    private final int maxPerUser;
+    private final Duration timeout;
+
+    private final Counter rejected;
+    private final Counter sent;
+    private final Counter dropped;
+
+    public NotificationStreamRegistry(MeterRegistry meterRegistry,
+                                      @Value("${portal.notifications.stream.max-connections:2000}") int maxConnections,
+                                      @Value("${portal.notifications.stream.max-per-user:5}") int maxPerUser,
+                                      @Value("${portal.notifications.stream.timeout:30m}") Duration timeout) {
+        this.maxConnections = maxConnections;
+        this.maxPerUser = maxPerUser;
+        this.timeout = timeout;
+        this.rejected = Counter.builder("notifications.stream.rejected")
+                .description("Stream requests refused because the node was at its connection cap")
+                .register(meterRegistry);
+        this.sent = meterRegistry.counter("notifications.stream.events");
+        this.dropped = Counter.builder("notifications.stream.dropped")
+                .description("Stream events dropped because the publish queue was full")
+                .register(meterRegistry);
+        Gauge.builder("notifications.stream.connections", connections, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a stream for {@code userId} seeded with its current unread count,
+     * or {@code null} when this node is at its connection cap.
+     */
+    public SseEmitter open(Long userId, long unreadCount) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        // compute() so a concurrent remove() cannot drop the deque we are adding to.
+        Deque<SseEmitter> userStreams = streams.compute(userId, (id, d) -> {
+            Deque<SseEmitter> deque = d != null ? d : new ConcurrentLinkedDeque<>();
+            deque.addLast(emitter);
+            return deque;
+        });
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+
+        while (userStreams.size() > maxPerUser) {
+            SseEmitter oldest = userStreams.pollFirst();
+            if (oldest == null) break;
+            connections.decrementAndGet();
+            oldest.complete();
+        }
+
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(EVENT_UNREAD_COUNT)
+                    .reconnectTime(RECONNECT_MS)
+                    .data(Map.of("unreadCount", unreadCount), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            remove(userId, emitter);
+        }
+        return emitter;
+    }
+
+    /** Whether this node has an open stream for {@code userId}. */
+    public boolean isConnected(Long userId) {
+        Deque<SseEmitter> userStreams = streams.get(userId);
+        return userStreams != null && !userStreams.isEmpty();
+    }
+
+    /**
+     * Queue a new notification and the resulting unread count for every tab
+     * of the user. {@code unreadCount} is evaluated on the publish thread, and
+     * only if the user is still connected.
+     */
+    public void publishNotification(Long userId, Map<String, Object> notification, LongSupplier unreadCount) {
+        enqueue(userId, () -> {
+            long unread = unreadCount.getAsLong();
+            send(userId, () -> List.of(
+                    SseEmitter.event().name(EVENT_NOTIFICATION).data(notification, MediaType.APPLICATION_JSON),
+                    SseEmitter.event().name(EVENT_UNREAD_COUNT)
+                            .data(Map.of("unreadCount", unread), MediaType.APPLICATION_JSON)));
+        });
+    }
+
+    /** Queue an unread count change (e.g. after mark-read in another tab). */
+    public void publishUnreadCount(Long userId, LongSupplier unreadCount) {
+        enqueue(userId, () -> {
+            long unread = unreadCount.getAsLong();
+            send(userId, () -> List.of(SseEmitter.event().name(EVENT_UNREAD_COUNT)
+                    .data(Map.of("unreadCount", unread), MediaType.APPLICATION_JSON)));
+        });
+    }
+
+    private void enqueue(Long userId, Runnable publish) {
+        if (!isConnected(userId)) return;
+        try {
+            publisher.execute(() -> {
+                if (!isConnected(userId)) return;
+                try {
+                    publish.run();
+                } catch (RuntimeException e) {
+                    log.debug("Notification stream publish for user {} failed: {}", userId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (!publisher.isShutdown()) dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${portal.notifications.stream.heartbeat-ms:25000}",
+            initialDelayString = "${portal.notifications.stream.heartbeat-ms:25000}")
+    public void scheduledHeartbeat() {
+        // A write to a stalled client blocks; keep that off the shared scheduler.
+        heartbeats.trigger(this::heartbeat);
+    }
+
+    public void heartbeat() {
+        streams.forEach((userId, userStreams) -> {
+            for (SseEmitter emitter : userStreams) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(userId, emitter);
+                }
+            }
+        });
+    }
+
+    /** Open streams on this node. */
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    /** Builders are single-use, so {@code events} is called once per emitter. */
+    private void send(Long userId, Supplier<List<SseEmitter.SseEventBuilder>> events) {
+        Deque<SseEmitter> userStreams = streams.get(userId);
+        if (userStreams == null) return;
+        for (SseEmitter emitter : userStreams) {
+            try {
+                List<SseEmitter.SseEventBuilder> batch = events.get();
+                for (SseEmitter.SseEventBuilder event : batch) {
+                    emitter.send(event);
+                }
+                sent.increment(batch.size());
+            } catch (IOException | IllegalStateException e) {
+                // Client went away between heartbeats.
+                log.debug("Dropping notification stream for user {}: {}", userId, e.getMessage());
+                remove(userId, emitter);
+            }
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        streams.computeIfPresent(userId, (id, d) -> {
+            if (d.remove(emitter)) connections.decrementAndGet();
+            return d.isEmpty() ? null : d;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdown();
+        publisher.shutdownNow();
+        streams.values().forEach(userStreams -> userStreams.forEach(SseEmitter::complete));
+        streams.clear();
+        connections.set(0);
+    }
+}
@@ -1,6 +1,9 @@
 package com.wd.api.service;
 
 import com.wd.api.dto.PaymentDtos.*;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.PaymentChangedEvent;
+import com.wd.api.event.ProjectChangedEvent;
 import com.wd.api.model.DesignPackagePayment;
 import com.wd.api.model.PaymentSchedule;
 import com.wd.api.model.PaymentTransaction;
@@ -10,6 +13,7 @@ import com.wd.api.repository.PaymentTransactionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +36,7 @@ public class PaymentService {
     private final com.wd.api.repository.CustomerProjectRepository projectRepository;
     private final com.wd.api.repository.TaxInvoiceRepository taxInvoiceRepository;
     private final CustomerNotificationFacade customerNotificationFacade;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${company.gst:}")
     private String companyGstin;
@@ -42,13 +47,15 @@ public class PaymentService {
             PaymentTransactionRepository transactionRepository,
             com.wd.api.repository.CustomerProjectRepository projectRepository,
             com.wd.api.repository.TaxInvoiceRepository taxInvoiceRepository,
-            CustomerNotificationFacade customerNotificationFacade) {
+            CustomerNotificationFacade customerNotificationFacade,
+            ApplicationEventPublisher eventPublisher) {
         this.paymentRepository = paymentRepository;
         this.scheduleRepository = scheduleRepository;
         this.transactionRepository = transactionRepository;
         this.projectRepository = projectRepository;
         this.taxInvoiceRepository = taxInvoiceRepository;
         this.customerNotificationFacade = customerNotificationFacade;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -130,6 +137,7 @@ public class PaymentService {
             project.setProjectPhase(com.wd.api.model.enums.ProjectPhase.DESIGN);
             try {
                 projectRepository.save(project);
+                eventPublisher.publishEvent(new ProjectChangedEvent(this, project.getId(), DomainEvent.Change.UPDATED));
                 logger.info("Project {} auto-transitioned PLANNING → DESIGN on design-payment creation",
                         project.getId());
             } catch (Exception e) {
@@ -141,6 +149,8 @@ public class PaymentService {
             }
         }
 
+        eventPublisher.publishEvent(new PaymentChangedEvent(this, PaymentChangedEvent.Kind.CUSTOMER_PAYMENT,
+                saved.getId(), project.getId(), DomainEvent.Change.CREATED));
         return toDesignPaymentResponse(saved);
     }
 
@@ -272,6 +282,11 @@ public class PaymentService {
         // Update parent payment status
         updatePaymentStatus(schedule.getDesignPayment());
 
+        eventPublisher.publishEvent(new PaymentChangedEvent(this, PaymentChangedEvent.Kind.CUSTOMER_PAYMENT,
+                transaction.getId(),
+                schedule.getDesignPayment() != null ? schedule.getDesignPayment().getProjectId() : null,
+                DomainEvent.Change.CREATED));
+
         logger.info("Transaction recorded for schedule: {}", scheduleId);
         return toTransactionResponse(transaction);
     }
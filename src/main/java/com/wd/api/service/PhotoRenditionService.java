@@ -0,0 +1,288 @@
+package com.wd.api.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thumb (256 px) and preview (1280 px) JPEG renditions of stored photos, so
+ * gallery grids and site-report screens stop pulling full-size originals.
+ *
+ * <p>Renditions sit beside the original with a fixed suffix
+ * ({@code site-reports/42/<uuid>.thumb.jpg}), which lets the download
+ * endpoint serve {@code ?variant=thumb} from the original's path alone. Once
+ * written, their paths are recorded on every {@code site_report_photos} and
+ * {@code gallery_images} row that points at the original (V172). A file that
+ * is not a decodable image gets the original's own path recorded instead, so
+ * clients fall back to it and the backfill does not retry it forever. An I/O
+ * failure or a missing original records nothing, so the next backfill tries
+ * that photo again, e.g. once the original is restored. The backfill skips
+ * missing originals without counting them against its cap.
+ *
+ * <p>Generation runs on a small background pool after the uploading
+ * transaction commits ({@code media.renditions.deferred=false} runs it inline).
+ * The preview is decoded from the original through {@link ImageOptimizer}
+ * and the thumb from the preview. When the queue is full the request is
+ * dropped and counted; {@code PhotoRenditionBackfillJob} picks those rows up
+ * with everything uploaded before renditions existed.
+ *
+ * <p>WebP is not produced: there is no pure-Java WebP encoder (see
+ * {@link FileStorageService#storeOptimizedImage}).
+ *
+ * <p>Metrics: {@code media.renditions} (tag {@code outcome}: rendered,
+ * not_image, missing, failed, dropped), {@code media.renditions.duration},
+ * {@code media.renditions.queue.depth}.
+ */
+@Service
+public class PhotoRenditionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoRenditionService.class);
+
+    public enum Variant {
+        THUMB("thumb", 256),
+        PREVIEW("preview", 1280);
+
+        private final String param;
+        private final int maxEdge;
+
+        Variant(String param, int maxEdge) {
+            this.param = param;
+            this.maxEdge = maxEdge;
+        }
+
+        public String param() {
+            return param;
+        }
+
+        /** The {@code ?variant=} value, case-insensitive; null when unknown. */
+        public static Variant parse(String value) {
+            if (value == null) return null;
+            String v = value.trim().toLowerCase(Locale.ROOT);
+            for (Variant variant : values()) {
+                if (variant.param.equals(v)) return variant;
+            }
+            return null;
+        }
+    }
+
+    static final String UPDATE_PHOTOS =
+            "UPDATE site_report_photos SET thumbnail_path = ?, preview_path = ? WHERE storage_path = ?";
+    static final String UPDATE_GALLERY =
+            "UPDATE gallery_images SET thumbnail_path = ?, preview_path = ? WHERE image_path = ?";
+    static final String MISSING_PHOTOS =
+            "SELECT id, storage_path FROM site_report_photos WHERE thumbnail_path IS NULL AND id > ? ORDER BY id LIMIT ?";
+    static final String MISSING_GALLERY =
+            "SELECT id, image_path FROM gallery_images WHERE thumbnail_path IS NULL AND id > ? ORDER BY id LIMIT ?";
+
+    private static final int BACKFILL_PAGE = 100;
+
+    private final FileStorageService fileStorageService;
+    private final ImageOptimizer imageOptimizer;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean deferred;
+    private final ThreadPoolExecutor workers;
+    private final Timer duration;
+
+    public PhotoRenditionService(FileStorageService fileStorageService,
+                                 ImageOptimizer imageOptimizer,
+                                 JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${media.renditions.deferred:true}") boolean deferred,
+                                 @Value("${media.renditions.workers:1}") int workerCount,
+                                 @Value("${media.renditions.queue-capacity:1000}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.imageOptimizer = imageOptimizer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.deferred = deferred;
+        this.duration = meterRegistry.timer("media.renditions.duration");
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemon("photo-rendition-"),
+                (task, pool) -> {
+                    // Never block the upload: the backfill job covers dropped photos.
+                    if (!pool.isShutdown()) outcome("dropped");
+                });
+        Gauge.builder("media.renditions.queue.depth", workers, p -> p.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    /** Storage path of a rendition: {@code a/b/<name>.jpg} becomes {@code a/b/<name>.thumb.jpg}. */
+    public static String pathFor(String storagePath, Variant variant) {
+        int slash = storagePath.lastIndexOf('/');
+        int dot = storagePath.lastIndexOf('.');
+        String base = dot > slash ? storagePath.substring(0, dot) : storagePath;
+        return base + "." + variant.param + ".jpg";
+    }
+
+    /** Whether {@code storagePath} names a rendition rather than an original. */
+    public static boolean isRendition(String storagePath) {
+        for (Variant variant : Variant.values()) {
+            if (storagePath.endsWith("." + variant.param + ".jpg")) return true;
+        }
+        return false;
+    }
+
+    /** Queue renditions for freshly stored photos once the current transaction commits. */
+    public void generateAfterCommit(List<String> storagePaths) {
+        if (storagePaths.isEmpty()) return;
+        List<String> paths = List.copyOf(storagePaths);
+        Runnable task = () -> paths.forEach(this::generate);
+        if (!deferred) {
+            task.run();
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    workers.execute(task);
+                }
+            });
+        } else {
+            workers.execute(task);
+        }
+    }
+
+    /**
+     * Write both renditions of one stored file and record them.
+     *
+     * @return true when renditions were written
+     */
+    boolean generate(String storagePath) {
+        long t0 = System.nanoTime();
+        try {
+            Path original = fileStorageService.getFilePath(storagePath);
+            if (!Files.isRegularFile(original)) {
+                // Leave the columns NULL: a restored original still gets its renditions.
+                outcome("missing");
+                log.warn("Original {} is missing; no renditions written", storagePath);
+                return false;
+            }
+            String previewPath = pathFor(storagePath, Variant.PREVIEW);
+            String thumbPath = pathFor(storagePath, Variant.THUMB);
+            Path preview = fileStorageService.getFilePath(previewPath);
+            Path thumb = fileStorageService.getFilePath(thumbPath);
+            try {
+                if (imageOptimizer.writeJpeg(new FileSystemResource(original), preview, Variant.PREVIEW.maxEdge) == null) {
+                    outcome("not_image");
+                    record(storagePath, storagePath, storagePath);
+                    return false;
+                }
+                imageOptimizer.writeJpeg(new FileSystemResource(preview), thumb, Variant.THUMB.maxEdge);
+            } catch (ImageOptimizer.UndecodableImageException e) {
+                Files.deleteIfExists(preview);
+                Files.deleteIfExists(thumb);
+                outcome("not_image");
+                log.warn("Could not render {} ({}); clients will load the original", storagePath, e.getMessage());
+                record(storagePath, storagePath, storagePath);
+                return false;
+            } catch (IOException | RuntimeException e) {
+                // Disk full, NFS hiccup, ...: leave the columns NULL so the backfill retries.
+                Files.deleteIfExists(preview);
+                Files.deleteIfExists(thumb);
+                outcome("failed");
+                log.error("Rendition write failed for {}: {}", storagePath, e.getMessage(), e);
+                return false;
+            }
+            fileStorageService.applyStoragePermissions(preview);
+            fileStorageService.applyStoragePermissions(thumb);
+            record(storagePath, thumbPath, previewPath);
+            outcome("rendered");
+            return true;
+        } catch (Exception e) {
+            outcome("failed");
+            log.error("Rendition generation failed for {}: {}", storagePath, e.getMessage(), e);
+            return false;
+        } finally {
+            duration.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void record(String storagePath, String thumbPath, String previewPath) {
+        jdbcTemplate.update(UPDATE_PHOTOS, thumbPath, previewPath, storagePath);
+        jdbcTemplate.update(UPDATE_GALLERY, thumbPath, previewPath, storagePath);
+    }
+
+    /**
+     * Render up to {@code limit} photos that have no renditions yet, site-report
+     * photos first (which also fills their gallery mirrors), then gallery uploads.
+     *
+     * @return number of files processed
+     */
+    public int backfill(int limit) {
+        int processed = backfill(MISSING_PHOTOS, limit);
+        if (processed < limit) {
+            processed += backfill(MISSING_GALLERY, limit - processed);
+        }
+        return processed;
+    }
+
+    private int backfill(String query, int limit) {
+        int processed = 0;
+        long afterId = 0L;
+        while (processed < limit) {
+            List<Object[]> page = jdbcTemplate.query(query,
+                    (rs, i) -> new Object[] {rs.getLong(1), rs.getString(2)},
+                    afterId, Math.min(BACKFILL_PAGE, limit - processed));
+            if (page.isEmpty()) break;
+            for (Object[] row : page) {
+                afterId = (Long) row[0];
+                String storagePath = (String) row[1];
+                if (!Files.isRegularFile(fileStorageService.getFilePath(storagePath))) {
+                    continue; // still missing; not worth a slot of this run's cap
+                }
+                generate(storagePath);
+                processed++;
+            }
+        }
+        return processed;
+    }
+
+    /** Delete rendition files of a removed original; a path equal to the original is left alone. */
+    public void deleteRenditions(String storagePath, String thumbnailPath, String previewPath) {
+        for (String path : new String[] {thumbnailPath, previewPath}) {
+            if (path != null && !path.equals(storagePath)) {
+                fileStorageService.deleteFile(path);
+            }
+        }
+    }
+
+    private void outcome(String outcome) {
+        meterRegistry.counter("media.renditions", "outcome", outcome).increment();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -26,17 +28,26 @@ public class PortalNotificationService {
 
     private final PushNotificationService pushNotificationService;
 
+    private final NotificationFanout notificationFanout;
+
+    private final NotificationStreamRegistry streamRegistry;
+
     public PortalNotificationService(PortalNotificationRepository notificationRepository,
                                      PortalUserRepository portalUserRepository,
-                                     PushNotificationService pushNotificationService) {
+                                     PushNotificationService pushNotificationService,
+                                     NotificationFanout notificationFanout,
+                                     NotificationStreamRegistry streamRegistry) {
         this.notificationRepository = notificationRepository;
         this.portalUserRepository = portalUserRepository;
         this.pushNotificationService = pushNotificationService;
+        this.notificationFanout = notificationFanout;
+        this.streamRegistry = streamRegistry;
     }
 
     /**
      * Create a notification for a portal user and immediately send a push notification.
      * Fire-and-forget for push — DB record is always saved regardless of FCM result.
+     * Open notification streams get the new row and unread count once it commits.
      */
     @Transactional
     public void createAndPush(Long portalUserId, String title, String body,
@@ -56,6 +67,9 @@ public class PortalNotificationService {
         notification.setProjectId(projectId);
         notification.setLeadId(leadId);
         notificationRepository.save(notification);
+        Map<String, Object> dto = toDto(notification);
+        afterCommit(() -> streamRegistry.publishNotification(portalUserId, dto,
+                () -> notificationRepository.countByPortalUser_IdAndReadFalse(portalUserId)));
 
         // Push notification (no-op if FCM not configured)
         if (user.getFcmToken() != null && !user.getFcmToken().isBlank()) {
@@ -69,20 +83,21 @@ public class PortalNotificationService {
     }
 
     /**
-     * Notify all portal users whose roles have the LEAD_VIEW permission.
-     * Used when a new lead is created.
+     * Notify all portal users whose roles have the given permission (e.g. LEAD_VIEW
+     * when a new lead is created). Users are resolved, rows inserted and devices
+     * pushed by {@link NotificationFanout} after the caller's transaction commits.
      */
-    @Transactional
     public void notifyUsersWithPermission(String permissionName, String title, String body,
                                           String type, Long referenceId) {
-        List<PortalUser> users = portalUserRepository.findByPermissionName(permissionName);
-        for (PortalUser user : users) {
-            try {
-                createAndPush(user.getId(), title, body, type, referenceId, null, null);
-            } catch (Exception e) {
-                logger.warn("Failed to notify portal user {} for event {}: {}", user.getId(), type, e.getMessage());
-            }
-        }
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("type", type != null ? type : "GENERAL");
+        if (referenceId != null) data.put("referenceId", String.valueOf(referenceId));
+
+        notificationFanout.submit(NotificationFanout.Audience.PORTAL,
+                () -> portalUserRepository.findByPermissionName(permissionName).stream()
+                        .map(u -> new NotificationFanout.Recipient(u.getId(), u.getFcmToken()))
+                        .toList(),
+                new NotificationFanout.Message(title, body, type, referenceId, null, null, data));
     }
 
     /**
@@ -127,6 +142,7 @@ public class PortalNotificationService {
             if (n.getPortalUser().getId().equals(userId)) {
                 n.setRead(true);
                 notificationRepository.save(n);
+                afterCommit(() -> publishUnreadCount(userId));
             }
         });
     }
@@ -137,6 +153,32 @@ public class PortalNotificationService {
     @Transactional
     public void markAllRead(Long userId) {
         notificationRepository.markAllReadByUserId(userId);
+        afterCommit(() -> publishUnreadCount(userId));
+    }
+
+    /**
+     * Keep the user's other tabs in sync. The COUNT runs on the registry's
+     * publish thread, and not at all when nothing is listening.
+     */
+    private void publishUnreadCount(Long userId) {
+        streamRegistry.publishUnreadCount(userId, () -> notificationRepository.countByPortalUser_IdAndReadFalse(userId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        action.run();
+                    } catch (Exception e) {
+                        logger.debug("Notification stream update failed: {}", e.getMessage());
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     private Map<String, Object> toDto(PortalNotification n) {
@@ -1,6 +1,8 @@
 package com.wd.api.service;
 
 import com.wd.api.dto.ProjectInvoiceDTO;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.PaymentChangedEvent;
 import com.wd.api.model.CustomerProject;
 import com.wd.api.model.ProjectInvoice;
 import com.wd.api.model.ProjectMilestone;
@@ -10,6 +12,7 @@ import com.wd.api.repository.ProjectInvoiceRepository;
 import com.wd.api.repository.ProjectMilestoneRepository;
 import com.wd.api.util.MoneyMath;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +29,7 @@ public class ProjectInvoiceService {
     private final ProjectInvoiceRepository projectInvoiceRepository;
     private final CustomerProjectRepository projectRepository;
     private final ProjectMilestoneRepository milestoneRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ── Invoice generation ────────────────────────────────────────────────────
 
@@ -52,7 +56,9 @@ public class ProjectInvoiceService {
                 .notes(dto.getNotes())
                 .build();
 
-        return mapToDTO(projectInvoiceRepository.save(invoice));
+        ProjectInvoice savedInvoice = projectInvoiceRepository.save(invoice);
+        publishInvoiceCreated(savedInvoice);
+        return mapToDTO(savedInvoice);
     }
 
     @Transactional
@@ -92,6 +98,7 @@ public class ProjectInvoiceService {
         milestone.setStatus("INVOICED");
         milestoneRepository.save(milestone);
 
+        publishInvoiceCreated(savedInvoice);
         return mapToDTO(savedInvoice);
     }
 
@@ -105,6 +112,11 @@ public class ProjectInvoiceService {
 
     // ── Internal helpers ──────────────────────────────────────────────────────
 
+    private void publishInvoiceCreated(ProjectInvoice invoice) {
+        eventPublisher.publishEvent(new PaymentChangedEvent(this, PaymentChangedEvent.Kind.INVOICE,
+                invoice.getId(), invoice.getProject().getId(), DomainEvent.Change.CREATED));
+    }
+
     private String nextInvoiceNumber(String projectCode) {
         Long seq = projectInvoiceRepository.getNextInvoiceNumber();
         String code = (projectCode != null && !projectCode.isBlank()) ? projectCode : "GEN";
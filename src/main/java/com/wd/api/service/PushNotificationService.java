@@ -62,25 +62,29 @@ public class PushNotificationService {
      * @param title  notification title
      * @param body   notification body
      * @param data   optional key/value data payload
+     * @return number of tokens FCM did not deliver to (0 when Firebase is not configured)
      */
-    public void sendToTokens(List<String> tokens, String title, String body, Map<String, String> data) {
-        if (!isFirebaseReady() || tokens == null || tokens.isEmpty()) return;
+    public int sendToTokens(List<String> tokens, String title, String body, Map<String, String> data) {
+        if (!isFirebaseReady() || tokens == null || tokens.isEmpty()) return 0;
 
         List<String> validTokens = tokens.stream()
                 .filter(t -> t != null && !t.isBlank())
                 .distinct()
                 .toList();
 
-        if (validTokens.isEmpty()) return;
+        if (validTokens.isEmpty()) return 0;
 
         // Partition into chunks of FCM_MULTICAST_LIMIT
+        int failed = 0;
         for (int i = 0; i < validTokens.size(); i += FCM_MULTICAST_LIMIT) {
             List<String> chunk = validTokens.subList(i, Math.min(i + FCM_MULTICAST_LIMIT, validTokens.size()));
-            sendMulticast(chunk, title, body, data);
+            failed += sendMulticast(chunk, title, body, data);
         }
+        return failed;
     }
 
-    private void sendMulticast(List<String> tokens, String title, String body, Map<String, String> data) {
+    /** @return tokens in this chunk that were not delivered */
+    private int sendMulticast(List<String> tokens, String title, String body, Map<String, String> data) {
         try {
             MulticastMessage.Builder builder = MulticastMessage.builder()
                     .addAllTokens(tokens)
@@ -99,11 +103,13 @@ public class PushNotificationService {
                         .filter(r -> !r.isSuccessful())
                         .forEach(r -> logger.warn("FCM multicast failure: {}", r.getException().getMessage()));
             }
+            return response.getFailureCount();
         } catch (FirebaseMessagingException e) {
             logger.warn("FCM multicast send failed (portal): {}", e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error in FCM multicast (portal): {}", e.getMessage());
         }
+        return tokens.size();
     }
 
     private boolean isFirebaseReady() {
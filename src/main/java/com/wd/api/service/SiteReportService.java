@@ -16,7 +16,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.persistence.criteria.Predicate;
@@ -39,6 +41,8 @@ public class SiteReportService {
     private final GalleryService galleryService;
     private final CustomerNotificationFacade customerNotificationFacade;
     private final WebhookPublisherService webhookPublisherService;
+    private final PhotoRenditionService photoRenditionService;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Lazy self-reference so internal getReportById(...) calls hit the @Transactional proxy (S2229).
@@ -54,13 +58,17 @@ public class SiteReportService {
             FileStorageService fileStorageService,
             GalleryService galleryService,
             CustomerNotificationFacade customerNotificationFacade,
-            WebhookPublisherService webhookPublisherService) {
+            WebhookPublisherService webhookPublisherService,
+            PhotoRenditionService photoRenditionService,
+            PlatformTransactionManager transactionManager) {
         this.siteReportRepository = siteReportRepository;
         this.siteReportPhotoRepository = siteReportPhotoRepository;
         this.fileStorageService = fileStorageService;
         this.galleryService = galleryService;
         this.customerNotificationFacade = customerNotificationFacade;
         this.webhookPublisherService = webhookPublisherService;
+        this.photoRenditionService = photoRenditionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -166,12 +174,15 @@ public class SiteReportService {
      * transaction, which is exactly what we want — no DB connection is
      * held across the file IO loop.
      *
-     * <p>Trade-off: not atomic across photos. If the report row saves but
-     * a later photo write fails, you get an orphan report. The previous
-     * design was already non-atomic (file storage is filesystem, not DB)
-     * so this only makes the behaviour explicit. Reconciliation is via
-     * the gallery-sync error key {@code GALLERY_SYNC_FAILED} +
-     * webhook-retry mechanism (separate concern).
+     * <p>Photos go through {@link #ingestPhotos}: encoded in parallel with no
+     * connection held, then one short transaction inserts the photo rows and
+     * their gallery rows together.
+     *
+     * <p>The report row commits on its own first (the photos' storage
+     * directory is keyed by its id). If photo ingestion then fails, that row
+     * is deleted again before the error reaches the caller, so a retry does
+     * not leave a duplicate report behind; no photo files or half-synced
+     * gallery rows remain either.
      */
     public SiteReport createReport(SiteReport report, List<MultipartFile> photos, PortalUser submittedBy) {
         // Calculate distance from project if GPS coordinates provided
@@ -198,47 +209,21 @@ public class SiteReportService {
         SiteReport savedReport = siteReportRepository.save(report);
 
         if (photos != null && !photos.isEmpty()) {
-            int displayOrder = 0;
-            for (MultipartFile photo : photos) {
-                String subDir = "site-reports/" + savedReport.getId();
-                // V84: re-encode the upload (typically a 5–10 MB phone
-                // shot) as a quality-82 JPEG to slash storage by 50–70%.
-                // Falls back to raw store for non-image uploads.
-                String storedPath = fileStorageService.storeOptimizedImage(photo, subDir);
-
+            List<SiteReportPhoto> rows = new ArrayList<>(photos.size());
+            for (int displayOrder = 0; displayOrder < photos.size(); displayOrder++) {
                 SiteReportPhoto reportPhoto = new SiteReportPhoto();
                 reportPhoto.setSiteReport(savedReport);
-                reportPhoto.setStoragePath(storedPath);
-                reportPhoto.setPhotoUrl("/api/storage/" + storedPath);
-                reportPhoto.setDisplayOrder(displayOrder++);
-
-                siteReportPhotoRepository.save(reportPhoto);
-                savedReport.addPhoto(reportPhoto);
+                reportPhoto.setDisplayOrder(displayOrder);
+                rows.add(reportPhoto);
             }
-
-            // Auto-sync site report photos to gallery. Failure here used
-            // to be silently swallowed (the original audit flagged it as
-            // CRITICAL): the report saves, photos save, but the gallery
-            // never sees them and customers think nothing happened. Now
-            // we (a) raise the log level + structured key so the failure
-            // is greppable in production, (b) emit a webhook so an
-            // out-of-band reconciler can retry. The whole site-report
-            // operation still succeeds — we cannot let a downstream
-            // gallery problem fail the upload the user already made.
             try {
-                galleryService.createImagesFromSiteReport(savedReport.getId(), submittedBy);
-                logger.info("Auto-synced {} photos from site report {} to gallery",
-                        savedReport.getPhotos().size(), savedReport.getId());
-            } catch (Exception e) {
-                logger.error(
-                        "GALLERY_SYNC_FAILED reportId={} photoCount={} error={} — "
-                                + "report saved, photos saved, but gallery rows missing. "
-                                + "Run reconciliation tool / re-trigger via admin endpoint.",
-                        savedReport.getId(),
-                        savedReport.getPhotos().size(),
-                        e.getMessage(), e);
-                // Don't fail the entire operation if gallery sync fails
+                ingestPhotos(savedReport, photos, rows, submittedBy);
+            } catch (RuntimeException e) {
+                discardReport(savedReport);
+                throw e;
             }
+            logger.info("Stored {} photos for site report {} and synced them to gallery",
+                    rows.size(), savedReport.getId());
         }
 
         // Notify project customers (CUSTOMER + CUSTOMER_ADMIN) about the new site report
@@ -261,6 +246,54 @@ public class SiteReportService {
         return savedReport;
     }
 
+    /** Undo the report insert of a failed {@link #createReport}; the original error is what the caller sees. */
+    private void discardReport(SiteReport report) {
+        try {
+            siteReportRepository.deleteById(report.getId());
+        } catch (RuntimeException e) {
+            logger.error("SITE_REPORT_DISCARD_FAILED reportId={} error={} — report left without photos",
+                    report.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Store {@code photos} and persist {@code rows} (one per photo, same
+     * order) with their gallery rows.
+     *
+     * <p>The JPEG re-encodes run in parallel on
+     * {@link FileStorageService#storeOptimizedImages}' CPU pool with no DB
+     * connection held. Only then does one short transaction insert every
+     * photo row and gallery row. If it fails, the files just written are
+     * deleted and the exception propagates. Renditions are queued once the
+     * rows exist.
+     */
+    private void ingestPhotos(SiteReport report, List<MultipartFile> photos, List<SiteReportPhoto> rows,
+            PortalUser uploadedBy) {
+        // V84: re-encode the upload (typically a 5–10 MB phone shot) as a
+        // quality-82 JPEG to slash storage by 50–70%. Falls back to raw
+        // store for non-image uploads.
+        List<String> storedPaths = fileStorageService.storeOptimizedImages(photos, "site-reports/" + report.getId());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).setStoragePath(storedPaths.get(i));
+            rows.get(i).setPhotoUrl("/api/storage/" + storedPaths.get(i));
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                siteReportPhotoRepository.saveAll(rows);
+                galleryService.createImagesFromSiteReportPhotos(report, rows, uploadedBy);
+            });
+        } catch (RuntimeException e) {
+            logger.error("SITE_REPORT_PHOTO_INSERT_FAILED reportId={} photoCount={} error={} — stored files removed",
+                    report.getId(), rows.size(), e.getMessage(), e);
+            fileStorageService.deleteFilesQuietly(storedPaths);
+            throw e;
+        }
+        rows.forEach(report::addPhoto);
+
+        photoRenditionService.generateAfterCommit(storedPaths);
+    }
+
     @Transactional
     public void deleteReport(Long id) {
         SiteReport report = getReportById(id);
@@ -268,6 +301,8 @@ public class SiteReportService {
         // Delete physical files
         for (SiteReportPhoto photo : report.getPhotos()) {
             fileStorageService.deleteFile(photo.getStoragePath());
+            photoRenditionService.deleteRenditions(photo.getStoragePath(),
+                    photo.getThumbnailPath(), photo.getPreviewPath());
         }
 
         siteReportRepository.delete(report);
@@ -307,17 +342,11 @@ public class SiteReportService {
         Integer dbMax = siteReportPhotoRepository.findMaxDisplayOrderByReportId(reportId);
         int maxOrder = dbMax != null ? dbMax : -1;
 
-        // Add new photos
+        // Build the rows (and validate their metadata) before any file is written.
+        List<SiteReportPhoto> rows = new ArrayList<>(photos.size());
         for (int i = 0; i < photos.size(); i++) {
-            MultipartFile photo = photos.get(i);
-            String subDir = "site-reports/" + reportId;
-            // V84: same JPEG-optimisation as createReport.
-            String storedPath = fileStorageService.storeOptimizedImage(photo, subDir);
-
             SiteReportPhoto reportPhoto = new SiteReportPhoto();
             reportPhoto.setSiteReport(report);
-            reportPhoto.setStoragePath(storedPath);
-            reportPhoto.setPhotoUrl("/api/storage/" + storedPath);
             reportPhoto.setDisplayOrder(++maxOrder);
 
             // Apply metadata if provided — bounds-checked
@@ -339,19 +368,11 @@ public class SiteReportService {
                     reportPhoto.setLongitude(lng);
                 }
             }
-
-            siteReportPhotoRepository.save(reportPhoto);
-            report.addPhoto(reportPhoto);
+            rows.add(reportPhoto);
         }
 
-        // Sync to gallery
-        try {
-            galleryService.createImagesFromSiteReport(reportId, currentUser);
-            logger.info("Synced {} new photos from site report {} to gallery", 
-                    photos.size(), reportId);
-        } catch (Exception e) {
-            logger.error("Failed to sync new photos to gallery: {}", e.getMessage(), e);
-        }
+        ingestPhotos(report, photos, rows, currentUser);
+        logger.info("Added {} photos to site report {} and synced them to gallery", rows.size(), reportId);
 
         return report;
     }
@@ -378,6 +399,8 @@ public class SiteReportService {
 
         // Delete physical file
         fileStorageService.deleteFile(photo.getStoragePath());
+        photoRenditionService.deleteRenditions(photo.getStoragePath(),
+                photo.getThumbnailPath(), photo.getPreviewPath());
 
         // Remove from report and delete
         report.removePhoto(photo);
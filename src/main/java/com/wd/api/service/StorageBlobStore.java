@@ -0,0 +1,304 @@
+package com.wd.api.service;
+
+import com.wd.api.util.AtomicFiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed layer under {@link FileStorageService}: each distinct
+ * file is kept once as {@code blobs/<aa>/<bb>/<sha256>}, and every storage
+ * path with the same bytes is a hard link to that blob (V173).
+ *
+ * <p>Hard links rather than a path-to-blob redirect, because the storage
+ * volume is shared with the customer API and served by nginx, which both read
+ * the legacy paths directly. Those paths keep working unchanged, and a
+ * duplicate costs a directory entry instead of its bytes. It also means no
+ * path can lose data through this class: deleting a blob name only drops one
+ * link, and the inode survives as long as any path still links to it.
+ *
+ * <p>{@code storage_blob_paths} maps each adopted path to its blob, and
+ * {@code storage_blobs.ref_count} counts those paths. The bookkeeping joins
+ * the caller's transaction ({@code REQUIRED}), so it holds no second pooled
+ * connection and commits or rolls back with the caller's rows. Its inserts
+ * use {@code ON CONFLICT DO NOTHING} rather than catching a duplicate key,
+ * which on PostgreSQL would abort the caller's transaction. A released blob
+ * file is deleted only after that commit. A blob file left
+ * behind by a rolled-back adoption has no row; {@link #removeOrphanBlobs}
+ * clears those later.
+ *
+ * <p>{@code storage.blobs.enabled=false} turns the layer off (tests). It also
+ * switches itself off when the filesystem has no hard links; files are then
+ * stored as before.
+ */
+@Component
+public class StorageBlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageBlobStore.class);
+
+    public static final String BLOB_DIR = "blobs";
+
+    static final String INSERT_BLOB =
+            "INSERT INTO storage_blobs (sha256, size_bytes, ref_count) VALUES (?, ?, 0) ON CONFLICT DO NOTHING";
+    static final String INCREMENT_BLOB =
+            "UPDATE storage_blobs SET ref_count = ref_count + 1 WHERE sha256 = ?";
+    static final String INSERT_PATH =
+            "INSERT INTO storage_blob_paths (path, blob_id) SELECT ?, id FROM storage_blobs WHERE sha256 = ?"
+                    + " ON CONFLICT DO NOTHING";
+    static final String FIND_PATH_BLOB =
+            "SELECT blob_id FROM storage_blob_paths WHERE path = ?";
+    static final String DELETE_PATH =
+            "DELETE FROM storage_blob_paths WHERE path = ?";
+    static final String DECREMENT_BLOB =
+            "UPDATE storage_blobs SET ref_count = ref_count - 1 WHERE id = ?";
+    static final String FIND_UNREFERENCED =
+            "SELECT sha256 FROM storage_blobs WHERE id = ? AND ref_count <= 0";
+    static final String DELETE_BLOB =
+            "DELETE FROM storage_blobs WHERE id = ?";
+
+    /** Result of adopting one path. */
+    public record Adoption(String sha256, long sizeBytes, boolean duplicate) {
+
+        /** Bytes freed: the whole file when it now shares an existing blob's bytes. */
+        public long reclaimedBytes() {
+            return duplicate ? sizeBytes : 0L;
+        }
+    }
+
+    private final Path root;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate bookkeeping;
+    private final boolean enabled;
+    private volatile boolean linksSupported = true;
+
+    public StorageBlobStore(@Value("${storageBasePath}") String storageBasePath,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${storage.blobs.enabled:true}") boolean enabled) {
+        this.root = Paths.get(storageBasePath.trim()).toAbsolutePath().normalize();
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookkeeping = new TransactionTemplate(transactionManager);
+        this.bookkeeping.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        this.enabled = enabled;
+    }
+
+    public boolean isActive() {
+        return enabled && linksSupported;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Bring a file already written at {@code relativePath} under the blob
+     * layer. If a blob with the same SHA-256 exists, the file is swapped
+     * atomically for a link to it; otherwise the file becomes the blob.
+     *
+     * <p>The file must be complete and never rewritten in place: every
+     * writer under the storage root goes through {@link AtomicFiles}.
+     *
+     * @return what happened, or {@code null} when the layer is inactive, the
+     *         path is already mapped or the file is empty
+     */
+    public Adoption adopt(String relativePath) throws IOException {
+        if (!isActive() || isMapped(relativePath)) {
+            return null;
+        }
+        Path file = root.resolve(relativePath).normalize();
+        long size = Files.size(file);
+        if (size == 0) {
+            return null; // nothing to share, and an empty file may still be in the making
+        }
+        String sha256 = sha256(file);
+        Path blob = blobPath(sha256);
+        Files.createDirectories(blob.getParent());
+
+        boolean duplicate;
+        try {
+            duplicate = linkToBlob(file, blob, size);
+        } catch (UnsupportedOperationException e) {
+            linksSupported = false;
+            log.warn("Storage root {} cannot hard-link ({}); content-addressed dedupe disabled", root, e.getMessage());
+            return null;
+        }
+
+        boolean recorded = Boolean.TRUE.equals(bookkeeping.execute(status -> {
+            jdbcTemplate.update(INSERT_BLOB, sha256, size);
+            if (jdbcTemplate.update(INSERT_PATH, relativePath, sha256) == 0) {
+                return false; // adopted concurrently
+            }
+            jdbcTemplate.update(INCREMENT_BLOB, sha256);
+            return true;
+        }));
+        return recorded ? new Adoption(sha256, size, duplicate) : null;
+    }
+
+    /**
+     * Point {@code file} at {@code blob}: create the blob from it, or replace
+     * it with a link to the existing blob.
+     *
+     * @return true when the file's own bytes were released
+     */
+    private static boolean linkToBlob(Path file, Path blob, long size) throws IOException {
+        try {
+            Files.createLink(blob, file);
+            return false;
+        } catch (FileAlreadyExistsException exists) {
+            if (Files.isSameFile(file, blob)) {
+                return false;
+            }
+            if (Files.size(blob) != size) {
+                throw new IOException("Blob " + blob.getFileName() + " does not match size of " + file);
+            }
+            Path link = AtomicFiles.tempSibling(file);
+            Files.createLink(link, blob);
+            Files.move(link, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+    }
+
+    /**
+     * Drop {@code relativePath}'s reference. When it was the blob's last
+     * one, the blob row and blob file go too; inside a transaction the file
+     * is deleted after commit, so a rollback keeps row and file together. The
+     * path file itself is the caller's to delete. A path that was never
+     * adopted is a no-op.
+     */
+    public void release(String relativePath) {
+        if (!enabled) {
+            return;
+        }
+        String unreferenced = bookkeeping.execute(status -> {
+            List<Long> blobIds = jdbcTemplate.queryForList(FIND_PATH_BLOB, Long.class, relativePath);
+            if (blobIds.isEmpty()) {
+                return null;
+            }
+            Long blobId = blobIds.get(0);
+            jdbcTemplate.update(DELETE_PATH, relativePath);
+            jdbcTemplate.update(DECREMENT_BLOB, blobId);
+            List<String> orphan = jdbcTemplate.queryForList(FIND_UNREFERENCED, String.class, blobId);
+            if (orphan.isEmpty()) {
+                return null;
+            }
+            jdbcTemplate.update(DELETE_BLOB, blobId);
+            return orphan.get(0);
+        });
+        if (unreferenced == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteBlobFile(unreferenced);
+                }
+            });
+        } else {
+            deleteBlobFile(unreferenced);
+        }
+    }
+
+    private void deleteBlobFile(String sha256) {
+        try {
+            Files.deleteIfExists(blobPath(sha256));
+        } catch (IOException e) {
+            log.warn("Could not remove unreferenced blob {}: {}", sha256, e.getMessage());
+        }
+    }
+
+    /**
+     * Delete blob files with no {@code storage_blobs} row, i.e. adoptions
+     * rolled back with their caller. Files whose inode changed within
+     * {@code minAge} are left alone, since linking bumps the change time and
+     * an adoption in flight has not committed its row yet. A blob name is only
+     * one link, so this never takes a stored path's bytes with it.
+     *
+     * @return number of blob files removed
+     */
+    public long removeOrphanBlobs(Duration minAge) throws IOException {
+        Path blobs = root.resolve(BLOB_DIR);
+        if (!Files.isDirectory(blobs)) {
+            return 0;
+        }
+        Set<String> known = new HashSet<>(jdbcTemplate.queryForList("SELECT sha256 FROM storage_blobs", String.class));
+        FileTime settledBefore = FileTime.from(Instant.now().minus(minAge));
+        long removed = 0;
+        try (Stream<Path> files = Files.walk(blobs)) {
+            for (Path blob : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = blob.getFileName().toString();
+                if (name.startsWith(".") || known.contains(name) || changedTime(blob).compareTo(settledBefore) > 0) {
+                    continue;
+                }
+                if (Files.deleteIfExists(blob)) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static FileTime changedTime(Path file) throws IOException {
+        try {
+            return (FileTime) Files.getAttribute(file, "unix:ctime");
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return Files.getLastModifiedTime(file);
+        }
+    }
+
+    public boolean isMapped(String relativePath) {
+        return !jdbcTemplate.queryForList(FIND_PATH_BLOB, Long.class, relativePath).isEmpty();
+    }
+
+    /** Every adopted path, for {@code StorageDedupeJob}'s walk. */
+    public Set<String> mappedPaths() {
+        Set<String> paths = new HashSet<>();
+        jdbcTemplate.query("SELECT path FROM storage_blob_paths", rs -> {
+            paths.add(rs.getString(1));
+        });
+        return paths;
+    }
+
+    Path blobPath(String sha256) {
+        return root.resolve(BLOB_DIR).resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(java.io.OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
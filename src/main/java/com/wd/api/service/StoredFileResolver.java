@@ -0,0 +1,103 @@
+package com.wd.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Resolves a storage-relative path to the real file behind it, with its
+ * content type, for the download endpoint.
+ *
+ * <p>A miss does the containment checks (normalised path under the storage
+ * root, then {@code toRealPath()} under the real root so a symlink cannot
+ * escape it) and {@code Files.probeContentType}. Hits skip all of that:
+ * stored files are written once under UUID names and never modified in
+ * place. A deleted file still shows up on the caller's per-request stat, which
+ * then calls {@link #evict}.
+ *
+ * <p>Bounded by {@code storage.file-cache.maximum-size} and
+ * {@code storage.file-cache.ttl}; exposed as the {@code storedFiles} cache in
+ * the {@code cache.*} metrics.
+ */
+@Component
+public class StoredFileResolver {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /** Real path of a stored file and its probed content type. */
+    public record StoredFile(Path path, String contentType) {
+    }
+
+    private final Path basePath;
+    private final Cache<String, StoredFile> cache;
+    private volatile Path realBasePath;
+
+    public StoredFileResolver(@Value("${storageBasePath}") String storageBasePath,
+                              @Value("${storage.file-cache.maximum-size:10000}") long maximumSize,
+                              @Value("${storage.file-cache.ttl:10m}") Duration ttl,
+                              MeterRegistry meterRegistry) {
+        this.basePath = Paths.get(storageBasePath.trim()).toAbsolutePath().normalize();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "storedFiles");
+    }
+
+    /**
+     * @param relativePath path under the storage root, already URL-decoded
+     *                     and screened for {@code ..} segments by the caller
+     * @throws NoSuchFileException   when there is no readable regular file
+     * @throws AccessDeniedException when the path, or a symlink on it,
+     *                               leads outside the storage root
+     */
+    public StoredFile resolve(String relativePath) throws IOException {
+        StoredFile cached = cache.getIfPresent(relativePath);
+        if (cached != null) {
+            return cached;
+        }
+
+        Path candidate = basePath.resolve(relativePath).normalize();
+        if (!candidate.startsWith(basePath)) {
+            throw new AccessDeniedException(relativePath, null, "outside storage root");
+        }
+        Path real = candidate.toRealPath();
+        if (!real.startsWith(realBase())) {
+            throw new AccessDeniedException(relativePath, real.toString(), "symlink outside storage root");
+        }
+        if (!Files.isRegularFile(real) || !Files.isReadable(real)) {
+            throw new NoSuchFileException(relativePath);
+        }
+
+        String contentType = Files.probeContentType(real);
+        StoredFile file = new StoredFile(real, contentType != null ? contentType : DEFAULT_CONTENT_TYPE);
+        cache.put(relativePath, file);
+        return file;
+    }
+
+    public void evict(String relativePath) {
+        cache.invalidate(relativePath);
+    }
+
+    private Path realBase() throws IOException {
+        Path real = realBasePath;
+        if (real == null) {
+            // Lazily: FileStorageService creates the root, possibly after this bean.
+            real = basePath.toRealPath();
+            realBasePath = real;
+        }
+        return real;
+    }
+}
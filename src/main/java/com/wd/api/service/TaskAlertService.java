@@ -1,19 +1,26 @@
 package com.wd.api.service;
 
-import com.wd.api.model.Task;
 import com.wd.api.model.TaskAlert;
 import com.wd.api.model.PortalUser;
 import com.wd.api.repository.TaskAlertRepository;
-import com.wd.api.repository.TaskRepository;
 import com.wd.api.repository.PortalUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Task Alert Service - Deadline Monitoring System
@@ -27,10 +34,15 @@ import java.util.List;
  * - Prevents duplicate alerts within 24 hours
  * - Tracks all alerts in database for audit trail
  * 
- * Performance Optimization:
- * - Uses indexes created in V10 migration
- * - Batch processing for efficiency
- * - Async email sending (doesn't block scheduler)
+ * Set-based run (one pass, independent of task count):
+ * - One query selects every open task due within 3 days that has no alert of
+ *   the same type in the last 24 hours (NOT EXISTS, index from V171)
+ * - Alert rows for every task x admin go in with multi-row INSERTs
+ * - Each admin gets one digest email per severity, queued on the mail outbox
+ *   in the same transaction as the alert rows
+ * 
+ * Metrics: task.alerts.duration, task.alerts.recorded (tag severity),
+ * task.alerts.digests.
  * 
  * @author Senior Engineer (15+ years construction domain)
  */
@@ -39,7 +51,33 @@ public class TaskAlertService {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskAlertService.class);
 
-    private final TaskRepository taskRepository;
+    static final int DUE_SOON_DAYS = 3;
+    static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * Open tasks due up to {@code ?} (today + 3) with the alert type they qualify
+     * for, minus those already alerted for that type since {@code ?} (now - 24h).
+     */
+    static final String FIND_CANDIDATES = """
+            SELECT c.* FROM (
+                   SELECT t.id, t.title, t.priority, t.status, t.due_date, t.description,
+                          p.name AS project_name, u.first_name, u.last_name,
+                          CASE WHEN t.due_date < ? THEN 'OVERDUE'
+                               WHEN t.due_date = ? THEN 'DUE_TODAY'
+                               ELSE 'DUE_SOON' END AS alert_type
+                     FROM tasks t
+                     LEFT JOIN customer_projects p ON p.id = t.project_id
+                     LEFT JOIN portal_users u ON u.id = t.assigned_to
+                    WHERE t.deleted_at IS NULL
+                      AND t.due_date <= ?
+                      AND t.status NOT IN ('COMPLETED', 'CANCELLED')) c
+             WHERE NOT EXISTS (
+                   SELECT 1 FROM task_alerts a
+                    WHERE a.task_id = c.id
+                      AND a.alert_type = c.alert_type
+                      AND a.sent_at > ?)
+             ORDER BY c.due_date, c.id
+            """;
 
     private final TaskAlertRepository alertRepository;
 
@@ -47,14 +85,34 @@ public class TaskAlertService {
 
     private final EmailService emailService;
 
-    public TaskAlertService(TaskRepository taskRepository,
-            TaskAlertRepository alertRepository,
+    private final JdbcTemplate jdbcTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer runDuration;
+
+    public TaskAlertService(TaskAlertRepository alertRepository,
             PortalUserRepository portalUserRepository,
-            EmailService emailService) {
-        this.taskRepository = taskRepository;
+            EmailService emailService,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry) {
         this.alertRepository = alertRepository;
         this.portalUserRepository = portalUserRepository;
         this.emailService = emailService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.runDuration = meterRegistry.timer("task.alerts.duration");
+    }
+
+    /** A task that needs an alert, with just the columns the message uses. */
+    record Candidate(long taskId, String title, String priority, String status, LocalDate dueDate,
+            String description, String projectName, String assigneeFirstName, String assigneeLastName,
+            TaskAlert.AlertType alertType) {
+    }
+
+    /** Counts for one run: tasks per type, alert rows written, digests queued. */
+    public record RunStats(int overdueTasks, int dueTodayTasks, int dueSoonTasks,
+            int admins, int alertsRecorded, int digestsSent, long durationMs) {
     }
 
     /**
@@ -62,139 +120,179 @@ public class TaskAlertService {
      * Called by: TaskAlertScheduler (daily at 9 AM)
      */
     @Transactional
-    public void sendTaskDeadlineAlerts() {
+    public RunStats sendTaskDeadlineAlerts() {
+        long t0 = System.nanoTime();
         LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
 
         logger.info("Starting task deadline alert check for {}", today);
 
-        // CRITICAL: Overdue tasks (past due date)
-        List<Task> overdueTasks = taskRepository.findOverdueTasks(today);
-        int overdueCount = processAlerts(overdueTasks, TaskAlert.AlertType.OVERDUE,
-                TaskAlert.AlertSeverity.CRITICAL);
+        List<Candidate> candidates = findCandidates(today, now.minusHours(24));
+        Map<TaskAlert.AlertType, List<Candidate>> byType = new EnumMap<>(TaskAlert.AlertType.class);
+        for (Candidate candidate : candidates) {
+            byType.computeIfAbsent(candidate.alertType(), k -> new ArrayList<>()).add(candidate);
+        }
 
-        // HIGH: Tasks due today
-        List<Task> dueTodayTasks = taskRepository.findTasksDueOn(today);
-        int dueTodayCount = processAlerts(dueTodayTasks, TaskAlert.AlertType.DUE_TODAY,
-                TaskAlert.AlertSeverity.HIGH);
+        // Alerts always go to admins
+        List<PortalUser> admins = candidates.isEmpty() ? List.of() : portalUserRepository.findByRoleName("ADMIN");
+        int alertsRecorded = 0;
+        int digestsSent = 0;
+        if (!candidates.isEmpty() && admins.isEmpty()) {
+            logger.warn("No admin users found - cannot send task alerts!");
+        } else if (!candidates.isEmpty()) {
+            alertsRecorded = recordAlerts(candidates, admins, now);
+            digestsSent = sendDigests(byType, admins);
+        }
 
-        // MEDIUM: Tasks due within next 3 days (early warning)
-        List<Task> dueSoonTasks = taskRepository.findTasksDueBetween(
-                today.plusDays(1), today.plusDays(3));
-        int dueSoonCount = processAlerts(dueSoonTasks, TaskAlert.AlertType.DUE_SOON,
-                TaskAlert.AlertSeverity.MEDIUM);
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        runDuration.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        RunStats stats = new RunStats(
+                byType.getOrDefault(TaskAlert.AlertType.OVERDUE, List.of()).size(),
+                byType.getOrDefault(TaskAlert.AlertType.DUE_TODAY, List.of()).size(),
+                byType.getOrDefault(TaskAlert.AlertType.DUE_SOON, List.of()).size(),
+                admins.size(), alertsRecorded, digestsSent, durationMs);
 
         logger.info(
-                "Task deadline alerts completed. Overdue: {} ({} alerts), Due Today: {} ({} alerts), Due Soon: {} ({} alerts)",
-                overdueTasks.size(), overdueCount, dueTodayTasks.size(), dueTodayCount,
-                dueSoonTasks.size(), dueSoonCount);
+                "Task deadline alerts completed in {}ms. Overdue: {}, Due Today: {}, Due Soon: {} "
+                        + "(after 24h de-duplication); {} admin(s), {} alert rows, {} digest email(s)",
+                durationMs, stats.overdueTasks(), stats.dueTodayTasks(), stats.dueSoonTasks(),
+                stats.admins(), alertsRecorded, digestsSent);
+        return stats;
+    }
+
+    List<Candidate> findCandidates(LocalDate today, LocalDateTime alertedSince) {
+        return jdbcTemplate.query(FIND_CANDIDATES,
+                (rs, i) -> {
+                    Date due = rs.getDate("due_date");
+                    return new Candidate(
+                            rs.getLong("id"),
+                            rs.getString("title"),
+                            rs.getString("priority"),
+                            rs.getString("status"),
+                            due != null ? due.toLocalDate() : null,
+                            rs.getString("description"),
+                            rs.getString("project_name"),
+                            rs.getString("first_name"),
+                            rs.getString("last_name"),
+                            TaskAlert.AlertType.valueOf(rs.getString("alert_type")));
+                },
+                Date.valueOf(today), Date.valueOf(today), Date.valueOf(today.plusDays(DUE_SOON_DAYS)),
+                Timestamp.valueOf(alertedSince));
     }
 
     /**
-     * Process alerts for a list of tasks
-     * 
-     * @param tasks     List of tasks needing alerts
-     * @param alertType Type of alert to send
-     * @param severity  Severity level
-     * @return Number of alerts actually sent (after deduplication)
+     * Audit rows, one per task per admin, in multi-row INSERTs of
+     * {@value #INSERT_BATCH_SIZE}.
+     *
+     * @return Number of alert rows written
      */
-    private int processAlerts(List<Task> tasks,
-            TaskAlert.AlertType alertType,
-            TaskAlert.AlertSeverity severity) {
-        if (tasks.isEmpty()) {
-            return 0;
-        }
-
-        // Get all admin users (alerts always go to admins)
-        List<PortalUser> admins = portalUserRepository.findByRoleName("ADMIN");
-
-        if (admins.isEmpty()) {
-            logger.warn("No admin users found - cannot send task alerts!");
-            return 0;
-        }
-
-        int alertsSent = 0;
-
-        for (Task task : tasks) {
-            // Anti-spam: Skip if alert sent in last 24 hours
-            if (alertRepository.existsRecentAlert(
-                    task.getId(), alertType, LocalDateTime.now().minusHours(24))) {
-                logger.debug("Skipping duplicate alert for task {} ({})", task.getId(), alertType);
-                continue;
+    private int recordAlerts(List<Candidate> candidates, List<PortalUser> admins, LocalDateTime now) {
+        Timestamp sentAt = Timestamp.valueOf(now);
+        String row = "(?, ?, ?, ?, ?, ?, ?, 'SENT', ?)";
+        List<Object[]> rows = new ArrayList<>(candidates.size() * admins.size());
+        for (Candidate candidate : candidates) {
+            String message = buildAlertMessage(candidate);
+            String severity = severityOf(candidate.alertType()).name();
+            for (PortalUser admin : admins) {
+                rows.add(new Object[] { candidate.taskId(), candidate.alertType().name(), severity, message,
+                        sentAt, admin.getId(), admin.getEmail(), sentAt });
             }
+        }
 
-            // Send alert to all admins
-            for (PortalUser admin : admins) {
-                sendAlertToUser(task, admin, alertType, severity);
-                alertsSent++;
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + INSERT_BATCH_SIZE, rows.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO task_alerts (task_id, alert_type, severity, "
+                    + "alert_message, sent_at, sent_to_user_id, sent_to_email, delivery_status, created_at) VALUES ");
+            List<Object> args = new ArrayList<>(chunk.size() * 8);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? row : ", " + row);
+                args.addAll(List.of(chunk.get(i)));
             }
+            jdbcTemplate.update(sql.toString(), args.toArray());
         }
 
-        return alertsSent;
+        for (Candidate candidate : candidates) {
+            meterRegistry.counter("task.alerts.recorded", "severity", severityOf(candidate.alertType()).name())
+                    .increment(admins.size());
+        }
+        return rows.size();
     }
 
     /**
-     * Send alert to specific user and record in database
-     * 
-     * @param task      The task triggering alert
-     * @param user      User to notify
-     * @param alertType Type of alert
-     * @param severity  Severity level
+     * One email per admin per severity listing every task of that severity.
+     *
+     * @return Number of digests handed to the email service
      */
-    private void sendAlertToUser(Task task, PortalUser user,
-            TaskAlert.AlertType alertType,
-            TaskAlert.AlertSeverity severity) {
-        // Build alert message
-        String message = buildAlertMessage(task, alertType);
-
-        // Send email notification (async in production)
-        try {
-            emailService.sendTaskAlert(user.getEmail(), task, message, severity);
-        } catch (Exception e) {
-            logger.error("Failed to send alert email to {} for task {}",
-                    user.getEmail(), task.getId(), e);
+    private int sendDigests(Map<TaskAlert.AlertType, List<Candidate>> byType, List<PortalUser> admins) {
+        int sent = 0;
+        for (Map.Entry<TaskAlert.AlertType, List<Candidate>> entry : byType.entrySet()) {
+            TaskAlert.AlertSeverity severity = severityOf(entry.getKey());
+            List<Candidate> tasks = entry.getValue();
+            String digest = buildDigest(tasks);
+            for (PortalUser admin : admins) {
+                try {
+                    emailService.sendTaskAlertDigest(admin.getEmail(), severity, tasks.size(), digest);
+                    sent++;
+                } catch (Exception e) {
+                    logger.error("Failed to send {} alert digest to {}", severity, admin.getEmail(), e);
+                }
+            }
         }
+        meterRegistry.counter("task.alerts.digests").increment(sent);
+        return sent;
+    }
 
-        // Record alert in database (audit trail)
-        TaskAlert alert = new TaskAlert(task, alertType, severity, message, user, user.getEmail());
-        alert.setDeliveryStatus(TaskAlert.DeliveryStatus.SENT);
-        alertRepository.save(alert);
+    static TaskAlert.AlertSeverity severityOf(TaskAlert.AlertType alertType) {
+        return switch (alertType) {
+            case OVERDUE -> TaskAlert.AlertSeverity.CRITICAL;
+            case DUE_TODAY -> TaskAlert.AlertSeverity.HIGH;
+            case DUE_SOON -> TaskAlert.AlertSeverity.MEDIUM;
+        };
+    }
 
-        logger.debug("Alert sent to {} for task {} ({})", user.getEmail(), task.getId(), alertType);
+    private String buildDigest(List<Candidate> tasks) {
+        StringBuilder digest = new StringBuilder();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (i > 0) {
+                digest.append("\n\n----------------------------------------\n\n");
+            }
+            digest.append(buildAlertMessage(tasks.get(i)));
+        }
+        return digest.toString();
     }
 
     /**
      * Build formatted alert message for email/notification
      * 
-     * @param task      The task
-     * @param alertType Alert type
+     * @param task The task row and the alert type it qualified for
      * @return Formatted message
      */
-    private String buildAlertMessage(Task task, TaskAlert.AlertType alertType) {
-        String prefix = switch (alertType) {
+    private String buildAlertMessage(Candidate task) {
+        String prefix = switch (task.alertType()) {
             case OVERDUE -> "⚠️ OVERDUE TASK";
             case DUE_TODAY -> "📅 TASK DUE TODAY";
             case DUE_SOON -> "⏰ UPCOMING DEADLINE";
         };
 
         StringBuilder message = new StringBuilder();
-        message.append(prefix).append(": ").append(task.getTitle());
-        message.append("\n\nPriority: ").append(task.getPriority());
-        message.append("\nDue Date: ").append(task.getDueDate());
-        message.append("\nStatus: ").append(task.getStatus());
+        message.append(prefix).append(": ").append(task.title());
+        message.append("\n\nPriority: ").append(task.priority());
+        message.append("\nDue Date: ").append(task.dueDate());
+        message.append("\nStatus: ").append(task.status());
 
-        if (task.getProject() != null) {
-            message.append("\nProject: ").append(task.getProject().getName());
+        if (task.projectName() != null) {
+            message.append("\nProject: ").append(task.projectName());
         }
 
-        if (task.getAssignedTo() != null) {
+        if (task.assigneeFirstName() != null) {
             message.append("\nAssigned To: ")
-                    .append(task.getAssignedTo().getFirstName())
+                    .append(task.assigneeFirstName())
                     .append(" ")
-                    .append(task.getAssignedTo().getLastName());
+                    .append(task.assigneeLastName());
         }
 
-        if (task.getDescription() != null && !task.getDescription().isEmpty()) {
-            message.append("\n\nDescription: ").append(task.getDescription());
+        if (task.description() != null && !task.description().isEmpty()) {
+            message.append("\n\nDescription: ").append(task.description());
         }
 
         return message.toString();
@@ -1,11 +1,14 @@
 package com.wd.api.service;
 
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.TaskChangedEvent;
 import com.wd.api.model.PortalUser;
 import com.wd.api.model.Task;
 import com.wd.api.repository.ProjectMilestoneRepository;
 import com.wd.api.repository.TaskRepository;
-import com.wd.api.service.scheduling.CpmService;
+import com.wd.api.service.scheduling.CpmRecomputeScheduler;
 import com.wd.api.service.wbs.ProgressRollupService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,24 +21,27 @@ public class TaskProgressUpdateService {
     private final ProjectMilestoneRepository milestoneRepo;
     private final ProgressRollupService rollup;
     private final ActivityFeedService activityFeed;
-    private final CpmService cpmService;
+    private final CpmRecomputeScheduler cpmScheduler;
     private final TaskQualityGateService qualityGateService;
     private final ProjectProgressService projectProgressService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TaskProgressUpdateService(TaskRepository taskRepo,
                                       ProjectMilestoneRepository milestoneRepo,
                                       ProgressRollupService rollup,
                                       ActivityFeedService activityFeed,
-                                      CpmService cpmService,
+                                      CpmRecomputeScheduler cpmScheduler,
                                       TaskQualityGateService qualityGateService,
-                                      ProjectProgressService projectProgressService) {
+                                      ProjectProgressService projectProgressService,
+                                      ApplicationEventPublisher eventPublisher) {
         this.taskRepo = taskRepo;
         this.milestoneRepo = milestoneRepo;
         this.rollup = rollup;
         this.activityFeed = activityFeed;
-        this.cpmService = cpmService;
+        this.cpmScheduler = cpmScheduler;
         this.qualityGateService = qualityGateService;
         this.projectProgressService = projectProgressService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -72,9 +78,10 @@ public class TaskProgressUpdateService {
         // updates can auto-stamp actualEndDate on COMPLETED transitions) must
         // refresh ES/EF/LS/LF/totalFloat/isCritical so the Gantt critical-path
         // UI in PR3 stays in sync. Mirrors the unconditional pattern used by
-        // TaskPredecessorService and GanttService.
+        // TaskPredecessorService and GanttService. Only this task's inputs
+        // moved, so the incremental pass touches just its downstream/upstream.
         if (saved.getProject() != null && saved.getProject().getId() != null) {
-            cpmService.recompute(saved.getProject().getId());
+            cpmScheduler.requestRecompute(saved.getProject().getId(), java.util.List.of(saved.getId()));
             // Refresh denormalized progress columns on the project so the
             // header bar + customer-app progress card reflect the slider
             // change immediately (without waiting for a manual recalc).
@@ -118,6 +125,12 @@ public class TaskProgressUpdateService {
                     : "Status auto-derived from progress = " + newProgress + "%";
             activityFeed.logProjectActivity("TASK_STATUS_CHANGED", title, descr, task.getProject(), updatedBy);
         }
+        // Percentage alone moves no dashboard figure; a status change moves the overdue counts.
+        if (oldStatus != newStatus) {
+            eventPublisher.publishEvent(new TaskChangedEvent(this, saved.getId(),
+                    saved.getProject() != null ? saved.getProject().getId() : null,
+                    DomainEvent.Change.UPDATED));
+        }
 
         return saved;
     }
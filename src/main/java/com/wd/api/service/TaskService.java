@@ -5,6 +5,8 @@ import com.wd.api.model.TaskAssignmentHistory;
 import com.wd.api.model.PortalUser;
 import com.wd.api.model.Lead;
 import com.wd.api.dto.TaskSearchFilter;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.TaskChangedEvent;
 import com.wd.api.repository.TaskAssignmentHistoryRepository;
 import com.wd.api.repository.TaskRepository;
 import com.wd.api.repository.PortalUserRepository;
@@ -12,6 +14,7 @@ import com.wd.api.security.TaskAuthorizationService;
 import com.wd.api.util.SpecificationBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -52,10 +55,12 @@ public class TaskService {
 
     private final TaskQualityGateService qualityGateService;
 
-    private final com.wd.api.service.scheduling.CpmService cpmService;
+    private final com.wd.api.service.scheduling.CpmRecomputeScheduler cpmScheduler;
 
     private final ProjectProgressService projectProgressService;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     public TaskService(
             TaskRepository taskRepository,
             PortalUserRepository portalUserRepository,
@@ -64,8 +69,9 @@ public class TaskService {
             TaskAuthorizationService authService,
             PortalNotificationService portalNotificationService,
             TaskQualityGateService qualityGateService,
-            com.wd.api.service.scheduling.CpmService cpmService,
-            ProjectProgressService projectProgressService) {
+            com.wd.api.service.scheduling.CpmRecomputeScheduler cpmScheduler,
+            ProjectProgressService projectProgressService,
+            ApplicationEventPublisher eventPublisher) {
         this.taskRepository = taskRepository;
         this.portalUserRepository = portalUserRepository;
         this.leadRepository = leadRepository;
@@ -73,8 +79,9 @@ public class TaskService {
         this.authService = authService;
         this.portalNotificationService = portalNotificationService;
         this.qualityGateService = qualityGateService;
-        this.cpmService = cpmService;
+        this.cpmScheduler = cpmScheduler;
         this.projectProgressService = projectProgressService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -269,13 +276,13 @@ public class TaskService {
         // can be marked COMPLETED (see TaskQualityGateService.assertCompletable).
         qualityGateService.seedGatesFor(savedTask);
 
-        // Recompute CPM so the new task gets ES/EF/LS/LF/totalFloat/isCritical
-        // populated immediately. Without this the Gantt critical-path overlay
+        // Request a CPM recompute so the new task gets ES/EF/LS/LF/totalFloat/isCritical
+        // populated right after commit. Without this the Gantt critical-path overlay
         // shows the new task with stale (null/false) CPM fields until something
         // else triggers a recompute (a predecessor edit, completion, etc.).
         if (savedTask.getProject() != null && savedTask.getProject().getId() != null) {
             Long pid = savedTask.getProject().getId();
-            cpmService.recompute(pid);
+            cpmScheduler.requestRecompute(pid);
             // Refresh the customer_projects.overall_progress denormalized
             // column so the project header + customer-app progress card
             // reflect the new total-task-weight denominator.
@@ -283,6 +290,10 @@ public class TaskService {
                     "Task '" + savedTask.getTitle() + "' added (id=" + savedTask.getId() + ")");
         }
 
+        eventPublisher.publishEvent(new TaskChangedEvent(this, savedTask.getId(),
+                savedTask.getProject() != null ? savedTask.getProject().getId() : null,
+                DomainEvent.Change.CREATED));
+
         logger.info("Task created successfully with ID: {}", savedTask.getId());
         return savedTask;
     }
@@ -370,6 +381,9 @@ public class TaskService {
             safeRecomputeProgress(updated.getProject().getId(), "TASK_UPDATED",
                     "Task '" + updated.getTitle() + "' updated (id=" + updated.getId() + ")");
         }
+        eventPublisher.publishEvent(new TaskChangedEvent(this, updated.getId(),
+                updated.getProject() != null ? updated.getProject().getId() : null,
+                DomainEvent.Change.UPDATED));
         logger.info("Task {} updated successfully", id);
 
         return updated;
@@ -460,12 +474,13 @@ public class TaskService {
         // CPM recompute: removing a task can shorten the critical path or
         // free up float on its successors, so the Gantt overlay must refresh.
         if (projectIdForCpm != null) {
-            cpmService.recompute(projectIdForCpm);
+            cpmScheduler.requestRecompute(projectIdForCpm);
             // Deleting a task drops it from BOTH numerator and denominator —
             // the percentage shifts. Refresh the denorm column.
             safeRecomputeProgress(projectIdForCpm, "TASK_DELETED",
                     "Task id=" + id + " deleted");
         }
+        eventPublisher.publishEvent(new TaskChangedEvent(this, id, projectIdForCpm, DomainEvent.Change.DELETED));
 
         logger.info("Task {} deleted successfully", id);
     }
@@ -0,0 +1,476 @@
+package com.wd.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers the webhook outbox ({@code webhook_event_log}) to the Customer API.
+ *
+ * <p>{@link WebhookPublisherService#publish} only inserts a PENDING row; this
+ * dispatcher wakes every {@code customer-api.webhook.dispatch-interval-ms}
+ * (default 2s), leases due rows in batches ({@link WebhookOutbox#claim}) and
+ * sends them with {@link HttpClient#sendAsync}, at most
+ * {@code customer-api.webhook.max-concurrency} in flight. Results are written
+ * back per batch. The drain runs on its own {@link DedicatedPoller} thread,
+ * since it waits on the HTTP round trips (up to {@value #REQUEST_TIMEOUT_S}s)
+ * and would otherwise hold a shared scheduler thread.
+ *
+ * <p>A failed attempt is retried after an exponential backoff (30s, 1m, 2m,
+ * 4m, with jitter) held in {@code next_attempt_at}; the {@value #MAX_ATTEMPTS}th
+ * failure moves the event to DEAD_LETTER for manual inspection.
+ *
+ * <p>Each endpoint has a circuit breaker: after
+ * {@value #CIRCUIT_FAILURE_THRESHOLD} consecutive failures it stops claiming
+ * for {@code customer-api.webhook.circuit-open-for} (default 30s), then lets a
+ * single probe event through before resuming full batches. Events are never
+ * charged an attempt while the circuit is open.
+ *
+ * <p>Batch mode ({@code customer-api.webhook.batch-mode}): a CR merge or bulk
+ * task update can fire dozens of events for one project at once. Publishing
+ * then holds each event for {@code customer-api.webhook.batch-window}, and the
+ * dispatcher sends each project's due events as one signed JSON array (up to
+ * {@value #MAX_EVENTS_PER_REQUEST}) to {@code customer-api.webhook-batch-url}
+ * (default: webhook URL + {@code /batch}). Every element is the usual event
+ * payload plus its {@code eventId}, which the Customer API uses to drop
+ * duplicates. The receiver answers
+ * {@code {"results":[{"eventId":..,"status":"ACCEPTED|DUPLICATE|REJECTED","error":..}]}}
+ * and each row gets its own outcome: a rejected or missing event is retried on
+ * its own schedule while the rest of the batch is marked DELIVERED. A stored
+ * payload that is not a JSON object goes straight to DEAD_LETTER and the rest
+ * of the batch is sent without it.
+ *
+ * <p>Metrics: {@code webhook.deliveries} (tag {@code outcome}: delivered,
+ * failed, dead_letter), {@code webhook.requests} (tag {@code mode}: single,
+ * batch), {@code webhook.delivery.latency} and {@code webhook.circuit.open}
+ * per endpoint.
+ */
+@Component
+public class WebhookDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+    static final String STATUS_DELIVERED = "DELIVERED";
+    static final String STATUS_FAILED = "FAILED";
+    static final String STATUS_DEAD_LETTER = "DEAD_LETTER";
+
+    static final int MAX_ATTEMPTS = 5;
+    static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    static final int MAX_EVENTS_PER_REQUEST = 50;
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int CONNECT_TIMEOUT_S = 5;
+    private static final int REQUEST_TIMEOUT_S = 10;
+    private static final Duration BACKOFF_BASE = Duration.ofSeconds(30);
+    private static final Duration BACKOFF_MAX = Duration.ofHours(1);
+    /** Longer than any batch can take to send, so a live dispatcher never loses its lease. */
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(2);
+
+    @Value("${customer-api.webhook-url:}")
+    private String webhookUrl;
+
+    @Value("${customer-api.webhook-secret:}")
+    private String webhookSecret;
+
+    @Value("${customer-api.webhook.dispatch-enabled:true}")
+    private boolean dispatchEnabled = true;
+
+    @Value("${customer-api.webhook.batch-mode:false}")
+    private boolean batchMode;
+
+    @Value("${customer-api.webhook-batch-url:}")
+    private String batchUrl;
+
+    private final WebhookOutbox outbox;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int maxConcurrency;
+    private final Duration circuitOpenFor;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(CONNECT_TIMEOUT_S))
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, EndpointCircuit> circuits = new ConcurrentHashMap<>();
+
+    private final DedicatedPoller poller = new DedicatedPoller("webhook-dispatch");
+
+    private final Counter delivered;
+    private final Counter failed;
+    private final Counter deadLettered;
+    private final Counter singleRequests;
+    private final Counter batchRequests;
+    private final Timer latency;
+
+    public WebhookDispatcher(WebhookOutbox outbox,
+                             MeterRegistry meterRegistry,
+                             @Value("${customer-api.webhook.batch-size:50}") int batchSize,
+                             @Value("${customer-api.webhook.max-concurrency:8}") int maxConcurrency,
+                             @Value("${customer-api.webhook.circuit-open-for:30s}") Duration circuitOpenFor) {
+        this.outbox = outbox;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxConcurrency = maxConcurrency;
+        this.circuitOpenFor = circuitOpenFor;
+        this.delivered = deliveries("delivered");
+        this.failed = deliveries("failed");
+        this.deadLettered = deliveries("dead_letter");
+        this.singleRequests = requests("single");
+        this.batchRequests = requests("batch");
+        this.latency = Timer.builder("webhook.delivery.latency")
+                .description("Customer API webhook round trip")
+                .register(meterRegistry);
+    }
+
+    private Counter deliveries(String outcome) {
+        return Counter.builder("webhook.deliveries")
+                .description("Webhook delivery attempts by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter requests(String mode) {
+        return Counter.builder("webhook.requests")
+                .description("HTTP requests sent to the Customer API webhook")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${customer-api.webhook.dispatch-interval-ms:2000}")
+    public void scheduledDispatch() {
+        poller.trigger(this::dispatch);
+    }
+
+    /**
+     * Drain due events until the outbox is empty, a batch comes back short or
+     * the endpoint's circuit opens.
+     */
+    public void dispatch() {
+        if (!dispatchEnabled || webhookUrl == null || webhookUrl.isBlank()) {
+            return;
+        }
+        EndpointCircuit circuit = circuit(webhookUrl);
+        while (true) {
+            int allowance = circuit.allowance(batchSize);
+            if (allowance == 0) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<WebhookOutbox.Event> batch = outbox.claim(allowance, now, CLAIM_LEASE);
+            if (batch.isEmpty()) {
+                return;
+            }
+            outbox.record(batchMode ? sendGrouped(batch, circuit) : send(batch, circuit));
+            if (batch.size() < allowance) {
+                return;
+            }
+        }
+    }
+
+    /** Send a batch concurrently (bounded) and wait for every result. */
+    List<WebhookOutbox.Outcome> send(List<WebhookOutbox.Event> batch, EndpointCircuit circuit) {
+        Semaphore inFlight = new Semaphore(maxConcurrency);
+        List<CompletableFuture<WebhookOutbox.Outcome>> futures = new ArrayList<>(batch.size());
+        for (WebhookOutbox.Event event : batch) {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break; // unsent events keep their lease and are retried once it expires
+            }
+            long start = System.nanoTime();
+            singleRequests.increment();
+            futures.add(httpClient.sendAsync(request(webhookUrl, event.payload()), HttpResponse.BodyHandlers.ofString())
+                    .handle((response, error) -> {
+                        inFlight.release();
+                        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        boolean ok = error == null && response.statusCode() == 200;
+                        circuit.record(ok);
+                        LocalDateTime now = LocalDateTime.now();
+                        return ok ? deliveredOutcome(event, now)
+                                : failedOutcome(event, errorMessage(response, error), now);
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Batch mode: one signed array request per project (chunked to
+     * {@value #MAX_EVENTS_PER_REQUEST} events), same concurrency bound.
+     */
+    List<WebhookOutbox.Outcome> sendGrouped(List<WebhookOutbox.Event> batch, EndpointCircuit circuit) {
+        LocalDateTime parsedAt = LocalDateTime.now();
+        List<WebhookOutbox.Outcome> unreadable = new ArrayList<>();
+        Map<Long, ObjectNode> payloads = new HashMap<>();
+        List<WebhookOutbox.Event> readable = new ArrayList<>(batch.size());
+        for (WebhookOutbox.Event event : batch) {
+            ObjectNode node = payloadNode(event);
+            if (node == null) {
+                unreadable.add(deadLetterOutcome(event, "Unreadable webhook payload", parsedAt));
+            } else {
+                payloads.put(event.id(), node);
+                readable.add(event);
+            }
+        }
+
+        // Events without a project are grouped together under 0 (no real project has that id).
+        Map<Long, List<WebhookOutbox.Event>> byProject = readable.stream().collect(Collectors.groupingBy(
+                e -> Objects.requireNonNullElse(e.projectId(), 0L), LinkedHashMap::new, Collectors.toList()));
+        String url = batchUrl != null && !batchUrl.isBlank() ? batchUrl : webhookUrl + "/batch";
+
+        Semaphore inFlight = new Semaphore(maxConcurrency);
+        List<CompletableFuture<List<WebhookOutbox.Outcome>>> futures = new ArrayList<>();
+        for (List<WebhookOutbox.Event> events : byProject.values()) {
+            for (int from = 0; from < events.size(); from += MAX_EVENTS_PER_REQUEST) {
+                List<WebhookOutbox.Event> group = events.subList(from, Math.min(from + MAX_EVENTS_PER_REQUEST, events.size()));
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break; // unsent events keep their lease and are retried once it expires
+                }
+                long start = System.nanoTime();
+                batchRequests.increment();
+                futures.add(httpClient.sendAsync(request(url, batchBody(group, payloads)), HttpResponse.BodyHandlers.ofString())
+                        .handle((response, error) -> {
+                            inFlight.release();
+                            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            boolean ok = error == null && response.statusCode() == 200;
+                            circuit.record(ok);
+                            return ok ? batchOutcomes(group, response.body())
+                                    : failAll(group, errorMessage(response, error));
+                        }));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        List<WebhookOutbox.Outcome> outcomes = new ArrayList<>(unreadable);
+        futures.forEach(f -> outcomes.addAll(f.join()));
+        return outcomes;
+    }
+
+    /**
+     * The stored payload as a JSON object, or {@code null} when it is not one.
+     * WebhookPublisherService only writes objects, so such a row is corrupt
+     * and would fail the same way on every retry.
+     */
+    private ObjectNode payloadNode(WebhookOutbox.Event event) {
+        try {
+            return objectMapper.readTree(event.payload()) instanceof ObjectNode node ? node : null;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** JSON array of the stored payloads, each with its outbox row id as {@code eventId}. */
+    private String batchBody(List<WebhookOutbox.Event> group, Map<Long, ObjectNode> payloads) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (WebhookOutbox.Event event : group) {
+            array.add(payloads.get(event.id()).put("eventId", event.id()));
+        }
+        return array.toString();
+    }
+
+    /** Per-event outcomes from a 200 batch response; a 200 without results accepts every event. */
+    private List<WebhookOutbox.Outcome> batchOutcomes(List<WebhookOutbox.Event> group, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, JsonNode> results = new HashMap<>();
+        try {
+            JsonNode root = body == null || body.isBlank() ? null : objectMapper.readTree(body);
+            if (root != null && root.path("results").isArray()) {
+                root.path("results").forEach(r -> results.put(r.path("eventId").asLong(), r));
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Unparseable webhook batch response, treating batch as accepted: {}", e.getMessage());
+        }
+        List<WebhookOutbox.Outcome> outcomes = new ArrayList<>(group.size());
+        for (WebhookOutbox.Event event : group) {
+            if (results.isEmpty()) {
+                outcomes.add(deliveredOutcome(event, now));
+                continue;
+            }
+            JsonNode result = results.get(event.id());
+            String status = result != null ? result.path("status").asText("") : "";
+            if ("ACCEPTED".equals(status) || "DUPLICATE".equals(status)) {
+                outcomes.add(deliveredOutcome(event, now));
+            } else {
+                String reason = result == null ? "No result for event in batch response"
+                        : "Rejected in batch: " + result.path("error").asText(status);
+                outcomes.add(failedOutcome(event, truncate(reason, 500), now));
+            }
+        }
+        return outcomes;
+    }
+
+    private List<WebhookOutbox.Outcome> failAll(List<WebhookOutbox.Event> group, String errorMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        return group.stream().map(event -> failedOutcome(event, errorMessage, now)).toList();
+    }
+
+    private HttpRequest request(String url, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_S))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        String signature = computeSignature(json);
+        if (signature != null) {
+            builder.header("X-Portal-Signature", "sha256=" + signature);
+        }
+        return builder.build();
+    }
+
+    private WebhookOutbox.Outcome deliveredOutcome(WebhookOutbox.Event event, LocalDateTime now) {
+        delivered.increment();
+        log.debug("Webhook delivered: id={} type={} projectId={}",
+                event.id(), event.eventType(), event.projectId());
+        return new WebhookOutbox.Outcome(event.id(), STATUS_DELIVERED, event.attempts() + 1, now, null, null);
+    }
+
+    private WebhookOutbox.Outcome failedOutcome(WebhookOutbox.Event event, String errorMessage, LocalDateTime now) {
+        int attempts = event.attempts() + 1;
+        if (attempts >= MAX_ATTEMPTS) {
+            deadLettered.increment();
+            log.error("Webhook event moved to DEAD_LETTER after {} attempts: id={} type={} error={}",
+                    attempts, event.id(), event.eventType(), errorMessage);
+            return new WebhookOutbox.Outcome(event.id(), STATUS_DEAD_LETTER, attempts, now, errorMessage, null);
+        }
+        failed.increment();
+        log.warn("Webhook delivery failed: id={} type={} attempt={} error={}",
+                event.id(), event.eventType(), attempts, errorMessage);
+        return new WebhookOutbox.Outcome(event.id(), STATUS_FAILED, attempts, now, errorMessage,
+                now.plus(backoff(attempts)));
+    }
+
+    /** Straight to DEAD_LETTER: for failures no retry can fix. */
+    private WebhookOutbox.Outcome deadLetterOutcome(WebhookOutbox.Event event, String errorMessage, LocalDateTime now) {
+        deadLettered.increment();
+        log.error("Webhook event moved to DEAD_LETTER: id={} type={} error={}",
+                event.id(), event.eventType(), errorMessage);
+        return new WebhookOutbox.Outcome(event.id(), STATUS_DEAD_LETTER, event.attempts() + 1, now, errorMessage, null);
+    }
+
+    private static String errorMessage(HttpResponse<String> response, Throwable error) {
+        if (error == null) {
+            return truncate("HTTP " + response.statusCode() + ": " + truncate(response.body(), 500), 500);
+        }
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return truncate(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName(), 500);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdown();
+    }
+
+    /** 30s doubling per attempt, capped at an hour, with up to 20% jitter so retries spread out. */
+    static Duration backoff(int attempts) {
+        long base = BACKOFF_BASE.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, BACKOFF_MAX.toMillis());
+        return Duration.ofMillis(capped + ThreadLocalRandom.current().nextLong(capped / 5 + 1));
+    }
+
+    private EndpointCircuit circuit(String endpoint) {
+        return circuits.computeIfAbsent(endpoint, e -> {
+            EndpointCircuit c = new EndpointCircuit(circuitOpenFor);
+            Gauge.builder("webhook.circuit.open", c, EndpointCircuit::openGauge)
+                    .description("1 while deliveries to the endpoint are suspended")
+                    .tag("endpoint", URI.create(e).getHost() != null ? URI.create(e).getHost() : e)
+                    .register(meterRegistry);
+            return c;
+        });
+    }
+
+    private String computeSignature(String payload) {
+        if (webhookSecret == null || webhookSecret.isBlank()) return null;
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.error("Failed to compute webhook signature: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String truncate(String s, int max) {
+        if (s == null) return null;
+        return s.length() <= max ? s : s.substring(0, max) + "…";
+    }
+
+    /** Consecutive-failure breaker for one endpoint: closed → open → half-open (one probe) → closed. */
+    static final class EndpointCircuit {
+
+        private final Duration openFor;
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private boolean open;
+
+        EndpointCircuit(Duration openFor) {
+            this.openFor = openFor;
+        }
+
+        /** How many events may be claimed now: 0 while open, 1 to probe, else the full batch. */
+        synchronized int allowance(int batchSize) {
+            if (!open) return batchSize;
+            return System.nanoTime() - openUntilNanos >= 0 ? 1 : 0;
+        }
+
+        synchronized void record(boolean success) {
+            if (success) {
+                consecutiveFailures = 0;
+                open = false;
+                return;
+            }
+            consecutiveFailures++;
+            if (open || consecutiveFailures >= CIRCUIT_FAILURE_THRESHOLD) {
+                if (!open) {
+                    log.warn("Webhook circuit opened after {} consecutive failures", consecutiveFailures);
+                }
+                open = true;
+                openUntilNanos = System.nanoTime() + openFor.toNanos();
+            }
+        }
+
+        synchronized double openGauge() {
+            return open ? 1 : 0;
+        }
+    }
+}
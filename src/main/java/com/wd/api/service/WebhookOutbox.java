@@ -0,0 +1,86 @@
+package com.wd.api.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC access to {@code webhook_event_log} as an outbox (V169) for
+ * {@link WebhookDispatcher}.
+ *
+ * <p>{@link #claim} leases due rows by pushing their {@code next_attempt_at}
+ * forward; {@code SKIP LOCKED} keeps concurrent dispatchers (other instances)
+ * off the same rows, and a dispatcher that dies mid-batch simply lets the
+ * lease run out.
+ */
+@Component
+public class WebhookOutbox {
+
+    static final String CLAIM_DUE = """
+            UPDATE webhook_event_log SET next_attempt_at = ?
+             WHERE id IN (
+                   SELECT id FROM webhook_event_log
+                    WHERE status IN ('PENDING', 'FAILED')
+                      AND next_attempt_at <= ?
+                    ORDER BY next_attempt_at, id
+                    LIMIT ?
+                      FOR UPDATE SKIP LOCKED)
+            RETURNING id, event_type, project_id, payload, attempts
+            """;
+
+    static final String RECORD_OUTCOME = """
+            UPDATE webhook_event_log
+               SET status = ?, attempts = ?, last_attempt_at = ?, delivered_at = ?,
+                   error_message = ?, next_attempt_at = ?
+             WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WebhookOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** A claimed event; {@code attempts} is the count before this delivery. */
+    public record Event(long id, String eventType, Long projectId, String payload, int attempts) {
+    }
+
+    /** Result of one delivery attempt. {@code nextAttemptAt} is null for terminal states. */
+    public record Outcome(long id, String status, int attempts, LocalDateTime attemptedAt,
+                          String errorMessage, LocalDateTime nextAttemptAt) {
+
+        public boolean delivered() {
+            return WebhookDispatcher.STATUS_DELIVERED.equals(status);
+        }
+    }
+
+    /** Lease up to {@code limit} due events, oldest first. */
+    public List<Event> claim(int limit, LocalDateTime now, Duration lease) {
+        return jdbcTemplate.query(CLAIM_DUE,
+                (rs, i) -> new Event(
+                        rs.getLong("id"),
+                        rs.getString("event_type"),
+                        (Long) rs.getObject("project_id", Long.class),
+                        rs.getString("payload"),
+                        rs.getInt("attempts")),
+                Timestamp.valueOf(now.plus(lease)), Timestamp.valueOf(now), limit);
+    }
+
+    /** Write back a batch of attempt results in one round trip. */
+    public void record(List<Outcome> outcomes) {
+        if (outcomes.isEmpty()) return;
+        jdbcTemplate.batchUpdate(RECORD_OUTCOME, outcomes, outcomes.size(), (ps, o) -> {
+            ps.setString(1, o.status());
+            ps.setInt(2, o.attempts());
+            ps.setTimestamp(3, Timestamp.valueOf(o.attemptedAt()));
+            ps.setTimestamp(4, o.delivered() ? Timestamp.valueOf(o.attemptedAt()) : null);
+            ps.setString(5, o.errorMessage());
+            ps.setTimestamp(6, o.nextAttemptAt() != null ? Timestamp.valueOf(o.nextAttemptAt()) : null);
+            ps.setLong(7, o.id());
+        });
+    }
+}
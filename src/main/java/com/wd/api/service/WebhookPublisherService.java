@@ -7,50 +7,37 @@ import com.wd.api.repository.WebhookEventLogRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HexFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Publishes webhook events to the Customer API after portal transactions commit.
  *
- * Every outgoing event is persisted to {@code webhook_event_log} before delivery.
- * On success, the log entry is marked DELIVERED. On failure it remains FAILED and
- * a @Scheduled job retries up to MAX_ATTEMPTS times every 5 minutes. Events that
- * exhaust all retries are marked DEAD_LETTER for manual inspection.
+ * Publishing only writes the event to {@code webhook_event_log} as PENDING — the
+ * caller never waits on the Customer API. {@link WebhookDispatcher} delivers the
+ * row shortly after, retrying with backoff and marking it DELIVERED or, once
+ * retries are exhausted, DEAD_LETTER for manual inspection.
  */
 @Service
 public class WebhookPublisherService {
 
     private static final Logger log = LoggerFactory.getLogger(WebhookPublisherService.class);
-    private static final String HMAC_ALGORITHM = "HmacSHA256";
-    private static final String STATUS_FAILED = "FAILED";
-    private static final int CONNECT_TIMEOUT_S = 5;
-    private static final int REQUEST_TIMEOUT_S = 10;
-    private static final int MAX_ATTEMPTS = 5;
 
     @Value("${customer-api.webhook-url:}")
     private String webhookUrl;
 
-    @Value("${customer-api.webhook-secret:}")
-    private String webhookSecret;
+    /** In batch mode, events wait this long so a burst for one project goes out as one request. */
+    @Value("${customer-api.webhook.batch-mode:false}")
+    private boolean batchMode;
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(CONNECT_TIMEOUT_S))
-            .build();
+    @Value("${customer-api.webhook.batch-window:2s}")
+    private Duration batchWindow = Duration.ofSeconds(2);
 
     private final ObjectMapper objectMapper = new ObjectMapper()
             .registerModule(new JavaTimeModule());
@@ -182,6 +169,28 @@ public class WebhookPublisherService {
      */
     public void publishPaymentMilestoneDue(com.wd.api.model.enums.ReminderKind kind,
                                             com.wd.api.scheduler.PaymentMilestoneReminderJob.ReminderContext ctx) {
+        publish(paymentMilestoneDuePayload(kind, ctx));
+    }
+
+    /**
+     * Batch form of {@link #publishPaymentMilestoneDue} for one chunk of the
+     * reminder job: every event is queued in a single {@code saveAll}, in the
+     * caller's transaction when there is one.
+     */
+    @Transactional
+    public void publishPaymentMilestonesDue(List<com.wd.api.scheduler.PaymentMilestoneReminderJob.Reminder> reminders) {
+        List<WebhookEventLog> events = new ArrayList<>(reminders.size());
+        for (com.wd.api.scheduler.PaymentMilestoneReminderJob.Reminder reminder : reminders) {
+            WebhookEventLog event = toEventLog(paymentMilestoneDuePayload(reminder.kind(), reminder.ctx()));
+            if (event != null) events.add(event);
+        }
+        if (!events.isEmpty()) {
+            eventLogRepository.saveAll(events);
+        }
+    }
+
+    private PortalWebhookPayload paymentMilestoneDuePayload(com.wd.api.model.enums.ReminderKind kind,
+                                                            com.wd.api.scheduler.PaymentMilestoneReminderJob.ReminderContext ctx) {
         Map<String, String> meta = Map.of(
                 "reminderKind",        kind.name(),
                 "stageId",             ctx.stageId() != null ? ctx.stageId().toString() : "",
@@ -195,32 +204,35 @@ public class WebhookPublisherService {
         // mostly a debug aid in webhook_event_log rows.
         String summary = String.format("Payment reminder (%s): Stage %s — %s",
                 kind.name(), ctx.stageNumber(), ctx.stageName());
-        publish(new PortalWebhookPayload(
+        return new PortalWebhookPayload(
                 "PAYMENT_MILESTONE_DUE",
                 ctx.projectId(),
                 /* customerId */ null,
                 /* referenceId */ ctx.stageId(),
                 summary,
                 meta,
-                LocalDateTime.now()));
+                LocalDateTime.now());
     }
 
     // ───────────────────────── Internal ────────────────────────────
 
     /**
-     * Persists the event to the audit log then attempts delivery.
-     *
-     * <p>Called synchronously from the sibling {@code publishXxx(...)} helpers in
-     * this class. The previous {@code @Async}/{@code @Transactional} annotations
-     * were silently bypassed by that self-invocation (SonarQube java:S2229), so
-     * delivery already ran inline — the integration tests assert this synchronous
-     * behaviour. Annotations removed to make the code honest; the repository save
-     * is transactional per-operation via Spring Data.
+     * Serializes the event and queues it in {@code webhook_event_log} for
+     * {@link WebhookDispatcher}. Called from the sibling {@code publishXxx(...)}
+     * helpers; the repository save is transactional per-operation via Spring Data.
      */
     public void publish(PortalWebhookPayload payload) {
+        WebhookEventLog eventLog = toEventLog(payload);
+        if (eventLog != null) {
+            eventLogRepository.save(eventLog);
+        }
+    }
+
+    /** PENDING outbox row for the payload, or null when it must not be queued. */
+    private WebhookEventLog toEventLog(PortalWebhookPayload payload) {
         if (webhookUrl == null || webhookUrl.isBlank()) {
             log.debug("Webhook URL not configured — skipping event: {}", payload.eventType());
-            return;
+            return null;
         }
 
         String json;
@@ -228,10 +240,9 @@ public class WebhookPublisherService {
             json = objectMapper.writeValueAsString(payload);
         } catch (Exception e) {
             log.error("Failed to serialize webhook payload for event {}: {}", payload.eventType(), e.getMessage());
-            return;
+            return null;
         }
 
-        // Persist audit record before attempting delivery
         WebhookEventLog eventLog = new WebhookEventLog();
         eventLog.setEventType(payload.eventType());
         eventLog.setProjectId(payload.projectId());
@@ -239,101 +250,7 @@ public class WebhookPublisherService {
         eventLog.setReferenceId(payload.referenceId());
         eventLog.setPayload(json);
         eventLog.setStatus("PENDING");
-        eventLog = eventLogRepository.save(eventLog);
-
-        attemptDelivery(eventLog, json);
-    }
-
-    /**
-     * Retries FAILED events every 5 minutes; promotes to DEAD_LETTER after MAX_ATTEMPTS.
-     */
-    @Scheduled(fixedDelay = 5 * 60 * 1000)
-    @Transactional
-    public void retryFailedEvents() {
-        List<WebhookEventLog> retryable = eventLogRepository
-                .findByStatusAndAttemptsLessThan(STATUS_FAILED, MAX_ATTEMPTS);
-
-        if (retryable.isEmpty()) return;
-
-        log.info("Webhook retry job: found {} FAILED events to retry", retryable.size());
-        for (WebhookEventLog eventLog : retryable) {
-            attemptDelivery(eventLog, eventLog.getPayload());
-        }
-    }
-
-    // ───────────────────────── Delivery logic ──────────────────────
-
-    private void attemptDelivery(WebhookEventLog eventLog, String json) {
-        try {
-            String signature = computeSignature(json);
-
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(webhookUrl))
-                    .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_S))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(json));
-
-            if (signature != null) {
-                requestBuilder.header("X-Portal-Signature", "sha256=" + signature);
-            }
-
-            HttpResponse<String> response = httpClient.send(
-                    requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
-
-            eventLog.setAttempts(eventLog.getAttempts() + 1);
-            eventLog.setLastAttemptAt(LocalDateTime.now());
-
-            if (response.statusCode() == 200) {
-                eventLog.setStatus("DELIVERED");
-                eventLog.setDeliveredAt(LocalDateTime.now());
-                eventLog.setErrorMessage(null);
-                log.debug("Webhook delivered: type={} projectId={}", eventLog.getEventType(), eventLog.getProjectId());
-            } else {
-                String errMsg = "HTTP " + response.statusCode() + ": " + truncate(response.body(), 500);
-                eventLog.setStatus(STATUS_FAILED);
-                eventLog.setErrorMessage(errMsg);
-                log.warn("Webhook delivery returned non-200: status={} type={} attempt={}",
-                        response.statusCode(), eventLog.getEventType(), eventLog.getAttempts());
-                promoteToDlqIfExhausted(eventLog);
-            }
-        } catch (Exception e) {
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
-            }
-            eventLog.setAttempts(eventLog.getAttempts() + 1);
-            eventLog.setLastAttemptAt(LocalDateTime.now());
-            eventLog.setStatus(STATUS_FAILED);
-            String msg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-            eventLog.setErrorMessage(truncate(msg, 500));
-            log.error("Webhook delivery failed: type={} attempt={} error={}",
-                    eventLog.getEventType(), eventLog.getAttempts(), e.getMessage());
-            promoteToDlqIfExhausted(eventLog);
-        }
-        eventLogRepository.save(eventLog);
-    }
-
-    private void promoteToDlqIfExhausted(WebhookEventLog eventLog) {
-        if (eventLog.getAttempts() >= MAX_ATTEMPTS) {
-            eventLog.setStatus("DEAD_LETTER");
-            log.error("Webhook event moved to DEAD_LETTER after {} attempts: id={} type={}",
-                    MAX_ATTEMPTS, eventLog.getId(), eventLog.getEventType());
-        }
-    }
-
-    private String computeSignature(String payload) {
-        if (webhookSecret == null || webhookSecret.isBlank()) return null;
-        try {
-            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
-            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
-        } catch (Exception e) {
-            log.error("Failed to compute webhook signature: {}", e.getMessage());
-            return null;
-        }
-    }
-
-    private static String truncate(String s, int max) {
-        if (s == null) return null;
-        return s.length() <= max ? s : s.substring(0, max) + "…";
+        eventLog.setNextAttemptAt(batchMode ? LocalDateTime.now().plus(batchWindow) : LocalDateTime.now());
+        return eventLog;
     }
 }
@@ -17,7 +17,7 @@ import com.wd.api.repository.TaskRepository;
 import com.wd.api.repository.changerequest.ChangeRequestTaskPredecessorRepository;
 import com.wd.api.repository.changerequest.ChangeRequestTaskRepository;
 import com.wd.api.service.TaskQualityGateService;
-import com.wd.api.service.scheduling.CpmService;
+import com.wd.api.service.scheduling.CpmRecomputeScheduler;
 import com.wd.api.service.scheduling.DelayApplier;
 import com.wd.api.service.scheduling.HandoverShiftDetector;
 import com.wd.api.service.scheduling.HolidayService;
@@ -69,7 +69,7 @@ public class ChangeRequestMergeService {
     private final TaskPredecessorRepository taskPredRepo;
     private final ProjectScheduleConfigRepository scheduleConfigRepo;
     private final HolidayService holidayService;
-    private final CpmService cpmService;
+    private final CpmRecomputeScheduler cpmScheduler;
     private final HandoverShiftDetector handoverShiftDetector;
     private final TaskQualityGateService qualityGateService;
 
@@ -80,7 +80,7 @@ public class ChangeRequestMergeService {
                                      TaskPredecessorRepository taskPredRepo,
                                      ProjectScheduleConfigRepository scheduleConfigRepo,
                                      HolidayService holidayService,
-                                     CpmService cpmService,
+                                     CpmRecomputeScheduler cpmScheduler,
                                      HandoverShiftDetector handoverShiftDetector,
                                      TaskQualityGateService qualityGateService) {
         this.crTaskRepo = crTaskRepo;
@@ -90,7 +90,7 @@ public class ChangeRequestMergeService {
         this.taskPredRepo = taskPredRepo;
         this.scheduleConfigRepo = scheduleConfigRepo;
         this.holidayService = holidayService;
-        this.cpmService = cpmService;
+        this.cpmScheduler = cpmScheduler;
         this.handoverShiftDetector = handoverShiftDetector;
         this.qualityGateService = qualityGateService;
     }
@@ -229,7 +229,7 @@ public class ChangeRequestMergeService {
         }
 
         // CPM recompute + customer alert if handover shifted by > 3 working days.
-        cpmService.recompute(projectId);
+        cpmScheduler.flush(projectId);
         handoverShiftDetector.checkAndAlert(projectId);
 
         log.info("Merged CR {} into project {}: {} tasks, {} predecessor edges, time-impact={} wd",
@@ -7,6 +7,7 @@ import com.wd.api.model.DocumentCategory;
 import com.wd.api.repository.DocumentCategoryRepository;
 import com.wd.api.repository.DocumentRepository;
 import com.wd.api.service.FileStorageService;
+import com.wd.api.util.AtomicFiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -114,7 +115,7 @@ public class DpcIssueService {
         Path absoluteTarget = fileStorageService.getStorageRoot().resolve(relPath);
         try {
             Files.createDirectories(absoluteTarget.getParent());
-            Files.write(absoluteTarget, pdfBytes);
+            AtomicFiles.write(absoluteTarget, temp -> Files.write(temp, pdfBytes));
             fileStorageService.applyStoragePermissions(absoluteTarget);
         } catch (IOException e) {
             throw new RuntimeException("Failed to write DPC PDF to " + absoluteTarget, e);
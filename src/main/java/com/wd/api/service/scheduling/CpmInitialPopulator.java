@@ -1,18 +1,35 @@
 package com.wd.api.service.scheduling;
 
-import com.wd.api.repository.CustomerProjectRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Boot-time backfill of CPM denormalized columns for every existing project.
  * Runs after schema migrations and HolidaySeeder; idempotent (recompute is
  * deterministic given fixed inputs, so re-runs produce identical column values).
  *
+ * <p>Projects whose {@link CpmInputFingerprints input fingerprint} matches the one
+ * recorded at their last recompute are skipped. The rest are recomputed in
+ * parallel on a pool capped at half the Hikari pool, so request traffic still
+ * gets connections while boot catches up. Progress is exposed as
+ * {@code cpm.populator.remaining} plus {@code cpm.populator.projects{outcome}}.
+ *
  * <p>Disabled in tests (the {@code !test} profile filter) so test contexts
  * don't pay the cost of recomputing every project on boot. Test classes that
  * need first-run behaviour seed projects + call {@link CpmService#recompute}
@@ -25,29 +42,78 @@ public class CpmInitialPopulator implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(CpmInitialPopulator.class);
 
-    private final CustomerProjectRepository projects;
     private final CpmService cpm;
+    private final CpmInputFingerprints fingerprints;
+    private final int parallelism;
+
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final Counter recomputed;
+    private final Counter skipped;
+    private final Counter failed;
 
-    public CpmInitialPopulator(CustomerProjectRepository projects, CpmService cpm) {
-        this.projects = projects;
+    public CpmInitialPopulator(CpmService cpm,
+                               CpmInputFingerprints fingerprints,
+                               MeterRegistry meterRegistry,
+                               @Value("${cpm.populator.parallelism:4}") int parallelism,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int hikariPoolSize) {
         this.cpm = cpm;
+        this.fingerprints = fingerprints;
+        this.parallelism = Math.max(1, Math.min(parallelism, hikariPoolSize / 2));
+
+        this.recomputed = meterRegistry.counter("cpm.populator.projects", "outcome", "recomputed");
+        this.skipped = meterRegistry.counter("cpm.populator.projects", "outcome", "skipped");
+        this.failed = meterRegistry.counter("cpm.populator.projects", "outcome", "failed");
+        Gauge.builder("cpm.populator.remaining", remaining, AtomicInteger::get)
+                .register(meterRegistry);
     }
 
     @Override
-    public void run(String... args) {
+    public void run(String... args) throws InterruptedException {
         long t0 = System.currentTimeMillis();
-        int touched = 0;
-        int failed = 0;
-        for (var p : projects.findAll()) {
-            try {
-                cpm.recompute(p.getId());
-                touched++;
-            } catch (Exception ex) {
-                failed++;
-                log.warn("CpmInitialPopulator: project={} skipped due to {}", p.getId(), ex.toString());
+        Map<Long, String> current = fingerprints.current();
+        Map<Long, String> stored = fingerprints.stored();
+
+        List<Map.Entry<Long, String>> stale = new ArrayList<>();
+        for (var e : current.entrySet()) {
+            if (e.getValue().equals(stored.get(e.getKey()))) {
+                skipped.increment();
+            } else {
+                stale.add(e);
+            }
+        }
+        remaining.set(stale.size());
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "cpm-populator");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (var e : stale) {
+                pool.execute(() -> recompute(e.getKey(), e.getValue()));
             }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.HOURS);
+        }
+
+        log.info("CpmInitialPopulator: touched={} skipped={} failed={} parallelism={} totalDuration={}ms",
+                (long) recomputed.count(), (long) skipped.count(), (long) failed.count(),
+                parallelism, System.currentTimeMillis() - t0);
+    }
+
+    private void recompute(Long projectId, String fingerprint) {
+        try {
+            cpm.recompute(projectId);
+            // Fingerprint taken before the run: a write that lands mid-run leaves
+            // the stored value stale, which just means one more recompute next boot.
+            fingerprints.record(projectId, fingerprint);
+            recomputed.increment();
+        } catch (Exception ex) {
+            failed.increment();
+            log.warn("CpmInitialPopulator: project={} skipped due to {}", projectId, ex.toString());
+        } finally {
+            remaining.decrementAndGet();
         }
-        log.info("CpmInitialPopulator: touched={} failed={} totalDuration={}ms",
-                touched, failed, System.currentTimeMillis() - t0);
     }
 }
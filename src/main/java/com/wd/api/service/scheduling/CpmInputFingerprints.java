@@ -0,0 +1,132 @@
+package com.wd.api.service.scheduling;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Fingerprints of the inputs {@link CpmService#recompute} reads, so the boot-time
+ * populator can tell which projects changed since their last recompute.
+ *
+ * <p>A fingerprint is a SHA-256 over, per project: the start date; for tasks,
+ * edges and project holiday overrides the row count, soft-deleted count and
+ * latest {@code updated_at}/{@code deleted_at}; the schedule config's
+ * {@code updated_at}; and the same markers for the global holiday table. Every
+ * JPA write bumps {@code updated_at} and every soft delete sets
+ * {@code deleted_at}; the CPM batch update itself touches neither, so a
+ * recompute does not invalidate its own fingerprint.
+ *
+ * <p>Projects with an in-progress task also fold in today's date: their EF is
+ * projected from "today", so their results go stale daily without any write.
+ *
+ * <p>Stored in {@code project_cpm_state} (V165).
+ */
+@Component
+public class CpmInputFingerprints {
+
+    /** Bump when CpmService changes how it derives columns, to force one full re-population. */
+    static final String ALGORITHM_VERSION = "cpm-2";
+
+    private static final String CURRENT_SQL = """
+            SELECT p.id, p.start_date,
+                   t.n AS t_n, t.del AS t_del, t.last AS t_last, t.in_progress,
+                   e.n AS e_n, e.del AS e_del, e.last AS e_last,
+                   o.n AS o_n, o.del AS o_del, o.last AS o_last,
+                   c.last AS c_last
+            FROM customer_projects p
+            LEFT JOIN LATERAL (
+                SELECT count(*) AS n, count(deleted_at) AS del,
+                       max(greatest(updated_at, deleted_at)) AS last,
+                       coalesce(bool_or(deleted_at IS NULL AND actual_start_date IS NOT NULL
+                                        AND actual_end_date IS NULL), false) AS in_progress
+                FROM tasks WHERE project_id = p.id) t ON true
+            LEFT JOIN LATERAL (
+                SELECT count(*) AS n, count(tp.deleted_at) AS del,
+                       max(greatest(tp.updated_at, tp.deleted_at)) AS last
+                FROM task_predecessor tp JOIN tasks s ON s.id = tp.successor_id
+                WHERE s.project_id = p.id) e ON true
+            LEFT JOIN LATERAL (
+                SELECT count(*) AS n, count(deleted_at) AS del,
+                       max(greatest(updated_at, deleted_at)) AS last
+                FROM project_holiday_override WHERE project_id = p.id) o ON true
+            LEFT JOIN LATERAL (
+                SELECT max(greatest(updated_at, deleted_at)) AS last
+                FROM project_schedule_config WHERE project_id = p.id) c ON true
+            WHERE p.deleted_at IS NULL
+            """;
+
+    private static final String HOLIDAYS_SQL =
+            "SELECT count(*) || ':' || count(deleted_at) || ':' || " +
+            "coalesce(max(greatest(updated_at, deleted_at))::text, '') FROM holiday";
+
+    private final JdbcTemplate jdbc;
+    private final Clock clock;
+
+    public CpmInputFingerprints(JdbcTemplate jdbc, Clock clock) {
+        this.jdbc = jdbc;
+        this.clock = clock;
+    }
+
+    /** Current input fingerprint of every live project, keyed by project id. */
+    public Map<Long, String> current() {
+        String holidays = jdbc.queryForObject(HOLIDAYS_SQL, String.class);
+        String today = LocalDate.now(clock).toString();
+        Map<Long, String> out = new HashMap<>();
+        jdbc.query(CURRENT_SQL, rs -> {
+            out.put(rs.getLong("id"), hash(describe(rs, holidays, today)));
+        });
+        return out;
+    }
+
+    /** Fingerprints recorded by the last successful recompute of each project. */
+    public Map<Long, String> stored() {
+        Map<Long, String> out = new HashMap<>();
+        jdbc.query("SELECT project_id, input_fingerprint FROM project_cpm_state",
+                rs -> { out.put(rs.getLong(1), rs.getString(2)); });
+        return out;
+    }
+
+    /** Record {@code fingerprint} as the inputs the project's CPM columns now reflect. */
+    public void record(Long projectId, String fingerprint) {
+        jdbc.update("INSERT INTO project_cpm_state (project_id, input_fingerprint, computed_at) " +
+                        "VALUES (?, ?, NOW()) ON CONFLICT (project_id) DO UPDATE " +
+                        "SET input_fingerprint = EXCLUDED.input_fingerprint, computed_at = EXCLUDED.computed_at",
+                projectId, fingerprint);
+    }
+
+    private static String describe(ResultSet rs, String holidays, String today) throws SQLException {
+        StringBuilder sb = new StringBuilder(ALGORITHM_VERSION)
+                .append('|').append(rs.getString("start_date"))
+                .append("|t:").append(rs.getLong("t_n")).append(':').append(rs.getLong("t_del"))
+                .append(':').append(rs.getString("t_last"))
+                .append("|e:").append(rs.getLong("e_n")).append(':').append(rs.getLong("e_del"))
+                .append(':').append(rs.getString("e_last"))
+                .append("|o:").append(rs.getLong("o_n")).append(':').append(rs.getLong("o_del"))
+                .append(':').append(rs.getString("o_last"))
+                .append("|c:").append(rs.getString("c_last"))
+                .append("|h:").append(holidays);
+        if (rs.getBoolean("in_progress")) {
+            sb.append("|d:").append(today);
+        }
+        return sb.toString();
+    }
+
+    private static String hash(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.wd.api.service.scheduling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-project, debounced front door to {@link CpmService}. Write paths mark a
+ * project dirty instead of recomputing inline; requests arriving within
+ * {@code cpm.recompute.debounce-ms} of each other are coalesced into one run
+ * (full if any request was full, otherwise incremental over the union of
+ * changed task ids), executed after the caller's transaction commits on a
+ * small bounded worker pool. At most one run per project is in flight.
+ *
+ * <p>Callers that must read fresh ES/EF in the same request (handover-shift
+ * detection after a delay or CR merge) use {@link #flush(Long)}, which runs a
+ * full recompute synchronously in the caller's transaction.
+ *
+ * <p>{@code cpm.recompute.deferred=false} makes every request run inline, as
+ * before — used by the Testcontainers suite and as an ops kill switch. Work
+ * still pending at shutdown is dropped; {@link CpmInitialPopulator} recomputes
+ * stale projects on the next boot.
+ *
+ * <p>Metrics: {@code cpm.recompute.queue.depth}, {@code cpm.recompute.requests},
+ * {@code cpm.recompute.runs}, {@code cpm.recompute.coalesce.ratio} (requests per
+ * run) and {@code cpm.recompute.duration}.
+ */
+@Service
+public class CpmRecomputeScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(CpmRecomputeScheduler.class);
+
+    private final CpmService cpmService;
+    private final boolean deferred;
+    private final long debounceMs;
+
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timer;
+    private final ThreadPoolExecutor workers;
+
+    private final Counter requests;
+    private final Counter fullRuns;
+    private final Counter incrementalRuns;
+    private final Counter failures;
+    private final Timer duration;
+
+    public CpmRecomputeScheduler(CpmService cpmService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${cpm.recompute.deferred:true}") boolean deferred,
+                                 @Value("${cpm.recompute.debounce-ms:750}") long debounceMs,
+                                 @Value("${cpm.recompute.workers:2}") int workerCount) {
+        this.cpmService = cpmService;
+        this.deferred = deferred;
+        this.debounceMs = debounceMs;
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemon("cpm-debounce-"));
+        // Bounded queue: one entry per dirty project at most, so 256 is far above
+        // any realistic burst. Overflow is rejected and dispatch() tries again
+        // after another window, so the timer thread never runs a recompute.
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256), daemon("cpm-recompute-"));
+
+        this.requests = meterRegistry.counter("cpm.recompute.requests");
+        this.fullRuns = meterRegistry.counter("cpm.recompute.runs", "mode", "full");
+        this.incrementalRuns = meterRegistry.counter("cpm.recompute.runs", "mode", "incremental");
+        this.failures = meterRegistry.counter("cpm.recompute.failures");
+        this.duration = meterRegistry.timer("cpm.recompute.duration");
+        Gauge.builder("cpm.recompute.queue.depth", pending, ConcurrentHashMap::size)
+                .register(meterRegistry);
+        Gauge.builder("cpm.recompute.coalesce.ratio", this, CpmRecomputeScheduler::coalesceRatio)
+                .register(meterRegistry);
+    }
+
+    /** Request a full recompute of {@code projectId}. */
+    public void requestRecompute(Long projectId) {
+        request(projectId, Pending.FULL);
+    }
+
+    /**
+     * Request an incremental recompute seeded with {@code changedTaskIds}
+     * (see {@link CpmService#recomputeIncremental} for what to pass).
+     */
+    public void requestRecompute(Long projectId, Collection<Long> changedTaskIds) {
+        request(projectId, new Pending(false, Set.copyOf(changedTaskIds)));
+    }
+
+    /**
+     * Run a full recompute now, in the caller's thread and transaction, and
+     * take over any queued request for the project it supersedes. If the
+     * caller's transaction does not commit, or the recompute fails, that
+     * request goes back in the queue.
+     */
+    public void flush(Long projectId) {
+        if (projectId == null) return;
+        requests.increment();
+        Pending superseded = pending.remove(projectId);
+        if (superseded == null) {
+            execute(projectId, Pending.FULL);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) enqueue(projectId, superseded);
+                }
+            });
+            execute(projectId, Pending.FULL);
+            return;
+        }
+        try {
+            execute(projectId, Pending.FULL);
+        } catch (RuntimeException ex) {
+            enqueue(projectId, superseded);
+            throw ex;
+        }
+    }
+
+    /** Number of projects currently waiting for a recompute. */
+    public int queueDepth() {
+        return pending.size();
+    }
+
+    private void request(Long projectId, Pending p) {
+        if (projectId == null) return;
+        requests.increment();
+        if (!deferred) {
+            execute(projectId, p);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The worker reads committed rows, so hand over only after commit;
+            // a rolled-back write needs no recompute.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(projectId, p);
+                }
+            });
+        } else {
+            enqueue(projectId, p);
+        }
+    }
+
+    private void enqueue(Long projectId, Pending p) {
+        boolean[] fresh = {false};
+        pending.compute(projectId, (k, cur) -> {
+            if (cur == null) {
+                fresh[0] = true;
+                return p;
+            }
+            return cur.merge(p);
+        });
+        if (fresh[0]) schedule(projectId);
+    }
+
+    private void schedule(Long projectId) {
+        try {
+            timer.schedule(() -> dispatch(projectId), debounceMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException shuttingDown) {
+            log.debug("CPM recompute for project={} dropped at shutdown", projectId);
+        }
+    }
+
+    /** Hand the project to a worker; with the queue full, wait another window. */
+    private void dispatch(Long projectId) {
+        try {
+            workers.execute(() -> runPending(projectId));
+        } catch (RejectedExecutionException full) {
+            if (!workers.isShutdown()) schedule(projectId);
+        }
+    }
+
+    private void runPending(Long projectId) {
+        if (!running.add(projectId)) {
+            // A run for this project is still in flight; try again after the window.
+            schedule(projectId);
+            return;
+        }
+        try {
+            Pending p = pending.remove(projectId);
+            if (p != null) execute(projectId, p);
+        } catch (RuntimeException ex) {
+            log.error("Deferred CPM recompute failed: project={}", projectId, ex);
+        } finally {
+            running.remove(projectId);
+        }
+    }
+
+    /** Runs on the calling thread; failures propagate so inline callers keep their semantics. */
+    private void execute(Long projectId, Pending p) {
+        long t0 = System.nanoTime();
+        try {
+            if (p.full()) {
+                fullRuns.increment();
+                cpmService.recompute(projectId);
+            } else {
+                incrementalRuns.increment();
+                cpmService.recomputeIncremental(projectId, p.taskIds());
+            }
+        } catch (RuntimeException ex) {
+            failures.increment();
+            throw ex;
+        } finally {
+            duration.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private double coalesceRatio() {
+        double runs = fullRuns.count() + incrementalRuns.count();
+        return runs == 0 ? 0 : requests.count() / runs;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+        workers.shutdown();
+        if (!pending.isEmpty()) {
+            log.info("CpmRecomputeScheduler: {} project(s) still dirty at shutdown; boot-time populator will catch up",
+                    pending.size());
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** Coalesced work for one project: full, or incremental over {@code taskIds}. */
+    private record Pending(boolean full, Set<Long> taskIds) {
+        static final Pending FULL = new Pending(true, Set.of());
+
+        Pending merge(Pending other) {
+            if (full || other.full) return FULL;
+            Set<Long> union = new HashSet<>(taskIds);
+            union.addAll(other.taskIds);
+            return new Pending(false, union);
+        }
+    }
+}
@@ -28,12 +28,14 @@ import java.time.Clock;
 import java.time.LocalDate;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
@@ -91,7 +93,190 @@ public class CpmService {
                     System.currentTimeMillis() - t0);
             return;
         }
+        fullPass(projectId, tasks, t0);
+    }
+
+    /**
+     * Incremental recompute. Re-runs the forward pass from {@code changedTaskIds}
+     * through their successors, and the backward pass through their predecessors,
+     * stopping wherever a task's ES/EF (resp. LS/LF) comes out unchanged. Only
+     * rows whose CPM columns actually moved — plus the changed tasks themselves —
+     * are written back.
+     *
+     * <p>Yields the same column values as {@link #recompute(Long)} provided the
+     * persisted columns of every other task were current before the change.
+     * Callers pass every task whose own CPM inputs changed (planned dates,
+     * duration, actuals); for an edge change, pass both endpoints — including
+     * the predecessors of removed edges. Falls back to a full pass when any task
+     * has never been through CPM (null columns), e.g. right after creation.
+     *
+     * @return number of task rows written
+     */
+    @Transactional
+    public int recomputeIncremental(Long projectId, Collection<Long> changedTaskIds) {
+        long t0 = System.currentTimeMillis();
+        if (changedTaskIds == null || changedTaskIds.isEmpty()) return 0;
+
+        List<Task> tasks = taskRepo.findByProjectId(projectId);
+        if (tasks.isEmpty()) return 0;
+        for (Task t : tasks) {
+            if (!hasCpmColumns(t)) {
+                fullPass(projectId, tasks, t0);
+                return tasks.size();
+            }
+        }
+
+        Graph g = buildGraph(projectId, tasks);
+        Set<Long> seeds = new HashSet<>();
+        for (Long id : changedTaskIds) {
+            if (g.byId().containsKey(id)) seeds.add(id);
+        }
+        if (seeds.isEmpty()) return 0;
+
+        Map<Long, CpmColumns> before = new HashMap<>();
+        for (Task t : tasks) before.put(t.getId(), CpmColumns.of(t));
+        LocalDate finishBefore = projectFinish(g);
+
+        // ---- Forward: a successor is revisited only if a predecessor's ES/EF moved ----
+        Set<Long> touched = new HashSet<>(seeds);
+        Set<Long> earlyDirty = new HashSet<>(seeds);
+        for (Long id : g.order()) {
+            if (!earlyDirty.contains(id)) continue;
+            Task t = g.byId().get(id);
+            LocalDate es = t.getEsDate();
+            LocalDate ef = t.getEfDate();
+            computeEarly(g, t);
+            if (!Objects.equals(es, t.getEsDate()) || !Objects.equals(ef, t.getEfDate())) {
+                touched.add(id);
+                for (TaskPredecessor e : g.outgoing().getOrDefault(id, List.of())) {
+                    earlyDirty.add(e.getSuccessorId());
+                }
+            }
+        }
+
+        // ---- Backward: a moved project finish re-anchors every sink ----
+        LocalDate finish = projectFinish(g);
+        Set<Long> lateDirty = new HashSet<>(seeds);
+        if (!finish.equals(finishBefore)) {
+            for (Long id : g.order()) {
+                if (g.outgoing().getOrDefault(id, List.of()).isEmpty()) lateDirty.add(id);
+            }
+        }
+        for (int i = g.order().size() - 1; i >= 0; i--) {
+            Long id = g.order().get(i);
+            if (!lateDirty.contains(id)) continue;
+            Task t = g.byId().get(id);
+            LocalDate ls = t.getLsDate();
+            LocalDate lf = t.getLfDate();
+            computeLate(g, t, finish);
+            if (!Objects.equals(ls, t.getLsDate()) || !Objects.equals(lf, t.getLfDate())) {
+                touched.add(id);
+                for (TaskPredecessor e : g.incoming().getOrDefault(id, List.of())) {
+                    lateDirty.add(e.getPredecessorId());
+                }
+            }
+        }
+
+        for (Long id : touched) computeFloat(g, g.byId().get(id));
+
+        List<Task> changed = new ArrayList<>();
+        for (Task t : tasks) {
+            if (seeds.contains(t.getId()) || !CpmColumns.of(t).equals(before.get(t.getId()))) {
+                changed.add(t);
+            }
+        }
+        persist(g, changed);
+
+        log.info("CPM incremental recompute: project={} tasks={} seeds={} visited={} written={} duration={}ms",
+                projectId, tasks.size(), seeds.size(), touched.size(), changed.size(),
+                System.currentTimeMillis() - t0);
+        warnIfPastHorizon(projectId, g, changed);
+        return changed.size();
+    }
+
+    /**
+     * Read CPM result snapshot for a project. Does NOT recompute — assumes
+     * persisted columns are current.
+     */
+    @Transactional(readOnly = true)
+    public CpmResultDto read(Long projectId) {
+        List<Task> tasks = taskRepo.findByProjectId(projectId);
+        LocalDate projectStart = resolveProjectStart(projectId, tasks);
+        LocalDate finish = tasks.stream()
+                .map(Task::getEfDate)
+                .filter(d -> d != null)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        List<Long> critical = new ArrayList<>();
+        List<CpmTaskDto> rows = new ArrayList<>(tasks.size());
+        for (Task t : tasks) {
+            boolean isCrit = Boolean.TRUE.equals(t.getIsCritical());
+            if (isCrit) critical.add(t.getId());
+            rows.add(new CpmTaskDto(
+                    t.getId(),
+                    t.getTitle(),
+                    durationDays(t),
+                    t.getEsDate(),
+                    t.getEfDate(),
+                    t.getLsDate(),
+                    t.getLfDate(),
+                    t.getTotalFloatDays(),
+                    isCrit));
+        }
+        return new CpmResultDto(projectId, projectStart, finish, critical, rows);
+    }
+
+    // ─── helpers ──────────────────────────────────────────────────────────
+
+    /** A project's task graph plus the calendar inputs shared by both passes. */
+    private record Graph(Map<Long, Task> byId,
+                         Map<Long, List<TaskPredecessor>> incoming,
+                         Map<Long, List<TaskPredecessor>> outgoing,
+                         List<Long> order,
+                         LocalDate projectStart,
+                         WorkingCalendar calendar) {}
+
+    /** The six CPM output columns of one task, for change detection. */
+    private record CpmColumns(LocalDate es, LocalDate ef, LocalDate ls, LocalDate lf,
+                              Integer totalFloatDays, Boolean critical) {
+        static CpmColumns of(Task t) {
+            return new CpmColumns(t.getEsDate(), t.getEfDate(), t.getLsDate(), t.getLfDate(),
+                    t.getTotalFloatDays(), t.getIsCritical());
+        }
+    }
+
+    private static boolean hasCpmColumns(Task t) {
+        return t.getEsDate() != null && t.getEfDate() != null
+                && t.getLsDate() != null && t.getLfDate() != null
+                && t.getTotalFloatDays() != null;
+    }
+
+    /** Forward pass, backward pass and float over every task, then persist all rows. */
+    private void fullPass(Long projectId, List<Task> tasks, long t0) {
+        Graph g = buildGraph(projectId, tasks);
+
+        // ---- Forward pass ----
+        for (Long id : g.order()) computeEarly(g, g.byId().get(id));
+
+        // ---- Backward pass (reverse topological order) ----
+        LocalDate projectFinish = projectFinish(g);
+        for (int i = g.order().size() - 1; i >= 0; i--) {
+            computeLate(g, g.byId().get(g.order().get(i)), projectFinish);
+        }
 
+        // ---- Float + critical flag ----
+        for (Task t : g.byId().values()) computeFloat(g, t);
+
+        List<Task> persistOrder = new ArrayList<>(g.byId().values());
+        persist(g, persistOrder);
+
+        long durMs = System.currentTimeMillis() - t0;
+        log.info("CPM recompute: project={} tasks={} duration={}ms",
+                projectId, tasks.size(), durMs);
+        warnIfPastHorizon(projectId, g, persistOrder);
+    }
+
+    private Graph buildGraph(Long projectId, List<Task> tasks) {
         Map<Long, Task> byId = new HashMap<>();
         for (Task t : tasks) byId.put(t.getId(), t);
 
@@ -114,154 +299,147 @@ public class CpmService {
         // Project start fallback: CustomerProject.startDate -> first task.startDate -> today.
         LocalDate projectStart = resolveProjectStart(projectId, tasks);
 
-        // Holiday set + sundayWorking lookup.
+        // Working-day calendar (holidays + sundayWorking), indexed once per window.
         boolean sundayWorking = configRepo.findByProjectId(projectId)
                 .map(ProjectScheduleConfig::getSundayWorking).orElse(false);
         // Window for holiday lookup: project start to start + 5 years (broad enough
         // to cover any sane construction timeline without a second pass).
-        Set<LocalDate> holidays = holidayService.holidaysFor(
-                projectId, projectStart, projectStart.plusYears(5));
+        WorkingCalendar calendar = holidayService.calendarFor(
+                projectId, projectStart, projectStart.plusYears(5), sundayWorking);
 
         List<Long> order = topologicalOrder(tasks, incoming);
+        return new Graph(byId, incoming, outgoing, order, projectStart, calendar);
+    }
 
-        // ---- Forward pass ----
-        for (Long id : order) {
-            Task t = byId.get(id);
-            int duration = durationDays(t);
-            List<TaskPredecessor> in = incoming.getOrDefault(id, List.of());
-
-            if (t.getActualEndDate() != null) {
-                // Completed: anchor on actual end.
-                t.setEfDate(t.getActualEndDate());
-                if (t.getActualStartDate() != null) {
-                    t.setEsDate(t.getActualStartDate());
-                } else {
-                    t.setEsDate(WorkingDayCalculator.subtractWorkingDays(
-                            t.getActualEndDate(), duration, holidays, sundayWorking));
-                }
-            } else if (t.getActualStartDate() != null) {
-                // In progress: ES anchored, EF projected from today + remaining days.
-                LocalDate today = LocalDate.now(clock);
+    /** ES/EF for one task; every predecessor must already carry its ES/EF. */
+    private void computeEarly(Graph g, Task t) {
+        WorkingCalendar cal = g.calendar();
+        int duration = durationDays(t);
+
+        if (t.getActualEndDate() != null) {
+            // Completed: anchor on actual end.
+            t.setEfDate(t.getActualEndDate());
+            if (t.getActualStartDate() != null) {
                 t.setEsDate(t.getActualStartDate());
-                int worked = (today.isBefore(t.getActualStartDate()))
-                        ? 0
-                        : WorkingDayCalculator.workingDaysBetween(
-                                t.getActualStartDate(), today, holidays, sundayWorking);
-                int remaining = Math.max(0, duration - worked);
-                t.setEfDate(WorkingDayCalculator.addWorkingDays(
-                        today.isBefore(t.getActualStartDate()) ? t.getActualStartDate() : today,
-                        remaining, holidays, sundayWorking));
             } else {
-                // Planned: ES = max(projectStart, max over incoming edges of each edge's ES lower bound).
-                // Each dependency type constrains ES differently (lag in working days):
-                //   FS: ES >= addWD(P.EF, lag)
-                //   SS: ES >= addWD(P.ES, lag)
-                //   FF: ES >= subWD(addWD(P.EF, lag), duration)   [so that EF >= P.EF+lag]
-                //   SF: ES >= subWD(addWD(P.ES, lag), duration)   [so that EF >= P.ES+lag]
-                LocalDate es = projectStart;
-                for (TaskPredecessor edge : in) {
-                    Task predTask = byId.get(edge.getPredecessorId());
-                    int lag = edge.getLagDays() == null ? 0 : edge.getLagDays();
-                    DependencyType type = edge.getDepType() == null ? DependencyType.FS : edge.getDepType();
-                    LocalDate candidate;
-                    switch (type) {
-                        case SS -> candidate = WorkingDayCalculator.addWorkingDays(
-                                predTask.getEsDate(), lag, holidays, sundayWorking);
-                        case FF -> candidate = WorkingDayCalculator.subtractWorkingDays(
-                                WorkingDayCalculator.addWorkingDays(predTask.getEfDate(), lag, holidays, sundayWorking),
-                                duration, holidays, sundayWorking);
-                        case SF -> candidate = WorkingDayCalculator.subtractWorkingDays(
-                                WorkingDayCalculator.addWorkingDays(predTask.getEsDate(), lag, holidays, sundayWorking),
-                                duration, holidays, sundayWorking);
-                        default -> // FS
-                                candidate = WorkingDayCalculator.addWorkingDays(
-                                        predTask.getEfDate(), lag, holidays, sundayWorking);
-                    }
-                    if (candidate.isAfter(es)) es = candidate;
+                t.setEsDate(cal.subtractWorkingDays(t.getActualEndDate(), duration));
+            }
+        } else if (t.getActualStartDate() != null) {
+            // In progress: ES anchored, EF projected from today + remaining days.
+            LocalDate today = LocalDate.now(clock);
+            t.setEsDate(t.getActualStartDate());
+            int worked = (today.isBefore(t.getActualStartDate()))
+                    ? 0
+                    : cal.workingDaysBetween(t.getActualStartDate(), today);
+            int remaining = Math.max(0, duration - worked);
+            t.setEfDate(cal.addWorkingDays(
+                    today.isBefore(t.getActualStartDate()) ? t.getActualStartDate() : today,
+                    remaining));
+        } else {
+            // Planned: ES = max(projectStart, max over incoming edges of each edge's ES lower bound).
+            // Each dependency type constrains ES differently (lag in working days):
+            //   FS: ES >= addWD(P.EF, lag)
+            //   SS: ES >= addWD(P.ES, lag)
+            //   FF: ES >= subWD(addWD(P.EF, lag), duration)   [so that EF >= P.EF+lag]
+            //   SF: ES >= subWD(addWD(P.ES, lag), duration)   [so that EF >= P.ES+lag]
+            LocalDate es = g.projectStart();
+            for (TaskPredecessor edge : g.incoming().getOrDefault(t.getId(), List.of())) {
+                Task predTask = g.byId().get(edge.getPredecessorId());
+                int lag = edge.getLagDays() == null ? 0 : edge.getLagDays();
+                DependencyType type = edge.getDepType() == null ? DependencyType.FS : edge.getDepType();
+                LocalDate candidate;
+                switch (type) {
+                    case SS -> candidate = cal.addWorkingDays(predTask.getEsDate(), lag);
+                    case FF -> candidate = cal.subtractWorkingDays(
+                            cal.addWorkingDays(predTask.getEfDate(), lag), duration);
+                    case SF -> candidate = cal.subtractWorkingDays(
+                            cal.addWorkingDays(predTask.getEsDate(), lag), duration);
+                    default -> // FS
+                            candidate = cal.addWorkingDays(predTask.getEfDate(), lag);
                 }
-                t.setEsDate(es);
-                t.setEfDate(WorkingDayCalculator.addWorkingDays(es, duration, holidays, sundayWorking));
+                if (candidate.isAfter(es)) es = candidate;
             }
+            t.setEsDate(es);
+            t.setEfDate(cal.addWorkingDays(es, duration));
         }
+    }
 
-        // ---- Backward pass ----
-        LocalDate projectFinish = byId.values().stream()
-                .map(Task::getEfDate)
-                .filter(d -> d != null)
-                .max(Comparator.naturalOrder())
-                .orElse(projectStart);
-
-        // Reverse topological order.
-        List<Long> reverse = new ArrayList<>(order);
-        java.util.Collections.reverse(reverse);
-        for (Long id : reverse) {
-            Task t = byId.get(id);
-            int duration = durationDays(t);
-            List<TaskPredecessor> out = outgoing.getOrDefault(id, List.of());
-            LocalDate lf;
-            if (out.isEmpty()) {
-                lf = projectFinish;
-            } else {
-                // LF = min over outgoing edges of the edge's LF upper bound.
-                // Each type constrains how the predecessor's LF relates to the successor's LS/LF:
-                //   FS: LF <= subWD(S.LS, lag)
-                //   SS: LF <= addWD(subWD(S.LS, lag), duration)   [P.LF so P.LS+dur = P.LF; S starts at P.LS+lag]
-                //   FF: LF <= subWD(S.LF, lag)
-                //   SF: LF <= addWD(subWD(S.LF, lag), duration)
-                // (duration here is the predecessor's own duration)
-                lf = null;
-                for (TaskPredecessor edge : out) {
-                    Task succ = byId.get(edge.getSuccessorId());
-                    int lag = edge.getLagDays() == null ? 0 : edge.getLagDays();
-                    DependencyType type = edge.getDepType() == null ? DependencyType.FS : edge.getDepType();
-                    LocalDate candidate;
-                    switch (type) {
-                        case SS -> candidate = WorkingDayCalculator.addWorkingDays(
-                                WorkingDayCalculator.subtractWorkingDays(succ.getLsDate(), lag, holidays, sundayWorking),
-                                duration, holidays, sundayWorking);
-                        case FF -> candidate = WorkingDayCalculator.subtractWorkingDays(
-                                succ.getLfDate(), lag, holidays, sundayWorking);
-                        case SF -> candidate = WorkingDayCalculator.addWorkingDays(
-                                WorkingDayCalculator.subtractWorkingDays(succ.getLfDate(), lag, holidays, sundayWorking),
-                                duration, holidays, sundayWorking);
-                        default -> // FS
-                                candidate = WorkingDayCalculator.subtractWorkingDays(
-                                        succ.getLsDate(), lag, holidays, sundayWorking);
-                    }
-                    if (lf == null || candidate.isBefore(lf)) lf = candidate;
+    /** LS/LF for one task; every successor must already carry its LS/LF. */
+    private void computeLate(Graph g, Task t, LocalDate projectFinish) {
+        WorkingCalendar cal = g.calendar();
+        int duration = durationDays(t);
+        List<TaskPredecessor> out = g.outgoing().getOrDefault(t.getId(), List.of());
+        LocalDate lf;
+        if (out.isEmpty()) {
+            lf = projectFinish;
+        } else {
+            // LF = min over outgoing edges of the edge's LF upper bound.
+            // Each type constrains how the predecessor's LF relates to the successor's LS/LF:
+            //   FS: LF <= subWD(S.LS, lag)
+            //   SS: LF <= addWD(subWD(S.LS, lag), duration)   [P.LF so P.LS+dur = P.LF; S starts at P.LS+lag]
+            //   FF: LF <= subWD(S.LF, lag)
+            //   SF: LF <= addWD(subWD(S.LF, lag), duration)
+            // (duration here is the predecessor's own duration)
+            lf = null;
+            for (TaskPredecessor edge : out) {
+                Task succ = g.byId().get(edge.getSuccessorId());
+                int lag = edge.getLagDays() == null ? 0 : edge.getLagDays();
+                DependencyType type = edge.getDepType() == null ? DependencyType.FS : edge.getDepType();
+                LocalDate candidate;
+                switch (type) {
+                    case SS -> candidate = cal.addWorkingDays(
+                            cal.subtractWorkingDays(succ.getLsDate(), lag), duration);
+                    case FF -> candidate = cal.subtractWorkingDays(succ.getLfDate(), lag);
+                    case SF -> candidate = cal.addWorkingDays(
+                            cal.subtractWorkingDays(succ.getLfDate(), lag), duration);
+                    default -> // FS
+                            candidate = cal.subtractWorkingDays(succ.getLsDate(), lag);
                 }
+                if (lf == null || candidate.isBefore(lf)) lf = candidate;
             }
-            t.setLfDate(lf);
-            t.setLsDate(WorkingDayCalculator.subtractWorkingDays(lf, duration, holidays, sundayWorking));
         }
+        t.setLfDate(lf);
+        t.setLsDate(cal.subtractWorkingDays(lf, duration));
+    }
 
-        // ---- Float + critical flag ----
-        // CPM theory permits negative total float — it's the canonical signal
-        // of a task that has slipped past its latest-allowable date. Compute
-        // symmetrically: workingDaysBetween throws when end<start, so flip the
-        // bounds and negate when ls < es. Treat negative-float tasks as
-        // critical (floatDays <= 0), matching PM-tooling convention.
-        for (Task t : byId.values()) {
-            int floatDays;
-            if (t.getLsDate().isBefore(t.getEsDate())) {
-                floatDays = -WorkingDayCalculator.workingDaysBetween(
-                        t.getLsDate(), t.getEsDate(), holidays, sundayWorking);
-            } else {
-                floatDays = WorkingDayCalculator.workingDaysBetween(
-                        t.getEsDate(), t.getLsDate(), holidays, sundayWorking);
-            }
-            t.setTotalFloatDays(floatDays);
-            t.setIsCritical(floatDays <= 0);
+    /**
+     * CPM theory permits negative total float — it's the canonical signal
+     * of a task that has slipped past its latest-allowable date. Compute
+     * symmetrically: workingDaysBetween throws when end<start, so flip the
+     * bounds and negate when ls < es. Treat negative-float tasks as
+     * critical (floatDays <= 0), matching PM-tooling convention.
+     */
+    private static void computeFloat(Graph g, Task t) {
+        int floatDays;
+        if (t.getLsDate().isBefore(t.getEsDate())) {
+            floatDays = -g.calendar().workingDaysBetween(t.getLsDate(), t.getEsDate());
+        } else {
+            floatDays = g.calendar().workingDaysBetween(t.getEsDate(), t.getLsDate());
         }
+        t.setTotalFloatDays(floatDays);
+        t.setIsCritical(floatDays <= 0);
+    }
+
+    private static LocalDate projectFinish(Graph g) {
+        return g.byId().values().stream()
+                .map(Task::getEfDate)
+                .filter(d -> d != null)
+                .max(Comparator.naturalOrder())
+                .orElse(g.projectStart());
+    }
 
-        // ---- Persist (single batched UPDATE; bypasses JPA per-row roundtrips) ----
-        // Detach the JPA-managed entities BEFORE issuing the JDBC batch so that
-        // (a) JPA does not auto-flush its dirty-checked UPDATEs on top of ours
-        //     (the entity instances are dirty from our in-memory mutations), and
-        // (b) downstream reads in the same transaction reload from DB and
-        //     see the new column values.
-        List<Task> persistOrder = new ArrayList<>(byId.values());
-        for (Task t : persistOrder) em.detach(t);
+    /**
+     * Single batched UPDATE; bypasses JPA per-row roundtrips.
+     *
+     * <p>Detaches every task in the graph BEFORE issuing the JDBC batch so that
+     * (a) JPA does not auto-flush its dirty-checked UPDATEs on top of ours
+     *     (the entity instances are dirty from our in-memory mutations), and
+     * (b) downstream reads in the same transaction reload from DB and
+     *     see the new column values.
+     */
+    private void persist(Graph g, List<Task> rows) {
+        for (Task t : g.byId().values()) em.detach(t);
+        if (rows.isEmpty()) return;
         jdbc.batchUpdate(
                 "UPDATE tasks SET es_date = ?, ef_date = ?, ls_date = ?, lf_date = ?, " +
                         "total_float_days = ?, is_critical = ?, " +
@@ -270,7 +448,7 @@ public class CpmService {
                 new BatchPreparedStatementSetter() {
                     @Override
                     public void setValues(PreparedStatement ps, int i) throws SQLException {
-                        Task t = persistOrder.get(i);
+                        Task t = rows.get(i);
                         setDate(ps, 1, t.getEsDate());
                         setDate(ps, 2, t.getEfDate());
                         setDate(ps, 3, t.getLsDate());
@@ -285,17 +463,14 @@ public class CpmService {
 
                     @Override
                     public int getBatchSize() {
-                        return persistOrder.size();
+                        return rows.size();
                     }
                 });
+    }
 
-        long durMs = System.currentTimeMillis() - t0;
-        log.info("CPM recompute: project={} tasks={} duration={}ms",
-                projectId, tasks.size(), durMs);
-
-        LocalDate horizon = WorkingDayCalculator.addWorkingDays(
-                projectStart, 365, holidays, sundayWorking);
-        for (Task t : byId.values()) {
+    private static void warnIfPastHorizon(Long projectId, Graph g, List<Task> rows) {
+        LocalDate horizon = g.calendar().addWorkingDays(g.projectStart(), 365);
+        for (Task t : rows) {
             if (t.getEfDate() != null && t.getEfDate().isAfter(horizon)) {
                 log.warn("CPM recompute: project={} task={} efDate={} exceeds 365-working-day horizon — likely a duration data-entry error",
                         projectId, t.getId(), t.getEfDate());
@@ -304,40 +479,6 @@ public class CpmService {
         }
     }
 
-    /**
-     * Read CPM result snapshot for a project. Does NOT recompute — assumes
-     * persisted columns are current.
-     */
-    @Transactional(readOnly = true)
-    public CpmResultDto read(Long projectId) {
-        List<Task> tasks = taskRepo.findByProjectId(projectId);
-        LocalDate projectStart = resolveProjectStart(projectId, tasks);
-        LocalDate finish = tasks.stream()
-                .map(Task::getEfDate)
-                .filter(d -> d != null)
-                .max(Comparator.naturalOrder())
-                .orElse(null);
-        List<Long> critical = new ArrayList<>();
-        List<CpmTaskDto> rows = new ArrayList<>(tasks.size());
-        for (Task t : tasks) {
-            boolean isCrit = Boolean.TRUE.equals(t.getIsCritical());
-            if (isCrit) critical.add(t.getId());
-            rows.add(new CpmTaskDto(
-                    t.getId(),
-                    t.getTitle(),
-                    durationDays(t),
-                    t.getEsDate(),
-                    t.getEfDate(),
-                    t.getLsDate(),
-                    t.getLfDate(),
-                    t.getTotalFloatDays(),
-                    isCrit));
-        }
-        return new CpmResultDto(projectId, projectStart, finish, critical, rows);
-    }
-
-    // ─── helpers ──────────────────────────────────────────────────────────
-
     /** Bind a nullable LocalDate to a JDBC parameter. */
     private static void setDate(PreparedStatement ps, int idx, LocalDate value) throws SQLException {
         if (value == null) ps.setNull(idx, Types.DATE);
@@ -28,7 +28,8 @@ import java.util.concurrent.TimeUnit;
  *   minus  project-EXCLUDE
  * </pre>
  *
- * Cached per (projectId, startYear, endYear) tuple via Caffeine.
+ * Cached per (projectId, startYear, endYear) tuple via Caffeine, alongside
+ * the {@link WorkingCalendar} index built from the same set.
  * Eviction is triggered explicitly by admin endpoints that mutate any
  * underlying table.
  */
@@ -44,6 +45,11 @@ public class HolidayService {
             .maximumSize(1024)
             .build();
 
+    private final Cache<CalendarKey, WorkingCalendar> calendars = Caffeine.newBuilder()
+            .expireAfterWrite(30, TimeUnit.MINUTES)
+            .maximumSize(256)
+            .build();
+
     public HolidayService(HolidayRepository holidayRepo,
                           ProjectHolidayOverrideRepository overrideRepo,
                           ProjectScheduleConfigRepository configRepo) {
@@ -54,11 +60,25 @@ public class HolidayService {
 
     private record CacheKey(Long projectId, LocalDate start, LocalDate end) {}
 
+    private record CalendarKey(Long projectId, LocalDate start, LocalDate end, boolean sundayWorking) {}
+
     @Transactional(readOnly = true)
     public Set<LocalDate> holidaysFor(Long projectId, LocalDate start, LocalDate end) {
         return cache.get(new CacheKey(projectId, start, end), key -> compose(projectId, start, end));
     }
 
+    /**
+     * Working-day index over {@link #holidaysFor} for the same window. The
+     * index itself starts a year before {@code start} so backward arithmetic
+     * from early anchors (completed tasks, SF edges) stays on the fast path.
+     */
+    @Transactional(readOnly = true)
+    public WorkingCalendar calendarFor(Long projectId, LocalDate start, LocalDate end, boolean sundayWorking) {
+        return calendars.get(new CalendarKey(projectId, start, end, sundayWorking),
+                key -> WorkingCalendar.of(start.minusYears(1), end,
+                        holidaysFor(projectId, start, end), sundayWorking));
+    }
+
     private Set<LocalDate> compose(Long projectId, LocalDate start, LocalDate end) {
         Optional<ProjectScheduleConfig> cfg = configRepo.findByProjectId(projectId);
         String districtCode = cfg.map(ProjectScheduleConfig::getDistrictCode).orElse(null);
@@ -87,10 +107,14 @@ public class HolidayService {
     }
 
     /** Invalidate every cached project. Call after any mutation. */
-    public void evictAll() { cache.invalidateAll(); }
+    public void evictAll() {
+        cache.invalidateAll();
+        calendars.invalidateAll();
+    }
 
     /** Invalidate just the rows for one project. */
     public void evictProject(Long projectId) {
         cache.asMap().keySet().removeIf(k -> k.projectId().equals(projectId));
+        calendars.asMap().keySet().removeIf(k -> k.projectId().equals(projectId));
     }
 }
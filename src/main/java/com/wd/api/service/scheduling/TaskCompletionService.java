@@ -1,12 +1,15 @@
 package com.wd.api.service.scheduling;
 
 import com.wd.api.dto.scheduling.PendingApprovalRowDto;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.TaskChangedEvent;
 import com.wd.api.exception.ResourceNotFoundException;
 import com.wd.api.model.Task;
 import com.wd.api.model.enums.ReportType;
 import com.wd.api.repository.SiteReportRepository;
 import com.wd.api.repository.TaskRepository;
 import com.wd.api.service.TaskQualityGateService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,9 +28,9 @@ import java.util.List;
  *   PENDING_PM_APPROVAL ──rejectCompletion(reason)──▶ IN_PROGRESS
  * </pre>
  *
- * <p>Every transition calls {@link CpmService#recompute(Long)} after the save
- * so downstream task EF/LF dates and the project's expected handover stay
- * authoritative.
+ * <p>Every transition requests an incremental CPM recompute for the task
+ * (via {@link CpmRecomputeScheduler}) after the save so downstream task EF/LF
+ * dates and the project's expected handover stay authoritative.
  *
  * <p>Site-engineer markComplete is gated on at least one geotagged
  * SiteReport with {@code reportType=COMPLETION} for the task; PM
@@ -45,22 +48,25 @@ public class TaskCompletionService {
     private final TaskRepository taskRepo;
     private final SiteReportRepository siteReportRepo;
     private final ProjectScheduleConfigService configService;
-    private final CpmService cpmService;
+    private final CpmRecomputeScheduler cpmScheduler;
     private final TaskQualityGateService qualityGateService;
     private final com.wd.api.service.ProjectProgressService projectProgressService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TaskCompletionService(TaskRepository taskRepo,
                                  SiteReportRepository siteReportRepo,
                                  ProjectScheduleConfigService configService,
-                                 CpmService cpmService,
+                                 CpmRecomputeScheduler cpmScheduler,
                                  TaskQualityGateService qualityGateService,
-                                 com.wd.api.service.ProjectProgressService projectProgressService) {
+                                 com.wd.api.service.ProjectProgressService projectProgressService,
+                                 ApplicationEventPublisher eventPublisher) {
         this.taskRepo = taskRepo;
         this.siteReportRepo = siteReportRepo;
         this.configService = configService;
-        this.cpmService = cpmService;
+        this.cpmScheduler = cpmScheduler;
         this.qualityGateService = qualityGateService;
         this.projectProgressService = projectProgressService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -112,11 +118,16 @@ public class TaskCompletionService {
         t.setActualEndDate(LocalDate.now());
 
         Task saved = taskRepo.save(t);
-        cpmService.recompute(projectId);
+        cpmScheduler.requestRecompute(projectId, List.of(saved.getId()));
         // Status transitioned from in-progress to either pending approval or completed,
         // so refresh the project denormalised progress columns.
         refreshProjectProgress(projectId, "TASK_MARK_COMPLETE",
                 TASK_TITLE_PREFIX + saved.getTitle() + TASK_ID_INFIX + saved.getId() + ") moved to " + saved.getStatus());
+        // IN_PROGRESS → PENDING_PM_APPROVAL leaves the task in the open bucket;
+        // only a direct COMPLETED moves the task KPIs.
+        if (saved.getStatus() == Task.TaskStatus.COMPLETED) {
+            publishCompleted(saved, projectId);
+        }
         return saved;
     }
 
@@ -138,14 +149,19 @@ public class TaskCompletionService {
         t.setRejectionReason(null);
         Task saved = taskRepo.save(t);
         Long projectId = t.getProject().getId();
-        cpmService.recompute(projectId);
+        cpmScheduler.requestRecompute(projectId, List.of(saved.getId()));
         // PM approval flips the task into the completed bucket — this is the
         // transition that actually moves project overall_progress.
         refreshProjectProgress(projectId, "TASK_COMPLETION_APPROVED",
                 TASK_TITLE_PREFIX + saved.getTitle() + TASK_ID_INFIX + saved.getId() + ") approved as COMPLETED");
+        publishCompleted(saved, projectId);
         return saved;
     }
 
+    private void publishCompleted(Task saved, Long projectId) {
+        eventPublisher.publishEvent(new TaskChangedEvent(this, saved.getId(), projectId, DomainEvent.Change.UPDATED));
+    }
+
     @Transactional
     public Task rejectCompletion(Long taskId, Long userId, String reason) {
         if (reason == null || reason.isBlank()) {
@@ -164,7 +180,7 @@ public class TaskCompletionService {
         t.setRejectionReason(reason);
         Task saved = taskRepo.save(t);
         Long projectId = t.getProject().getId();
-        cpmService.recompute(projectId);
+        cpmScheduler.requestRecompute(projectId, List.of(saved.getId()));
         // Status moved back from PENDING_PM_APPROVAL to IN_PROGRESS — task is
         // no longer in the completed bucket (it never reached COMPLETED via
         // this path, but the denominator may have shifted). Refresh.
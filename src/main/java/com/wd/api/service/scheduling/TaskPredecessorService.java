@@ -13,9 +13,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Manages the multi-predecessor join table {@code task_predecessor}.
@@ -30,17 +32,17 @@ public class TaskPredecessorService {
 
     private final TaskPredecessorRepository predecessorRepo;
     private final TaskRepository taskRepo;
-    private final CpmService cpmService;
+    private final CpmRecomputeScheduler cpmScheduler;
 
     @PersistenceContext
     private EntityManager em;
 
     public TaskPredecessorService(TaskPredecessorRepository predecessorRepo,
                                   TaskRepository taskRepo,
-                                  CpmService cpmService) {
+                                  CpmRecomputeScheduler cpmScheduler) {
         this.predecessorRepo = predecessorRepo;
         this.taskRepo = taskRepo;
-        this.cpmService = cpmService;
+        this.cpmScheduler = cpmScheduler;
     }
 
     /** A predecessor entry as supplied by the controller — id, lag in days, and dependency type. */
@@ -78,6 +80,12 @@ public class TaskPredecessorService {
         // at flush time — without this explicit flush, the new row's INSERT
         // races the still-live old row and collides with the partial-unique
         // index uq_task_predecessor_pair_live (see V154).
+        // Old predecessors lose an outgoing edge, so their LS/LF may move too.
+        Set<Long> cpmSeeds = new HashSet<>();
+        cpmSeeds.add(successorId);
+        for (TaskPredecessor old : predecessorRepo.findBySuccessorId(successorId)) {
+            cpmSeeds.add(old.getPredecessorId());
+        }
         predecessorRepo.deleteBySuccessorId(successorId);
         em.flush();
         List<TaskPredecessor> saved = new ArrayList<>(safe.size());
@@ -85,13 +93,14 @@ public class TaskPredecessorService {
             TaskPredecessor row = new TaskPredecessor(successorId, e.predecessorId(), e.lagDays());
             row.setDepType(e.depType());
             saved.add(predecessorRepo.save(row));
+            cpmSeeds.add(e.predecessorId());
         }
 
         // S2 PR1: keep CPM denormalized columns consistent on every graph mutation.
         Task t = taskRepo.findById(successorId)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found: " + successorId));
         if (t.getProject() != null && t.getProject().getId() != null) {
-            cpmService.recompute(t.getProject().getId());
+            cpmScheduler.requestRecompute(t.getProject().getId(), cpmSeeds);
         }
 
         return saved;
@@ -0,0 +1,125 @@
+package com.wd.api.service.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * Precomputed working-day index over a fixed date window. Same semantics as
+ * {@link WorkingDayCalculator} for the same {@code holidays} / {@code sundayWorking},
+ * but add, subtract and between are O(1) array lookups instead of day-by-day loops.
+ *
+ * <p>Layout, with day index {@code i} = days since {@code from}:
+ * <ul>
+ *   <li>{@code working} — bit {@code i} set when day {@code i} is a working day;</li>
+ *   <li>{@code cumulative[i]} — count of working days in {@code [0, i]};</li>
+ *   <li>{@code byOrdinal[k]} — day index of the {@code k}-th working day (0-based).</li>
+ * </ul>
+ *
+ * <p>Immutable and thread-safe; {@link HolidayService#calendarFor} caches one per
+ * (project, window). Dates or results that fall outside the window are delegated
+ * to {@link WorkingDayCalculator}, so callers never see a behavioural edge.
+ */
+public final class WorkingCalendar {
+
+    private final LocalDate from;
+    private final int days;
+    private final Set<LocalDate> holidays;
+    private final boolean sundayWorking;
+    private final BitSet working;
+    private final int[] cumulative;
+    private final int[] byOrdinal;
+
+    private WorkingCalendar(LocalDate from, LocalDate to, Set<LocalDate> holidays, boolean sundayWorking) {
+        this.from = from;
+        this.days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        this.holidays = holidays;
+        this.sundayWorking = sundayWorking;
+        this.working = new BitSet(days);
+        this.cumulative = new int[days];
+
+        int count = 0;
+        LocalDate d = from;
+        for (int i = 0; i < days; i++, d = d.plusDays(1)) {
+            if (isWorking(d)) {
+                working.set(i);
+                count++;
+            }
+            cumulative[i] = count;
+        }
+        this.byOrdinal = new int[count];
+        for (int i = working.nextSetBit(0), k = 0; i >= 0; i = working.nextSetBit(i + 1), k++) {
+            byOrdinal[k] = i;
+        }
+    }
+
+    /**
+     * Build the index for {@code [from, to]} (both inclusive).
+     *
+     * @throws IllegalArgumentException if {@code to} is before {@code from}
+     */
+    public static WorkingCalendar of(LocalDate from, LocalDate to,
+                                     Set<LocalDate> holidays, boolean sundayWorking) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to (" + to + ") is before from (" + from + ")");
+        }
+        return new WorkingCalendar(from, to, Set.copyOf(holidays), sundayWorking);
+    }
+
+    public boolean isSundayWorking() { return sundayWorking; }
+
+    /** @see WorkingDayCalculator#addWorkingDays */
+    public LocalDate addWorkingDays(LocalDate start, int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("days must be >= 0, got " + days);
+        }
+        if (days == 0) return start;
+        int s = indexOf(start);
+        if (s >= 0) {
+            int k = cumulative[s] + days - 1;
+            if (k < byOrdinal.length) return from.plusDays(byOrdinal[k]);
+        }
+        return WorkingDayCalculator.addWorkingDays(start, days, holidays, sundayWorking);
+    }
+
+    /** @see WorkingDayCalculator#subtractWorkingDays */
+    public LocalDate subtractWorkingDays(LocalDate start, int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("days must be >= 0, got " + days);
+        }
+        if (days == 0) return start;
+        int s = indexOf(start);
+        if (s >= 0) {
+            int before = cumulative[s] - (working.get(s) ? 1 : 0);
+            int k = before - days;
+            if (k >= 0) return from.plusDays(byOrdinal[k]);
+        }
+        return WorkingDayCalculator.subtractWorkingDays(start, days, holidays, sundayWorking);
+    }
+
+    /** @see WorkingDayCalculator#workingDaysBetween */
+    public int workingDaysBetween(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end (" + end + ") is before start (" + start + ")");
+        }
+        int s = indexOf(start);
+        int e = indexOf(end);
+        if (s >= 0 && e >= 0) return cumulative[e] - cumulative[s];
+        return WorkingDayCalculator.workingDaysBetween(start, end, holidays, sundayWorking);
+    }
+
+    /** Day index of {@code d} within the window, or -1 when outside it. */
+    private int indexOf(LocalDate d) {
+        long i = ChronoUnit.DAYS.between(from, d);
+        return i >= 0 && i < days ? (int) i : -1;
+    }
+
+    private boolean isWorking(LocalDate d) {
+        if (!sundayWorking && d.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            return false;
+        }
+        return !holidays.contains(d);
+    }
+}
@@ -10,6 +10,9 @@ import java.util.Set;
  * <p>A "working day" is any calendar day that is NOT in the supplied
  * {@code holidays} set, AND NOT a Sunday — unless {@code sundayWorking}
  * is true, in which case Sundays count.
+ *
+ * <p>Each call walks the calendar one day at a time; hot paths that call it
+ * repeatedly over one project (CPM) use a {@link WorkingCalendar} instead.
  */
 public final class WorkingDayCalculator {
 
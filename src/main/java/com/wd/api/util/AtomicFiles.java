@@ -0,0 +1,54 @@
+package com.wd.api.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Writes files under the storage root so they only ever appear complete.
+ *
+ * <p>Content goes to a hidden sibling ({@code .<name>.<random>.tmp}) and is
+ * then renamed over the target in one step. Nobody sees a half-written file:
+ * not a download, and not {@code StorageDedupeJob}, which hashes files and
+ * skips dot-files. Renaming also replaces the target's directory entry
+ * instead of writing into its inode. That matters because stored paths can
+ * be hard links to a shared blob ({@code StorageBlobStore}), and an in-place
+ * rewrite would change every path linked to it.
+ */
+public final class AtomicFiles {
+
+    private AtomicFiles() {}
+
+    /** Produces the content at the given temporary path. */
+    @FunctionalInterface
+    public interface Writer {
+        void writeTo(Path temp) throws IOException;
+    }
+
+    /** Hidden temporary sibling of {@code target}, in the same directory so the rename stays atomic. */
+    public static Path tempSibling(Path target) {
+        return target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    }
+
+    /**
+     * Let {@code writer} fill a temporary sibling, then rename it over
+     * {@code target}. On failure the temporary file is removed and
+     * {@code target} is left as it was.
+     */
+    public static void write(Path target, Writer writer) throws IOException {
+        Path temp = tempSibling(target);
+        try {
+            writer.writeTo(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- ============================================================================
+-- V165: Per-project CPM input fingerprint
+-- ============================================================================
+-- CpmInitialPopulator recomputed every project on every boot. It now records a
+-- hash of the CPM inputs (task / edge / holiday / schedule-config change
+-- markers, project start date) next to the results, and on the next boot skips
+-- any project whose inputs hash to the same value.
+--
+-- A stale or missing row only ever forces a recompute, so nothing else needs to
+-- maintain this table.
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS project_cpm_state (
+    project_id        BIGINT      PRIMARY KEY REFERENCES customer_projects(id) ON DELETE CASCADE,
+    input_fingerprint VARCHAR(64) NOT NULL,
+    computed_at       TIMESTAMP   NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,25 @@
+-- ============================================================================
+-- V166: Dashboard per-project rollup
+-- ============================================================================
+-- DashboardService used to load every ACTIVE project and run two count queries
+-- per project (overdue tasks, open delays) on each cache miss. This table keeps
+-- one narrow row per ACTIVE project with those counts plus budget and sqft, so
+-- the dashboard reads are a single aggregate and an indexed top-N.
+--
+-- Maintained by DashboardAggregateStore: refreshed per project after task,
+-- delay, payment and project writes commit, and rebuilt set-based once a day
+-- (overdue counts move with the calendar) to correct any drift.
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS dashboard_project_rollup (
+    project_id    BIGINT        PRIMARY KEY REFERENCES customer_projects(id) ON DELETE CASCADE,
+    budget        NUMERIC(15,2) NOT NULL DEFAULT 0,
+    sqfeet        NUMERIC(10,2) NOT NULL DEFAULT 0,
+    overdue_tasks INT           NOT NULL DEFAULT 0,
+    active_delays INT           NOT NULL DEFAULT 0,
+    refreshed_at  TIMESTAMP     NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_dashboard_rollup_at_risk
+    ON dashboard_project_rollup (overdue_tasks DESC, project_id)
+    WHERE overdue_tasks > 0 OR active_delays > 0;
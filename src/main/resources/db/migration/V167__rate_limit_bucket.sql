@@ -0,0 +1,18 @@
+-- ============================================================================
+-- V167: Shared rate-limit buckets
+-- ============================================================================
+-- Backing table for JdbcRateLimitBucketStore (app.rate-limiting.store=jdbc),
+-- used when more than one API instance runs and rate limits must be shared.
+-- state holds Bucket4j's serialized bucket; rows idle past
+-- app.rate-limiting.idle-expiry are purged by the store.
+--
+-- Unused (and empty) with the default in-memory store.
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS rate_limit_bucket (
+    id         VARCHAR(512) PRIMARY KEY,
+    state      BYTEA,
+    updated_at TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_bucket_updated_at ON rate_limit_bucket (updated_at);
@@ -0,0 +1,13 @@
+-- ============================================================================
+-- V168: Compressed idempotency response bodies
+-- ============================================================================
+-- Responses larger than wd.idempotency.compress-threshold are stored gzipped
+-- in response_body_gzip with response_body left NULL. Exactly one of the two
+-- is set on rows written from now on; existing rows keep their text body.
+-- ============================================================================
+
+ALTER TABLE idempotency_responses
+    ALTER COLUMN response_body DROP NOT NULL;
+
+ALTER TABLE idempotency_responses
+    ADD COLUMN IF NOT EXISTS response_body_gzip BYTEA NULL;
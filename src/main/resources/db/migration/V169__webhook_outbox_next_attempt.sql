@@ -0,0 +1,20 @@
+-- ============================================================================
+-- V169: Webhook outbox scheduling
+-- ============================================================================
+-- webhook_event_log becomes an outbox: publish() only inserts the row and
+-- WebhookDispatcher delivers due rows in batches. next_attempt_at drives
+-- both the exponential retry backoff and the short lease a dispatcher takes
+-- on the rows it is sending. NULL once an event is DELIVERED / DEAD_LETTER.
+-- ============================================================================
+
+ALTER TABLE webhook_event_log
+    ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP NULL;
+
+-- Rows still waiting from the old inline delivery + 5-minute retry job.
+UPDATE webhook_event_log
+   SET next_attempt_at = COALESCE(last_attempt_at, created_at, NOW())
+ WHERE status IN ('PENDING', 'FAILED');
+
+CREATE INDEX IF NOT EXISTS idx_webhook_events_due
+    ON webhook_event_log (next_attempt_at, id)
+    WHERE status IN ('PENDING', 'FAILED');
@@ -0,0 +1,30 @@
+-- ============================================================================
+-- V170: Mail outbox
+-- ============================================================================
+-- EmailService no longer talks SMTP on the caller's (or the shared @Async)
+-- thread: it inserts a rendered mail here, in the caller's transaction, and
+-- MailDispatcher sends due rows in batches over one SMTP connection, within
+-- the provider rate limit, retrying failures with exponential backoff.
+--
+-- Bodies can hold one-time codes and reset links, so they are cleared once a
+-- row is SENT or DEAD, and SENT rows are purged after a few days.
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    id              BIGSERIAL    PRIMARY KEY,
+    recipient       VARCHAR(320) NOT NULL,
+    from_name       VARCHAR(100),
+    subject         VARCHAR(500) NOT NULL,
+    text_body       TEXT,
+    html_body       TEXT,
+    status          VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP    NULL,
+    last_error      TEXT,
+    created_at      TIMESTAMP    NOT NULL DEFAULT NOW(),
+    sent_at         TIMESTAMP    NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_mail_outbox_due
+    ON mail_outbox (next_attempt_at, id)
+    WHERE status IN ('PENDING', 'FAILED');
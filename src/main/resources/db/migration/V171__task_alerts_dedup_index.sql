@@ -0,0 +1,24 @@
+-- ============================================================================
+-- V171: task_alerts de-duplication index
+-- ============================================================================
+-- TaskAlertService now finds every task that needs an alert in one query,
+-- with a NOT EXISTS against task_alerts for the same (task, alert type) in
+-- the last 24 hours. This index serves that probe; the old per-task
+-- existsRecentAlert lookups scanned task_alerts by task_id alone.
+--
+-- task_alerts predates the Flyway history, so the index is guarded the same
+-- way as the V7 performance indexes.
+-- ============================================================================
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT FROM information_schema.columns
+               WHERE table_schema='public' AND table_name='task_alerts' AND column_name='task_id')
+    AND EXISTS (SELECT FROM information_schema.columns
+               WHERE table_schema='public' AND table_name='task_alerts' AND column_name='alert_type')
+    AND EXISTS (SELECT FROM information_schema.columns
+               WHERE table_schema='public' AND table_name='task_alerts' AND column_name='sent_at') THEN
+        CREATE INDEX IF NOT EXISTS idx_task_alerts_task_type_sent
+            ON task_alerts(task_id, alert_type, sent_at);
+    END IF;
+END $$;
@@ -0,0 +1,26 @@
+-- ============================================================================
+-- V172: Photo renditions (thumb 256 px, preview 1280 px)
+-- ============================================================================
+-- Gallery and site-report screens used to load full-size originals for every
+-- tile. PhotoRenditionService now writes two JPEG renditions beside each
+-- stored photo on a background worker and records their storage paths here;
+-- the download endpoint serves them for ?variant=thumb|preview.
+--
+-- gallery_images.thumbnail_path already exists (unused until now). Rows
+-- without renditions are filled in by PhotoRenditionBackfillJob; the partial
+-- indexes keep its "still missing" scan cheap once the backlog is done.
+-- ============================================================================
+
+ALTER TABLE gallery_images
+    ADD COLUMN IF NOT EXISTS thumbnail_path VARCHAR(500),
+    ADD COLUMN IF NOT EXISTS preview_path   VARCHAR(500);
+
+ALTER TABLE site_report_photos
+    ADD COLUMN IF NOT EXISTS thumbnail_path VARCHAR(500),
+    ADD COLUMN IF NOT EXISTS preview_path   VARCHAR(500);
+
+CREATE INDEX IF NOT EXISTS idx_gallery_images_missing_rendition
+    ON gallery_images (id) WHERE thumbnail_path IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_site_report_photos_missing_rendition
+    ON site_report_photos (id) WHERE thumbnail_path IS NULL;
@@ -0,0 +1,31 @@
+-- ============================================================================
+-- V173: content-addressed storage blobs
+-- ============================================================================
+-- StorageBlobStore keeps one copy of each distinct file under
+-- blobs/<aa>/<bb>/<sha256>. Every storage path that has been adopted
+-- (site-reports/42/<uuid>.jpg, projects/7/<uuid>.pdf, ...) is a hard link to
+-- its blob. Legacy URLs, nginx and the customer API therefore keep reading
+-- the same paths, while duplicate bytes are stored once.
+--
+-- storage_blob_paths maps each path to its blob. storage_blobs.ref_count
+-- counts those paths. FileStorageService.deleteFile decrements the count and
+-- removes the blob when it reaches zero. StorageDedupeJob adopts files written
+-- before this migration and reports the bytes it reclaimed.
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS storage_blobs (
+    id          BIGSERIAL PRIMARY KEY,
+    sha256      CHAR(64)  NOT NULL,
+    size_bytes  BIGINT    NOT NULL,
+    ref_count   INTEGER   NOT NULL DEFAULT 0,
+    created_at  TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT uk_storage_blobs_sha256 UNIQUE (sha256)
+);
+
+CREATE TABLE IF NOT EXISTS storage_blob_paths (
+    path        VARCHAR(500) PRIMARY KEY,
+    blob_id     BIGINT       NOT NULL REFERENCES storage_blobs(id),
+    created_at  TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_storage_blob_paths_blob ON storage_blob_paths(blob_id);
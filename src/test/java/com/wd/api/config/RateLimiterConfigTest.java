@@ -0,0 +1,76 @@
+package com.wd.api.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link RateLimiterConfig} over the in-memory {@link CaffeineRateLimitBucketStore}:
+ * rejections are counted per limiter, idle buckets expire and the store stays
+ * within its maximum size.
+ */
+class RateLimiterConfigTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SimpleMeterRegistry registry;
+    private CaffeineRateLimitBucketStore store;
+    private RateLimiterConfig limiter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        store = new CaffeineRateLimitBucketStore(Duration.ofMinutes(10), 100, registry, nanos::get);
+        limiter = new RateLimiterConfig(store, registry);
+    }
+
+    @Test
+    void rejectionsAreCountedPerLimiter() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryConsume("public-lead", "public-lead:/leads/contact:1.2.3.4", 2, WINDOW);
+        }
+        limiter.tryConsume("auth", "auth:/auth/login:1.2.3.4", 5, WINDOW);
+
+        assertThat(rejections("public-lead")).isEqualTo(1.0);
+        assertThat(registry.find("ratelimit.rejections").tag("limiter", "auth").counter()).isNull();
+    }
+
+    @Test
+    void sameKey_sharesBucket_otherKeysDoNot() {
+        assertThat(limiter.tryConsume("auth", "a", 1, WINDOW).isConsumed()).isTrue();
+        assertThat(limiter.tryConsume("auth", "a", 1, WINDOW).isConsumed()).isFalse();
+        assertThat(limiter.tryConsume("auth", "b", 1, WINDOW).isConsumed()).isTrue();
+    }
+
+    @Test
+    void idleBucketsExpire() {
+        limiter.tryConsume("public-lead", "k1", 10, WINDOW);
+        limiter.tryConsume("public-lead", "k2", 10, WINDOW);
+        assertThat(store.size()).isEqualTo(2);
+
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void storeNeverExceedsMaximumSize() {
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryConsume("public-lead", "public-lead:/leads/contact:10.0." + (i / 256) + "." + (i % 256), 10, WINDOW);
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(100);
+        assertThat(registry.get("ratelimit.buckets").gauge().value()).isLessThanOrEqualTo(100);
+    }
+
+    private double rejections(String limiterName) {
+        Counter c = registry.get("ratelimit.rejections").tag("limiter", limiterName).counter();
+        return c.count();
+    }
+}
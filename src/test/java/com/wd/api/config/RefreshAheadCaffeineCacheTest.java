@@ -0,0 +1,87 @@
+package com.wd.api.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Refresh-ahead behaviour of {@link RefreshAheadCaffeineCache}: a read past
+ * refresh-after-write returns the cached value and reloads it by replaying the
+ * last value loader. Uses a same-thread executor and a manual ticker.
+ */
+class RefreshAheadCaffeineCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private final TransactionTemplate tx = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    private RefreshAheadCaffeineCache cache() {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .refreshAfterWrite(Duration.ofMinutes(1))
+                .executor(Runnable::run)
+                .ticker(ticker)
+                .recordStats();
+        return RefreshAheadCaffeineCache.create("dashboardOverview", builder, tx);
+    }
+
+    @Test
+    void readPastRefreshAge_servesCachedValue_thenReloadsFromLastLoader() {
+        RefreshAheadCaffeineCache cache = cache();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(cache.get("global", calls::incrementAndGet)).isEqualTo(1);
+        assertThat(cache.get("global", calls::incrementAndGet)).isEqualTo(1);
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        // Plain read (non-sync @Cacheable path) triggers the refresh.
+        assertThat(cache.get("global").get()).isIn(1, 2);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(cache.get("global").get()).isEqualTo(2);
+    }
+
+    @Test
+    void coldPlainRead_isAMiss_andDoesNotInvokeAnyLoader() {
+        RefreshAheadCaffeineCache cache = cache();
+
+        assertThat(cache.get("global")).isNull();
+        cache.put("global", "x");
+        assertThat(cache.get("global").get()).isEqualTo("x");
+    }
+
+    @Test
+    void evictedEntry_isLoadedAgainOnNextSyncRead() {
+        RefreshAheadCaffeineCache cache = cache();
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get("global", calls::incrementAndGet);
+        cache.evict("global");
+
+        assertThat(cache.get("global", calls::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    void nullResults_areCachedAndRefreshed() {
+        RefreshAheadCaffeineCache cache = cache();
+        AtomicInteger calls = new AtomicInteger();
+
+        Object first = cache.get("k", () -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        assertThat(first).isNull();
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(cache.get("k").get()).isNull();
+        assertThat(calls.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,146 @@
+package com.wd.api.controller;
+
+import com.wd.api.service.StoredFileResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * FileDownloadController end to end against a temp storage root: validators
+ * and 304s, cache headers by file name, single and multipart ranges, and the
+ * rendition fallback.
+ */
+class FileDownloadControllerTest {
+
+    private static final String UUID_NAME = "3f2b8c1e-9a4d-4e7f-b1c2-0d9e8f7a6b5c";
+
+    @TempDir Path storage;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(storage.resolve("site-reports/4"));
+        Files.writeString(storage.resolve("site-reports/4/" + UUID_NAME + ".jpg"), "0123456789abcdefghij");
+        Files.writeString(storage.resolve("site-reports/4/" + UUID_NAME + ".thumb.jpg"), "thumb");
+        Files.writeString(storage.resolve("site-reports/4/notes.txt"), "mutable notes");
+        StoredFileResolver resolver = new StoredFileResolver(storage.toString(), 100, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+        mvc = MockMvcBuilders.standaloneSetup(new FileDownloadController(resolver)).build();
+    }
+
+    private static String photo() {
+        return "/api/storage/site-reports/4/" + UUID_NAME + ".jpg";
+    }
+
+    @Test
+    void fullGet_setsStrongEtag_andImmutableCacheForUuidNames() throws Exception {
+        MockHttpServletResponse response = mvc.perform(get(photo()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, FileDownloadController.CACHE_IMMUTABLE))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse();
+
+        assertThat(response.getContentAsString()).isEqualTo("0123456789abcdefghij");
+        assertThat(response.getContentLength()).isEqualTo(20);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"14-").doesNotStartWith("W/");
+
+        mvc.perform(get("/api/storage/site-reports/4/notes.txt"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, FileDownloadController.CACHE_REVALIDATE));
+    }
+
+    @Test
+    void conditionalGet_answers304() throws Exception {
+        MockHttpServletResponse first = mvc.perform(get(photo())).andReturn().getResponse();
+
+        MockHttpServletResponse byEtag = mvc.perform(get(photo())
+                        .header(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse();
+        assertThat(byEtag.getContentAsByteArray()).isEmpty();
+
+        mvc.perform(get(photo()).header(HttpHeaders.IF_MODIFIED_SINCE, first.getHeader(HttpHeaders.LAST_MODIFIED)))
+                .andExpect(status().isNotModified());
+        mvc.perform(get(photo()).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void singleRange_returns206WithContentRange() throws Exception {
+        mvc.perform(get(photo()).header(HttpHeaders.RANGE, "bytes=5-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-9/20"))
+                .andExpect(result -> assertThat(result.getResponse().getContentAsString()).isEqualTo("56789"));
+
+        mvc.perform(get(photo()).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(result -> assertThat(result.getResponse().getContentAsString()).isEqualTo("hij"));
+    }
+
+    @Test
+    void multipleRanges_returnMultipartByteranges() throws Exception {
+        MockHttpServletResponse response = mvc.perform(get(photo()).header(HttpHeaders.RANGE, "bytes=0-1,18-19"))
+                .andExpect(status().isPartialContent())
+                .andReturn().getResponse();
+
+        String contentType = response.getContentType();
+        assertThat(contentType).startsWith("multipart/byteranges; boundary=");
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        String body = new String(response.getContentAsByteArray(), StandardCharsets.US_ASCII);
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+        assertThat(body).contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n--" + boundary)
+                .contains("Content-Range: bytes 18-19/20\r\n\r\nij\r\n--" + boundary + "--\r\n");
+    }
+
+    @Test
+    void unsatisfiableRange_returns416_andStaleIfRangeServesWholeFile() throws Exception {
+        mvc.perform(get(photo()).header(HttpHeaders.RANGE, "bytes=50-60"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"));
+
+        mvc.perform(get(photo()).header(HttpHeaders.RANGE, "bytes=0-1").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(result -> assertThat(result.getResponse().getContentLength()).isEqualTo(20));
+    }
+
+    @Test
+    void variant_servesRenditionOrFallsBackToOriginal() throws Exception {
+        mvc.perform(get(photo()).param("variant", "thumb"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, FileDownloadController.CACHE_IMMUTABLE))
+                .andExpect(result -> assertThat(result.getResponse().getContentAsString()).isEqualTo("thumb"));
+        // No preview yet: the original stands in, but must not be cached for a year under the variant URL.
+        mvc.perform(get(photo()).param("variant", "preview"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, FileDownloadController.CACHE_REVALIDATE))
+                .andExpect(result -> assertThat(result.getResponse().getContentLength()).isEqualTo(20));
+        mvc.perform(get(photo()).param("variant", "poster"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void missingAndEscapingPaths_areRejected() throws Exception {
+        mvc.perform(get("/api/storage/site-reports/4/nope.jpg")).andExpect(status().isNotFound());
+
+        Path outside = Files.createTempFile("outside", ".txt");
+        Files.createSymbolicLink(storage.resolve("site-reports/4/link.txt"), outside);
+        mvc.perform(get("/api/storage/site-reports/4/link.txt")).andExpect(status().isForbidden());
+        Files.deleteIfExists(outside);
+    }
+}
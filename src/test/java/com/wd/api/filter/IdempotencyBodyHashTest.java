@@ -0,0 +1,92 @@
+package com.wd.api.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockPart;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Body hashing in {@link IdempotencyFilter} without a database: the spooled
+ * wrapper hashes exactly the raw bytes (so stored hashes stay comparable) and
+ * replays them unchanged, in memory or from a spill file; multipart hashes
+ * depend on the parts, not on the boundary.
+ */
+class IdempotencyBodyHashTest {
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    private static MockHttpServletRequest post(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/site-reports");
+        request.setContentType("application/json");
+        request.setContent(body);
+        return request;
+    }
+
+    @Test
+    void smallBody_staysInMemory_andHashesRawBytes() throws Exception {
+        byte[] body = "{\"reason\":\"rain\"}".getBytes(StandardCharsets.UTF_8);
+
+        try (var wrapper = new IdempotencyFilter.SpooledRequestWrapper(post(body), 1024)) {
+            assertThat(wrapper.isSpilled()).isFalse();
+            assertThat(wrapper.getBodyHash()).isEqualTo(sha256(body));
+            assertThat(wrapper.getInputStream().readAllBytes()).isEqualTo(body);
+            // Re-readable, e.g. by a second message converter.
+            assertThat(wrapper.getInputStream().readAllBytes()).isEqualTo(body);
+        }
+    }
+
+    @Test
+    void largeBody_spillsToDisk_andReplaysIdentically() throws Exception {
+        byte[] body = new byte[300_000];
+        new Random(42).nextBytes(body);
+
+        try (var wrapper = new IdempotencyFilter.SpooledRequestWrapper(post(body), 64 * 1024)) {
+            assertThat(wrapper.isSpilled()).isTrue();
+            assertThat(wrapper.getBodyHash()).isEqualTo(sha256(body));
+            assertThat(wrapper.getInputStream().readAllBytes()).isEqualTo(body);
+        }
+    }
+
+    @Test
+    void bodyOfExactlyThreshold_isNotSpilled() throws Exception {
+        byte[] body = new byte[4096];
+        new Random(7).nextBytes(body);
+
+        try (var wrapper = new IdempotencyFilter.SpooledRequestWrapper(post(body), 4096)) {
+            assertThat(wrapper.isSpilled()).isFalse();
+            assertThat(wrapper.getBodyHash()).isEqualTo(sha256(body));
+        }
+    }
+
+    @Test
+    void multipartHash_followsPartContent() throws Exception {
+        byte[] photo = new byte[50_000];
+        new Random(1).nextBytes(photo);
+
+        String first = IdempotencyFilter.multipartHash(multipart(photo, "Slab poured"));
+        String retry = IdempotencyFilter.multipartHash(multipart(photo, "Slab poured"));
+        String edited = IdempotencyFilter.multipartHash(multipart(photo, "Slab cured"));
+
+        assertThat(retry).isEqualTo(first);
+        assertThat(edited).isNotEqualTo(first);
+    }
+
+    private static MockHttpServletRequest multipart(byte[] photo, String title) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/site-reports");
+        request.setContentType("multipart/form-data; boundary=" + System.nanoTime());
+        request.addPart(new MockPart("title", title.getBytes(StandardCharsets.UTF_8)));
+        MockPart file = new MockPart("photos", "site.jpg", photo);
+        file.getHeaders().setContentType(MediaType.IMAGE_JPEG);
+        request.addPart(file);
+        return request;
+    }
+}
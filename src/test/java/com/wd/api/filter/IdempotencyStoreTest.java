@@ -0,0 +1,138 @@
+package com.wd.api.filter;
+
+import com.wd.api.model.IdempotencyResponse;
+import com.wd.api.repository.IdempotencyResponseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    private static final String PATH = "/api/site-reports";
+
+    @Mock IdempotencyResponseRepository repo;
+
+    private static IdempotencyStore.Entry entry(String key, byte[] body) {
+        return new IdempotencyStore.Entry(key, "POST", PATH, 201, "application/json", body, "hash",
+                LocalDateTime.now().plusHours(1));
+    }
+
+    private static IdempotencyResponse row(String key, LocalDateTime expiresAt) {
+        return IdempotencyResponse.builder()
+                .idempotencyKey(key).requestMethod("POST").requestPath(PATH)
+                .responseStatus(201).responseBody("{\"id\":1}").responseContentType("application/json")
+                .cachedAt(LocalDateTime.now()).expiresAt(expiresAt).build();
+    }
+
+    @Test
+    void memoryStore_isBoundedByStoredBytes() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10_000, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 50; i++) {
+            store.save(entry("k" + i, new byte[1_000]));
+        }
+
+        assertThat(store.storedBytes()).isLessThanOrEqualTo(10_000);
+
+        store.save(entry("small", new byte[10]));
+        assertThat(store.find("small", "POST", PATH)).isPresent();
+        // Same key on another path is a different request.
+        assertThat(store.find("small", "POST", "/api/other")).isEmpty();
+    }
+
+    @Test
+    void jdbcStore_compressesLargeBodies_andSkipsExpiredRows() {
+        JdbcIdempotencyStore store = new JdbcIdempotencyStore(repo, 1024);
+        byte[] body = ("{\"items\":[" + "{\"name\":\"slab\"},".repeat(500) + "{}]}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        store.save(entry("big", body));
+
+        ArgumentCaptor<IdempotencyResponse> saved = ArgumentCaptor.forClass(IdempotencyResponse.class);
+        verify(repo).save(saved.capture());
+        assertThat(saved.getValue().getResponseBody()).isNull();
+        assertThat(saved.getValue().getResponseBodyGzip()).hasSizeLessThan(body.length);
+
+        when(repo.findByIdempotencyKeyAndRequestMethodAndRequestPath("big", "POST", PATH))
+                .thenReturn(Optional.of(saved.getValue()));
+        assertThat(store.find("big", "POST", PATH).orElseThrow().body()).isEqualTo(body);
+
+        when(repo.findByIdempotencyKeyAndRequestMethodAndRequestPath("old", "POST", PATH))
+                .thenReturn(Optional.of(row("old", LocalDateTime.now().minusMinutes(1))));
+        assertThat(store.find("old", "POST", PATH)).isEmpty();
+    }
+
+    @Test
+    void tieredStore_servesRepeatLookupsFromMemory() {
+        when(repo.findByIdempotencyKeyAndRequestMethodAndRequestPath("k1", "POST", PATH))
+                .thenReturn(Optional.of(row("k1", LocalDateTime.now().plusHours(1))));
+        TieredIdempotencyStore store = new TieredIdempotencyStore(
+                new InMemoryIdempotencyStore(1024 * 1024, new SimpleMeterRegistry()),
+                new JdbcIdempotencyStore(repo, 1024));
+
+        assertThat(store.find("k1", "POST", PATH)).isPresent();
+        assertThat(store.find("k1", "POST", PATH)).isPresent();
+
+        verify(repo, times(1)).findByIdempotencyKeyAndRequestMethodAndRequestPath("k1", "POST", PATH);
+    }
+
+    @Test
+    void tieredStore_writesThroughToTheTable() {
+        when(repo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        TieredIdempotencyStore store = new TieredIdempotencyStore(
+                new InMemoryIdempotencyStore(1024 * 1024, new SimpleMeterRegistry()),
+                new JdbcIdempotencyStore(repo, 1024));
+
+        store.save(entry("k2", "{}".getBytes(StandardCharsets.UTF_8)));
+
+        verify(repo).save(any());
+        assertThat(store.find("k2", "POST", PATH)).isPresent();
+    }
+
+    @Test
+    void keyLocks_letADuplicateInOnceTheFirstClaimCloses() throws Exception {
+        IdempotencyKeyLocks locks = new IdempotencyKeyLocks(Duration.ofMillis(200));
+        IdempotencyKeyLocks.Claim first = locks.acquire("k3");
+        assertThat(first).isNotNull();
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            assertThat(pool.submit(() -> locks.acquire("k3")).get(1, TimeUnit.SECONDS)).isNull();
+
+            CountDownLatch started = new CountDownLatch(1);
+            Future<IdempotencyKeyLocks.Claim> second = pool.submit(() -> {
+                started.countDown();
+                return locks.acquire("k3");
+            });
+            started.await();
+            first.close();
+
+            IdempotencyKeyLocks.Claim claim = second.get(1, TimeUnit.SECONDS);
+            assertThat(claim).isNotNull();
+            claim.close();
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(locks.size()).isZero();
+    }
+}
@@ -5,15 +5,17 @@ import com.wd.api.model.PaymentStage;
 import com.wd.api.model.enums.PaymentStageStatus;
 import com.wd.api.model.enums.ReminderKind;
 import com.wd.api.repository.PaymentStageRepository;
-import com.wd.api.repository.PaymentStageReminderSentRepository;
 import com.wd.api.service.WebhookPublisherService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.Clock;
@@ -21,10 +23,15 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -32,26 +39,65 @@ import static org.mockito.Mockito.*;
 class PaymentMilestoneReminderJobTest {
 
     @Mock PaymentStageRepository stageRepo;
-    @Mock PaymentStageReminderSentRepository reminderRepo;
+    @Mock JdbcTemplate jdbcTemplate;
+    @Mock PlatformTransactionManager transactionManager;
     @Mock WebhookPublisherService webhookPublisher;
 
     /** Pinned to 2026-05-10 IST 09:00. The cron in production fires at this exact instant. */
     private final Clock fixedClock = Clock.fixed(
             Instant.parse("2026-05-10T03:30:00Z"), ZoneId.of("Asia/Kolkata"));
 
-    @InjectMocks
+    private static final LocalDate TODAY = LocalDate.of(2026, 5, 10);
+
     private PaymentMilestoneReminderJob job;
 
     private CustomerProject project;
 
+    /** Stand-in for payment_stage_reminder_sent and its (stage_id, reminder_kind) unique constraint. */
+    private final Set<String> ledger = new HashSet<>();
+
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
-        // Re-create job with the fixed clock — @InjectMocks doesn't pass the clock.
-        job = new PaymentMilestoneReminderJob(stageRepo, reminderRepo, webhookPublisher, fixedClock);
+        job = job(500);
 
         project = new CustomerProject();
         project.setId(42L);
         // CustomerProject.customer is not exercised here — webhook payload uses project.id only.
+
+        // INSERT ... ON CONFLICT DO NOTHING RETURNING: only pairs not yet in the ledger come back.
+        // Lenient: tests whose candidates are all filtered out never reach the insert.
+        lenient().when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(inv -> {
+            Object[] args = (Object[]) inv.getRawArguments()[2];
+            List<Map.Entry<Long, ReminderKind>> inserted = new ArrayList<>();
+            for (int i = 0; i < args.length; i += 2) {
+                if (ledger.add(args[i] + "/" + args[i + 1])) {
+                    inserted.add(Map.entry((Long) args[i], ReminderKind.valueOf((String) args[i + 1])));
+                }
+            }
+            return inserted;
+        });
+    }
+
+    private PaymentMilestoneReminderJob job(int chunkSize) {
+        return new PaymentMilestoneReminderJob(stageRepo, jdbcTemplate, transactionManager, webhookPublisher,
+                fixedClock, chunkSize);
+    }
+
+    private void givenCandidates(List<PaymentStage> stages) {
+        when(stageRepo.findReminderCandidatesAfter(anyLong(), eq(TODAY), eq(TODAY.plusDays(3)), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long afterId = inv.getArgument(0);
+                    int size = inv.<Pageable>getArgument(3).getPageSize();
+                    return stages.stream().filter(s -> s.getId() > afterId).limit(size).toList();
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PaymentMilestoneReminderJob.Reminder> published() {
+        ArgumentCaptor<List<PaymentMilestoneReminderJob.Reminder>> captor = ArgumentCaptor.forClass(List.class);
+        verify(webhookPublisher, atLeastOnce()).publishPaymentMilestonesDue(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
     }
 
     private PaymentStage stage(long id, int num, String name, LocalDate due, PaymentStageStatus status) {
@@ -72,50 +118,40 @@ class PaymentMilestoneReminderJobTest {
         PaymentStage tMinus3   = stage(101L, 1, "Plastering", LocalDate.of(2026, 5, 13), PaymentStageStatus.DUE);
         PaymentStage dueToday  = stage(102L, 2, "Painting",   LocalDate.of(2026, 5, 10), PaymentStageStatus.DUE);
         PaymentStage overdue   = stage(103L, 3, "Wiring",     LocalDate.of(2026, 5, 8),  PaymentStageStatus.OVERDUE);
-
-        when(stageRepo.findCandidatesForReminder())
-                .thenReturn(List.of(tMinus3, dueToday, overdue));
-        when(reminderRepo.insertIfAbsent(any(), any())).thenReturn(true);
+        givenCandidates(List.of(tMinus3, dueToday, overdue));
 
         job.run();
 
-        verify(reminderRepo).insertIfAbsent(101L, ReminderKind.T_MINUS_3);
-        verify(reminderRepo).insertIfAbsent(102L, ReminderKind.DUE_TODAY);
-        verify(reminderRepo).insertIfAbsent(103L, ReminderKind.OVERDUE);
-        verify(webhookPublisher, times(3)).publishPaymentMilestoneDue(any(), any());
+        assertThat(ledger).containsExactlyInAnyOrder("101/T_MINUS_3", "102/DUE_TODAY", "103/OVERDUE");
+        assertThat(published()).extracting(r -> r.ctx().stageId() + "/" + r.kind())
+                .containsExactly("101/T_MINUS_3", "102/DUE_TODAY", "103/OVERDUE");
     }
 
     @Test
     void run_skipsPaidAndOnHoldAndInvoicedPastDueAndOddOffsets() {
-        // The repository would never return PAID / ON_HOLD (filtered in SQL),
-        // but if a future schema change lets one through, the job must still skip it.
+        // The repository would never return these (filtered in SQL), but if a
+        // future schema/query change lets one through, the job must still skip it.
         PaymentStage paidT3       = stage(201L, 1, "PAID @ T+3",       LocalDate.of(2026, 5, 13), PaymentStageStatus.PAID);
         PaymentStage onHoldT3     = stage(202L, 2, "ON_HOLD @ T+3",    LocalDate.of(2026, 5, 13), PaymentStageStatus.ON_HOLD);
         PaymentStage invoicedPast = stage(203L, 3, "INVOICED past",    LocalDate.of(2026, 5, 8),  PaymentStageStatus.INVOICED);
         PaymentStage oddOffset    = stage(204L, 4, "DUE @ T+5",        LocalDate.of(2026, 5, 15), PaymentStageStatus.DUE);
-
-        when(stageRepo.findCandidatesForReminder())
-                .thenReturn(List.of(paidT3, onHoldT3, invoicedPast, oddOffset));
+        givenCandidates(List.of(paidT3, onHoldT3, invoicedPast, oddOffset));
 
         job.run();
 
-        verifyNoInteractions(webhookPublisher);
-        verify(reminderRepo, never()).insertIfAbsent(any(), any());
+        verifyNoInteractions(webhookPublisher, jdbcTemplate);
     }
 
     @Test
     void run_publishesPayloadWithExpectedShape() {
         PaymentStage stage = stage(113L, 4, "Plastering", LocalDate.of(2026, 5, 13), PaymentStageStatus.DUE);
-        when(stageRepo.findCandidatesForReminder()).thenReturn(List.of(stage));
-        when(reminderRepo.insertIfAbsent(113L, ReminderKind.T_MINUS_3)).thenReturn(true);
+        givenCandidates(List.of(stage));
 
         job.run();
 
-        ArgumentCaptor<PaymentMilestoneReminderJob.ReminderContext> ctx =
-                ArgumentCaptor.forClass(PaymentMilestoneReminderJob.ReminderContext.class);
-        verify(webhookPublisher).publishPaymentMilestoneDue(eq(ReminderKind.T_MINUS_3), ctx.capture());
-
-        PaymentMilestoneReminderJob.ReminderContext c = ctx.getValue();
+        PaymentMilestoneReminderJob.Reminder reminder = published().get(0);
+        assertThat(reminder.kind()).isEqualTo(ReminderKind.T_MINUS_3);
+        PaymentMilestoneReminderJob.ReminderContext c = reminder.ctx();
         assertThat(c.projectId()).isEqualTo(42L);
         assertThat(c.stageId()).isEqualTo(113L);
         assertThat(c.stageNumber()).isEqualTo(4);
@@ -127,48 +163,60 @@ class PaymentMilestoneReminderJobTest {
     @Test
     void run_idempotent_secondRunSendsNothingExtra() {
         PaymentStage stage = stage(101L, 1, "Plastering", LocalDate.of(2026, 5, 13), PaymentStageStatus.DUE);
-        when(stageRepo.findCandidatesForReminder()).thenReturn(List.of(stage));
+        givenCandidates(List.of(stage));
 
-        // First run: insert succeeds → publish.
-        when(reminderRepo.insertIfAbsent(101L, ReminderKind.T_MINUS_3)).thenReturn(true);
+        // First run: ledger insert returns the row → publish.
         job.run();
-        verify(webhookPublisher, times(1)).publishPaymentMilestoneDue(any(), any());
+        verify(webhookPublisher, times(1)).publishPaymentMilestonesDue(any());
 
-        // Second run: same fixedClock, same candidate → insert returns false → NO publish.
-        when(reminderRepo.insertIfAbsent(101L, ReminderKind.T_MINUS_3)).thenReturn(false);
+        // Second run: same fixedClock, same candidate → conflict, nothing returned → NO publish.
         job.run();
-        verify(webhookPublisher, times(1)).publishPaymentMilestoneDue(any(), any()); // unchanged
+        verify(webhookPublisher, times(1)).publishPaymentMilestonesDue(any()); // unchanged
     }
 
     @Test
     void run_insertHappensBeforePublish() {
-        // Spec: insert FIRST, publish SECOND. If publish fails after insert commits,
-        // the customer doesn't get that day's reminder — accepted (under-notify > over-notify).
+        // Spec: insert FIRST, publish SECOND, in the same chunk transaction.
         PaymentStage stage = stage(101L, 1, "Plastering", LocalDate.of(2026, 5, 13), PaymentStageStatus.DUE);
-        when(stageRepo.findCandidatesForReminder()).thenReturn(List.of(stage));
-        when(reminderRepo.insertIfAbsent(101L, ReminderKind.T_MINUS_3)).thenReturn(true);
+        givenCandidates(List.of(stage));
 
         job.run();
 
-        InOrderAssertion.assertInOrder(reminderRepo, webhookPublisher);
+        org.mockito.InOrder order = inOrder(transactionManager, jdbcTemplate, webhookPublisher);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(jdbcTemplate).query(anyString(), any(RowMapper.class), any(Object[].class));
+        order.verify(webhookPublisher).publishPaymentMilestonesDue(any());
+        order.verify(transactionManager).commit(any());
     }
 
-    /** Tiny helper so the order assertion reads cleanly above. */
-    static class InOrderAssertion {
-        static void assertInOrder(PaymentStageReminderSentRepository repo, WebhookPublisherService pub) {
-            org.mockito.InOrder order = inOrder(repo, pub);
-            order.verify(repo).insertIfAbsent(any(), any());
-            order.verify(pub).publishPaymentMilestoneDue(any(), any());
+    @Test
+    void run_pagesByKeyset_oneLedgerInsertPerChunk() {
+        List<PaymentStage> stages = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            stages.add(stage(id * 10, (int) id, "Stage " + id, TODAY, PaymentStageStatus.DUE));
         }
+        givenCandidates(stages);
+
+        job(2).run();
+
+        verify(stageRepo).findReminderCandidatesAfter(eq(0L), any(), any(), any());
+        verify(stageRepo).findReminderCandidatesAfter(eq(20L), any(), any(), any());
+        verify(stageRepo).findReminderCandidatesAfter(eq(40L), any(), any(), any());
+        verify(stageRepo, times(3)).findReminderCandidatesAfter(anyLong(), any(), any(), any());
+        verify(jdbcTemplate, times(3)).query(
+                argThat((String sql) -> sql.startsWith(PaymentMilestoneReminderJob.INSERT_RETURNING_PREFIX)
+                        && sql.endsWith(PaymentMilestoneReminderJob.INSERT_RETURNING_SUFFIX)),
+                any(RowMapper.class), any(Object[].class));
+        assertThat(published()).hasSize(5);
     }
 
     @Test
     void run_handlesEmptyCandidateList() {
-        when(stageRepo.findCandidatesForReminder()).thenReturn(new ArrayList<>());
+        givenCandidates(List.of());
 
         job.run();
 
-        verifyNoInteractions(reminderRepo);
+        verifyNoInteractions(jdbcTemplate);
         verifyNoInteractions(webhookPublisher);
     }
 }
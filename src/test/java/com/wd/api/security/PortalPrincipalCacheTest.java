@@ -0,0 +1,117 @@
+package com.wd.api.security;
+
+import com.wd.api.model.Permission;
+import com.wd.api.model.PortalRole;
+import com.wd.api.model.PortalUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link PortalPrincipalCache} loads a principal once per (subject, issued-at)
+ * and reloads after the user or the role permissions change. It keeps a
+ * snapshot, never the loaded entity, and builds a new principal per request.
+ */
+class PortalPrincipalCacheTest {
+
+    private static final Date ISSUED = new Date(1_700_000_000_000L);
+
+    private PortalPrincipalCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new PortalPrincipalCache(Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+    }
+
+    private Supplier<UserDetails> loader(String email) {
+        return () -> {
+            loads.incrementAndGet();
+            return new User(email, "x", Collections.emptyList());
+        };
+    }
+
+    @Test
+    void sameToken_loadsOnce_newTokenLoadsAgain() {
+        cache.get("pm@wd.com", ISSUED, loader("pm@wd.com"));
+        cache.get("pm@wd.com", ISSUED, loader("pm@wd.com"));
+        assertThat(loads.get()).isEqualTo(1);
+
+        cache.get("pm@wd.com", new Date(ISSUED.getTime() + 1000), loader("pm@wd.com"));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void evictUser_dropsOnlyThatUsersPrincipals() {
+        cache.get("pm@wd.com", ISSUED, loader("pm@wd.com"));
+        cache.get("se@wd.com", ISSUED, loader("se@wd.com"));
+
+        cache.evictUser("PM@wd.com");
+        cache.get("pm@wd.com", ISSUED, loader("pm@wd.com"));
+        cache.get("se@wd.com", ISSUED, loader("se@wd.com"));
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void evictAll_forcesReloadForEveryone() {
+        cache.get("pm@wd.com", ISSUED, loader("pm@wd.com"));
+        cache.get("se@wd.com", ISSUED, loader("se@wd.com"));
+
+        cache.evictAll();
+        cache.get("pm@wd.com", ISSUED, loader("pm@wd.com"));
+        cache.get("se@wd.com", ISSUED, loader("se@wd.com"));
+
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    void portalUser_isCachedAsSnapshot_andEachRequestGetsItsOwnPrincipal() {
+        Permission approve = new Permission();
+        approve.setId(3L);
+        approve.setName("VO_APPROVE");
+        PortalRole role = new PortalRole();
+        role.setId(2L);
+        role.setCode("PM");
+        role.setPermissions(Set.of(approve));
+        PortalUser loaded = new PortalUser();
+        loaded.setId(7L);
+        loaded.setEmail("pm@wd.com");
+        loaded.setPassword("{bcrypt}hash");
+        loaded.setRole(role);
+
+        UserDetails first = cache.get("pm@wd.com", ISSUED, () -> loaded);
+        loaded.setFirstName("changed after caching");
+        ((PortalUser) first).getRole().setCode("ADMIN");
+        UserDetails second = cache.get("pm@wd.com", ISSUED, () -> loaded);
+
+        assertThat(first).isNotSameAs(loaded).isNotSameAs(second);
+        PortalUser principal = (PortalUser) second;
+        assertThat(principal.getId()).isEqualTo(7L);
+        assertThat(principal.getFirstName()).isNull();
+        assertThat(principal.getPassword()).isNull();
+        assertThat(principal.getRole()).isNotSameAs(role);
+        assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_PM", "VO_APPROVE");
+    }
+
+    @Test
+    void tokenWithoutIssuedAt_isNeverCached() {
+        cache.get("pm@wd.com", null, loader("pm@wd.com"));
+        cache.get("pm@wd.com", null, loader("pm@wd.com"));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 
@@ -37,6 +38,7 @@ class CustomerProjectServiceContractTypeTest {
     @Mock private QualityCheckRepository qualityCheckRepository;
     @Mock private PaymentScheduleRepository paymentScheduleRepository;
     @Mock private CustomerNotificationFacade customerNotificationFacade;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     private CustomerProjectService service;
 
@@ -51,7 +53,8 @@ class CustomerProjectServiceContractTypeTest {
                 activityFeedRepository,
                 qualityCheckRepository,
                 paymentScheduleRepository,
-                customerNotificationFacade);
+                customerNotificationFacade,
+                eventPublisher);
 
         // Allow save to echo back the entity for the happy-path tests
         lenient().when(customerProjectRepository.save(any(CustomerProject.class)))
@@ -44,7 +44,7 @@ class CustomerProjectServiceGpsLockTest {
         // prior unset-field behaviour).
         service = new CustomerProjectService(
                 projectRepository,
-                null, null, null, null, null, null, null, null);
+                null, null, null, null, null, null, null, null, null);
 
         lenient().when(projectRepository.save(any(CustomerProject.class)))
                 .thenAnswer(inv -> inv.getArgument(0));
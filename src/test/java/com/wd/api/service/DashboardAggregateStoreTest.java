@@ -0,0 +1,94 @@
+package com.wd.api.service;
+
+import com.wd.api.event.DelayChangedEvent;
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.LeadChangedEvent;
+import com.wd.api.event.TaskChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Maintenance rules of {@link DashboardAggregateStore}: which events refresh a
+ * project row, and that reads never trigger the full rebuild.
+ */
+class DashboardAggregateStoreTest {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    private JdbcTemplate jdbc;
+    private Clock clock;
+    private DashboardAggregateStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        clock = mock(Clock.class);
+        when(clock.getZone()).thenReturn(IST);
+        setToday(LocalDate.of(2026, 3, 10));
+        store = new DashboardAggregateStore(jdbc, mock(PlatformTransactionManager.class), clock);
+    }
+
+    @Test
+    void taskAndDelayEvents_refreshOnlyTheirProject() {
+        store.on(new TaskChangedEvent(this, 1L, 7L, DomainEvent.Change.UPDATED));
+        store.on(new DelayChangedEvent(this, 2L, 8L, DomainEvent.Change.CREATED));
+
+        Date today = Date.valueOf(LocalDate.of(2026, 3, 10));
+        verify(jdbc).update(DashboardAggregateStore.UPSERT_ONE, today, 7L);
+        verify(jdbc).update(DashboardAggregateStore.DELETE_ONE_INACTIVE, 7L);
+        verify(jdbc).update(DashboardAggregateStore.UPSERT_ONE, today, 8L);
+        verify(jdbc).update(DashboardAggregateStore.DELETE_ONE_INACTIVE, 8L);
+    }
+
+    @Test
+    void leadEvents_andEventsWithoutProject_areIgnored() {
+        store.on(new LeadChangedEvent(this, 1L, DomainEvent.Change.CREATED));
+        store.on(new TaskChangedEvent(this, 1L, null, DomainEvent.Change.CREATED));
+
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void refreshFailure_doesNotReachThePublisher() {
+        when(jdbc.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThatCode(() -> store.on(new TaskChangedEvent(this, 1L, 7L, DomainEvent.Change.DELETED)))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void reads_serveTheLastAggregate_withoutRebuilding() {
+        store.activeTotals();
+        store.atRisk(5);
+        setToday(LocalDate.of(2026, 3, 11));
+        store.activeTotals();
+
+        verify(jdbc, never()).update(eq(DashboardAggregateStore.UPSERT_ALL), any(Object[].class));
+        verify(jdbc, never()).update(DashboardAggregateStore.DELETE_ALL_INACTIVE);
+    }
+
+    private void setToday(LocalDate date) {
+        Instant noon = date.atTime(12, 0).atZone(IST).toInstant();
+        when(clock.instant()).thenReturn(noon);
+    }
+}
@@ -0,0 +1,80 @@
+package com.wd.api.service;
+
+import com.wd.api.event.DomainEvent;
+import com.wd.api.event.LeadChangedEvent;
+import com.wd.api.event.PaymentChangedEvent;
+import com.wd.api.event.ProjectChangedEvent;
+import com.wd.api.event.StagePaymentCertifiedEvent;
+import com.wd.api.event.TaskChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each event type must evict exactly the dashboard caches whose figures it can
+ * move, and leave the rest warm.
+ */
+class DashboardCacheInvalidatorTest {
+
+    private static final List<String> ALL = List.of(
+            "dashboardOverview", "dashboardProjects", "dashboardLeads", "dashboardFinance", "dashboardOperations");
+
+    private ConcurrentMapCacheManager cacheManager;
+    private DashboardCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(ALL.toArray(String[]::new));
+        ALL.forEach(name -> cacheManager.getCache(name).put("global", "warm"));
+        invalidator = new DashboardCacheInvalidator(cacheManager);
+    }
+
+    @Test
+    void leadChange_evictsOverviewAndLeadsOnly() {
+        invalidator.on(new LeadChangedEvent(this, 1L, DomainEvent.Change.UPDATED));
+
+        assertThat(evicted()).containsExactly("dashboardOverview", "dashboardLeads");
+    }
+
+    @Test
+    void taskChange_evictsOverviewProjectsAndOperations() {
+        invalidator.on(new TaskChangedEvent(this, 1L, 7L, DomainEvent.Change.CREATED));
+
+        assertThat(evicted()).containsExactly("dashboardOverview", "dashboardProjects", "dashboardOperations");
+    }
+
+    @Test
+    void costPayment_evictsFinanceOnly_customerPaymentAlsoOverview() {
+        invalidator.on(new PaymentChangedEvent(this, PaymentChangedEvent.Kind.COST, 1L, 7L, DomainEvent.Change.CREATED));
+        assertThat(evicted()).containsExactly("dashboardFinance");
+
+        invalidator.on(new PaymentChangedEvent(this, PaymentChangedEvent.Kind.CUSTOMER_PAYMENT, 2L, 7L,
+                DomainEvent.Change.CREATED));
+        assertThat(evicted()).containsExactly("dashboardOverview", "dashboardFinance");
+    }
+
+    @Test
+    void projectChange_evictsOverviewProjectsAndFinance() {
+        invalidator.on(new ProjectChangedEvent(this, 7L, DomainEvent.Change.DELETED));
+
+        assertThat(evicted()).containsExactly("dashboardOverview", "dashboardProjects", "dashboardFinance");
+    }
+
+    @Test
+    void stageCertification_evictsOverviewAndFinance() {
+        invalidator.on(new StagePaymentCertifiedEvent(this, 3L, 7L, "pm@example.com"));
+
+        assertThat(evicted()).containsExactly("dashboardOverview", "dashboardFinance");
+    }
+
+    private List<String> evicted() {
+        return ALL.stream()
+                .flatMap(name -> cacheManager.getCache(name).get("global") == null ? Stream.of(name) : Stream.empty())
+                .toList();
+    }
+}
@@ -0,0 +1,67 @@
+package com.wd.api.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DedicatedPoller: the caller (the shared scheduler thread) returns at once,
+ * the tick runs on the poller's own thread, and a trigger while a tick is
+ * still running is skipped rather than queued.
+ */
+class DedicatedPollerTest {
+
+    private final DedicatedPoller poller = new DedicatedPoller("test-poller");
+
+    @AfterEach
+    void tearDown() {
+        poller.shutdown();
+    }
+
+    @Test
+    void trigger_returnsImmediately_andSkipsWhileTickRuns() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ticks = new AtomicInteger();
+        AtomicReference<String> threadName = new AtomicReference<>();
+        Runnable slowTick = () -> {
+            ticks.incrementAndGet();
+            threadName.set(Thread.currentThread().getName());
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        poller.trigger(slowTick);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        poller.trigger(slowTick);
+        poller.trigger(slowTick);
+        release.countDown();
+
+        assertThat(ticks.get()).isEqualTo(1);
+        assertThat(threadName.get()).isEqualTo("test-poller");
+    }
+
+    @Test
+    void failingTick_doesNotStopLaterTicks() throws InterruptedException {
+        poller.trigger(() -> {
+            throw new IllegalStateException("endpoint down");
+        });
+        CountDownLatch second = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (second.getCount() > 0 && System.nanoTime() < deadline) {
+            poller.trigger(second::countDown);
+            second.await(50, TimeUnit.MILLISECONDS);
+        }
+        assertThat(second.getCount()).isZero();
+    }
+}
@@ -8,7 +8,7 @@ import com.wd.api.repository.DelayLogRepository;
 import com.wd.api.repository.PortalUserRepository;
 import com.wd.api.repository.ProjectScheduleConfigRepository;
 import com.wd.api.repository.TaskRepository;
-import com.wd.api.service.scheduling.CpmService;
+import com.wd.api.service.scheduling.CpmRecomputeScheduler;
 import com.wd.api.service.scheduling.HandoverShiftDetector;
 import com.wd.api.service.scheduling.HolidayService;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +18,7 @@ import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.Collections;
@@ -47,9 +48,10 @@ class DelayLogServiceCpmHookTest {
     @Mock private WebhookPublisherService webhookPublisherService;
     @Mock private TaskRepository taskRepository;
     @Mock private HolidayService holidayService;
-    @Mock private CpmService cpmService;
+    @Mock private CpmRecomputeScheduler cpmScheduler;
     @Mock private HandoverShiftDetector handoverShiftDetector;
     @Mock private ProjectScheduleConfigRepository scheduleConfigRepo;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private DelayLogService service;
 
@@ -77,8 +79,8 @@ class DelayLogServiceCpmHookTest {
 
         service.logDelay(d, 11L, null);
 
-        InOrder ord = inOrder(cpmService, handoverShiftDetector);
-        ord.verify(cpmService).recompute(11L);
+        InOrder ord = inOrder(cpmScheduler, handoverShiftDetector);
+        ord.verify(cpmScheduler).flush(11L);
         ord.verify(handoverShiftDetector).checkAndAlert(11L);
     }
 
@@ -109,8 +111,8 @@ class DelayLogServiceCpmHookTest {
 
         service.closeDelay(7L, LocalDate.of(2026, 7, 8));
 
-        InOrder ord = inOrder(cpmService, handoverShiftDetector);
-        ord.verify(cpmService).recompute(11L);
+        InOrder ord = inOrder(cpmScheduler, handoverShiftDetector);
+        ord.verify(cpmScheduler).flush(11L);
         ord.verify(handoverShiftDetector).checkAndAlert(11L);
     }
 
@@ -149,7 +151,7 @@ class DelayLogServiceCpmHookTest {
         // closeDelay must NOT re-apply the delay duration to the task.
         verify(taskRepository, never()).save(any(Task.class));
         // CPM recompute IS still called (independent change driver).
-        verify(cpmService).recompute(11L);
+        verify(cpmScheduler).flush(11L);
         verify(handoverShiftDetector).checkAndAlert(11L);
     }
 }
@@ -13,6 +13,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -33,6 +34,7 @@ class DelayLogServiceTest {
     @Mock private CustomerProjectRepository projectRepository;
     @Mock private PortalUserRepository portalUserRepository;
     @Mock private WebhookPublisherService webhookPublisherService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private DelayLogService delayLogService;
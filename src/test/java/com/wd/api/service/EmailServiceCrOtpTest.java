@@ -1,37 +1,34 @@
 package com.wd.api.service;
 
 import com.wd.api.model.ProjectVariation;
-import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.mail.javamail.JavaMailSender;
 
 import java.math.BigDecimal;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
-import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
-import static org.mockito.Mockito.when;
 
 class EmailServiceCrOtpTest {
 
     private JavaMailSender mailSender;
+    private MailOutbox mailOutbox;
     private EmailService svc;
 
     @BeforeEach
     void setUp() {
         mailSender = mock(JavaMailSender.class);
-        when(mailSender.createMimeMessage()).thenReturn(mock(MimeMessage.class, RETURNS_DEEP_STUBS));
-        svc = new EmailService(mailSender, true,
-                "noreply@walldotbuilders.com", "info@walldotbuilders.com");
+        mailOutbox = mock(MailOutbox.class);
+        svc = new EmailService(mailSender, mailOutbox, new MailTemplates(), true, "info@walldotbuilders.com");
     }
 
     @Test
-    void sendCrApprovalOtpInvokesMailSenderOnce() {
+    void sendCrApprovalOtpQueuesOneMail() {
         ProjectVariation cr = new ProjectVariation();
         cr.setId(42L);
         cr.setDescription("Add 2 extra rooms on first floor");
@@ -39,13 +36,16 @@ class EmailServiceCrOtpTest {
 
         svc.sendCrApprovalOtp("ravi@example.com", "Ravi Kumar", "123456", cr, 15);
 
-        verify(mailSender, times(1)).send(any(MimeMessage.class));
+        ArgumentCaptor<MailOutbox.Mail> mail = ArgumentCaptor.forClass(MailOutbox.Mail.class);
+        verify(mailOutbox, times(1)).enqueue(mail.capture());
+        assertThat(mail.getValue().to()).isEqualTo("ravi@example.com");
+        assertThat(mail.getValue().html()).contains("123456");
+        verifyNoInteractions(mailSender);
     }
 
     @Test
     void sendCrApprovalOtpFallsBackToSimulationWhenDisabled() {
-        svc = new EmailService(mailSender, false,
-                "noreply@walldotbuilders.com", "info@walldotbuilders.com");
+        svc = new EmailService(mailSender, mailOutbox, new MailTemplates(), false, "info@walldotbuilders.com");
         ProjectVariation cr = new ProjectVariation();
         cr.setId(42L);
         cr.setDescription("Whatever");
@@ -53,7 +53,7 @@ class EmailServiceCrOtpTest {
 
         svc.sendCrApprovalOtp("a@b.com", "Name", "999000", cr, 15);
 
-        verifyNoInteractions(mailSender);
+        verifyNoInteractions(mailSender, mailOutbox);
     }
 
     @Test
@@ -0,0 +1,75 @@
+package com.wd.api.service;
+
+import com.wd.api.config.FileUploadConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * FileStorageService.storeOptimizedImages: parallel encode keeps input order,
+ * and one failed photo leaves no files from the batch behind.
+ */
+class FileStorageServiceTest {
+
+    @TempDir Path storage;
+
+    private FileStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new FileStorageService(new FileUploadConfig(), storage.toString(),
+                new ImageOptimizer(2048, 0.82f, 2), new StorageBlobStore(storage.toString(), null, null, false), 3, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static MockMultipartFile photo(String name, int width) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, 100, BufferedImage.TYPE_INT_RGB), "jpg", out);
+        return new MockMultipartFile("photos", name, "image/jpeg", out.toByteArray());
+    }
+
+    @Test
+    void storeOptimizedImages_encodesInParallel_andKeepsInputOrder() throws IOException {
+        List<MultipartFile> photos = List.of(photo("a.jpg", 110), photo("b.jpg", 120), photo("c.jpg", 130),
+                photo("d.jpg", 140), photo("e.jpg", 150), photo("f.jpg", 160));
+
+        List<String> stored = service.storeOptimizedImages(photos, "site-reports/7");
+
+        assertThat(stored).hasSize(6).allMatch(path -> path.startsWith("site-reports/7/"));
+        for (int i = 0; i < stored.size(); i++) {
+            BufferedImage written = ImageIO.read(service.getFilePath(stored.get(i)).toFile());
+            assertThat(written.getWidth()).isEqualTo(110 + i * 10);
+        }
+    }
+
+    @Test
+    void storeOptimizedImages_oneFailure_removesTheRestOfTheBatch() throws IOException {
+        List<MultipartFile> photos = List.of(photo("a.jpg", 110), photo("../b.jpg", 120), photo("c.jpg", 130));
+
+        assertThatThrownBy(() -> service.storeOptimizedImages(photos, "site-reports/8"))
+                .hasMessageContaining("invalid path sequence");
+
+        try (Stream<Path> files = Files.list(storage.resolve("site-reports/8"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
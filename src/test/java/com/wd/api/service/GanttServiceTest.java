@@ -31,7 +31,7 @@ class GanttServiceTest {
     private TaskPredecessorRepository taskPredecessorRepository;
 
     @Mock
-    private com.wd.api.service.scheduling.CpmService cpmService;
+    private com.wd.api.service.scheduling.CpmRecomputeScheduler cpmScheduler;
 
     @InjectMocks
     private GanttService ganttService;
@@ -0,0 +1,203 @@
+package com.wd.api.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ImageOptimizer: EXIF orientation, alpha, non-image input, and the bounded
+ * decode of a 12 MP photo.
+ *
+ * <p>The last case is tagged {@code benchmark} and left out of the default
+ * run: it logs allocated heap and wall time per photo for {@code ImageIO.read}
+ * plus a full-size re-encode (the previous storeOptimizedImage path) against
+ * the subsampled pipeline, and only asserts the allocation ratio.
+ */
+class ImageOptimizerTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageOptimizerTest.class);
+
+    private static byte[] twelveMegapixelJpeg;
+
+    @TempDir Path dir;
+
+    private final ImageOptimizer optimizer = new ImageOptimizer(2048, 0.82f, 2);
+
+    private static void createPhoto() throws IOException {
+        BufferedImage photo = new BufferedImage(4000, 3000, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = photo.createGraphics();
+        for (int x = 0; x < 4000; x += 100) {
+            g.setColor(new Color((x * 7) % 256, (x * 13) % 256, (x * 3) % 256));
+            g.fillRect(x, 0, 100, 3000);
+        }
+        g.dispose();
+        twelveMegapixelJpeg = jpeg(photo);
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    /** Splice an EXIF APP1 segment with only an Orientation entry in right after SOI. */
+    private static byte[] withOrientation(byte[] jpeg, int orientation, boolean littleEndian) {
+        byte[] tiff = littleEndian
+                ? new byte[] {'I', 'I', 42, 0, 8, 0, 0, 0, 1, 0, 0x12, 0x01, 3, 0, 1, 0, 0, 0,
+                        (byte) orientation, 0, 0, 0, 0, 0, 0, 0}
+                : new byte[] {'M', 'M', 0, 42, 0, 0, 0, 8, 0, 1, 0x01, 0x12, 0, 3, 0, 0, 0, 1,
+                        0, (byte) orientation, 0, 0, 0, 0, 0, 0};
+        int length = 2 + 6 + tiff.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.writeBytes(new byte[] {(byte) 0xFF, (byte) 0xE1, (byte) (length >> 8), (byte) length,
+                'E', 'x', 'i', 'f', 0, 0});
+        out.writeBytes(tiff);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    @Test
+    void exifOrientation_readsBothByteOrders_andDefaultsToUpright() throws IOException {
+        byte[] plain = jpeg(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB));
+
+        assertThat(ImageOptimizer.exifOrientation(new ByteArrayInputStream(withOrientation(plain, 6, true)))).isEqualTo(6);
+        assertThat(ImageOptimizer.exifOrientation(new ByteArrayInputStream(withOrientation(plain, 8, false)))).isEqualTo(8);
+        assertThat(ImageOptimizer.exifOrientation(new ByteArrayInputStream(plain))).isEqualTo(1);
+        assertThat(ImageOptimizer.exifOrientation(new ByteArrayInputStream("%PDF-1.7".getBytes()))).isEqualTo(1);
+    }
+
+    @Test
+    void writeJpeg_rotatesPortraitPhotoUpright() throws IOException {
+        // Sensor-landscape frame, left half red / right half blue, tagged "rotate 90 CW".
+        BufferedImage sensor = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = sensor.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 200, 200);
+        g.setColor(Color.BLUE);
+        g.fillRect(200, 0, 200, 200);
+        g.dispose();
+        Path out = dir.resolve("rotated.jpg");
+
+        ImageOptimizer.Result result = optimizer.writeJpeg(
+                new ByteArrayResource(withOrientation(jpeg(sensor), 6, false)), out);
+
+        assertThat(result.orientation()).isEqualTo(6);
+        BufferedImage written = ImageIO.read(out.toFile());
+        assertThat(written.getWidth()).isEqualTo(200);
+        assertThat(written.getHeight()).isEqualTo(400);
+        assertThat(new Color(written.getRGB(100, 50)).getRed()).isGreaterThan(200);
+        assertThat(new Color(written.getRGB(100, 350)).getBlue()).isGreaterThan(200);
+    }
+
+    @Test
+    void writeJpeg_compositesTransparencyOntoWhite() throws IOException {
+        BufferedImage png = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(png, "png", bytes);
+        Path out = dir.resolve("alpha.jpg");
+
+        optimizer.writeJpeg(new ByteArrayResource(bytes.toByteArray()), out);
+
+        Color pixel = new Color(ImageIO.read(out.toFile()).getRGB(32, 32));
+        assertThat(pixel.getRed()).isGreaterThan(245);
+        assertThat(pixel.getGreen()).isGreaterThan(245);
+        assertThat(pixel.getBlue()).isGreaterThan(245);
+    }
+
+    @Test
+    void writeJpeg_returnsNullForNonImages() throws IOException {
+        Path out = dir.resolve("doc.jpg");
+
+        assertThat(optimizer.writeJpeg(new ByteArrayResource("%PDF-1.7 not an image".getBytes()), out)).isNull();
+        assertThat(out).doesNotExist();
+    }
+
+    @Test
+    void writeJpeg_replacesTargetWithoutTouchingHardLinksToIt() throws IOException {
+        Path target = dir.resolve("p.preview.jpg");
+        Files.writeString(target, "previous rendition");
+        Path link = dir.resolve("shared.jpg");
+        Files.createLink(link, target);
+
+        optimizer.writeJpeg(new ByteArrayResource(jpeg(new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB))), target);
+
+        assertThat(ImageIO.read(target.toFile()).getWidth()).isEqualTo(64);
+        assertThat(Files.readString(link)).isEqualTo("previous rendition");
+        try (var files = Files.list(dir)) {
+            assertThat(files.map(p -> p.getFileName().toString())).containsExactlyInAnyOrder("p.preview.jpg", "shared.jpg");
+        }
+    }
+
+    @Test
+    void subsampling_keepsDecodedEdgeBetweenThreeQuartersAndOneAndAHalfOfMax() {
+        assertThat(ImageOptimizer.subsampling(4000, 3000, 2048)).isEqualTo(2);
+        assertThat(ImageOptimizer.subsampling(2100, 1400, 2048)).isEqualTo(1);
+        assertThat(ImageOptimizer.subsampling(8000, 6000, 2048)).isEqualTo(4);
+        assertThat(ImageOptimizer.subsampling(1024, 768, 2048)).isEqualTo(1);
+        assertThat(ImageOptimizer.subsampling(4000, 3000, 256)).isEqualTo(16);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void twelveMegapixelPhoto_boundedHeapAndTime_vsFullDecode() throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        createPhoto();
+        int photos = 3;
+
+        // Warm both paths (codec class loading, writer pool).
+        fullDecode(dir.resolve("warm-full.jpg"));
+        optimizer.writeJpeg(new ByteArrayResource(twelveMegapixelJpeg), dir.resolve("warm-opt.jpg"));
+
+        long a0 = threads.getThreadAllocatedBytes(thread);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < photos; i++) {
+            fullDecode(dir.resolve("full-" + i + ".jpg"));
+        }
+        double fullMs = (System.nanoTime() - t0) / 1e6 / photos;
+        double fullMb = (threads.getThreadAllocatedBytes(thread) - a0) / 1048576.0 / photos;
+
+        ImageOptimizer.Result result = null;
+        a0 = threads.getThreadAllocatedBytes(thread);
+        t0 = System.nanoTime();
+        for (int i = 0; i < photos; i++) {
+            result = optimizer.writeJpeg(new ByteArrayResource(twelveMegapixelJpeg), dir.resolve("opt-" + i + ".jpg"));
+        }
+        double optMs = (System.nanoTime() - t0) / 1e6 / photos;
+        double optMb = (threads.getThreadAllocatedBytes(thread) - a0) / 1048576.0 / photos;
+
+        log.info("4000x3000 JPEG per photo: ImageIO.read + full re-encode {} ms, {} MB allocated; "
+                        + "subsampled pipeline {} ms, {} MB allocated ({}x{}, 1/{} decode)",
+                Math.round(fullMs), Math.round(fullMb), Math.round(optMs), Math.round(optMb),
+                result.width(), result.height(), result.subsampling());
+
+        assertThat(result.width()).isEqualTo(2000);
+        assertThat(result.height()).isEqualTo(1500);
+        assertThat(Files.size(dir.resolve("opt-0.jpg"))).isPositive();
+        assertThat(optMb).isLessThan(fullMb / 2);
+    }
+
+    /** The previous storeOptimizedImage path: full-resolution decode and encode. */
+    private static void fullDecode(Path destination) throws IOException {
+        BufferedImage full = ImageIO.read(new ByteArrayInputStream(twelveMegapixelJpeg));
+        ImageIO.write(full, "jpg", destination.toFile());
+    }
+}
@@ -0,0 +1,221 @@
+package com.wd.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * MailDispatcher against a minimal local SMTP server: batching over one
+ * connection, per-mail outcomes for refused recipients, retry/dead-letter on
+ * connection failure and the provider rate limit.
+ */
+@ExtendWith(MockitoExtension.class)
+class MailDispatcherTest {
+
+    @Mock MailOutbox outbox;
+
+    private StubSmtpServer smtp;
+    private JavaMailSenderImpl mailSender;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new StubSmtpServer();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    private MailDispatcher dispatcher(int ratePerMinute) {
+        return new MailDispatcher(outbox, mailSender, meterRegistry, true, "noreply@walldot.com", 50, ratePerMinute);
+    }
+
+    private static List<MailOutbox.Queued> queued(int count, int attempts) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new MailOutbox.Queued(id,
+                        MailOutbox.Mail.text("user" + id + "@example.com", "Partner approved", "Welcome aboard"),
+                        attempts))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MailOutbox.Outcome> recorded() {
+        ArgumentCaptor<List<MailOutbox.Outcome>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outbox).record(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void dispatch_sendsWholeBatchOverOneConnection() {
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(queued(30, 0));
+
+        dispatcher(600).dispatch();
+
+        assertThat(smtp.connections()).isEqualTo(1);
+        assertThat(smtp.messages()).isEqualTo(30);
+        assertThat(recorded()).hasSize(30).allSatisfy(o -> {
+            assertThat(o.status()).isEqualTo("SENT");
+            assertThat(o.sentAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void refusedRecipient_isRetriedAlone_restOfBatchIsSent() {
+        List<MailOutbox.Queued> batch = new ArrayList<>(queued(3, 0));
+        batch.set(1, new MailOutbox.Queued(2L, MailOutbox.Mail.text("bounce@example.com", "Hi", "Body"), 0));
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(batch);
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher(600).dispatch();
+
+        List<MailOutbox.Outcome> outcomes = recorded();
+        assertThat(outcomes).filteredOn(o -> o.id() == 2L).singleElement().satisfies(o -> {
+            assertThat(o.status()).isEqualTo("FAILED");
+            assertThat(o.nextAttemptAt()).isAfter(before.plusSeconds(29));
+        });
+        assertThat(outcomes).filteredOn(o -> o.id() != 2L).allMatch(o -> o.status().equals("SENT"));
+        assertThat(smtp.messages()).isEqualTo(2);
+    }
+
+    @Test
+    void serverDown_failsBatch_andDeadLettersOnLastAttempt() throws IOException {
+        smtp.close();
+        List<MailOutbox.Queued> batch = List.of(
+                queued(1, 0).get(0),
+                new MailOutbox.Queued(9L, MailOutbox.Mail.text("x@example.com", "Hi", "Body"),
+                        MailDispatcher.MAX_ATTEMPTS - 1));
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(batch);
+
+        dispatcher(600).dispatch();
+
+        List<MailOutbox.Outcome> outcomes = recorded();
+        assertThat(outcomes).filteredOn(o -> o.id() == 1L).singleElement()
+                .satisfies(o -> assertThat(o.status()).isEqualTo("FAILED"));
+        assertThat(outcomes).filteredOn(o -> o.id() == 9L).singleElement().satisfies(o -> {
+            assertThat(o.status()).isEqualTo("DEAD");
+            assertThat(o.nextAttemptAt()).isNull();
+        });
+    }
+
+    @Test
+    void rateLimit_capsClaim_andStopsWhenExhausted() {
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(queued(10, 0));
+        MailDispatcher dispatcher = dispatcher(10);
+
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+
+        verify(outbox, times(1)).claim(eq(10), any(), any());
+        assertThat(smtp.messages()).isEqualTo(10);
+        assertThat(meterRegistry.counter("mail.ratelimited").count()).isEqualTo(2);
+    }
+
+    /** Just enough SMTP to accept mail; refuses any recipient containing "bounce". */
+    private static final class StubSmtpServer implements AutoCloseable {
+
+        private final ServerSocket socket = new ServerSocket(0);
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+
+        StubSmtpServer() throws IOException {
+            Thread acceptor = new Thread(() -> {
+                while (!socket.isClosed()) {
+                    try {
+                        Socket client = socket.accept();
+                        connections.incrementAndGet();
+                        Thread session = new Thread(() -> serve(client));
+                        session.setDaemon(true);
+                        session.start();
+                    } catch (IOException closed) {
+                        return;
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        int connections() {
+            return connections.get();
+        }
+
+        int messages() {
+            return messages.get();
+        }
+
+        private void serve(Socket client) {
+            try (client;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.UTF_8)) {
+                reply(out, "220 stub ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("RCPT") && command.contains("BOUNCE")) {
+                        reply(out, "550 No such user");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // discard body
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 OK queued");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException ignored) {
+                // client hung up
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
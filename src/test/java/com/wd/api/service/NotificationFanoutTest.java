@@ -0,0 +1,135 @@
+package com.wd.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * NotificationFanout without a database: rows go in as multi-row INSERTs of at
+ * most insert-batch-size, devices get one multicast, deferred work waits for
+ * the caller's commit, and failures are counted instead of thrown.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationFanoutTest {
+
+    @Mock JdbcTemplate jdbcTemplate;
+    @Mock PlatformTransactionManager transactionManager;
+    @Mock PushNotificationService pushNotificationService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static final NotificationFanout.Message LEAD = new NotificationFanout.Message(
+            "New lead", "Ravi — Kochi", "LEAD_NEW", 42L, null, null, Map.of("type", "LEAD_NEW"));
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private NotificationFanout fanout(boolean deferred) {
+        return new NotificationFanout(jdbcTemplate, transactionManager, pushNotificationService,
+                new NotificationStreamRegistry(meterRegistry, 10, 2, Duration.ofMinutes(1)),
+                meterRegistry, deferred, 1, 10, 500);
+    }
+
+    private static List<NotificationFanout.Recipient> users(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new NotificationFanout.Recipient(id, id % 3 == 0 ? null : "token-" + id))
+                .toList();
+    }
+
+    @Test
+    void inline_insertsInChunks_andPushesOneMulticast() {
+        fanout(false).submit(NotificationFanout.Audience.PORTAL, () -> users(1200), LEAD);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(3)).update(sql.capture(), args.capture());
+        assertThat(sql.getValue()).startsWith("INSERT INTO portal_notifications (portal_user_id, project_id, lead_id,");
+        // 500 + 500 + 200 rows, 8 bound values each
+        assertThat(args.getAllValues()).extracting(a -> a.length).containsExactly(4000, 4000, 1600);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> tokens = ArgumentCaptor.forClass(List.class);
+        verify(pushNotificationService).sendToTokens(tokens.capture(), eq("New lead"), eq("Ravi — Kochi"), any());
+        assertThat(tokens.getValue()).hasSize(800);
+        assertThat(meterRegistry.counter("notification.fanout.recipients", "audience", "portal").count())
+                .isEqualTo(1200);
+    }
+
+    @Test
+    void customerAudience_hasNoLeadColumn_andDuplicatesAreDropped() {
+        List<NotificationFanout.Recipient> members = List.of(
+                new NotificationFanout.Recipient(5L, "a"), new NotificationFanout.Recipient(5L, "a"),
+                new NotificationFanout.Recipient(6L, null));
+
+        fanout(false).submit(NotificationFanout.Audience.CUSTOMER, () -> members, LEAD);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(
+                startsWith("INSERT INTO customer_notifications (customer_user_id, project_id, title,"),
+                args.capture());
+        assertThat(args.getValue()).hasSize(14);
+        verify(pushNotificationService).sendToTokens(eq(List.of("a")), anyString(), anyString(), any());
+    }
+
+    @Test
+    void deferred_waitsForCommit_thenRunsOffThread() {
+        TransactionSynchronizationManager.initSynchronization();
+        NotificationFanout fanout = fanout(true);
+
+        fanout.submit(NotificationFanout.Audience.PORTAL, () -> users(3), LEAD);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(pushNotificationService, timeout(2000)).sendToTokens(anyList(), anyString(), anyString(), any());
+        verify(jdbcTemplate).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void insertFailure_isCounted_andNothingIsPushed() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenThrow(new IllegalStateException("db down"));
+
+        fanout(false).submit(NotificationFanout.Audience.PORTAL, () -> users(5), LEAD);
+
+        verify(pushNotificationService, never()).sendToTokens(anyList(), anyString(), anyString(), any());
+        assertThat(meterRegistry.counter("notification.fanout.failures", "audience", "portal", "stage", "insert").count())
+                .isEqualTo(1);
+    }
+}
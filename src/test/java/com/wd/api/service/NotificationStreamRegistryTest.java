@@ -0,0 +1,115 @@
+package com.wd.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * NotificationStreamRegistry bookkeeping without a servlet container: node and
+ * per-user caps, fallback signalling, publishing on the registry's own thread,
+ * and cleanup of streams whose client has gone away.
+ */
+class NotificationStreamRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationStreamRegistry registry(int maxConnections, int maxPerUser) {
+        return new NotificationStreamRegistry(meterRegistry, maxConnections, maxPerUser, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void open_beyondNodeCap_returnsNull_soClientFallsBackToPolling() {
+        NotificationStreamRegistry registry = registry(2, 5);
+
+        assertThat(registry.open(1L, 3)).isNotNull();
+        assertThat(registry.open(2L, 0)).isNotNull();
+        assertThat(registry.open(3L, 7)).isNull();
+
+        assertThat(registry.connectionCount()).isEqualTo(2);
+        assertThat(registry.isConnected(3L)).isFalse();
+        assertThat(meterRegistry.counter("notifications.stream.rejected").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("notifications.stream.connections").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void open_beyondPerUserCap_evictsOldestTab() {
+        NotificationStreamRegistry registry = registry(10, 2);
+
+        registry.open(1L, 0);
+        registry.open(1L, 0);
+        registry.open(1L, 0);
+
+        assertThat(registry.connectionCount()).isEqualTo(2);
+        assertThat(registry.isConnected(1L)).isTrue();
+    }
+
+    @Test
+    void publish_reachesOpenStreams_andDropsClosedOnes() {
+        NotificationStreamRegistry registry = registry(10, 5);
+        registry.open(1L, 0);
+        SseEmitter closed = registry.open(2L, 0);
+        closed.complete();
+
+        registry.publishNotification(1L, Map.of("title", "New lead"), () -> 1);
+        registry.publishUnreadCount(2L, () -> 0);
+
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() ->
+                assertThat(meterRegistry.counter("notifications.stream.events").count()).isEqualTo(2));
+        assertThat(registry.isConnected(1L)).isTrue();
+        assertThat(registry.isConnected(2L)).isFalse();
+        assertThat(registry.connectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void publish_runsOffTheCallingThread_andSkipsTheCountWhenNobodyListens() {
+        NotificationStreamRegistry registry = registry(10, 5);
+        registry.open(1L, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> countedOn = new AtomicReference<>();
+        AtomicBoolean countedForNobody = new AtomicBoolean();
+
+        registry.publishUnreadCount(1L, () -> {
+            countedOn.set(Thread.currentThread().getName());
+            awaitQuietly(release); // a stalled client: the caller must not wait for it
+            return 0;
+        });
+        registry.publishUnreadCount(9L, () -> {
+            countedForNobody.set(true);
+            return 0;
+        });
+        release.countDown();
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> countedOn.get() != null);
+        assertThat(countedOn.get()).isEqualTo("notification-publish");
+        assertThat(countedForNobody).isFalse();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void heartbeat_removesStreamsThatCanNoLongerBeWritten() {
+        NotificationStreamRegistry registry = registry(10, 5);
+        registry.open(1L, 0).complete();
+        registry.open(2L, 0);
+
+        registry.heartbeat();
+
+        assertThat(registry.isConnected(1L)).isFalse();
+        assertThat(registry.connectionCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,173 @@
+package com.wd.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PhotoRenditionService: rendition naming, the generated sizes and the rows
+ * they are recorded on, the non-image fallback (but no fallback on I/O
+ * failures or missing originals), and the backfill keyset walk.
+ */
+@ExtendWith(MockitoExtension.class)
+class PhotoRenditionServiceTest {
+
+    @Mock private FileStorageService fileStorageService;
+    @Mock private JdbcTemplate jdbcTemplate;
+
+    @TempDir Path storage;
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private PhotoRenditionService service;
+
+    @BeforeEach
+    void setUp() {
+        // Lenient: the pure naming test never resolves a path.
+        lenient().when(fileStorageService.getFilePath(anyString()))
+                .thenAnswer(inv -> storage.resolve((String) inv.getArgument(0)));
+        service = new PhotoRenditionService(fileStorageService, new ImageOptimizer(2048, 0.82f, 1),
+                jdbcTemplate, meters, false, 1, 10);
+    }
+
+    private void photo(String path, int width, int height) throws IOException {
+        Path file = storage.resolve(path);
+        Files.createDirectories(file.getParent());
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", file.toFile());
+    }
+
+    @Test
+    void pathFor_placesRenditionBesideOriginal_andParseIsLenientOnCase() {
+        assertThat(PhotoRenditionService.pathFor("site-reports/42/a1b2.jpg", PhotoRenditionService.Variant.THUMB))
+                .isEqualTo("site-reports/42/a1b2.thumb.jpg");
+        assertThat(PhotoRenditionService.pathFor("gallery/7/plan.v2.png", PhotoRenditionService.Variant.PREVIEW))
+                .isEqualTo("gallery/7/plan.v2.preview.jpg");
+        assertThat(PhotoRenditionService.pathFor("gallery/7.d/noext", PhotoRenditionService.Variant.THUMB))
+                .isEqualTo("gallery/7.d/noext.thumb.jpg");
+        assertThat(PhotoRenditionService.Variant.parse(" Thumb ")).isEqualTo(PhotoRenditionService.Variant.THUMB);
+        assertThat(PhotoRenditionService.Variant.parse("original")).isNull();
+    }
+
+    @Test
+    void generate_writesBoundedRenditions_andRecordsThemOnBothTables() throws IOException {
+        photo("site-reports/9/p.jpg", 2000, 1500);
+
+        service.generateAfterCommit(List.of("site-reports/9/p.jpg"));
+
+        BufferedImage preview = ImageIO.read(storage.resolve("site-reports/9/p.preview.jpg").toFile());
+        BufferedImage thumb = ImageIO.read(storage.resolve("site-reports/9/p.thumb.jpg").toFile());
+        // Subsampled decode: long edge lands in [3/4, 1] x the variant's edge, never above it.
+        assertThat(preview.getWidth()).isBetween(960, 1280);
+        assertThat(thumb.getWidth()).isBetween(192, 256);
+        assertThat(thumb.getHeight()).isLessThan(thumb.getWidth());
+        verify(jdbcTemplate).update(PhotoRenditionService.UPDATE_PHOTOS,
+                "site-reports/9/p.thumb.jpg", "site-reports/9/p.preview.jpg", "site-reports/9/p.jpg");
+        verify(jdbcTemplate).update(PhotoRenditionService.UPDATE_GALLERY,
+                "site-reports/9/p.thumb.jpg", "site-reports/9/p.preview.jpg", "site-reports/9/p.jpg");
+        assertThat(meters.counter("media.renditions", "outcome", "rendered").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void generate_nonImage_recordsOriginalSoBackfillDoesNotRetry() throws IOException {
+        Path pdf = storage.resolve("gallery/3/doc.pdf");
+        Files.createDirectories(pdf.getParent());
+        Files.writeString(pdf, "%PDF-1.7");
+
+        service.generateAfterCommit(List.of("gallery/3/doc.pdf"));
+
+        assertThat(storage.resolve("gallery/3/doc.preview.jpg")).doesNotExist();
+        verify(jdbcTemplate).update(PhotoRenditionService.UPDATE_GALLERY,
+                "gallery/3/doc.pdf", "gallery/3/doc.pdf", "gallery/3/doc.pdf");
+        assertThat(meters.counter("media.renditions", "outcome", "not_image").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void generate_corruptImage_recordsOriginal() throws IOException {
+        Path broken = storage.resolve("gallery/3/broken.jpg");
+        Files.createDirectories(broken.getParent());
+        Files.write(broken, new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDB, 0, 2, 9, 9});
+
+        service.generateAfterCommit(List.of("gallery/3/broken.jpg"));
+
+        verify(jdbcTemplate).update(PhotoRenditionService.UPDATE_GALLERY,
+                "gallery/3/broken.jpg", "gallery/3/broken.jpg", "gallery/3/broken.jpg");
+        assertThat(meters.counter("media.renditions", "outcome", "not_image").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void generate_writeFailure_leavesRowsForBackfillRetry() throws IOException {
+        photo("site-reports/9/p.jpg", 600, 400);
+        // A non-empty directory where the preview should go: the write fails like a full disk would.
+        Files.createDirectories(storage.resolve("site-reports/9/p.preview.jpg"));
+        Files.writeString(storage.resolve("site-reports/9/p.preview.jpg/blocker"), "x");
+
+        service.generateAfterCommit(List.of("site-reports/9/p.jpg"));
+
+        verify(jdbcTemplate, never()).update(anyString(), any(), any(), any());
+        assertThat(meters.counter("media.renditions", "outcome", "failed").count()).isEqualTo(1.0);
+        assertThat(meters.counter("media.renditions", "outcome", "not_image").count()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void missingOriginal_recordsNothing_andDoesNotUseUpTheBackfillCap() throws IOException {
+        service.generateAfterCommit(List.of("site-reports/9/gone.jpg"));
+
+        verify(jdbcTemplate, never()).update(anyString(), any(), any(), any());
+        assertThat(meters.counter("media.renditions", "outcome", "missing").count()).isEqualTo(1.0);
+
+        photo("site-reports/9/p.jpg", 300, 200);
+        when(jdbcTemplate.query(eq(PhotoRenditionService.MISSING_PHOTOS), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(inv -> (Long) ((Object[]) inv.getRawArguments()[2])[0] == 0L
+                        ? List.of(new Object[] {11L, "site-reports/9/gone.jpg"}, new Object[] {12L, "site-reports/9/p.jpg"})
+                        : List.of());
+
+        assertThat(service.backfill(1)).isEqualTo(1);
+        assertThat(storage.resolve("site-reports/9/p.thumb.jpg")).exists();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void backfill_walksMissingRowsByKeyset_upToLimit() throws IOException {
+        photo("site-reports/1/a.jpg", 300, 200);
+        photo("site-reports/1/b.jpg", 300, 200);
+        photo("gallery/5/c.jpg", 300, 200);
+        when(jdbcTemplate.query(eq(PhotoRenditionService.MISSING_PHOTOS), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(inv -> (Long) ((Object[]) inv.getRawArguments()[2])[0] == 0L
+                        ? List.of(new Object[] {11L, "site-reports/1/a.jpg"}, new Object[] {12L, "site-reports/1/b.jpg"})
+                        : List.of());
+        when(jdbcTemplate.query(eq(PhotoRenditionService.MISSING_GALLERY), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(inv -> (Long) ((Object[]) inv.getRawArguments()[2])[0] == 0L
+                        ? List.<Object[]>of(new Object[] {40L, "gallery/5/c.jpg"})
+                        : List.of());
+
+        assertThat(service.backfill(10)).isEqualTo(3);
+        verify(jdbcTemplate).query(eq(PhotoRenditionService.MISSING_PHOTOS), any(RowMapper.class), eq(12L), eq(8));
+        assertThat(storage.resolve("gallery/5/c.thumb.jpg")).exists();
+
+        // A cap of two is spent on site-report photos; gallery rows wait for the next run.
+        assertThat(service.backfill(2)).isEqualTo(2);
+        verify(jdbcTemplate, never()).query(eq(PhotoRenditionService.MISSING_GALLERY), any(RowMapper.class), eq(0L), eq(0));
+    }
+}
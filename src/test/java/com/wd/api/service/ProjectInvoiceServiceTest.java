@@ -15,6 +15,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -34,6 +35,7 @@ class ProjectInvoiceServiceTest {
     @Mock private ProjectInvoiceRepository projectInvoiceRepository;
     @Mock private CustomerProjectRepository projectRepository;
     @Mock private ProjectMilestoneRepository milestoneRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private ProjectInvoiceService invoiceService;
@@ -16,16 +16,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -38,11 +42,12 @@ import static org.mockito.Mockito.verify;
  * <ul>
  *   <li>The report row is saved exactly once (regression guard for double
  *       saves slipping in via the refactor).</li>
- *   <li>Each photo is stored via the optimised storage path and persisted
- *       once.</li>
- *   <li>Gallery sync is attempted; a thrown exception there does NOT fail
- *       the operation (audit-confirmed behaviour: the upload the user
- *       made must still succeed even if downstream gallery rows fail).</li>
+ *   <li>All photos are stored in one parallel
+ *       {@code storeOptimizedImages} call, then persisted with their
+ *       gallery rows in one transaction.</li>
+ *   <li>If that transaction fails, the stored files are removed and the
+ *       error propagates; no notification goes out for photos that were
+ *       never saved.</li>
  *   <li>Customer notification + webhook publish are invoked.</li>
  * </ul>
  *
@@ -59,6 +64,8 @@ class SiteReportServiceCreateTest {
     @Mock private GalleryService galleryService;
     @Mock private CustomerNotificationFacade customerNotificationFacade;
     @Mock private WebhookPublisherService webhookPublisherService;
+    @Mock private PhotoRenditionService photoRenditionService;
+    @Mock private PlatformTransactionManager transactionManager;
 
     @InjectMocks private SiteReportService service;
 
@@ -84,12 +91,13 @@ class SiteReportServiceCreateTest {
                     if (r.getId() == null) ReflectionTestUtils.setField(r, "id", 99L);
                     return r;
                 });
-        lenient().when(fileStorageService.storeOptimizedImage(any(MultipartFile.class), anyString()))
+        lenient().when(fileStorageService.storeOptimizedImages(anyList(), anyString()))
                 .thenAnswer(inv -> {
+                    List<MultipartFile> files = inv.getArgument(0);
                     String subDir = inv.getArgument(1);
-                    return subDir + "/" + java.util.UUID.randomUUID() + ".jpg";
+                    return files.stream().map(f -> subDir + "/" + java.util.UUID.randomUUID() + ".jpg").toList();
                 });
-        lenient().when(siteReportPhotoRepository.save(any(SiteReportPhoto.class)))
+        lenient().when(siteReportPhotoRepository.saveAll(anyList()))
                 .thenAnswer(inv -> inv.getArgument(0));
     }
 
@@ -108,10 +116,13 @@ class SiteReportServiceCreateTest {
         // Exactly one report save (regression: a refactored boundary
         // could double-save accidentally).
         verify(siteReportRepository).save(any(SiteReport.class));
-        // Each photo: stored once + row saved once.
-        verify(fileStorageService, atLeastOnce())
-                .storeOptimizedImage(any(MultipartFile.class), anyString());
-        verify(siteReportPhotoRepository, atLeastOnce()).save(any(SiteReportPhoto.class));
+        // Photos: stored in one parallel call, rows + gallery rows saved once, in order.
+        verify(fileStorageService).storeOptimizedImages(photos, "site-reports/99");
+        verify(siteReportPhotoRepository).saveAll(anyList());
+        verify(galleryService).createImagesFromSiteReportPhotos(eq(saved), eq(saved.getPhotos()), eq(submitter));
+        assertThat(saved.getPhotos()).extracting(SiteReportPhoto::getDisplayOrder).containsExactly(0, 1);
+        assertThat(saved.getPhotos()).allSatisfy(p ->
+                assertThat(p.getPhotoUrl()).isEqualTo("/api/storage/" + p.getStoragePath()));
         // Customer + webhook channels both fired.
         verify(customerNotificationFacade).notifyOwners(
                 any(), anyString(), anyString(), anyString(), any());
@@ -119,24 +130,28 @@ class SiteReportServiceCreateTest {
     }
 
     @Test
-    void createReport_galleryFailure_doesNotFailTheOperation() {
-        // Gallery sync is best-effort — the report + photos must persist
-        // even if the customer-facing gallery row creation throws.
-        doThrow(new RuntimeException("gallery offline"))
-                .when(galleryService).createImagesFromSiteReport(any(), any());
+    @SuppressWarnings("unchecked")
+    void createReport_rowInsertFailure_removesStoredFilesAndReportAndFails() {
+        // Photo and gallery rows share one transaction; if it fails neither the
+        // encoded files nor the already-committed report row may be left behind.
+        doThrow(new RuntimeException("gallery insert failed"))
+                .when(galleryService).createImagesFromSiteReportPhotos(any(), anyList(), any());
 
         SiteReport report = baseReport();
         List<MultipartFile> photos = List.of(
-                new MockMultipartFile("photos", "x.jpg", "image/jpeg", new byte[]{9}));
-
-        SiteReport saved = service.createReport(report, photos, submitter);
-
-        assertThat(saved).isNotNull();
-        assertThat(saved.getId()).isEqualTo(99L);
-        // Notification + webhook still fire even though gallery threw.
-        verify(customerNotificationFacade).notifyOwners(
-                any(), anyString(), anyString(), anyString(), any());
-        verify(webhookPublisherService).publishSiteReportSubmitted(any(), any(), anyString());
+                new MockMultipartFile("photos", "x.jpg", "image/jpeg", new byte[]{9}),
+                new MockMultipartFile("photos", "y.jpg", "image/jpeg", new byte[]{8}));
+
+        assertThatThrownBy(() -> service.createReport(report, photos, submitter))
+                .hasMessage("gallery insert failed");
+
+        ArgumentCaptor<List<String>> removed = ArgumentCaptor.forClass(List.class);
+        verify(fileStorageService).deleteFilesQuietly(removed.capture());
+        assertThat(removed.getValue()).hasSize(2).allMatch(path -> path.startsWith("site-reports/99/"));
+        assertThat(report.getPhotos()).isEmpty();
+        verify(siteReportRepository).deleteById(99L);
+        verify(photoRenditionService, never()).generateAfterCommit(anyList());
+        verify(customerNotificationFacade, never()).notifyOwners(any(), any(), any(), any(), any());
     }
 
     @Test
@@ -0,0 +1,214 @@
+package com.wd.api.service;
+
+import com.wd.api.scheduler.StorageDedupeJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * StorageBlobStore and StorageDedupeJob against a real filesystem and an
+ * in-memory H2 (PostgreSQL mode) holding the V173 tables: duplicates become
+ * hard links, references count per path, the last release removes the blob,
+ * the bookkeeping follows the caller's transaction, and the dedupe pass
+ * reports what it reclaimed.
+ */
+class StorageBlobStoreTest {
+
+    private static final List<String> OWNED_DIRS = List.of("projects", "site-reports", "gallery");
+
+    @TempDir Path storage;
+
+    private JdbcTemplate jdbc;
+    private StorageBlobStore store;
+    private TransactionTemplate callerTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:blobs-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE storage_blobs (id BIGSERIAL PRIMARY KEY, sha256 CHAR(64) NOT NULL UNIQUE,"
+                + " size_bytes BIGINT NOT NULL, ref_count INTEGER NOT NULL DEFAULT 0,"
+                + " created_at TIMESTAMP NOT NULL DEFAULT NOW())");
+        jdbc.execute("CREATE TABLE storage_blob_paths (path VARCHAR(500) PRIMARY KEY,"
+                + " blob_id BIGINT NOT NULL REFERENCES storage_blobs(id), created_at TIMESTAMP NOT NULL DEFAULT NOW())");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        store = new StorageBlobStore(storage.toString(), jdbc, transactionManager, true);
+        callerTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    private Path write(String relativePath, String content) throws IOException {
+        Path file = storage.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private int refCount() {
+        return jdbc.queryForObject("SELECT ref_count FROM storage_blobs", Integer.class);
+    }
+
+    @Test
+    void adopt_linksDuplicateToExistingBlob_andCountsReferences() throws IOException {
+        Path lead = write("leads/3/a.pdf", "same quotation bytes");
+        Path project = write("projects/9/b.pdf", "same quotation bytes");
+
+        StorageBlobStore.Adoption first = store.adopt("leads/3/a.pdf");
+        StorageBlobStore.Adoption second = store.adopt("projects/9/b.pdf");
+
+        assertThat(first.duplicate()).isFalse();
+        assertThat(second.duplicate()).isTrue();
+        assertThat(second.reclaimedBytes()).isEqualTo(20);
+        assertThat(second.sha256()).isEqualTo(first.sha256());
+        assertThat(Files.isSameFile(lead, project)).isTrue();
+        assertThat(Files.isSameFile(project, store.blobPath(first.sha256()))).isTrue();
+        assertThat(Files.readString(project)).isEqualTo("same quotation bytes");
+        assertThat(refCount()).isEqualTo(2);
+
+        assertThat(store.adopt("projects/9/b.pdf")).isNull();
+        assertThat(refCount()).isEqualTo(2);
+    }
+
+    @Test
+    void release_decrementsUntilLastReferenceRemovesBlob() throws IOException {
+        write("leads/3/a.pdf", "shared");
+        Path project = write("projects/9/b.pdf", "shared");
+        String sha = store.adopt("leads/3/a.pdf").sha256();
+        store.adopt("projects/9/b.pdf");
+
+        store.release("leads/3/a.pdf");
+        Files.delete(storage.resolve("leads/3/a.pdf"));
+
+        assertThat(refCount()).isEqualTo(1);
+        assertThat(store.blobPath(sha)).exists();
+        assertThat(Files.readString(project)).isEqualTo("shared");
+
+        store.release("projects/9/b.pdf");
+        store.release("projects/9/b.pdf"); // second call: already released, no-op
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM storage_blobs", Integer.class)).isZero();
+        assertThat(store.blobPath(sha)).doesNotExist();
+        assertThat(Files.readString(project)).isEqualTo("shared"); // the path itself is the caller's to delete
+    }
+
+    @Test
+    void release_insideCallerTransaction_deletesBlobFileOnlyAfterCommit() throws IOException {
+        write("uploads/a.pdf", "released bytes");
+        String sha = store.adopt("uploads/a.pdf").sha256();
+
+        callerTransaction.executeWithoutResult(status -> {
+            store.release("uploads/a.pdf");
+            status.setRollbackOnly();
+        });
+        assertThat(store.isMapped("uploads/a.pdf")).isTrue();
+        assertThat(store.blobPath(sha)).exists();
+
+        callerTransaction.executeWithoutResult(status -> {
+            store.release("uploads/a.pdf");
+            assertThat(store.blobPath(sha)).exists();
+        });
+        assertThat(store.isMapped("uploads/a.pdf")).isFalse();
+        assertThat(store.blobPath(sha)).doesNotExist();
+    }
+
+    @Test
+    void dedupeJob_removesBlobsOfRolledBackAdoptions() throws IOException {
+        write("uploads/failed.pdf", "upload rolled back");
+        String sha = callerTransaction.execute(status -> {
+            try {
+                String adopted = store.adopt("uploads/failed.pdf").sha256();
+                status.setRollbackOnly();
+                return adopted;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Files.delete(storage.resolve("uploads/failed.pdf"));
+        assertThat(store.blobPath(sha)).exists();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM storage_blobs", Integer.class)).isZero();
+
+        StorageDedupeJob.Report report = new StorageDedupeJob(store, Duration.ZERO, OWNED_DIRS).run();
+
+        assertThat(report.orphanBlobsRemoved()).isEqualTo(1);
+        assertThat(report.failures()).isZero();
+        assertThat(store.blobPath(sha)).doesNotExist();
+    }
+
+    @Test
+    void dedupeJob_adoptsLegacyFiles_reportsReclaimedBytes_andReleasesStaleMappings() throws IOException {
+        write("site-reports/1/p.jpg", "photo-bytes-0123456789");
+        write("gallery/1/copy.jpg", "photo-bytes-0123456789");
+        write("projects/2/other.pdf", "different");
+        write("uploads/gone.txt", "deleted behind our back");
+        store.adopt("uploads/gone.txt");
+        Files.delete(storage.resolve("uploads/gone.txt"));
+
+        StorageDedupeJob.Report report = new StorageDedupeJob(store, Duration.ZERO, OWNED_DIRS).run();
+
+        assertThat(report.filesScanned()).isEqualTo(3);
+        assertThat(report.filesAdopted()).isEqualTo(3);
+        assertThat(report.duplicatesLinked()).isEqualTo(1);
+        assertThat(report.bytesReclaimed()).isEqualTo(22);
+        assertThat(report.recentFilesSkipped()).isZero();
+        assertThat(report.stalePathsReleased()).isEqualTo(1);
+        assertThat(report.orphanBlobsRemoved()).isZero();
+        assertThat(report.failures()).isZero();
+        assertThat(Files.isSameFile(storage.resolve("site-reports/1/p.jpg"), storage.resolve("gallery/1/copy.jpg")))
+                .isTrue();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM storage_blob_paths", Integer.class)).isEqualTo(3);
+
+        StorageDedupeJob.Report rerun = new StorageDedupeJob(store, Duration.ZERO, OWNED_DIRS).run();
+        assertThat(rerun.filesAdopted()).isZero();
+        assertThat(rerun.bytesReclaimed()).isZero();
+    }
+
+    @Test
+    void dedupeJob_leavesRecentFiles_renditions_temporariesAndForeignDirectoriesAlone() throws IOException {
+        Path settled = write("projects/2/old.pdf", "settled bytes");
+        Files.setLastModifiedTime(settled, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        write("projects/2/new.pdf", "settled bytes");
+        Path rendition = write("site-reports/1/p.thumb.jpg", "thumb");
+        Files.setLastModifiedTime(rendition, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path temporary = write("site-reports/1/.p.jpg.1234.tmp", "half-writ");
+        Files.setLastModifiedTime(temporary, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path foreign = write("uploads/customer.pdf", "settled bytes");
+        Files.setLastModifiedTime(foreign, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        StorageDedupeJob.Report report = new StorageDedupeJob(store, Duration.ofMinutes(10), OWNED_DIRS).run();
+
+        assertThat(report.filesScanned()).isEqualTo(2);
+        assertThat(report.filesAdopted()).isEqualTo(1);
+        assertThat(report.recentFilesSkipped()).isEqualTo(1);
+        assertThat(store.mappedPaths()).containsExactly("projects/2/old.pdf");
+    }
+
+    @Test
+    void adopt_skipsEmptyFiles() throws IOException {
+        write("uploads/empty.txt", "");
+
+        assertThat(store.adopt("uploads/empty.txt")).isNull();
+        assertThat(store.isMapped("uploads/empty.txt")).isFalse();
+    }
+}
@@ -0,0 +1,98 @@
+package com.wd.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * StorageBlobStore called from inside a transaction of the application's
+ * {@link JpaTransactionManager}, as {@code DocumentService} and
+ * {@code SiteReportService} call it: the bookkeeping joins that transaction,
+ * a released blob file outlives it until commit, and a rolled-back adoption
+ * leaves only an orphan blob for the sweep.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class StorageBlobStoreTransactionTest {
+
+    @TempDir Path storage;
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    private StorageBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS storage_blobs (id BIGSERIAL PRIMARY KEY,"
+                + " sha256 CHAR(64) NOT NULL UNIQUE, size_bytes BIGINT NOT NULL, ref_count INTEGER NOT NULL DEFAULT 0,"
+                + " created_at TIMESTAMP NOT NULL DEFAULT NOW())");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS storage_blob_paths (path VARCHAR(500) PRIMARY KEY,"
+                + " blob_id BIGINT NOT NULL REFERENCES storage_blobs(id), created_at TIMESTAMP NOT NULL DEFAULT NOW())");
+        store = new StorageBlobStore(storage.toString(), jdbc, transactionManager, true);
+    }
+
+    private Path write(String relativePath, String content) throws IOException {
+        Path file = storage.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    void adoptAndRelease_joinTheCallerTransaction_andDeleteTheBlobAfterCommit() throws IOException {
+        assertThat(transactionManager).isInstanceOf(JpaTransactionManager.class);
+        assertThat(TestTransaction.isActive()).isTrue();
+        write("projects/1/a.pdf", "uploaded twice");
+        write("projects/2/b.pdf", "uploaded twice");
+
+        StorageBlobStore.Adoption first = store.adopt("projects/1/a.pdf");
+        StorageBlobStore.Adoption second = store.adopt("projects/2/b.pdf");
+
+        assertThat(first).isNotNull();
+        assertThat(second.duplicate()).isTrue();
+        assertThat(jdbc.queryForObject("SELECT ref_count FROM storage_blobs", Integer.class)).isEqualTo(2);
+
+        store.release("projects/1/a.pdf");
+        store.release("projects/2/b.pdf");
+
+        assertThat(store.isMapped("projects/2/b.pdf")).isFalse();
+        assertThat(store.blobPath(first.sha256())).exists();
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertThat(store.blobPath(first.sha256())).doesNotExist();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM storage_blobs", Integer.class)).isZero();
+    }
+
+    @Test
+    void adopt_rolledBackWithTheCaller_leavesAnOrphanBlobForTheSweep() throws IOException {
+        write("site-reports/3/p.jpg", "rolled back upload");
+        String sha = store.adopt("site-reports/3/p.jpg").sha256();
+
+        TestTransaction.end();
+        Files.delete(storage.resolve("site-reports/3/p.jpg"));
+
+        assertThat(store.isMapped("site-reports/3/p.jpg")).isFalse();
+        assertThat(store.blobPath(sha)).exists();
+        assertThat(store.removeOrphanBlobs(Duration.ZERO)).isEqualTo(1);
+        assertThat(store.blobPath(sha)).doesNotExist();
+    }
+}
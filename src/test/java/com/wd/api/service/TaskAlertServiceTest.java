@@ -0,0 +1,124 @@
+package com.wd.api.service;
+
+import com.wd.api.model.PortalUser;
+import com.wd.api.model.TaskAlert;
+import com.wd.api.repository.PortalUserRepository;
+import com.wd.api.repository.TaskAlertRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * TaskAlertService set-based run: one candidate query, alert rows in
+ * multi-row INSERTs, one digest per admin per severity.
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskAlertServiceTest {
+
+    @Mock TaskAlertRepository alertRepository;
+    @Mock PortalUserRepository portalUserRepository;
+    @Mock EmailService emailService;
+    @Mock JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TaskAlertService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TaskAlertService(alertRepository, portalUserRepository, emailService, jdbcTemplate, meterRegistry);
+    }
+
+    private static TaskAlertService.Candidate candidate(long id, TaskAlert.AlertType type) {
+        return new TaskAlertService.Candidate(id, "Task " + id, "HIGH", "IN_PROGRESS", LocalDate.now(),
+                null, "Villa Kochi", "Anu", "Mathew", type);
+    }
+
+    private static PortalUser admin(long id) {
+        PortalUser user = new PortalUser();
+        user.setId(id);
+        user.setEmail("admin" + id + "@walldot.com");
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenCandidates(List<TaskAlertService.Candidate> candidates) {
+        when(jdbcTemplate.query(eq(TaskAlertService.FIND_CANDIDATES), any(RowMapper.class), any(), any(), any(), any()))
+                .thenReturn(candidates);
+    }
+
+    @Test
+    void run_sendsOneDigestPerAdminPerSeverity_andRecordsEveryAlertRow() {
+        givenCandidates(List.of(
+                candidate(1, TaskAlert.AlertType.OVERDUE),
+                candidate(2, TaskAlert.AlertType.OVERDUE),
+                candidate(3, TaskAlert.AlertType.DUE_SOON)));
+        when(portalUserRepository.findByRoleName("ADMIN")).thenReturn(List.of(admin(10), admin(11)));
+
+        TaskAlertService.RunStats stats = service.sendTaskDeadlineAlerts();
+
+        verify(emailService).sendTaskAlertDigest(eq("admin10@walldot.com"), eq(TaskAlert.AlertSeverity.CRITICAL), eq(2),
+                argThat(body -> body.contains("Task 1") && body.contains("Task 2") && !body.contains("Task 3")));
+        verify(emailService).sendTaskAlertDigest(eq("admin11@walldot.com"), eq(TaskAlert.AlertSeverity.MEDIUM), eq(1),
+                argThat(body -> body.startsWith("⏰ UPCOMING DEADLINE: Task 3")));
+        verify(emailService, times(4)).sendTaskAlertDigest(anyString(), any(), anyInt(), anyString());
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(argThat((String sql) -> sql.startsWith("INSERT INTO task_alerts")), args.capture());
+        assertThat(args.getValue()).hasSize(6 * 8);
+
+        assertThat(stats.overdueTasks()).isEqualTo(2);
+        assertThat(stats.dueTodayTasks()).isZero();
+        assertThat(stats.dueSoonTasks()).isEqualTo(1);
+        assertThat(stats.alertsRecorded()).isEqualTo(6);
+        assertThat(stats.digestsSent()).isEqualTo(4);
+        assertThat(meterRegistry.counter("task.alerts.recorded", "severity", "CRITICAL").count()).isEqualTo(4);
+        assertThat(meterRegistry.timer("task.alerts.duration").count()).isEqualTo(1);
+    }
+
+    @Test
+    void run_chunksAlertRowsIntoMultiRowInserts() {
+        givenCandidates(IntStream.rangeClosed(1, 300)
+                .mapToObj(id -> candidate(id, TaskAlert.AlertType.DUE_TODAY)).toList());
+        when(portalUserRepository.findByRoleName("ADMIN")).thenReturn(List.of(admin(10), admin(11)));
+
+        TaskAlertService.RunStats stats = service.sendTaskDeadlineAlerts();
+
+        verify(jdbcTemplate, times(2)).update(argThat((String sql) -> sql.startsWith("INSERT INTO task_alerts")),
+                any(Object[].class));
+        verify(emailService, times(2)).sendTaskAlertDigest(anyString(), eq(TaskAlert.AlertSeverity.HIGH), eq(300), anyString());
+        assertThat(stats.alertsRecorded()).isEqualTo(600);
+    }
+
+    @Test
+    void run_withNothingDue_skipsAdminLookupAndMail() {
+        givenCandidates(List.of());
+
+        TaskAlertService.RunStats stats = service.sendTaskDeadlineAlerts();
+
+        verifyNoInteractions(portalUserRepository, emailService);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        assertThat(stats.alertsRecorded()).isZero();
+    }
+}
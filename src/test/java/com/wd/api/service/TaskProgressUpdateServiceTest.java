@@ -5,10 +5,11 @@ import com.wd.api.model.ProjectMilestone;
 import com.wd.api.model.Task;
 import com.wd.api.repository.ProjectMilestoneRepository;
 import com.wd.api.repository.TaskRepository;
-import com.wd.api.service.scheduling.CpmService;
+import com.wd.api.service.scheduling.CpmRecomputeScheduler;
 import com.wd.api.service.wbs.ProgressRollupService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -22,11 +23,13 @@ class TaskProgressUpdateServiceTest {
     private final ProjectMilestoneRepository milestoneRepo = Mockito.mock(ProjectMilestoneRepository.class);
     private final ProgressRollupService rollup = new ProgressRollupService();
     private final ActivityFeedService activityFeed = Mockito.mock(ActivityFeedService.class);
-    private final CpmService cpmService = Mockito.mock(CpmService.class);
+    private final CpmRecomputeScheduler cpmScheduler = Mockito.mock(CpmRecomputeScheduler.class);
     private final TaskQualityGateService qualityGateService = Mockito.mock(TaskQualityGateService.class);
     private final ProjectProgressService projectProgressService = Mockito.mock(ProjectProgressService.class);
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
     private final TaskProgressUpdateService service =
-            new TaskProgressUpdateService(taskRepo, milestoneRepo, rollup, activityFeed, cpmService, qualityGateService, projectProgressService);
+            new TaskProgressUpdateService(taskRepo, milestoneRepo, rollup, activityFeed, cpmScheduler, qualityGateService, projectProgressService,
+                    eventPublisher);
 
     private Task taskWithProgress(int currentProgress, Task.TaskStatus status) {
         Task t = new Task();
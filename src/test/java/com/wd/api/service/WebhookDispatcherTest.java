@@ -0,0 +1,260 @@
+package com.wd.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * WebhookDispatcher against a local stub Customer API: concurrent delivery,
+ * signing, backoff / dead-lettering, the per-endpoint circuit breaker and
+ * batch mode (per-project arrays with per-event results).
+ */
+@ExtendWith(MockitoExtension.class)
+class WebhookDispatcherTest {
+
+    @Mock WebhookOutbox outbox;
+
+    private HttpServer receiver;
+    private final AtomicInteger responseStatus = new AtomicInteger(200);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ConcurrentLinkedQueue<String> signatures = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<JsonNode> batchBodies = new ConcurrentLinkedQueue<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile Set<Long> rejectedIds = Set.of();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebhookDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        receiver = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        receiver.setExecutor(Executors.newFixedThreadPool(8));
+        receiver.createContext("/internal/portal-events", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            signatures.add(String.valueOf(exchange.getRequestHeaders().getFirst("X-Portal-Signature")));
+            exchange.sendResponseHeaders(responseStatus.get(), -1);
+            exchange.close();
+        });
+        // Batch receiver: answers with a result per eventId, rejecting rejectedIds.
+        receiver.createContext("/internal/portal-events/batch", exchange -> {
+            requests.incrementAndGet();
+            JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+            batchBodies.add(body);
+            signatures.add(String.valueOf(exchange.getRequestHeaders().getFirst("X-Portal-Signature")));
+            ArrayNode results = objectMapper.createArrayNode();
+            body.forEach(event -> {
+                long id = event.path("eventId").asLong();
+                ObjectNode result = results.addObject().put("eventId", id);
+                if (rejectedIds.contains(id)) {
+                    result.put("status", "REJECTED").put("error", "unknown project");
+                } else {
+                    result.put("status", "ACCEPTED");
+                }
+            });
+            byte[] response = objectMapper.createObjectNode().set("results", results).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        receiver.start();
+
+        dispatcher = new WebhookDispatcher(outbox, meterRegistry, 10, 4, Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(dispatcher, "webhookUrl",
+                "http://127.0.0.1:" + receiver.getAddress().getPort() + "/internal/portal-events");
+        ReflectionTestUtils.setField(dispatcher, "webhookSecret", "test-secret-key-for-hmac");
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiver.stop(0);
+    }
+
+    private static List<WebhookOutbox.Event> events(int count, int attempts) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new WebhookOutbox.Event(id, "PHASE_UPDATED", 7L, "{\"id\":" + id + "}", attempts))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WebhookOutbox.Outcome> recorded(int batches) {
+        ArgumentCaptor<List<WebhookOutbox.Outcome>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outbox, times(batches)).record(captor.capture());
+        List<WebhookOutbox.Outcome> all = new ArrayList<>();
+        captor.getAllValues().forEach(all::addAll);
+        return all;
+    }
+
+    @Test
+    void dispatch_deliversClaimedBatch_signedAndMarkedDelivered() {
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(events(6, 0), List.of());
+
+        dispatcher.dispatch();
+
+        assertThat(requests.get()).isEqualTo(6);
+        assertThat(signatures).allMatch(s -> s.startsWith("sha256="));
+        assertThat(recorded(1)).hasSize(6).allSatisfy(o -> {
+            assertThat(o.status()).isEqualTo("DELIVERED");
+            assertThat(o.attempts()).isEqualTo(1);
+            assertThat(o.nextAttemptAt()).isNull();
+        });
+        assertThat(meterRegistry.counter("webhook.deliveries", "outcome", "delivered").count()).isEqualTo(6);
+        assertThat(meterRegistry.timer("webhook.delivery.latency").count()).isEqualTo(6);
+    }
+
+    @Test
+    void dispatch_non200_schedulesRetryWithBackoff_orDeadLettersOnLastAttempt() {
+        responseStatus.set(503);
+        List<WebhookOutbox.Event> batch = List.of(
+                new WebhookOutbox.Event(1L, "INVOICE_PAID", 7L, "{}", 0),
+                new WebhookOutbox.Event(2L, "INVOICE_PAID", 7L, "{}", WebhookDispatcher.MAX_ATTEMPTS - 1));
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(batch);
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.dispatch();
+
+        List<WebhookOutbox.Outcome> outcomes = recorded(1);
+        WebhookOutbox.Outcome retry = outcomes.stream().filter(o -> o.id() == 1L).findFirst().orElseThrow();
+        assertThat(retry.status()).isEqualTo("FAILED");
+        assertThat(retry.errorMessage()).startsWith("HTTP 503");
+        assertThat(retry.nextAttemptAt()).isAfter(before.plusSeconds(29));
+
+        WebhookOutbox.Outcome dead = outcomes.stream().filter(o -> o.id() == 2L).findFirst().orElseThrow();
+        assertThat(dead.status()).isEqualTo("DEAD_LETTER");
+        assertThat(dead.nextAttemptAt()).isNull();
+    }
+
+    @Test
+    void dispatch_opensCircuitAfterConsecutiveFailures_andStopsClaiming() {
+        responseStatus.set(500);
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(events(10, 0));
+
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+
+        // First tick: one full batch fails and opens the circuit; second tick claims nothing.
+        verify(outbox, times(1)).claim(anyInt(), any(), any());
+        assertThat(requests.get()).isEqualTo(10);
+        assertThat(meterRegistry.get("webhook.circuit.open").gauge().value()).isEqualTo(1.0);
+    }
+
+    private static List<WebhookOutbox.Event> burst(long firstId, int count, long projectId) {
+        return LongStream.range(firstId, firstId + count)
+                .mapToObj(id -> new WebhookOutbox.Event(id, "TASK_UPDATED", projectId, "{\"taskId\":" + id + "}", 0))
+                .toList();
+    }
+
+    @Test
+    void batchMode_sendsOneArrayPerProject_withEventIds() {
+        ReflectionTestUtils.setField(dispatcher, "batchMode", true);
+        List<WebhookOutbox.Event> due = Stream.of(burst(1, 8, 7L), burst(100, 2, 9L)).flatMap(List::stream).toList();
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(due, List.of());
+
+        dispatcher.dispatch();
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(signatures).allMatch(s -> s.startsWith("sha256="));
+        assertThat(batchBodies).extracting(JsonNode::size).containsExactlyInAnyOrder(8, 2);
+        JsonNode first = batchBodies.stream().filter(b -> b.size() == 8).findFirst().orElseThrow().get(0);
+        assertThat(first.path("eventId").asLong()).isEqualTo(1L);
+        assertThat(first.path("taskId").asLong()).isEqualTo(1L);
+        assertThat(recorded(1)).hasSize(10).allMatch(o -> o.status().equals("DELIVERED"));
+        assertThat(meterRegistry.counter("webhook.requests", "mode", "batch").count()).isEqualTo(2);
+    }
+
+    @Test
+    void batchMode_recordsPerEventOutcome_fromReceiverResults() {
+        ReflectionTestUtils.setField(dispatcher, "batchMode", true);
+        rejectedIds = Set.of(3L);
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(burst(1, 5, 7L), List.of());
+
+        dispatcher.dispatch();
+
+        List<WebhookOutbox.Outcome> outcomes = recorded(1);
+        assertThat(outcomes).filteredOn(o -> o.id() == 3L).singleElement().satisfies(o -> {
+            assertThat(o.status()).isEqualTo("FAILED");
+            assertThat(o.errorMessage()).contains("unknown project");
+            assertThat(o.nextAttemptAt()).isNotNull();
+        });
+        assertThat(outcomes).filteredOn(o -> o.id() != 3L).hasSize(4)
+                .allMatch(o -> o.status().equals("DELIVERED"));
+    }
+
+    @Test
+    void batchMode_deadLettersUnreadablePayload_andSendsTheRest() {
+        ReflectionTestUtils.setField(dispatcher, "batchMode", true);
+        List<WebhookOutbox.Event> due = new ArrayList<>(burst(1, 4, 7L));
+        due.set(1, new WebhookOutbox.Event(2L, "TASK_UPDATED", 7L, "not json", 0));
+        due.add(new WebhookOutbox.Event(9L, "TASK_UPDATED", 7L, "[1,2]", 0));
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(due, List.of());
+
+        dispatcher.dispatch();
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(batchBodies).singleElement().extracting(JsonNode::size).isEqualTo(3);
+        List<WebhookOutbox.Outcome> outcomes = recorded(1);
+        assertThat(outcomes).filteredOn(o -> o.id() == 2L || o.id() == 9L).hasSize(2).allSatisfy(o -> {
+            assertThat(o.status()).isEqualTo("DEAD_LETTER");
+            assertThat(o.nextAttemptAt()).isNull();
+        });
+        assertThat(outcomes).filteredOn(o -> o.id() != 2L && o.id() != 9L).hasSize(3)
+                .allMatch(o -> o.status().equals("DELIVERED"));
+    }
+
+    /** The same burst (60 events over 3 projects) delivered one-per-request and in batch mode. */
+    @Test
+    void batchMode_cutsRequestsForABurst() {
+        List<WebhookOutbox.Event> due = Stream.of(burst(1, 30, 7L), burst(100, 20, 8L), burst(200, 10, 9L))
+                .flatMap(List::stream).toList();
+        when(outbox.claim(anyInt(), any(), any())).thenReturn(due, List.of(), due, List.of());
+
+        dispatcher.dispatch();
+        int singleRequests = requests.getAndSet(0);
+
+        ReflectionTestUtils.setField(dispatcher, "batchMode", true);
+        dispatcher.dispatch();
+        int batchRequests = requests.get();
+
+        assertThat(singleRequests).isEqualTo(60);
+        assertThat(batchRequests).isEqualTo(3);
+    }
+
+    @Test
+    void backoff_doublesPerAttempt_andIsCapped() {
+        assertThat(WebhookDispatcher.backoff(1)).isBetween(Duration.ofSeconds(30), Duration.ofSeconds(37));
+        assertThat(WebhookDispatcher.backoff(3)).isBetween(Duration.ofMinutes(2), Duration.ofSeconds(145));
+        assertThat(WebhookDispatcher.backoff(30)).isLessThanOrEqualTo(Duration.ofMinutes(72));
+    }
+}
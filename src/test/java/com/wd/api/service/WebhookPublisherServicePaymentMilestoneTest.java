@@ -32,7 +32,6 @@ class WebhookPublisherServicePaymentMilestoneTest {
         publisher = new WebhookPublisherService(repo);
         // Configure a dummy webhook URL so publish() doesn't short-circuit.
         ReflectionTestUtils.setField(publisher, "webhookUrl", "http://localhost:0/webhooks/portal");
-        ReflectionTestUtils.setField(publisher, "webhookSecret", "secret");
         // Make repo.save() return whatever was passed in.
         when(repo.save(any(WebhookEventLog.class))).thenAnswer(inv -> inv.getArgument(0));
     }
@@ -46,8 +45,7 @@ class WebhookPublisherServicePaymentMilestoneTest {
 
         publisher.publishPaymentMilestoneDue(ReminderKind.T_MINUS_3, ctx);
 
-        // publish() saves once on PENDING, then attemptDelivery() saves again
-        // after the (failing) HTTP attempt — capture all and use the first.
+        // publish() saves the PENDING outbox row; delivery is WebhookDispatcher's job.
         ArgumentCaptor<WebhookEventLog> capt = ArgumentCaptor.forClass(WebhookEventLog.class);
         org.mockito.Mockito.verify(repo, atLeastOnce()).save(capt.capture());
         WebhookEventLog log = capt.getAllValues().get(0);
@@ -76,7 +74,7 @@ class WebhookPublisherServicePaymentMilestoneTest {
         publisher.publishPaymentMilestoneDue(ReminderKind.DUE_TODAY, ctx);
         publisher.publishPaymentMilestoneDue(ReminderKind.OVERDUE, ctx);
 
-        // Three publishes × (initial PENDING save + post-delivery save) = 6 saves
+        // Three publishes = three PENDING outbox rows
         org.mockito.Mockito.verify(repo, atLeastOnce()).save(any(WebhookEventLog.class));
         // More precise: there must be at least 3 distinct PENDING saves (one per call).
         ArgumentCaptor<WebhookEventLog> capt = ArgumentCaptor.forClass(WebhookEventLog.class);
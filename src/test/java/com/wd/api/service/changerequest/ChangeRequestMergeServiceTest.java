@@ -16,7 +16,7 @@ import com.wd.api.repository.TaskRepository;
 import com.wd.api.repository.changerequest.ChangeRequestTaskPredecessorRepository;
 import com.wd.api.repository.changerequest.ChangeRequestTaskRepository;
 import com.wd.api.service.TaskQualityGateService;
-import com.wd.api.service.scheduling.CpmService;
+import com.wd.api.service.scheduling.CpmRecomputeScheduler;
 import com.wd.api.service.scheduling.HandoverShiftDetector;
 import com.wd.api.service.scheduling.HolidayService;
 import org.junit.jupiter.api.BeforeEach;
@@ -49,7 +49,7 @@ class ChangeRequestMergeServiceTest {
     @Mock private TaskPredecessorRepository taskPredRepo;
     @Mock private ProjectScheduleConfigRepository scheduleConfigRepo;
     @Mock private HolidayService holidayService;
-    @Mock private CpmService cpmService;
+    @Mock private CpmRecomputeScheduler cpmScheduler;
     @Mock private HandoverShiftDetector handoverShiftDetector;
     @Mock private TaskQualityGateService qualityGateService;
 
@@ -150,12 +150,12 @@ class ChangeRequestMergeServiceTest {
         when(taskRepo.findByProjectId(11L)).thenReturn(List.of());
 
         // We're testing the call-graph; DelayApplier internals already covered by S3 PR3 tests.
-        // The merge service constructs a transient DelayLog; we verify CpmService + Handover
+        // The merge service constructs a transient DelayLog; we verify CpmRecomputeScheduler + Handover
         // are invoked AFTER the time-impact application via InOrder against the latter two.
         service.mergeIntoWbs(42L, 500L, 99L);
 
-        InOrder ord = inOrder(cpmService, handoverShiftDetector);
-        ord.verify(cpmService).recompute(11L);
+        InOrder ord = inOrder(cpmScheduler, handoverShiftDetector);
+        ord.verify(cpmScheduler).flush(11L);
         ord.verify(handoverShiftDetector).checkAndAlert(11L);
     }
 
@@ -171,7 +171,7 @@ class ChangeRequestMergeServiceTest {
         // No findByProjectId call from DelayApplier path.
         verify(taskRepo, never()).findByProjectId(11L);
         // CPM + handover still ran (new tasks may shift the critical path).
-        verify(cpmService).recompute(11L);
+        verify(cpmScheduler).flush(11L);
         verify(handoverShiftDetector).checkAndAlert(11L);
     }
 
@@ -184,8 +184,8 @@ class ChangeRequestMergeServiceTest {
 
         service.mergeIntoWbs(42L, 500L, 99L);
 
-        InOrder ord = inOrder(cpmService, handoverShiftDetector);
-        ord.verify(cpmService).recompute(11L);
+        InOrder ord = inOrder(cpmScheduler, handoverShiftDetector);
+        ord.verify(cpmScheduler).flush(11L);
         ord.verify(handoverShiftDetector).checkAndAlert(11L);
     }
 
@@ -211,7 +211,7 @@ class ChangeRequestMergeServiceTest {
         assertThatThrownBy(() -> service.mergeIntoWbs(42L, 500L, 99L))
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("APPROVED");
-        verifyNoInteractions(cpmService, handoverShiftDetector);
+        verifyNoInteractions(cpmScheduler, handoverShiftDetector);
         // taskRepo may be touched by findById — anchor lookup happens AFTER CR
         // status validation, so verify it stayed quiet too.
         verify(taskRepo, never()).save(any());
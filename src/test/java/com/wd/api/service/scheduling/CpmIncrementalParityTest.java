@@ -0,0 +1,180 @@
+package com.wd.api.service.scheduling;
+
+import com.wd.api.model.CustomerProject;
+import com.wd.api.model.Task;
+import com.wd.api.model.enums.DependencyType;
+import com.wd.api.model.scheduling.TaskPredecessor;
+import com.wd.api.repository.CustomerProjectRepository;
+import com.wd.api.repository.TaskPredecessorRepository;
+import com.wd.api.repository.TaskRepository;
+import com.wd.api.testsupport.TestcontainersPostgresBase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parity of {@link CpmService#recomputeIncremental} against the full
+ * {@link CpmService#recompute}: after a single-task edit the incremental pass
+ * must leave every CPM column exactly where a full pass would put it, while
+ * writing fewer rows.
+ *
+ * <p>Graph (project start Mon 2026-06-01, no holidays, Sunday off):
+ * <pre>
+ *   A ─FS─► B ─FS─► D ─FS─► E
+ *   A ─FS─► C ─SS+2─► D
+ *   F (independent, long — drives project finish)
+ *   G ─FF─► H (independent short branch)
+ * </pre>
+ */
+@Transactional
+class CpmIncrementalParityTest extends TestcontainersPostgresBase {
+
+    private static final LocalDate START = LocalDate.of(2026, 6, 1);
+
+    @Autowired private CpmService cpm;
+    @Autowired private TaskRepository tasks;
+    @Autowired private TaskPredecessorRepository preds;
+    @Autowired private CustomerProjectRepository projects;
+    @Autowired private JdbcTemplate jdbc;
+
+    @Test
+    void durationEditOnMidChainTask_matchesFullRecompute_andWritesOnlyAffectedRows() {
+        Fixture f = seed();
+        cpm.recompute(f.project.getId());
+
+        setDuration(f.b, 9);
+        int written = cpm.recomputeIncremental(f.project.getId(), List.of(f.b.getId()));
+        List<Map<String, Object>> incremental = snapshot(f.project.getId());
+
+        cpm.recompute(f.project.getId());
+        List<Map<String, Object>> full = snapshot(f.project.getId());
+
+        assertThat(incremental).isEqualTo(full);
+        assertThat(written)
+                .as("independent branches F, G, H must not be rewritten")
+                .isLessThan(f.all.size());
+    }
+
+    @Test
+    void editThatMovesProjectFinish_matchesFullRecompute() {
+        Fixture f = seed();
+        cpm.recompute(f.project.getId());
+
+        // E becomes longer than F, so the project finish (and every sink's LF) moves.
+        setDuration(f.e, 40);
+        cpm.recomputeIncremental(f.project.getId(), List.of(f.e.getId()));
+        List<Map<String, Object>> incremental = snapshot(f.project.getId());
+
+        cpm.recompute(f.project.getId());
+        assertThat(incremental).isEqualTo(snapshot(f.project.getId()));
+    }
+
+    @Test
+    void edgeRemoval_seedingBothEndpoints_matchesFullRecompute() {
+        Fixture f = seed();
+        cpm.recompute(f.project.getId());
+
+        TaskPredecessor cd = preds.findBySuccessorId(f.d.getId()).stream()
+                .filter(e -> e.getPredecessorId().equals(f.c.getId()))
+                .findFirst().orElseThrow();
+        preds.delete(cd);
+        preds.flush();
+        cpm.recomputeIncremental(f.project.getId(), Set.of(f.d.getId(), f.c.getId()));
+        List<Map<String, Object>> incremental = snapshot(f.project.getId());
+
+        cpm.recompute(f.project.getId());
+        assertThat(incremental).isEqualTo(snapshot(f.project.getId()));
+    }
+
+    @Test
+    void noOpEdit_writesOnlyTheSeedRow() {
+        Fixture f = seed();
+        cpm.recompute(f.project.getId());
+
+        int written = cpm.recomputeIncremental(f.project.getId(), List.of(f.c.getId()));
+
+        assertThat(written).isEqualTo(1);
+    }
+
+    @Test
+    void neverComputedProject_fallsBackToFullPass() {
+        Fixture f = seed();
+
+        int written = cpm.recomputeIncremental(f.project.getId(), List.of(f.a.getId()));
+
+        assertThat(written).isEqualTo(f.all.size());
+        Task h = tasks.findById(f.h.getId()).orElseThrow();
+        assertThat(h.getEsDate()).isNotNull();
+        assertThat(h.getTotalFloatDays()).isNotNull();
+    }
+
+    // ─── fixtures ──────────────────────────────────────────────────────────
+
+    private record Fixture(CustomerProject project, Task a, Task b, Task c, Task d, Task e,
+                           Task f, Task g, Task h, List<Task> all) {}
+
+    private Fixture seed() {
+        CustomerProject p = new CustomerProject();
+        p.setName("cpm-parity " + UUID.randomUUID());
+        p.setLocation("Test");
+        p.setProjectUuid(UUID.randomUUID());
+        p.setStartDate(START);
+        p = projects.save(p);
+
+        Task a = newTask(p, "A", 4);
+        Task b = newTask(p, "B", 5);
+        Task c = newTask(p, "C", 3);
+        Task d = newTask(p, "D", 2);
+        Task e = newTask(p, "E", 3);
+        Task f = newTask(p, "F", 30);
+        Task g = newTask(p, "G", 2);
+        Task h = newTask(p, "H", 4);
+        link(b, a, 0, DependencyType.FS);
+        link(c, a, 0, DependencyType.FS);
+        link(d, b, 0, DependencyType.FS);
+        link(d, c, 2, DependencyType.SS);
+        link(e, d, 0, DependencyType.FS);
+        link(h, g, 0, DependencyType.FF);
+        return new Fixture(p, a, b, c, d, e, f, g, h, List.of(a, b, c, d, e, f, g, h));
+    }
+
+    private Task newTask(CustomerProject p, String title, int durationDays) {
+        Task t = new Task();
+        t.setTitle(title);
+        t.setStatus(Task.TaskStatus.PENDING);
+        t.setPriority(Task.TaskPriority.MEDIUM);
+        t.setProject(p);
+        t.setDueDate(LocalDate.of(2030, 12, 31));
+        t.setStartDate(START);
+        t.setEndDate(WorkingDayCalculator.addWorkingDays(START, durationDays, Set.of(), false));
+        return tasks.save(t);
+    }
+
+    private void link(Task successor, Task predecessor, int lagDays, DependencyType type) {
+        TaskPredecessor edge = new TaskPredecessor(successor.getId(), predecessor.getId(), lagDays);
+        edge.setDepType(type);
+        preds.save(edge);
+    }
+
+    private void setDuration(Task task, int durationDays) {
+        Task t = tasks.findById(task.getId()).orElseThrow();
+        t.setEndDate(WorkingDayCalculator.addWorkingDays(t.getStartDate(), durationDays, Set.of(), false));
+        tasks.saveAndFlush(t);
+    }
+
+    private List<Map<String, Object>> snapshot(Long projectId) {
+        return new ArrayList<>(jdbc.queryForList(
+                "SELECT id, es_date, ef_date, ls_date, lf_date, total_float_days, is_critical " +
+                        "FROM tasks WHERE project_id = ? ORDER BY id", projectId));
+    }
+}
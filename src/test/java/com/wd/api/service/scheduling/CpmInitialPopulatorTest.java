@@ -0,0 +1,62 @@
+package com.wd.api.service.scheduling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CpmInitialPopulatorTest {
+
+    private final CpmService cpm = mock(CpmService.class);
+    private final CpmInputFingerprints fingerprints = mock(CpmInputFingerprints.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void unchangedProjectsAreSkipped_changedAndNewOnesRecomputedAndRecorded() throws Exception {
+        when(fingerprints.current()).thenReturn(Map.of(1L, "same", 2L, "new", 3L, "first"));
+        when(fingerprints.stored()).thenReturn(Map.of(1L, "same", 2L, "old"));
+
+        new CpmInitialPopulator(cpm, fingerprints, registry, 4, 10).run();
+
+        verify(cpm, never()).recompute(1L);
+        verify(cpm).recompute(2L);
+        verify(cpm).recompute(3L);
+        verify(fingerprints).record(2L, "new");
+        verify(fingerprints).record(3L, "first");
+        assertThat(registry.get("cpm.populator.projects").tag("outcome", "skipped").counter().count()).isEqualTo(1);
+        assertThat(registry.get("cpm.populator.projects").tag("outcome", "recomputed").counter().count()).isEqualTo(2);
+        assertThat(registry.get("cpm.populator.remaining").gauge().value()).isZero();
+    }
+
+    @Test
+    void failedRecompute_doesNotRecordFingerprint() throws Exception {
+        when(fingerprints.current()).thenReturn(Map.of(5L, "f"));
+        when(fingerprints.stored()).thenReturn(Map.of());
+        doThrow(new IllegalStateException("cycle")).when(cpm).recompute(5L);
+
+        new CpmInitialPopulator(cpm, fingerprints, registry, 4, 10).run();
+
+        verify(fingerprints, never()).record(anyLong(), anyString());
+        assertThat(registry.get("cpm.populator.projects").tag("outcome", "failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void tinyHikariPool_stillRunsWithOneThread() throws Exception {
+        when(fingerprints.current()).thenReturn(Map.of(9L, "f"));
+        when(fingerprints.stored()).thenReturn(Map.of());
+
+        new CpmInitialPopulator(cpm, fingerprints, registry, 8, 1).run();
+
+        verify(fingerprints).record(eq(9L), eq("f"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.wd.api.service.scheduling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Coalescing behaviour of {@link CpmRecomputeScheduler}. No transaction is
+ * active in these tests (except where one is simulated around a flush), so
+ * requests are enqueued immediately.
+ */
+class CpmRecomputeSchedulerTest {
+
+    private final CpmService cpm = mock(CpmService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CpmRecomputeScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) scheduler.shutdown();
+    }
+
+    @Test
+    void burstOfIncrementalRequests_coalescesIntoOneRunOverTheUnion() {
+        scheduler = new CpmRecomputeScheduler(cpm, registry, true, 100, 2);
+
+        scheduler.requestRecompute(7L, List.of(1L));
+        scheduler.requestRecompute(7L, List.of(2L));
+        scheduler.requestRecompute(7L, List.of(2L, 3L));
+        assertThat(scheduler.queueDepth()).isEqualTo(1);
+
+        verify(cpm, timeout(2_000)).recomputeIncremental(7L, Set.of(1L, 2L, 3L));
+        verify(cpm, after(300).times(1)).recomputeIncremental(anyLong(), anyCollection());
+        verify(cpm, never()).recompute(anyLong());
+        assertThat(registry.get("cpm.recompute.coalesce.ratio").gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    void anyFullRequestInTheWindow_winsOverIncremental() {
+        scheduler = new CpmRecomputeScheduler(cpm, registry, true, 100, 2);
+
+        scheduler.requestRecompute(7L, List.of(1L));
+        scheduler.requestRecompute(7L);
+        scheduler.requestRecompute(7L, List.of(2L));
+
+        verify(cpm, timeout(2_000)).recompute(7L);
+        verify(cpm, after(300).never()).recomputeIncremental(anyLong(), anyCollection());
+    }
+
+    @Test
+    void differentProjects_runSeparately() {
+        scheduler = new CpmRecomputeScheduler(cpm, registry, true, 50, 2);
+
+        scheduler.requestRecompute(7L);
+        scheduler.requestRecompute(8L);
+
+        verify(cpm, timeout(2_000)).recompute(7L);
+        verify(cpm, timeout(2_000)).recompute(8L);
+    }
+
+    @Test
+    void flush_runsSynchronously_andDropsThePendingRequest() {
+        scheduler = new CpmRecomputeScheduler(cpm, registry, true, 200, 2);
+
+        scheduler.requestRecompute(7L, List.of(1L));
+        scheduler.flush(7L);
+
+        verify(cpm).recompute(7L);
+        assertThat(scheduler.queueDepth()).isZero();
+        verify(cpm, after(500).never()).recomputeIncremental(anyLong(), anyCollection());
+        verify(cpm, times(1)).recompute(7L);
+    }
+
+    @Test
+    void flush_inATransactionThatRollsBack_requeuesTheSupersededRequest() {
+        scheduler = new CpmRecomputeScheduler(cpm, registry, true, 100, 2);
+        scheduler.requestRecompute(7L, List.of(1L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            scheduler.flush(7L);
+            assertThat(scheduler.queueDepth()).isZero();
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(cpm).recompute(7L);
+        verify(cpm, timeout(2_000)).recomputeIncremental(7L, Set.of(1L));
+    }
+
+    @Test
+    void inlineMode_runsOnTheCallingThread() {
+        scheduler = new CpmRecomputeScheduler(cpm, registry, false, 10_000, 1);
+
+        scheduler.requestRecompute(7L, List.of(1L));
+
+        verify(cpm).recomputeIncremental(7L, Set.of(1L));
+        assertThat(scheduler.queueDepth()).isZero();
+    }
+
+    @Test
+    void nullProjectId_isIgnored() {
+        scheduler = new CpmRecomputeScheduler(cpm, registry, false, 10, 1);
+
+        scheduler.requestRecompute(null);
+        scheduler.flush(null);
+
+        verifyNoInteractions(cpm);
+    }
+}
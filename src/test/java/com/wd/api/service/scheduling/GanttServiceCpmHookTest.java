@@ -14,6 +14,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.util.UUID;
 
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 
@@ -46,6 +48,6 @@ class GanttServiceCpmHookTest extends TestcontainersPostgresBase {
         ganttService.updateTaskSchedule(
                 t.getId(), LocalDate.of(2026, 6, 1), LocalDate.of(2026, 6, 5), 0);
 
-        verify(cpm, atLeastOnce()).recompute(p.getId());
+        verify(cpm, atLeastOnce()).recomputeIncremental(eq(p.getId()), anyCollection());
     }
 }
@@ -1,6 +1,7 @@
 package com.wd.api.service.scheduling;
 
 import com.wd.api.dto.scheduling.ProjectScheduleConfigDto;
+import com.wd.api.event.TaskChangedEvent;
 import com.wd.api.model.CustomerProject;
 import com.wd.api.model.Task;
 import com.wd.api.model.enums.ReportType;
@@ -10,13 +11,16 @@ import com.wd.api.service.TaskQualityGateService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -31,7 +35,7 @@ import static org.mockito.Mockito.*;
  *   PENDING_PM_APPROVAL ──rejectCompletion(reason)──▶ IN_PROGRESS
  * </pre>
  *
- * Verifies cpmService.recompute is called AFTER taskRepo.save on every
+ * Verifies cpmScheduler.requestRecompute is called AFTER taskRepo.save on every
  * transition (Mockito InOrder).
  */
 class TaskCompletionServiceTest {
@@ -39,9 +43,10 @@ class TaskCompletionServiceTest {
     private TaskRepository taskRepo;
     private SiteReportRepository siteReportRepo;
     private ProjectScheduleConfigService configService;
-    private CpmService cpmService;
+    private CpmRecomputeScheduler cpmScheduler;
     private TaskQualityGateService qualityGateService;
     private com.wd.api.service.ProjectProgressService projectProgressService;
+    private ApplicationEventPublisher eventPublisher;
     private TaskCompletionService service;
 
     private CustomerProject project;
@@ -51,10 +56,12 @@ class TaskCompletionServiceTest {
         taskRepo = mock(TaskRepository.class);
         siteReportRepo = mock(SiteReportRepository.class);
         configService = mock(ProjectScheduleConfigService.class);
-        cpmService = mock(CpmService.class);
+        cpmScheduler = mock(CpmRecomputeScheduler.class);
         qualityGateService = mock(TaskQualityGateService.class);
         projectProgressService = mock(com.wd.api.service.ProjectProgressService.class);
-        service = new TaskCompletionService(taskRepo, siteReportRepo, configService, cpmService, qualityGateService, projectProgressService);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        service = new TaskCompletionService(taskRepo, siteReportRepo, configService, cpmScheduler, qualityGateService,
+                projectProgressService, eventPublisher);
 
         project = new CustomerProject();
         project.setId(7L);
@@ -91,7 +98,7 @@ class TaskCompletionServiceTest {
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("photo");
         verify(taskRepo, never()).save(any());
-        verify(cpmService, never()).recompute(anyLong());
+        verify(cpmScheduler, never()).requestRecompute(anyLong(), anyCollection());
     }
 
     @Test
@@ -116,9 +123,10 @@ class TaskCompletionServiceTest {
 
         assertThat(out.getStatus()).isEqualTo(Task.TaskStatus.COMPLETED);
         assertThat(out.getActualEndDate()).isEqualTo(LocalDate.now());
-        InOrder o = inOrder(taskRepo, cpmService);
+        InOrder o = inOrder(taskRepo, cpmScheduler);
         o.verify(taskRepo).save(t);
-        o.verify(cpmService).recompute(7L);
+        o.verify(cpmScheduler).requestRecompute(7L, List.of(42L));
+        verify(eventPublisher).publishEvent(any(TaskChangedEvent.class));
     }
 
     @Test
@@ -133,9 +141,10 @@ class TaskCompletionServiceTest {
 
         assertThat(out.getStatus()).isEqualTo(Task.TaskStatus.PENDING_PM_APPROVAL);
         assertThat(out.getActualEndDate()).isEqualTo(LocalDate.now());
-        InOrder o = inOrder(taskRepo, cpmService);
+        InOrder o = inOrder(taskRepo, cpmScheduler);
         o.verify(taskRepo).save(t);
-        o.verify(cpmService).recompute(7L);
+        o.verify(cpmScheduler).requestRecompute(7L, List.of(42L));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     // ----- approveCompletion -----
@@ -151,9 +160,9 @@ class TaskCompletionServiceTest {
 
         assertThat(out.getStatus()).isEqualTo(Task.TaskStatus.COMPLETED);
         assertThat(out.getRejectionReason()).isNull();
-        InOrder o = inOrder(taskRepo, cpmService);
+        InOrder o = inOrder(taskRepo, cpmScheduler);
         o.verify(taskRepo).save(t);
-        o.verify(cpmService).recompute(7L);
+        o.verify(cpmScheduler).requestRecompute(7L, List.of(42L));
     }
 
     @Test
@@ -164,7 +173,7 @@ class TaskCompletionServiceTest {
         assertThatThrownBy(() -> service.approveCompletion(42L, 99L))
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("pending approval");
-        verify(cpmService, never()).recompute(anyLong());
+        verify(cpmScheduler, never()).requestRecompute(anyLong(), anyCollection());
     }
 
     // ----- rejectCompletion -----
@@ -181,9 +190,9 @@ class TaskCompletionServiceTest {
         assertThat(out.getStatus()).isEqualTo(Task.TaskStatus.IN_PROGRESS);
         assertThat(out.getActualEndDate()).isNull();
         assertThat(out.getRejectionReason()).isEqualTo("Photo blurry, recapture");
-        InOrder o = inOrder(taskRepo, cpmService);
+        InOrder o = inOrder(taskRepo, cpmScheduler);
         o.verify(taskRepo).save(t);
-        o.verify(cpmService).recompute(7L);
+        o.verify(cpmScheduler).requestRecompute(7L, List.of(42L));
     }
 
     @Test
@@ -14,6 +14,8 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 
@@ -42,7 +44,7 @@ class TaskPredecessorServiceCpmHookTest extends TestcontainersPostgresBase {
                 b.getId(),
                 List.of(new TaskPredecessorService.PredecessorEntry(a.getId(), 0, null)));
 
-        verify(cpm, atLeastOnce()).recompute(p.getId());
+        verify(cpm, atLeastOnce()).recomputeIncremental(eq(p.getId()), anyCollection());
     }
 
     private Task newTask(CustomerProject p, String title) {
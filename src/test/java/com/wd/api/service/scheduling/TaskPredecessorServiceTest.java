@@ -27,7 +27,7 @@ class TaskPredecessorServiceTest {
 
     @Mock private TaskPredecessorRepository predecessorRepo;
     @Mock private TaskRepository taskRepo;
-    @Mock private CpmService cpmService;
+    @Mock private CpmRecomputeScheduler cpmScheduler;
     @Mock private EntityManager em;
     @InjectMocks private TaskPredecessorService service;
 
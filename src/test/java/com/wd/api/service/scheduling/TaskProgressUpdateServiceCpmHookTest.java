@@ -20,6 +20,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.util.UUID;
 
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 
@@ -54,7 +56,7 @@ class TaskProgressUpdateServiceCpmHookTest extends TestcontainersPostgresBase {
 
         progressService.updateProgress(t.getId(), 100, "done", null);
 
-        verify(cpm, atLeastOnce()).recompute(p.getId());
+        verify(cpm, atLeastOnce()).recomputeIncremental(eq(p.getId()), anyCollection());
     }
 
     @Test
@@ -69,7 +71,7 @@ class TaskProgressUpdateServiceCpmHookTest extends TestcontainersPostgresBase {
 
         progressService.updateProgress(t.getId(), 50, "halfway", null);
 
-        verify(cpm, atLeastOnce()).recompute(p.getId());
+        verify(cpm, atLeastOnce()).recomputeIncremental(eq(p.getId()), anyCollection());
     }
 
     private CustomerProject newProject() {
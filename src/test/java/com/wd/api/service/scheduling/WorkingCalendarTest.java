@@ -0,0 +1,83 @@
+package com.wd.api.service.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link WorkingCalendar} must agree with the day-by-day
+ * {@link WorkingDayCalculator} for every input — inside the indexed window,
+ * across its edges, and outside it (where it delegates).
+ */
+class WorkingCalendarTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2027, 12, 31);
+
+    @Test
+    void add_acrossSundayAndHoliday_matchesCalculator() {
+        Set<LocalDate> holidays = Set.of(LocalDate.of(2026, 8, 15)); // Sat
+        WorkingCalendar cal = WorkingCalendar.of(FROM, TO, holidays, false);
+
+        // Thu 2026-08-13 + 3: Fri 14, (Sat 15 holiday), (Sun 16), Mon 17, Tue 18
+        assertThat(cal.addWorkingDays(LocalDate.of(2026, 8, 13), 3)).isEqualTo(LocalDate.of(2026, 8, 18));
+        assertThat(cal.subtractWorkingDays(LocalDate.of(2026, 8, 18), 3)).isEqualTo(LocalDate.of(2026, 8, 13));
+        assertThat(cal.workingDaysBetween(LocalDate.of(2026, 8, 13), LocalDate.of(2026, 8, 18))).isEqualTo(3);
+    }
+
+    @Test
+    void zeroDays_returnsStart_evenOnNonWorkingDay() {
+        WorkingCalendar cal = WorkingCalendar.of(FROM, TO, Set.of(), false);
+        LocalDate sunday = LocalDate.of(2026, 6, 7);
+
+        assertThat(cal.addWorkingDays(sunday, 0)).isEqualTo(sunday);
+        assertThat(cal.subtractWorkingDays(sunday, 0)).isEqualTo(sunday);
+        assertThat(cal.workingDaysBetween(sunday, sunday)).isZero();
+    }
+
+    @Test
+    void randomisedInputs_matchCalculator_insideAndOutsideWindow() {
+        Random r = new Random(20260601L);
+        for (boolean sundayWorking : new boolean[] {false, true}) {
+            Set<LocalDate> holidays = new HashSet<>();
+            for (int i = 0; i < 40; i++) holidays.add(FROM.plusDays(r.nextInt(730)));
+            WorkingCalendar cal = WorkingCalendar.of(FROM, TO, holidays, sundayWorking);
+
+            for (int i = 0; i < 5_000; i++) {
+                // Starts range from 60 days before the window to 60 days after it.
+                LocalDate start = FROM.minusDays(60).plusDays(r.nextInt(850));
+                int days = r.nextInt(400);
+                assertThat(cal.addWorkingDays(start, days))
+                        .isEqualTo(WorkingDayCalculator.addWorkingDays(start, days, holidays, sundayWorking));
+                assertThat(cal.subtractWorkingDays(start, days))
+                        .isEqualTo(WorkingDayCalculator.subtractWorkingDays(start, days, holidays, sundayWorking));
+                LocalDate end = start.plusDays(r.nextInt(500));
+                assertThat(cal.workingDaysBetween(start, end))
+                        .isEqualTo(WorkingDayCalculator.workingDaysBetween(start, end, holidays, sundayWorking));
+            }
+        }
+    }
+
+    @Test
+    void negativeDays_throw() {
+        WorkingCalendar cal = WorkingCalendar.of(FROM, TO, Set.of(), false);
+        assertThatThrownBy(() -> cal.addWorkingDays(FROM, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cal.subtractWorkingDays(FROM, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void endBeforeStart_throws() {
+        WorkingCalendar cal = WorkingCalendar.of(FROM, TO, Set.of(), false);
+        assertThatThrownBy(() -> cal.workingDaysBetween(LocalDate.of(2026, 6, 2), LocalDate.of(2026, 6, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("before");
+    }
+}
@@ -45,6 +45,9 @@ public abstract class TestcontainersPostgresBase {
         registry.add("app.email.enabled", () -> "false");
         // app.rate-limiting.enabled: disable rate limiting to prevent 429 in tests.
         registry.add("app.rate-limiting.enabled", () -> "false");
+        // cpm.recompute.deferred: run CPM inline — @Transactional tests roll back
+        // and never commit, so after-commit recomputes would never fire.
+        registry.add("cpm.recompute.deferred", () -> "false");
         // Silence Jackson errors on lazy Hibernate proxies returned by controllers.
         registry.add("spring.jackson.serialization.fail-on-empty-beans", () -> "false");
         // Run schema-postgres.sql AFTER Hibernate has created the entity tables,
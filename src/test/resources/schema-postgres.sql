@@ -6,3 +6,14 @@
 CREATE OR REPLACE FUNCTION generate_receipt_number() RETURNS text AS
 'SELECT ''RCP-'' || LPAD((COALESCE(MAX(id), 0) + 1)::text, 6, ''0'') FROM payment_transactions'
 LANGUAGE SQL;
+
+-- V166: dashboard rollup has no entity; DashboardAggregateStore reads and
+-- writes it through JdbcTemplate.
+CREATE TABLE IF NOT EXISTS dashboard_project_rollup (
+    project_id    BIGINT        PRIMARY KEY REFERENCES customer_projects(id) ON DELETE CASCADE,
+    budget        NUMERIC(15,2) NOT NULL DEFAULT 0,
+    sqfeet        NUMERIC(10,2) NOT NULL DEFAULT 0,
+    overdue_tasks INT           NOT NULL DEFAULT 0,
+    active_delays INT           NOT NULL DEFAULT 0,
+    refreshed_at  TIMESTAMP     NOT NULL DEFAULT NOW()
+);